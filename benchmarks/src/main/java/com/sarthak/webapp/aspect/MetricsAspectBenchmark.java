@@ -0,0 +1,61 @@
+package com.sarthak.webapp.aspect;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of {@link MetricsAspect}: the same controller method called
+ * directly and through an AOP proxy carrying the aspect.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsAspectBenchmark {
+
+    private SelfController direct;
+    private SelfController advised;
+
+    @Setup
+    public void setUp() {
+        direct = new SelfController();
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(new SelfController());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new MetricsAspect(new SimpleMeterRegistry()));
+        advised = factory.getProxy();
+    }
+
+    @Benchmark
+    public String baseline() {
+        return direct.getSelf();
+    }
+
+    @Benchmark
+    public String withMetricsAspect() {
+        return advised.getSelf();
+    }
+
+    public static class SelfController {
+
+        @GetMapping("/v1/user/self")
+        public String getSelf() {
+            return "self";
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.sarthak.webapp.config;
+
+import com.sarthak.webapp.service.UserService;
+import com.sarthak.webapp.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request-path checks in {@link UserVerificationInterceptor#preHandle}. The
+ * verification lookup is stubbed so only the interceptor itself is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserVerificationInterceptorBenchmark {
+
+    @Param({"GET /v1/user/self", "POST /v1/user/self/pic", "POST /v1/user", "GET /healthz"})
+    public String request;
+
+    private UserVerificationInterceptor interceptor;
+    private MockHttpServletRequest httpRequest;
+    private MockHttpServletResponse httpResponse;
+
+    @Setup
+    public void setUp() {
+        interceptor = new UserVerificationInterceptor(new VerifiedUserService());
+
+        String[] parts = request.split(" ", 2);
+        httpRequest = new MockHttpServletRequest(parts[0], parts[1]);
+        httpResponse = new MockHttpServletResponse();
+
+        // Benchmark threads are not the setup thread
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                "jane.doe@example.com", null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+    }
+
+    @Benchmark
+    public boolean preHandle() {
+        return interceptor.preHandle(httpRequest, httpResponse, null);
+    }
+
+    private static final class VerifiedUserService extends UserService {
+
+        private VerifiedUserService() {
+            super(null, null, null, null, null, null, new ShardRouter(null, 1, Duration.ofSeconds(5)), null,
+                    new SimpleMeterRegistry());
+        }
+
+        @Override
+        public boolean isUserVerified(String email) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.sarthak.webapp.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response body serialization with an {@link ObjectMapper} configured like
+ * the application's {@code JsonConfig}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private UserResponseDTO user;
+    private ImageResponseDTO image;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = new ObjectMapper();
+
+        user = new UserResponseDTO();
+        user.setId(42L);
+        user.setFirstName("Jane");
+        user.setLastName("Doe");
+        user.setEmail("jane.doe@example.com");
+        user.setAccountCreated("2024-01-15T10:30");
+        user.setAccountUpdated("2024-02-01T08:00");
+
+        image = new ImageResponseDTO();
+        image.setFileName("7c9e6679-7425-40de-944b-e07fc1f90ae7.png");
+        image.setId("0f8fad5b-d9cb-469f-a165-70867728950e");
+        image.setUrl("csye6225-images/users/42/7c9e6679-7425-40de-944b-e07fc1f90ae7.png");
+        image.setUploadDate("2024-01-15");
+        image.setUserId("42");
+
+        // Serializers are created lazily; keep that out of the measurement
+        objectMapper.writeValueAsBytes(user);
+        objectMapper.writeValueAsBytes(image);
+    }
+
+    @Benchmark
+    public byte[] serializeUserResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] serializeImageResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(image);
+    }
+}
@@ -0,0 +1,75 @@
+package com.sarthak.webapp.service;
+
+import com.sarthak.webapp.model.ImageResponseDTO;
+import com.sarthak.webapp.model.User;
+import com.sarthak.webapp.model.UserImage;
+import com.sarthak.webapp.resilience.DependencyGuards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * S3 key building and DTO mapping done for every picture upload and read.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageServiceBenchmark {
+
+    private ImageService imageService;
+    private UserImage image;
+    private Long userId;
+    private String fileName;
+
+    @Setup
+    public void setUp() {
+        // Only the S3 guard's setup runs here; the measured methods touch neither S3 nor the database
+        Duration wait = Duration.ofMillis(100);
+        Duration timeout = Duration.ofSeconds(10);
+        DependencyGuards guards = new DependencyGuards(new SimpleMeterRegistry(),
+                20, wait, timeout, 10, wait, timeout, 10, wait, timeout, 50f, 20, 10, timeout);
+        imageService = new ImageService(null, null, null, guards, new SimpleMeterRegistry(), "csye6225-images",
+                DataSize.ofMegabytes(10), DataSize.ofKilobytes(64), 10_000, 40_000_000L);
+
+        User user = new User();
+        user.setId(42L);
+
+        image = new UserImage();
+        image.setId("0f8fad5b-d9cb-469f-a165-70867728950e");
+        image.setFileName("7c9e6679-7425-40de-944b-e07fc1f90ae7.png");
+        image.setUrl("users/42/7c9e6679-7425-40de-944b-e07fc1f90ae7.png");
+        image.setUploadDate(LocalDateTime.of(2024, 1, 15, 10, 30));
+        image.setUser(user);
+        image.setContentType("image/png");
+        image.setSize(524_288L);
+
+        userId = 42L;
+        fileName = "7c9e6679-7425-40de-944b-e07fc1f90ae7.png";
+    }
+
+    @Benchmark
+    public String buildS3Key() {
+        return imageService.buildS3Key(userId, fileName);
+    }
+
+    @Benchmark
+    public ImageResponseDTO mapToResponseDto() {
+        return imageService.mapToResponseDto(image);
+    }
+}
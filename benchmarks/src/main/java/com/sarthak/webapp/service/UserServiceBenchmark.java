@@ -0,0 +1,68 @@
+package com.sarthak.webapp.service;
+
+import com.sarthak.webapp.model.User;
+import com.sarthak.webapp.model.UserResponseDTO;
+import com.sarthak.webapp.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to response DTO mapping done on every user read and write.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+
+    private UserService userService;
+    private User user;
+    private User updatedUser;
+
+    @Setup
+    public void setUp() {
+        // Only the mapping is measured; nothing here reaches a repository or a shard
+        userService = new UserService(null, null, null, null, null, null,
+                new ShardRouter(null, 1, Duration.ofSeconds(5)), null, new SimpleMeterRegistry());
+
+        user = new User();
+        user.setId(42L);
+        user.setFirstName("Jane");
+        user.setLastName("Doe");
+        user.setEmail("jane.doe@example.com");
+        user.setAccountCreated(LocalDateTime.of(2024, 1, 15, 10, 30));
+
+        updatedUser = new User();
+        updatedUser.setId(43L);
+        updatedUser.setFirstName("John");
+        updatedUser.setLastName("Doe");
+        updatedUser.setEmail("john.doe@example.com");
+        updatedUser.setAccountCreated(LocalDateTime.of(2024, 1, 15, 10, 30));
+        updatedUser.setAccountUpdated(LocalDateTime.of(2024, 2, 1, 8, 0));
+    }
+
+    @Benchmark
+    public UserResponseDTO mapToResponseDTO() {
+        return userService.mapToResponseDTO(user);
+    }
+
+    @Benchmark
+    public UserResponseDTO mapToResponseDTOWithUpdate() {
+        return userService.mapToResponseDTO(updatedUser);
+    }
+}
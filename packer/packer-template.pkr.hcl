@@ -88,6 +88,11 @@ build {
     destination = "/tmp/setup_application.sh"
   }
 
+  provisioner "file" {
+    source      = "scripts/setup_fast_start.sh"
+    destination = "/tmp/setup_fast_start.sh"
+  }
+
   provisioner "file" {
     source      = "config/csye6225.service"
     destination = "/tmp/csye6225.service"
@@ -41,6 +41,9 @@ DB_PASSWORD=\${db_password}
 # AWS Configuration
 AWS_REGION=\${aws_region}
 S3_BUCKET_NAME=\${s3_bucket}
+
+# Metrics export (cloudwatch | statsd via the local CloudWatch agent)
+METRICS_EXPORT=statsd
 EOF
 
 chown csye6225:csye6225 /etc/csye6225/application-env
@@ -69,25 +72,169 @@ spring.jpa.show-sql=false
 # File Upload Configuration
 spring.servlet.multipart.max-file-size=10MB
 spring.servlet.multipart.max-request-size=10MB
-spring.servlet.multipart.enabled=true
+# Image uploads read the multipart body themselves; max-request-size is still their limit
+spring.servlet.multipart.enabled=false
 
 # Logging Configuration
 logging.file.name=/var/log/webapp/application.log
 logging.level.root=INFO
 logging.level.com.sarthak.webapp=DEBUG
 logging.level.org.springframework.web=INFO
+webapp.logging.request-sample-rate=0.1
 
 # Metrics Configuration
-management.endpoints.web.exposure.include=health,metrics
+# Everything but health needs an account listed in webapp.admin.emails
+management.endpoints.web.exposure.include=health,metrics,prometheus,jfr
 management.metrics.export.cloudwatch.enabled=true
 management.metrics.export.cloudwatch.namespace=CSYE6225/WebApp
 management.metrics.export.cloudwatch.step=1m
+webapp.metrics.export=\${METRICS_EXPORT:cloudwatch}
+management.statsd.metrics.export.enabled=false
+management.observations.annotations.enabled=true
+management.metrics.distribution.percentiles-histogram.http.response.time=true
+management.metrics.distribution.percentiles-histogram.webapp=true
+management.metrics.distribution.percentiles-histogram.image=true
+management.metrics.distribution.percentiles-histogram.api=true
+management.metrics.distribution.percentiles-histogram.s3=true
+management.metrics.distribution.percentiles-histogram.user=true
+management.metrics.distribution.percentiles-histogram.db=true
+management.metrics.distribution.percentiles.webapp=0.5,0.95,0.99
+management.metrics.distribution.minimum-expected-value.webapp=100us
+management.metrics.distribution.maximum-expected-value.webapp=10s
+management.metrics.distribution.slo.webapp.s3.operation.time=25ms,50ms,100ms,250ms,500ms,1s
+management.metrics.distribution.slo.webapp.db.operation.time=5ms,10ms,25ms,50ms,100ms,250ms
+management.metrics.distribution.slo.s3=25ms,50ms,100ms,250ms,500ms,1s
+management.metrics.distribution.slo.image=50ms,100ms,250ms,500ms,1s,2s
+management.metrics.distribution.slo.user=50ms,100ms,250ms,500ms,1s
+management.metrics.distribution.slo.http.response.time=100ms,200ms,300ms,500ms,1s
+# Tracing (OTLP to the local CloudWatch agent)
+management.tracing.sampling.probability=0.05
+management.otlp.tracing.endpoint=http://localhost:4318/v1/traces
+webapp.tracing.slow-threshold=500ms
+jdbc.includes=connection,query
+jdbc.datasource-proxy.include-parameter-values=false
+
+# Warm-up before /healthz reports ready
+webapp.warmup.enabled=true
+webapp.warmup.iterations=100
+webapp.warmup.password-hashes=5
+webapp.warmup.timeout=60s
+
+# Background dependency probes behind /healthz and /readyz
+webapp.health.probe-interval=10s
+webapp.health.probe-timeout=3s
+webapp.health.stale-after=30s
+
+# Adaptive concurrency limits for the user and image endpoints (503 + Retry-After when reached)
+webapp.concurrency.enabled=true
+webapp.concurrency.initial-limit=20
+webapp.concurrency.min-limit=4
+webapp.concurrency.max-limit=200
+webapp.concurrency.retry-after=1s
+
+# Per-dependency bulkheads, timeouts and circuit breakers
+spring.datasource.hikari.connection-timeout=2000
+webapp.resilience.database.max-concurrent-calls=20
+webapp.resilience.database.max-wait=200ms
+webapp.resilience.database.timeout=5s
+webapp.resilience.s3.max-concurrent-calls=10
+webapp.resilience.s3.max-wait=100ms
+webapp.resilience.s3.timeout=10s
+webapp.resilience.sns.max-concurrent-calls=10
+webapp.resilience.sns.max-wait=100ms
+webapp.resilience.sns.timeout=3s
+webapp.resilience.circuit-breaker.failure-rate-threshold=50
+webapp.resilience.circuit-breaker.sliding-window-size=20
+webapp.resilience.circuit-breaker.minimum-calls=10
+webapp.resilience.circuit-breaker.open-duration=10s
+
+# Request deadlines: X-Request-Timeout header (ms), else these per-route budgets
+webapp.deadline.default=2s
+webapp.deadline.images=10s
+webapp.deadline.uploads=30s
+webapp.deadline.max=30s
+
+# Credential-stuffing shield in front of Basic auth
+server.forward-headers-strategy=native
+webapp.auth.window=5m
+webapp.auth.max-failures-per-email=10
+webapp.auth.max-failures-per-ip=50
+webapp.auth.tracker-slots=16384
+webapp.auth.unknown-email-ttl=2m
+webapp.auth.unknown-email-max=100000
+
+webapp.email-filter.enabled=true
+webapp.email-filter.expected-users=100000
+webapp.email-filter.fpp=0.01
+webapp.email-filter.max-fpp-ratio=2.0
+webapp.email-filter.max-stages=4
+webapp.email-filter.refresh-interval=5s
+webapp.email-filter.refresh-overlap=5m
+webapp.email-filter.snapshot-interval=5m
+webapp.email-filter.snapshot-path=/opt/csye6225/email-filter.bin
+
+webapp.http.cache.user-max-age=0s
+webapp.http.cache.image-max-age=0s
+
+webapp.idempotency.enabled=true
+webapp.idempotency.ttl=24h
+webapp.idempotency.max-stored-bytes=16777216
+webapp.idempotency.max-wait=10s
+webapp.idempotency.max-unread-bytes=65536
+
+webapp.uploads.part-size=5MB
+webapp.uploads.session-ttl=24h
+webapp.uploads.max-open-sessions=5
+webapp.uploads.cleanup-interval=10m
+webapp.uploads.buffer-dir=/opt/csye6225/uploads
+
+webapp.images.max-header-bytes=64KB
+webapp.images.max-dimension=10000
+webapp.images.max-pixels=40000000
+
+webapp.reconciliation.enabled=true
+webapp.reconciliation.delete=false
+webapp.reconciliation.interval=24h
+webapp.reconciliation.grace-period=1h
+webapp.reconciliation.lease=10m
+webapp.reconciliation.page-size=1000
+webapp.reconciliation.delete-batch-size=100
+webapp.reconciliation.max-calls-per-second=5
+
+# Off: every user on spring.datasource. Add shards as webapp.sharding.shards.<n>.url/username/password
+webapp.sharding.enabled=false
+webapp.sharding.refresh-interval=5s
+webapp.sharding.move-batch-size=32
+webapp.sharding.move-drain=60s
+#webapp.sharding.shards.1.url=jdbc:postgresql://<second-host>:5432/csye6225
+
+# Admin listing and export (/v1/admin/users): comma-separated emails of verified users, lower-case, matched exactly
+webapp.admin.emails=
+webapp.admin.max-page-size=1000
+# Exports stream for as long as they take
+spring.mvc.async.request-timeout=1h
+
+# On-demand JFR recordings (/actuator/jfr)
+webapp.profiling.jfr.max-duration=10m
+webapp.profiling.jfr.max-size=100MB
 EOF
 
 chown csye6225:csye6225 /opt/csye6225/application.properties
 chmod 644 /opt/csye6225/application.properties
 log_message "Application properties configured"
 
+# Exploded class path, AOT context and AppCDS archive for faster startup
+if [ -f /tmp/setup_fast_start.sh ]; then
+    bash /tmp/setup_fast_start.sh /opt/csye6225/webapp.jar /opt/csye6225 file:/opt/csye6225/application.properties \
+        | tee -a /var/log/webapp/application.log
+    chown -R csye6225:csye6225 /opt/csye6225/lib /opt/csye6225/app.jar /opt/csye6225/fast-start.args
+    [ -f /opt/csye6225/webapp.jsa ] && chown csye6225:csye6225 /opt/csye6225/webapp.jsa
+    log_message "Fast-start layout configured"
+else
+    log_message "ERROR: setup_fast_start.sh not found"
+    exit 1
+fi
+
 # Enable and start services
 systemctl daemon-reload
 systemctl enable csye6225
@@ -0,0 +1,78 @@
+#!/bin/bash
+set -e
+
+# Lays the Spring Boot jar out for fast startup and bakes a dynamic AppCDS archive.
+#
+# The nested jars of a Boot fat jar cannot be class-data shared, so the dependencies are
+# extracted to lib/ and the application classes repackaged as app.jar. A training run
+# starts the context (against no database) and exits after refresh; the JVM then dumps
+# every loaded class into webapp.jsa. The service starts with the generated argument file.
+#
+# Usage: setup_fast_start.sh <webapp.jar> <install dir> <spring.config.location>
+
+JAR=${1:-/opt/csye6225/webapp.jar}
+INSTALL_DIR=${2:-/opt/csye6225}
+CONFIG_LOCATION=${3:-file:/opt/csye6225/application.properties}
+
+ARCHIVE="$INSTALL_DIR/webapp.jsa"
+ARGS_FILE="$INSTALL_DIR/fast-start.args"
+WORK_DIR=$(mktemp -d)
+trap 'rm -rf "$WORK_DIR"' EXIT
+
+log_message() {
+    echo "$(date '+%Y-%m-%d %H:%M:%S') [INFO] $1"
+}
+
+# Extract dependencies and repackage application classes; CDS only accepts jars on the class path
+rm -rf "$INSTALL_DIR/lib" "$INSTALL_DIR/app.jar" "$ARCHIVE"
+mkdir -p "$INSTALL_DIR/lib"
+unzip -q -o -j "$JAR" 'BOOT-INF/lib/*' -d "$INSTALL_DIR/lib"
+unzip -q -o "$JAR" 'BOOT-INF/classes/*' 'BOOT-INF/classpath.idx' 'META-INF/MANIFEST.MF' -d "$WORK_DIR"
+jar --create --file "$INSTALL_DIR/app.jar" -C "$WORK_DIR/BOOT-INF/classes" .
+
+MAIN_CLASS=$(grep '^Start-Class:' "$WORK_DIR/META-INF/MANIFEST.MF" | cut -d' ' -f2 | tr -d '\r')
+# Same order as the fat jar; the archive is only used when the class path matches the training run
+CLASSPATH="$INSTALL_DIR/app.jar"
+while read -r entry; do
+    CLASSPATH="$CLASSPATH:$INSTALL_DIR/lib/$(basename "$entry")"
+done < <(sed -n 's/^- "\(.*\)"$/\1/p' "$WORK_DIR/BOOT-INF/classpath.idx")
+log_message "Extracted $(ls "$INSTALL_DIR/lib" | wc -l) dependencies for $MAIN_CLASS"
+
+# Use the ahead-of-time processed context when the jar was built with -Pfast-start
+AOT_OPTS=""
+if [ -n "$(find "$WORK_DIR/BOOT-INF/classes" -name '*__ApplicationContextInitializer.class' -print -quit)" ]; then
+    AOT_OPTS="-Dspring.aot.enabled=true"
+    log_message "AOT-processed context found"
+fi
+
+# Training run: no database at bake time, so Hibernate must not read JDBC metadata
+if env \
+    DB_URL=jdbc:postgresql://127.0.0.1:5432/training \
+    DB_USER=training DB_PASSWORD=training \
+    AWS_REGION=us-east-1 S3_BUCKET_NAME=training METRICS_EXPORT=statsd \
+    AWS_SNS_TOPIC_ARN=arn:aws:sns:us-east-1:000000000000:training \
+    USER_VERIFICATION_EXPIRY_MINUTES=2 \
+    java -XX:ArchiveClassesAtExit="$ARCHIVE" $AOT_OPTS \
+    -Dspring.config.location="$CONFIG_LOCATION" \
+    -Dspring.context.exit=onRefresh \
+    -Dspring.jpa.hibernate.ddl-auto=none \
+    -Dspring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect \
+    -Dspring.jpa.properties.hibernate.temp.use_jdbc_metadata_defaults=false \
+    -Dlogging.file.name="$WORK_DIR/training.log" \
+    -cp "$CLASSPATH" "$MAIN_CLASS" > "$WORK_DIR/training.out" 2>&1 && [ -f "$ARCHIVE" ]; then
+    log_message "CDS archive created: $(du -h "$ARCHIVE" | cut -f1)"
+    CDS_OPTS="-XX:SharedArchiveFile=$ARCHIVE -Xshare:auto"
+else
+    # Startup still works without the archive, just slower
+    log_message "WARNING: CDS training run failed, starting without an archive"
+    tail -n 50 "$WORK_DIR/training.out"
+    rm -f "$ARCHIVE"
+    CDS_OPTS=""
+fi
+
+cat > "$ARGS_FILE" << EOF
+$CDS_OPTS $AOT_OPTS
+-cp $CLASSPATH
+$MAIN_CLASS
+EOF
+log_message "Fast-start arguments written to $ARGS_FILE"
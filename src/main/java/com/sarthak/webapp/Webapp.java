@@ -1,13 +1,20 @@
 package com.sarthak.webapp;
 
+import com.sarthak.webapp.config.NativeImageHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeImageHints.class)
 public class Webapp {
 
 	public static void main(String[] args) {
-		SpringApplication.run(Webapp.class, args);
+		SpringApplication application = new SpringApplication(Webapp.class);
+		// Records startup steps for StartupTimingLogger, which drains the buffer once ready
+		application.setApplicationStartup(new BufferingApplicationStartup(10_000));
+		application.run(args);
 	}
 
 }
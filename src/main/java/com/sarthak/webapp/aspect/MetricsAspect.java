@@ -54,7 +54,7 @@ public class MetricsAspect {
         String path = getPath(joinPoint);
 
         logger.debug("Starting request measurement - Method: {} Path: {}", httpMethod, path);
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
 
         try {
             // Record request start
@@ -66,16 +66,16 @@ public class MetricsAspect {
             Object result = joinPoint.proceed();
 
             // Record successful completion
-            long duration = System.currentTimeMillis() - startTime;
+            long duration = System.nanoTime() - startTime;
             Timer.builder("http.response.time")
                     .tag("method", httpMethod)
                     .tag("path", path)
                     .tag("status", "success")
                     .register(meterRegistry)
-                    .record(duration, TimeUnit.MILLISECONDS);
+                    .record(duration, TimeUnit.NANOSECONDS);
 
             logger.debug("Completed request - Method: {} Path: {} Duration: {}ms",
-                    httpMethod, path, duration);
+                    httpMethod, path, TimeUnit.NANOSECONDS.toMillis(duration));
 
             meterRegistry.counter("http.requests",
                     "method", httpMethod,
@@ -85,10 +85,10 @@ public class MetricsAspect {
             return result;
         } catch (Exception e) {
             // Record error metrics
-            long duration = System.currentTimeMillis() - startTime;
+            long duration = System.nanoTime() - startTime;
 
             logger.error("Request failed - Method: {} Path: {} Error: {} Duration: {}ms",
-                    httpMethod, path, e.getClass().getSimpleName(), duration);
+                    httpMethod, path, e.getClass().getSimpleName(), TimeUnit.NANOSECONDS.toMillis(duration));
 
             meterRegistry.counter("http.errors",
                     "method", httpMethod,
@@ -100,7 +100,7 @@ public class MetricsAspect {
                     .tag("path", path)
                     .tag("status", "error")
                     .register(meterRegistry)
-                    .record(duration, TimeUnit.MILLISECONDS);
+                    .record(duration, TimeUnit.NANOSECONDS);
 
             throw e;
         }
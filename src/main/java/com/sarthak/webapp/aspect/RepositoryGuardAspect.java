@@ -0,0 +1,27 @@
+package com.sarthak.webapp.aspect;
+
+import com.sarthak.webapp.resilience.DependencyGuards;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs every call on the application's Spring Data repositories through the
+ * database bulkhead and circuit breaker.
+ */
+@Aspect
+@Component
+public class RepositoryGuardAspect {
+
+    private final DependencyGuards guards;
+
+    public RepositoryGuardAspect(DependencyGuards guards) {
+        this.guards = guards;
+    }
+
+    @Around("execution(* com.sarthak.webapp.repository..*.*(..))")
+    public Object guardRepositoryCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        return guards.database().callChecked(joinPoint::proceed);
+    }
+}
@@ -0,0 +1,51 @@
+package com.sarthak.webapp.cache;
+
+import org.springframework.http.CacheControl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.StringJoiner;
+
+/**
+ * Validators and cache headers for conditional GETs. ETags are derived from a
+ * representation's identity and last-modified time, which can be read with a
+ * narrow query, so a request can be answered with {@code 304} before the
+ * entity is loaded or the body serialized.
+ */
+public final class ConditionalRequests {
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * A strong ETag (quoted) that changes whenever any of {@code parts} does.
+     */
+    public static String etag(Object... parts) {
+        StringJoiner joined = new StringJoiner("|");
+        for (Object part : parts) {
+            joined.add(String.valueOf(part));
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(joined.toString().getBytes(StandardCharsets.UTF_8));
+            // Hashed so ids and timestamps are not exposed; 128 bits is plenty for a validator
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Private, since every response is per user. A zero max-age means clients
+     * must revalidate on every use, which is cheap with an ETag.
+     */
+    public static CacheControl cacheControl(Duration maxAge) {
+        CacheControl cacheControl = maxAge.isZero() || maxAge.isNegative()
+                ? CacheControl.noCache()
+                : CacheControl.maxAge(maxAge);
+        return cacheControl.cachePrivate();
+    }
+}
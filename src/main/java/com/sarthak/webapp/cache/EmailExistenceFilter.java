@@ -0,0 +1,413 @@
+package com.sarthak.webapp.cache;
+
+import com.sarthak.webapp.repository.UserRepository;
+import com.sarthak.webapp.sharding.ShardKeys;
+import com.sarthak.webapp.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Answers "could a user with this email, in any case, exist?" from memory, so duplicate
+ * checks on sign-up and authentication attempts for unknown emails can skip
+ * the database when the answer is a definite no.
+ * <p>
+ * The filter is built by streaming {@code users} once, then kept current by
+ * adding emails as this instance creates users and by a periodic scan of rows
+ * created since the previous scan started, which also picks up users created
+ * by other instances. A sign-up stamps {@code account_created} and takes its
+ * id well before it commits, so each scan reaches back
+ * {@code webapp.email-filter.refresh-overlap} (longer than any sign-up
+ * transaction) to catch rows that committed after the previous scan passed
+ * them. With sharding, every shard is scanned. Until the first build finishes every email counts as
+ * possibly existing, so the filter can only ever save lookups, never hide a
+ * user. A false positive costs the lookup the filter would have saved.
+ * <p>
+ * The filter is written to {@code webapp.email-filter.snapshot-path}
+ * periodically and at shutdown; on startup a valid snapshot is loaded and
+ * only rows created since are scanned. The highest id per shard is kept with
+ * it to notice a database that is behind the snapshot. It is rebuilt from scratch in the
+ * background when the observed false-positive rate drifts above
+ * {@code max-fpp-ratio} times the target, or when growth has left it with
+ * more than {@code max-stages} stages.
+ */
+@Component
+public class EmailExistenceFilter implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(EmailExistenceFilter.class);
+
+    private static final int SNAPSHOT_FORMAT = 0x45460003;
+    private static final long MIN_FPP_SAMPLES = 1000;
+
+    private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final long expectedUsers;
+    private final double targetFpp;
+    private final double maxFppRatio;
+    private final int maxStages;
+    private final Path snapshotPath;
+    private final Duration refreshInterval;
+    private final Duration refreshOverlap;
+    private final Duration snapshotInterval;
+    private final ScheduledExecutorService scheduler;
+
+    private final Counter definiteMisses;
+    private final Counter possibleHits;
+    private final Counter falsePositiveCounter;
+    private final Counter rebuilds;
+    private final AtomicLong negativeLookups = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    private volatile ScalableBloomFilter filter;
+    private volatile ScalableBloomFilter building;
+    private volatile boolean running;
+    private long[] highestIds;
+    // Rows created before this were seen by a completed scan, once they committed
+    private LocalDateTime scannedUpTo;
+    private boolean dirty;
+
+    public EmailExistenceFilter(UserRepository userRepository,
+                                ShardRouter shardRouter,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${webapp.email-filter.enabled:true}") boolean enabled,
+                                @Value("${webapp.email-filter.expected-users:100000}") long expectedUsers,
+                                @Value("${webapp.email-filter.fpp:0.01}") double targetFpp,
+                                @Value("${webapp.email-filter.max-fpp-ratio:2.0}") double maxFppRatio,
+                                @Value("${webapp.email-filter.max-stages:4}") int maxStages,
+                                @Value("${webapp.email-filter.snapshot-path:${java.io.tmpdir}/webapp-email-filter.bin}") Path snapshotPath,
+                                @Value("${webapp.email-filter.refresh-interval:5s}") Duration refreshInterval,
+                                @Value("${webapp.email-filter.refresh-overlap:5m}") Duration refreshOverlap,
+                                @Value("${webapp.email-filter.snapshot-interval:5m}") Duration snapshotInterval) {
+        this.userRepository = userRepository;
+        this.shardRouter = shardRouter;
+        this.highestIds = new long[shardRouter.shardCount()];
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.expectedUsers = expectedUsers;
+        this.targetFpp = targetFpp;
+        this.maxFppRatio = maxFppRatio;
+        this.maxStages = maxStages;
+        this.snapshotPath = snapshotPath;
+        this.refreshInterval = refreshInterval;
+        this.refreshOverlap = refreshOverlap;
+        this.snapshotInterval = snapshotInterval;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "email-filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.definiteMisses = Counter.builder("webapp.email.filter.lookups")
+                .description("Email existence checks answered by the filter")
+                .tag("result", "absent")
+                .register(meterRegistry);
+        this.possibleHits = Counter.builder("webapp.email.filter.lookups")
+                .description("Email existence checks answered by the filter")
+                .tag("result", "maybe")
+                .register(meterRegistry);
+        this.falsePositiveCounter = Counter.builder("webapp.email.filter.false.positives")
+                .description("Emails the filter reported as possibly existing that the database did not have")
+                .register(meterRegistry);
+        this.rebuilds = Counter.builder("webapp.email.filter.rebuilds")
+                .description("Full rebuilds of the email filter from the users table")
+                .register(meterRegistry);
+        Gauge.builder("webapp.email.filter.size", this, f -> f.filter != null ? f.filter.approximateCount() : 0)
+                .description("Emails held in the filter")
+                .register(meterRegistry);
+        Gauge.builder("webapp.email.filter.expected.fpp", this, f -> f.filter != null ? f.filter.expectedFpp() : 1)
+                .description("False-positive probability implied by the filter's fill")
+                .register(meterRegistry);
+    }
+
+    /**
+     * False only if no user with this email, in any case, exists.
+     */
+    public boolean mightExist(String email) {
+        ScalableBloomFilter current = filter;
+        if (current == null || email == null) {
+            return true;
+        }
+        if (current.mightContain(ShardKeys.normalize(email))) {
+            possibleHits.increment();
+            return true;
+        }
+        definiteMisses.increment();
+        negativeLookups.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Records that {@link #mightExist} answered true for an email the database did not have.
+     */
+    public void recordFalsePositive() {
+        falsePositiveCounter.increment();
+        falsePositives.incrementAndGet();
+        negativeLookups.incrementAndGet();
+    }
+
+    /**
+     * Adds a newly created user's email once the surrounding transaction, if any, commits.
+     * Adding only after commit means a concurrent rebuild either sees the row or sees the add.
+     */
+    public void add(String email) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            addNow(email);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                addNow(email);
+            }
+        });
+    }
+
+    private void addNow(String email) {
+        String key = ShardKeys.normalize(email);
+        // Read the rebuild target first: once it is cleared, the swapped-in filter is current
+        ScalableBloomFilter next = building;
+        if (next != null) {
+            next.add(key);
+        }
+        ScalableBloomFilter current = filter;
+        if (current != null) {
+            current.add(key);
+        }
+    }
+
+    private void initialize() {
+        ScalableBloomFilter loaded = loadSnapshot();
+        if (loaded != null) {
+            filter = loaded;
+            refresh();
+            logger.info("Email filter loaded from snapshot with {} emails, up to ids {} created before {}",
+                    loaded.approximateCount(), Arrays.toString(highestIds), scannedUpTo);
+        } else {
+            rebuild("no usable snapshot");
+        }
+    }
+
+    private void rebuild(String reason) {
+        long start = System.nanoTime();
+        ScalableBloomFilter current = filter;
+        long capacity = Math.max(expectedUsers, current != null ? current.approximateCount() * 2 : 0);
+        ScalableBloomFilter next = new ScalableBloomFilter(capacity, targetFpp);
+        building = next;
+        try {
+            LocalDateTime scanStart = LocalDateTime.now();
+            long[] lastIds = new long[highestIds.length];
+            for (int shard = 0; shard < lastIds.length; shard++) {
+                lastIds[shard] = scan(next, shard, () -> userRepository.streamEmailsAfter(0));
+            }
+            filter = next;
+            highestIds = lastIds;
+            scannedUpTo = scanStart;
+            negativeLookups.set(0);
+            falsePositives.set(0);
+            dirty = true;
+        } finally {
+            building = null;
+        }
+        rebuilds.increment();
+        logger.info("Email filter rebuilt ({}) with {} emails in {} ms", reason, next.approximateCount(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void refresh() {
+        ScalableBloomFilter current = filter;
+        LocalDateTime scanStart = LocalDateTime.now();
+        LocalDateTime since = scannedUpTo.minus(refreshOverlap);
+        for (int shard = 0; shard < highestIds.length; shard++) {
+            long lastId = scan(current, shard, () -> userRepository.streamEmailsCreatedSince(since));
+            if (lastId > 0) {
+                highestIds[shard] = Math.max(highestIds[shard], lastId);
+                dirty = true;
+            }
+        }
+        scannedUpTo = scanStart;
+    }
+
+    // Adds the emails of the rows to the target, returning the highest id seen or 0 if there were none
+    private long scan(ScalableBloomFilter target, int shard, Supplier<Stream<UserRepository.UserEmail>> query) {
+        Long lastId = shardRouter.call(shard, () -> readOnlyTransaction.execute(status -> {
+            long last = 0;
+            try (Stream<UserRepository.UserEmail> rows = query.get()) {
+                Iterator<UserRepository.UserEmail> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    UserRepository.UserEmail row = iterator.next();
+                    if (row.getEmail() != null) {
+                        target.add(ShardKeys.normalize(row.getEmail()));
+                    }
+                    last = Math.max(last, row.getId());
+                }
+            }
+            return last;
+        }));
+        return lastId != null ? lastId : 0;
+    }
+
+    private boolean drifted(ScalableBloomFilter current) {
+        if (current.stageCount() > maxStages) {
+            return true;
+        }
+        long negatives = negativeLookups.get();
+        return negatives >= MIN_FPP_SAMPLES
+                && (double) falsePositives.get() / negatives > targetFpp * maxFppRatio;
+    }
+
+    void maintain() {
+        try {
+            ScalableBloomFilter current = filter;
+            if (current == null) {
+                initialize();
+            } else if (drifted(current)) {
+                rebuild(current.stageCount() > maxStages ? "too many stages" : "false-positive rate drifted");
+            } else {
+                refresh();
+            }
+        } catch (RuntimeException e) {
+            // Leaves the previous filter, or none, in place; the next run retries
+            logger.warn("Email filter maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    private ScalableBloomFilter loadSnapshot() {
+        if (!Files.isReadable(snapshotPath)) {
+            return null;
+        }
+        try (InputStream file = Files.newInputStream(snapshotPath);
+             CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(file), new CRC32());
+             DataInputStream in = new DataInputStream(checked)) {
+            if (in.readInt() != SNAPSHOT_FORMAT) {
+                logger.warn("Email filter snapshot {} is in an older format, rebuilding", snapshotPath);
+                return null;
+            }
+            int shards = in.readInt();
+            if (shards != highestIds.length) {
+                logger.warn("Email filter snapshot {} is for {} shards, rebuilding", snapshotPath, shards);
+                return null;
+            }
+            long[] snapshotHighestIds = new long[shards];
+            for (int shard = 0; shard < shards; shard++) {
+                snapshotHighestIds[shard] = in.readLong();
+            }
+            LocalDateTime snapshotScannedUpTo = LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC);
+            ScalableBloomFilter loaded = ScalableBloomFilter.readFrom(in);
+            long expectedChecksum = checked.getChecksum().getValue();
+            if (in.readLong() != expectedChecksum) {
+                logger.warn("Email filter snapshot {} is corrupt, rebuilding", snapshotPath);
+                return null;
+            }
+            // A smaller table than at snapshot time means a different or restored database
+            for (int shard = 0; shard < shards; shard++) {
+                if (shardRouter.call(shard, userRepository::findMaxId) < snapshotHighestIds[shard]) {
+                    logger.warn("Email filter snapshot {} is ahead of the database, rebuilding", snapshotPath);
+                    return null;
+                }
+            }
+            highestIds = snapshotHighestIds;
+            scannedUpTo = snapshotScannedUpTo;
+            return loaded;
+        } catch (IOException e) {
+            logger.warn("Could not read email filter snapshot {}: {}", snapshotPath, e.getMessage());
+            return null;
+        }
+    }
+
+    void saveSnapshot() {
+        ScalableBloomFilter current = filter;
+        if (current == null || !dirty) {
+            return;
+        }
+        Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(snapshotPath.toAbsolutePath().getParent());
+            try (OutputStream file = Files.newOutputStream(temp);
+                 CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file), new CRC32());
+                 DataOutputStream out = new DataOutputStream(checked)) {
+                out.writeInt(SNAPSHOT_FORMAT);
+                out.writeInt(highestIds.length);
+                for (long highestId : highestIds) {
+                    out.writeLong(highestId);
+                }
+                out.writeLong(scannedUpTo.toEpochSecond(ZoneOffset.UTC));
+                current.writeTo(out);
+                out.flush();
+                out.writeLong(checked.getChecksum().getValue());
+            }
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+            logger.debug("Email filter snapshot written to {}", snapshotPath);
+        } catch (IOException e) {
+            logger.warn("Could not write email filter snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            logger.info("Email filter disabled");
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::maintain, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::saveSnapshot, snapshotInterval.toMillis(),
+                snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdown();
+        try {
+            // Let a running scan finish so the final snapshot is not written mid-update
+            if (scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                saveSnapshot();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,234 @@
+package com.sarthak.webapp.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter of strings that grows with its contents instead of needing
+ * the final size up front.
+ * <p>
+ * Members are added to the newest stage, a plain Bloom filter sized for
+ * {@code capacity} members at a given false-positive probability. Once that
+ * stage is full a new one is appended with twice the capacity and half the
+ * probability. The first stage gets half the target, so the combined
+ * probability stays below the target no matter how many stages follow.
+ * Lookups check every stage, so fewer, larger stages are cheaper.
+ * <p>
+ * Bits are set with lock-free ORs, so adds and lookups can run concurrently;
+ * only appending a stage takes a lock. A member that was added is always
+ * reported as possibly present; absent strings are reported present with
+ * roughly {@link #expectedFpp()} probability.
+ */
+class ScalableBloomFilter {
+
+    private static final int MAGIC = 0x424C4F4D;
+    private static final int VERSION = 1;
+
+    private final double targetFpp;
+    private volatile List<Stage> stages;
+
+    ScalableBloomFilter(long initialCapacity, double targetFpp) {
+        if (initialCapacity < 1 || targetFpp <= 0 || targetFpp >= 1) {
+            throw new IllegalArgumentException("capacity must be positive and fpp in (0, 1)");
+        }
+        this.targetFpp = targetFpp;
+        this.stages = List.of(new Stage(initialCapacity, targetFpp / 2));
+    }
+
+    private ScalableBloomFilter(double targetFpp, List<Stage> stages) {
+        this.targetFpp = targetFpp;
+        this.stages = List.copyOf(stages);
+    }
+
+    /**
+     * Adds {@code value}; returns false if it was (possibly) present already.
+     */
+    boolean add(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        List<Stage> current = stages;
+        for (Stage stage : current) {
+            if (stage.mightContain(hash1, hash2)) {
+                return false;
+            }
+        }
+        Stage last = current.get(current.size() - 1);
+        last.add(hash1, hash2);
+        if (last.count.incrementAndGet() >= last.capacity) {
+            grow(last);
+        }
+        return true;
+    }
+
+    boolean mightContain(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (Stage stage : stages) {
+            if (stage.mightContain(hash1, hash2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Probability that an absent value is reported present, given how full each stage is.
+     */
+    double expectedFpp() {
+        double allMiss = 1;
+        for (Stage stage : stages) {
+            allMiss *= 1 - stage.expectedFpp();
+        }
+        return 1 - allMiss;
+    }
+
+    double targetFpp() {
+        return targetFpp;
+    }
+
+    /**
+     * Members added so far; values that collided with earlier members are not counted.
+     */
+    long approximateCount() {
+        long count = 0;
+        for (Stage stage : stages) {
+            count += stage.count.get();
+        }
+        return count;
+    }
+
+    int stageCount() {
+        return stages.size();
+    }
+
+    long sizeInBytes() {
+        long bytes = 0;
+        for (Stage stage : stages) {
+            bytes += (long) stage.bits.length() * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        List<Stage> current = stages;
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeDouble(targetFpp);
+        out.writeInt(current.size());
+        for (Stage stage : current) {
+            out.writeLong(stage.capacity);
+            out.writeDouble(stage.fpp);
+            out.writeLong(stage.count.get());
+            out.writeInt(stage.bits.length());
+            for (int i = 0; i < stage.bits.length(); i++) {
+                out.writeLong(stage.bits.get(i));
+            }
+        }
+    }
+
+    static ScalableBloomFilter readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a Bloom filter snapshot, or an unsupported version");
+        }
+        double targetFpp = in.readDouble();
+        int stageCount = in.readInt();
+        if (stageCount < 1 || stageCount > 64) {
+            throw new IOException("Invalid stage count " + stageCount);
+        }
+        List<Stage> stages = new ArrayList<>(stageCount);
+        for (int s = 0; s < stageCount; s++) {
+            Stage stage = new Stage(in.readLong(), in.readDouble());
+            stage.count.set(in.readLong());
+            int words = in.readInt();
+            if (words != stage.bits.length()) {
+                throw new IOException("Stage " + s + " has " + words + " words, expected " + stage.bits.length());
+            }
+            for (int i = 0; i < words; i++) {
+                stage.bits.set(i, in.readLong());
+            }
+            stages.add(stage);
+        }
+        return new ScalableBloomFilter(targetFpp, stages);
+    }
+
+    private synchronized void grow(Stage full) {
+        List<Stage> current = stages;
+        if (current.get(current.size() - 1) != full) {
+            return;
+        }
+        List<Stage> next = new ArrayList<>(current);
+        next.add(new Stage(full.capacity * 2, full.fpp / 2));
+        stages = List.copyOf(next);
+    }
+
+    // FNV-1a over the UTF-8 bytes, finished with a 64-bit mixer so nearby strings spread out
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    private static final class Stage {
+        private final long capacity;
+        private final double fpp;
+        private final int hashes;
+        private final long bitCount;
+        private final AtomicLongArray bits;
+        private final AtomicLong count = new AtomicLong();
+
+        Stage(long capacity, double fpp) {
+            if (capacity < 1 || fpp <= 0 || fpp >= 1) {
+                throw new IllegalArgumentException("Invalid stage: capacity=" + capacity + ", fpp=" + fpp);
+            }
+            // Optimal sizing: m = -n ln p / (ln 2)^2 bits and k = (m / n) ln 2 hash functions
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            int words = Math.toIntExact(Math.max(1, (optimalBits + 63) / 64));
+            this.capacity = capacity;
+            this.fpp = fpp;
+            this.bitCount = (long) words * 64;
+            this.hashes = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+            this.bits = new AtomicLongArray(words);
+        }
+
+        void add(long hash1, long hash2) {
+            for (int i = 0; i < hashes; i++) {
+                long index = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long current;
+                do {
+                    current = bits.get(word);
+                } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(long hash1, long hash2) {
+            for (int i = 0; i < hashes; i++) {
+                long index = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double expectedFpp() {
+            return Math.pow(1 - Math.exp(-(double) hashes * count.get() / bitCount), hashes);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.sarthak.webapp.cache;
+
+import com.sarthak.webapp.exception.DeadlineExceededException;
+import com.sarthak.webapp.resilience.RequestDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical lookups: the first caller for a key runs the
+ * loader, and callers arriving while it runs wait for and share its result or
+ * exception. The entry is removed as soon as the load finishes, so nothing is
+ * cached and a caller arriving afterwards always triggers a fresh load.
+ * <p>
+ * Waiting callers give up when their own request deadline passes. If the
+ * loading caller ran out of its deadline, waiting callers load for themselves
+ * rather than fail with someone else's timeout.
+ * <p>
+ * Shared results are the same object for every caller, so loaders should
+ * return values callers will not modify.
+ */
+public class SingleFlight<K, V> {
+
+    private final String name;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter followers;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.leaders = Counter.builder("webapp.singleflight.calls")
+                .description("Lookups that went to the data source or shared another caller's in-flight lookup")
+                .tag("name", name)
+                .tag("result", "loaded")
+                .register(meterRegistry);
+        this.followers = Counter.builder("webapp.singleflight.calls")
+                .description("Lookups that went to the data source or shared another caller's in-flight lookup")
+                .tag("name", name)
+                .tag("result", "shared")
+                .register(meterRegistry);
+        Gauge.builder("webapp.singleflight.coalescing.ratio", this, SingleFlight::coalescingRatio)
+                .description("Fraction of lookups since startup answered by another caller's in-flight lookup")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("webapp.singleflight.inflight", inFlight, ConcurrentHashMap::size)
+                .description("Keys with a lookup in flight")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            followers.increment();
+            return await(existing, loader);
+        }
+
+        leaders.increment();
+        try {
+            V value = loader.get();
+            inFlight.remove(key, mine);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private V await(CompletableFuture<V> shared, Supplier<V> loader) {
+        try {
+            RequestDeadline deadline = RequestDeadline.current();
+            return deadline == null
+                    ? shared.get()
+                    : shared.get(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            RequestDeadline.check(name);
+            throw new DeadlineExceededException(name);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for " + name, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DeadlineExceededException) {
+                return loader.get();
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private double coalescingRatio() {
+        double total = leaders.count() + followers.count();
+        return total == 0 ? 0 : followers.count() / total;
+    }
+}
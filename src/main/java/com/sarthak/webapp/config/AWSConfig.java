@@ -1,13 +1,17 @@
 package com.sarthak.webapp.config;
 
-import com.amazonaws.auth.AWSStaticCredentialsProvider;
-import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
+import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.sarthak.webapp.tracing.AwsSdkObservationHandler;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
 
 @Configuration
 public class AWSConfig {
@@ -15,12 +19,35 @@ public class AWSConfig {
     @Value("${aws.region:us-east-1}")
     private String awsRegion;
 
+    // Optional override for a local S3 stand-in (load tests, development)
+    @Value("${aws.s3.endpoint:}")
+    private String s3Endpoint;
+
+    // Upper bound for a whole S3 call, retries included
+    @Value("${webapp.resilience.s3.timeout:10s}")
+    private Duration s3Timeout;
+
     @Bean
-    public AmazonS3 amazonS3Client() {
-        return AmazonS3ClientBuilder
+    public AmazonS3 amazonS3Client(AwsSdkObservationHandler observationHandler) {
+        AmazonS3ClientBuilder builder = AmazonS3ClientBuilder
                 .standard()
-                .withRegion(awsRegion)
                 .withCredentials(new DefaultAWSCredentialsProviderChain())
+                .withRequestHandlers(observationHandler);
+        ClientConfiguration clientConfiguration = new ClientConfiguration()
+                .withClientExecutionTimeout((int) s3Timeout.toMillis());
+
+        if (StringUtils.hasText(s3Endpoint)) {
+            // Plain HTTP stand-ins have no bucket DNS and do not speak aws-chunked or 100-continue
+            return builder
+                    .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(s3Endpoint, awsRegion))
+                    .withPathStyleAccessEnabled(true)
+                    .withChunkedEncodingDisabled(true)
+                    .withClientConfiguration(clientConfiguration.withUseExpectContinue(false))
+                    .build();
+        }
+        return builder
+                .withRegion(awsRegion)
+                .withClientConfiguration(clientConfiguration)
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -6,6 +6,7 @@ import io.micrometer.core.instrument.Clock;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.config.MeterFilter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
@@ -14,6 +15,7 @@ import java.time.Duration;
 import java.util.Map;
 
 @Configuration
+@ConditionalOnProperty(name = "webapp.metrics.export", havingValue = "cloudwatch", matchIfMissing = true)
 public class CloudWatchMetricsConfig {
 
     @Value("${management.metrics.export.cloudwatch.namespace}")
@@ -0,0 +1,24 @@
+package com.sarthak.webapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Default JDBC query timeout for every JPA query, so a stuck database call
+ * gives its request thread back after {@code webapp.resilience.database.timeout}.
+ */
+@Configuration
+public class DatabaseTimeoutConfig {
+
+    @Value("${webapp.resilience.database.timeout:5s}")
+    private Duration queryTimeout;
+
+    @Bean
+    public HibernatePropertiesCustomizer queryTimeoutCustomizer() {
+        return properties -> properties.put("jakarta.persistence.query.timeout", queryTimeout.toMillis());
+    }
+}
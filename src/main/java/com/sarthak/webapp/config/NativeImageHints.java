@@ -0,0 +1,126 @@
+package com.sarthak.webapp.config;
+
+import com.sarthak.webapp.aspect.MetricsAspect;
+import com.sarthak.webapp.controller.AdminController;
+import com.sarthak.webapp.controller.EmailVerificationController;
+import com.sarthak.webapp.controller.HealthCheckController;
+import com.sarthak.webapp.controller.ImageController;
+import com.sarthak.webapp.controller.ResumableUploadController;
+import com.sarthak.webapp.controller.UserController;
+import com.sarthak.webapp.logging.DroppedLogEventListener;
+import com.sarthak.webapp.logging.RequestSamplingTurboFilter;
+import com.sarthak.webapp.model.ImageResponseDTO;
+import com.sarthak.webapp.model.ReconciliationCheckpoint;
+import com.sarthak.webapp.model.ShardBucket;
+import com.sarthak.webapp.model.UploadSession;
+import com.sarthak.webapp.model.UploadSessionDTO;
+import com.sarthak.webapp.model.UploadSessionRequest;
+import com.sarthak.webapp.model.User;
+import com.sarthak.webapp.model.UserDTO;
+import com.sarthak.webapp.model.UserPageDTO;
+import com.sarthak.webapp.model.UserImage;
+import com.sarthak.webapp.model.UserResponseDTO;
+import com.sarthak.webapp.model.UserVerification;
+import com.sarthak.webapp.sharding.UserIdGenerator;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * Reachability metadata for the GraalVM native image ({@code mvn -Pnative package}).
+ * Spring AOT covers beans, proxies and request/response bodies it can see; this adds
+ * what is only reached reflectively at runtime:
+ * <ul>
+ *   <li>JPA entities, read and written by Hibernate through fields and Lombok accessors,
+ *       and the user id generator it instantiates</li>
+ *   <li>DTOs serialized by Jackson outside controller signatures</li>
+ *   <li>AWS SDK v1 internals: signers created by name, JSON config and endpoint
+ *       metadata bound with Jackson, and the JDK proxies around the Apache connection manager</li>
+ *   <li>{@link MetricsAspect}, which reads mapping annotations off controller methods</li>
+ *   <li>Logback components named in {@code logback-spring.xml}, created and configured by Joran</li>
+ * </ul>
+ * The v2 SDK used by the CloudWatch registry ships its own metadata.
+ */
+public class NativeImageHints implements RuntimeHintsRegistrar {
+
+    private static final MemberCategory[] BEAN_MEMBERS = {
+            MemberCategory.DECLARED_FIELDS,
+            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+            MemberCategory.INVOKE_DECLARED_METHODS
+    };
+
+    private static final List<String> AWS_SIGNERS = List.of(
+            "com.amazonaws.auth.AWS3Signer",
+            "com.amazonaws.auth.AWS4Signer",
+            "com.amazonaws.auth.AWS4UnsignedPayloadSigner",
+            "com.amazonaws.auth.NoOpSigner",
+            "com.amazonaws.auth.QueryStringSigner",
+            "com.amazonaws.services.s3.internal.AWSS3V4Signer",
+            "com.amazonaws.services.s3.internal.S3Signer");
+
+    private static final List<String> AWS_JSON_MODELS = List.of(
+            "com.amazonaws.internal.config.InternalConfigJsonHelper",
+            "com.amazonaws.internal.config.HttpClientConfigJsonHelper",
+            "com.amazonaws.internal.config.SignerConfigJsonHelper",
+            "com.amazonaws.internal.config.HostRegexToRegionMappingJsonHelper",
+            "com.amazonaws.internal.config.JsonIndex",
+            "com.amazonaws.partitions.model.Partitions",
+            "com.amazonaws.partitions.model.Partition",
+            "com.amazonaws.partitions.model.Region",
+            "com.amazonaws.partitions.model.Service",
+            "com.amazonaws.partitions.model.Endpoint",
+            "com.amazonaws.partitions.model.CredentialScope");
+
+    private static final List<String> LOGBACK_COMPONENTS = List.of(
+            "net.logstash.logback.appender.LoggingEventAsyncDisruptorAppender",
+            "net.logstash.logback.encoder.LogstashEncoder",
+            DroppedLogEventListener.class.getName(),
+            RequestSamplingTurboFilter.class.getName());
+
+    @Override
+    public void registerHints(RuntimeHints hints, @Nullable ClassLoader classLoader) {
+        for (Class<?> entity : List.of(User.class, UserImage.class, UserVerification.class, UploadSession.class,
+                ReconciliationCheckpoint.class, ShardBucket.class)) {
+            hints.reflection().registerType(entity, BEAN_MEMBERS);
+        }
+        // Instantiated by Hibernate from @UserId
+        hints.reflection().registerType(UserIdGenerator.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        for (Class<?> dto : List.of(UserDTO.class, UserResponseDTO.class, ImageResponseDTO.class,
+                UploadSessionDTO.class, UploadSessionRequest.class, UserPageDTO.class)) {
+            hints.reflection().registerType(dto, BEAN_MEMBERS);
+        }
+
+        hints.reflection().registerType(MetricsAspect.class, MemberCategory.INVOKE_DECLARED_METHODS);
+        for (Class<?> controller : List.of(UserController.class, ImageController.class, ResumableUploadController.class,
+                EmailVerificationController.class, HealthCheckController.class, AdminController.class)) {
+            hints.reflection().registerType(controller, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+
+        AWS_SIGNERS.forEach(signer -> hints.reflection().registerType(TypeReference.of(signer),
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS));
+        AWS_JSON_MODELS.forEach(model -> hints.reflection().registerType(TypeReference.of(model), BEAN_MEMBERS));
+
+        LOGBACK_COMPONENTS.forEach(component -> hints.reflection().registerType(TypeReference.of(component),
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS));
+
+        hints.proxies().registerJdkProxy(
+                TypeReference.of("org.apache.http.conn.HttpClientConnectionManager"),
+                TypeReference.of("org.apache.http.pool.ConnPoolControl"),
+                TypeReference.of("com.amazonaws.http.conn.Wrapped"));
+        hints.proxies().registerJdkProxy(
+                TypeReference.of("org.apache.http.conn.HttpClientConnectionManager"),
+                TypeReference.of("com.amazonaws.http.conn.Wrapped"));
+        hints.proxies().registerJdkProxy(
+                TypeReference.of("org.apache.http.conn.ConnectionRequest"),
+                TypeReference.of("com.amazonaws.http.conn.Wrapped"));
+
+        hints.resources().registerPattern("com/amazonaws/partitions/endpoints.json");
+        hints.resources().registerPattern("com/amazonaws/internal/config/awssdk_config_default.json");
+        hints.resources().registerPattern("com/amazonaws/sdk/versionInfo.properties");
+        hints.resources().registerPattern("software/amazon/awssdk/global/handlers/execution.interceptors");
+    }
+}
@@ -1,10 +1,16 @@
 package com.sarthak.webapp.config;
 
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.sns.AmazonSNS;
 import com.amazonaws.services.sns.AmazonSNSClientBuilder;
+import com.sarthak.webapp.tracing.AwsSdkObservationHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
 
 @Configuration
 public class SNSConfig {
@@ -12,10 +18,28 @@ public class SNSConfig {
     @Value("${aws.region}")
     private String awsRegion;
 
+    // Optional override for a local SNS stand-in (load tests, development)
+    @Value("${aws.sns.endpoint:}")
+    private String snsEndpoint;
+
+    // Upper bound for a whole SNS call, retries included
+    @Value("${webapp.resilience.sns.timeout:3s}")
+    private Duration snsTimeout;
+
     @Bean
-    public AmazonSNS amazonSNS() {
-        return AmazonSNSClientBuilder.standard()
+    public AmazonSNS amazonSNS(AwsSdkObservationHandler observationHandler) {
+        AmazonSNSClientBuilder builder = AmazonSNSClientBuilder.standard()
+                .withClientConfiguration(new ClientConfiguration()
+                        .withClientExecutionTimeout((int) snsTimeout.toMillis()))
+                .withRequestHandlers(observationHandler);
+
+        if (StringUtils.hasText(snsEndpoint)) {
+            return builder
+                    .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(snsEndpoint, awsRegion))
+                    .build();
+        }
+        return builder
                 .withRegion(awsRegion)
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,127 @@
+package com.sarthak.webapp.config;
+
+import com.sarthak.webapp.repository.ShardBucketRepository;
+import com.sarthak.webapp.sharding.ShardRouter;
+import com.sarthak.webapp.sharding.ShardRoutingDataSource;
+import com.sarthak.webapp.sharding.ShardSchema;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sharding of user data by email, off unless {@code webapp.sharding.enabled=true}.
+ * Shard 0 is {@code spring.datasource.*}; further shards are
+ * {@code webapp.sharding.shards.<n>.url}, {@code username} and {@code password},
+ * numbered from 1 without gaps. Every shard's pool takes
+ * {@code spring.datasource.hikari.*}.
+ * <p>
+ * The application's {@code DataSource} routes each transaction to the shard in
+ * {@code ShardContext}. It is lazy, so the shard is read when the transaction
+ * runs its first statement rather than when it begins, and sessions give their
+ * connection back after every transaction, so one request can visit several shards.
+ * <p>
+ * These beans exist whether sharding is on or not and read the flag when they
+ * are created. Conditions are settled when the context is processed ahead of
+ * time ({@code -Pfast-start}, native), so a condition on the flag would fix
+ * sharding on or off at build time; read in the beans, it is honoured at run time.
+ */
+@Configuration
+public class ShardingConfig {
+
+    private static final String SHARDS = "webapp.sharding.shards";
+
+    @Bean
+    public ShardRouter shardRouter(ShardBucketRepository bucketRepository,
+                                   Environment environment,
+                                   @Value("${webapp.sharding.enabled:false}") boolean enabled,
+                                   @Value("${webapp.sharding.refresh-interval:5s}") Duration refreshInterval) {
+        int shardCount = enabled ? 1 + additionalShards(environment).size() : 1;
+        return new ShardRouter(bucketRepository, shardCount, refreshInterval);
+    }
+
+    private static Map<Integer, DataSourceProperties> additionalShards(Environment environment) {
+        Map<Integer, DataSourceProperties> shards = new TreeMap<>(Binder.get(environment)
+                .bind(SHARDS, Bindable.mapOf(Integer.class, DataSourceProperties.class))
+                .orElse(Map.of()));
+        int expected = 1;
+        for (Map.Entry<Integer, DataSourceProperties> shard : shards.entrySet()) {
+            if (shard.getKey() != expected++) {
+                throw new IllegalStateException(SHARDS + " must be numbered 1, 2, ... without gaps");
+            }
+            if (!StringUtils.hasText(shard.getValue().getUrl())) {
+                throw new IllegalStateException(SHARDS + "." + shard.getKey() + ".url is required");
+            }
+        }
+        return shards;
+    }
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties,
+                                 Environment environment,
+                                 ObjectProvider<MeterRegistry> meterRegistry,
+                                 @Value("${webapp.sharding.enabled:false}") boolean enabled) {
+        if (!enabled) {
+            // The pool Spring Boot would have defined, named by spring.datasource.hikari.pool-name if at all
+            return pool(properties, null, environment, null);
+        }
+        List<DataSource> shards = new ArrayList<>();
+        // Shard 0's pool metrics are bound by Spring Boot, through the routing data source's default
+        shards.add(pool(properties, "shard-0", environment, null));
+        additionalShards(environment).forEach((shard, shardProperties) ->
+                shards.add(pool(shardProperties, "shard-" + shard, environment, meterRegistry.getIfAvailable())));
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shards));
+    }
+
+    @Bean
+    public ShardSchema.MetadataCapture shardMetadataCapture() {
+        return new ShardSchema.MetadataCapture();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardMetadataCustomizer(ShardSchema.MetadataCapture capture,
+                                                                 @Value("${webapp.sharding.enabled:false}") boolean enabled) {
+        return properties -> {
+            if (!enabled) {
+                return;
+            }
+            properties.put("hibernate.integrator_provider", (IntegratorProvider) () -> List.of(capture));
+            // Spring holds a session's connection until the session closes, which with open-in-view is the
+            // end of the request; released after each transaction, the next one can go to another shard
+            properties.put(AvailableSettings.CONNECTION_HANDLING,
+                    PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+        };
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, String name,
+                                         Environment environment, MeterRegistry meterRegistry) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        if (name != null) {
+            pool.setPoolName(name);
+        }
+        if (meterRegistry != null) {
+            pool.setMetricRegistry(meterRegistry);
+        }
+        return pool;
+    }
+}
@@ -0,0 +1,75 @@
+package com.sarthak.webapp.config;
+
+import com.sarthak.webapp.metrics.StatsdLineSink;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.statsd.StatsdConfig;
+import io.micrometer.statsd.StatsdMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Publishes metrics as StatsD lines to the CloudWatch agent on the instance
+ * instead of calling the CloudWatch API from the JVM. Selected with
+ * {@code webapp.metrics.export=statsd}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "webapp.metrics.export", havingValue = "statsd")
+public class StatsdMetricsConfig {
+
+    @Value("${webapp.metrics.statsd.host:127.0.0.1}")
+    private String host;
+
+    @Value("${webapp.metrics.statsd.port:8125}")
+    private int port;
+
+    @Value("${webapp.metrics.statsd.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${webapp.metrics.statsd.max-packet-length:1432}")
+    private int maxPacketLength;
+
+    @Value("${webapp.metrics.statsd.flush-interval:1s}")
+    private Duration flushInterval;
+
+    @Value("${webapp.metrics.statsd.polling-frequency:10s}")
+    private Duration pollingFrequency;
+
+    @Bean(destroyMethod = "close")
+    public StatsdLineSink statsdLineSink() {
+        return new StatsdLineSink(host, port, queueCapacity, maxPacketLength, flushInterval);
+    }
+
+    @Bean
+    public MeterRegistry statsdMeterRegistry(StatsdLineSink statsdLineSink) {
+        // The CloudWatch agent accepts DogStatsD tags as metric dimensions
+        StatsdConfig statsdConfig = new StatsdConfig() {
+            private final Map<String, String> configuration = Map.of(
+                    "statsd.flavor", "datadog",
+                    "statsd.host", host,
+                    "statsd.port", String.valueOf(port),
+                    "statsd.maxPacketLength", String.valueOf(maxPacketLength),
+                    "statsd.pollingFrequency", pollingFrequency.toString()
+            );
+
+            @Override
+            public String get(String key) {
+                return configuration.get(key);
+            }
+        };
+
+        MeterRegistry registry = StatsdMeterRegistry.builder(statsdConfig)
+                .clock(Clock.SYSTEM)
+                .lineSink(statsdLineSink)
+                .build();
+
+        registry.config().commonTags("application", "webapp");
+
+        return registry;
+    }
+}
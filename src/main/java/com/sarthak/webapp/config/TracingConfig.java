@@ -0,0 +1,50 @@
+package com.sarthak.webapp.config;
+
+import com.sarthak.webapp.tracing.SlowTraceRetainingSampler;
+import com.sarthak.webapp.tracing.SlowTraceSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.tracing.ConditionalOnEnabledTracing;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Head-based sampling with tail retention: {@code management.tracing.sampling.probability}
+ * of all traces are exported as usual, and any other trace whose root span is
+ * slower than {@code webapp.tracing.slow-threshold} (or failed) is exported
+ * when it completes.
+ */
+@Configuration
+@ConditionalOnEnabledTracing
+public class TracingConfig {
+
+    @Value("${management.tracing.sampling.probability:0.1}")
+    private double samplingProbability;
+
+    @Value("${webapp.tracing.slow-threshold:500ms}")
+    private Duration slowThreshold;
+
+    @Value("${webapp.tracing.max-pending-traces:1000}")
+    private int maxPendingTraces;
+
+    @Value("${webapp.tracing.max-spans-per-trace:256}")
+    private int maxSpansPerTrace;
+
+    @Value("${webapp.tracing.max-trace-age:30s}")
+    private Duration maxTraceAge;
+
+    @Bean
+    public Sampler slowTraceRetainingSampler() {
+        return new SlowTraceRetainingSampler(samplingProbability);
+    }
+
+    @Bean
+    public SlowTraceSpanProcessor slowTraceSpanProcessor(ObjectProvider<SpanExporter> spanExporters) {
+        SpanExporter exporter = SpanExporter.composite(spanExporters.orderedStream().toList());
+        return new SlowTraceSpanProcessor(exporter, slowThreshold, maxPendingTraces, maxSpansPerTrace, maxTraceAge);
+    }
+}
@@ -22,7 +22,8 @@ public class UserVerificationInterceptor implements HandlerInterceptor {
         // Skip verification for these endpoints
         if (request.getRequestURI().contains("/v1/verifyEmail") ||
                 request.getRequestURI().contains("/v1/user") && request.getMethod().equals("POST") ||
-                request.getRequestURI().contains("/healthz")) {
+                request.getRequestURI().contains("/healthz") ||
+                request.getRequestURI().contains("/readyz")) {
             return true;
         }
 
@@ -0,0 +1,62 @@
+package com.sarthak.webapp.controller;
+
+import com.sarthak.webapp.model.UserPageDTO;
+import com.sarthak.webapp.service.UserExportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.security.Principal;
+import java.util.Locale;
+
+// Only for emails in webapp.admin.emails, see SecurityConfig
+@RestController
+@RequestMapping("/v1/admin/users")
+public class AdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
+
+    private final UserExportService exportService;
+
+    public AdminController(UserExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    // Keyset pages: pass the previous page's "next" as "after" until it is null
+    @GetMapping
+    public ResponseEntity<UserPageDTO> listUsers(@RequestParam(defaultValue = "0") long after,
+                                                 @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(exportService.listUsers(after, limit));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "ndjson") String format,
+                                                             @RequestParam(defaultValue = "false") boolean images,
+                                                             Principal principal) {
+        UserExportService.Format exportFormat;
+        try {
+            exportFormat = UserExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be ndjson or csv");
+        }
+        logger.info("User export ({}, images: {}) requested by {}", exportFormat.extension(), images, principal.getName());
+
+        // Written after the handler returns, on an async request thread
+        StreamingResponseBody body = out -> exportService.export(out, exportFormat, images);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("users." + exportFormat.extension()).build().toString())
+                .body(body);
+    }
+}
@@ -1,14 +1,56 @@
 package com.sarthak.webapp.controller;
 
+import com.sarthak.webapp.health.DependencyHealthProber;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Map;
+
 @RestController
 public class HealthCheckController {
 
+    private final ApplicationAvailability availability;
+    private final DependencyHealthProber prober;
+
+    public HealthCheckController(ApplicationAvailability availability, DependencyHealthProber prober) {
+        this.availability = availability;
+        this.prober = prober;
+    }
+
+    // Not ready until startup, including warm-up, has finished. Dependency state comes from
+    // the background prober, so neither endpoint touches the database or AWS itself. Both are
+    // open to the load balancer; the verbose body names dependencies and their errors, so only
+    // an admin gets it and anyone else gets the status alone.
     @GetMapping("/healthz")
-    public ResponseEntity<Void> healthCheck() {
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Map<String, Object>> healthCheck(@RequestParam(defaultValue = "false") boolean verbose) {
+        return respond(prober.isHealthy(true), verbose);
+    }
+
+    // Like /healthz, but non-critical dependencies (S3, SNS, pool saturation) count as well
+    @GetMapping("/readyz")
+    public ResponseEntity<Map<String, Object>> readinessCheck(@RequestParam(defaultValue = "false") boolean verbose) {
+        return respond(prober.isHealthy(false), verbose);
+    }
+
+    private ResponseEntity<Map<String, Object>> respond(boolean dependenciesHealthy, boolean verbose) {
+        boolean healthy = dependenciesHealthy
+                && availability.getReadinessState() == ReadinessState.ACCEPTING_TRAFFIC;
+        ResponseEntity.BodyBuilder response = healthy
+                ? ResponseEntity.ok()
+                : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE);
+        return verbose && isAdmin() ? response.body(prober.report(healthy)) : response.build();
+    }
+
+    private static boolean isAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated()
+                && authentication.getAuthorities().stream().anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
     }
-}
\ No newline at end of file
+}
@@ -1,18 +1,27 @@
 package com.sarthak.webapp.controller;
 
+import com.sarthak.webapp.cache.ConditionalRequests;
 import com.sarthak.webapp.model.ImageResponseDTO;
 import com.sarthak.webapp.model.User;
 import com.sarthak.webapp.service.ImageService;
 import com.sarthak.webapp.service.UserService;
+import com.sarthak.webapp.upload.MultipartStream;
+import jakarta.servlet.http.HttpServletRequest;
 import io.micrometer.core.annotation.Timed;
 import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
 import java.security.Principal;
+import java.time.Duration;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/v1/user/self/pic")
@@ -21,17 +30,23 @@ public class ImageController {
     private final ImageService imageService;
     private final UserService userService;
     private final MeterRegistry meterRegistry;
+    private final CacheControl cacheControl;
+    private final long maxRequestSize;
 
-    public ImageController(ImageService imageService, UserService userService, MeterRegistry meterRegistry) {
+    public ImageController(ImageService imageService, UserService userService, MeterRegistry meterRegistry,
+                           @Value("${webapp.http.cache.image-max-age:0s}") Duration imageMaxAge,
+                           @Value("${spring.servlet.multipart.max-request-size:10MB}") DataSize maxRequestSize) {
         this.imageService = imageService;
         this.userService = userService;
         this.meterRegistry = meterRegistry;
+        this.cacheControl = ConditionalRequests.cacheControl(imageMaxAge);
+        this.maxRequestSize = maxRequestSize.toBytes();
     }
 
     @GetMapping
     @Timed(value = "api.get.image", description = "Time taken to retrieve image")
-    public ResponseEntity<ImageResponseDTO> getImage(Principal principal) {
-        long startTime = System.currentTimeMillis();
+    public ResponseEntity<ImageResponseDTO> getImage(Principal principal, WebRequest request) {
+        long startTime = System.nanoTime();
         logger.info("Getting image for user: {}", principal.getName());
         try {
             User user = userService.getUserEntityByEmail(principal.getName());
@@ -42,18 +57,32 @@ public class ImageController {
                         .body(null);
             }
 
+            // Validate If-None-Match against a version lookup before loading the image
+            Optional<String> etag = imageService.getImageEtag(user.getId());
+            if (etag.isPresent() && request.checkNotModified(etag.get())) {
+                meterRegistry.counter("image.get.notmodified").increment();
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag.get())
+                        .cacheControl(cacheControl)
+                        .build();
+            }
+
             ImageResponseDTO response = imageService.getImage(user.getId());
 
             meterRegistry.counter("image.get.success").increment();
             meterRegistry.timer("image.get.time")
-                    .record(System.currentTimeMillis() - startTime, java.util.concurrent.TimeUnit.MILLISECONDS);
+                    .record(System.nanoTime() - startTime, java.util.concurrent.TimeUnit.NANOSECONDS);
 
             logger.info("Successfully retrieved image for user: {}", principal.getName());
-            return ResponseEntity.ok(response);
+            ResponseEntity.BodyBuilder ok = ResponseEntity.ok().cacheControl(cacheControl);
+            etag.ifPresent(ok::eTag);
+            return ok.body(response);
         } catch (IllegalArgumentException e) {
             logger.warn("Image not found for user: {}", principal.getName());
             meterRegistry.counter("image.get.notfound").increment();
             return ResponseEntity.notFound().build();
+        } catch (ResponseStatusException e) {
+            return refused(e);
         } catch (Exception e) {
             logger.error("Failed to get image for user: {}. Error: {}", principal.getName(), e.getMessage());
             meterRegistry.counter("image.get.error",
@@ -64,12 +93,11 @@ public class ImageController {
 
     @PostMapping
     @Timed(value = "api.upload.image", description = "Time taken to upload image")
-    public ResponseEntity<ImageResponseDTO> uploadImage(
-            @RequestParam("file") MultipartFile file,
-            Principal principal) {
-        long startTime = System.currentTimeMillis();
-        logger.info("Received image upload request from user: {}. File size: {} bytes",
-                principal.getName(), file.getSize());
+    public ResponseEntity<ImageResponseDTO> uploadImage(HttpServletRequest request, Principal principal) {
+        long startTime = System.nanoTime();
+        long requestSize = request.getContentLengthLong();
+        logger.info("Received image upload request from user: {}. Request size: {} bytes",
+                principal.getName(), requestSize);
 
         try {
             User user = userService.getUserEntityByEmail(principal.getName());
@@ -80,13 +108,34 @@ public class ImageController {
                         .body(null);
             }
 
-            meterRegistry.gauge("image.upload.size", file.getSize());
+            // Refuse before reading a byte of a body that is already known to be too large
+            if (requestSize > maxRequestSize) {
+                logger.warn("Image upload from user: {} of {} bytes exceeds the limit", principal.getName(), requestSize);
+                meterRegistry.counter("image.upload.toolarge").increment();
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+            }
 
-            ImageResponseDTO response = imageService.uploadImage(file, user);
+            // Read the file part straight from the request, so a bad image is rejected from its first bytes
+            String boundary = MultipartStream.boundary(request.getContentType());
+            if (boundary == null) {
+                throw new IllegalArgumentException("Expected a multipart/form-data request");
+            }
+            MultipartStream multipart = new MultipartStream(request.getInputStream(), boundary);
+            MultipartStream.Part file = multipart.nextPart();
+            while (file != null && !"file".equals(file.name())) {
+                file = multipart.nextPart();
+            }
+            if (file == null) {
+                throw new IllegalArgumentException("Required part 'file' is not present");
+            }
+
+            meterRegistry.gauge("image.upload.size", requestSize);
+
+            ImageResponseDTO response = imageService.uploadImage(file.fileName(), file.contentType(), file.body(), user);
 
             meterRegistry.counter("image.upload.success").increment();
             meterRegistry.timer("image.upload.time")
-                    .record(System.currentTimeMillis() - startTime, java.util.concurrent.TimeUnit.MILLISECONDS);
+                    .record(System.nanoTime() - startTime, java.util.concurrent.TimeUnit.NANOSECONDS);
 
             logger.info("Successfully uploaded image for user: {}. Image ID: {}",
                     principal.getName(), response.getId());
@@ -96,6 +145,8 @@ public class ImageController {
                     principal.getName(), e.getMessage());
             meterRegistry.counter("image.upload.invalid").increment();
             return ResponseEntity.badRequest().build();
+        } catch (ResponseStatusException e) {
+            return refused(e);
         } catch (Exception e) {
             logger.error("Failed to upload image for user: {}. Error: {}",
                     principal.getName(), e.getMessage(), e);
@@ -108,7 +159,7 @@ public class ImageController {
     @DeleteMapping
     @Timed(value = "api.delete.image", description = "Time taken to delete image")
     public ResponseEntity<Void> deleteImage(Principal principal) {
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
         logger.info("Deleting image for user: {}", principal.getName());
         try {
             User user = userService.getUserEntityByEmail(principal.getName());
@@ -123,10 +174,12 @@ public class ImageController {
 
             meterRegistry.counter("image.delete.success").increment();
             meterRegistry.timer("image.delete.time")
-                    .record(System.currentTimeMillis() - startTime, java.util.concurrent.TimeUnit.MILLISECONDS);
+                    .record(System.nanoTime() - startTime, java.util.concurrent.TimeUnit.NANOSECONDS);
 
             logger.info("Successfully deleted image for user: {}", principal.getName());
             return ResponseEntity.noContent().build();
+        } catch (ResponseStatusException e) {
+            return refused(e);
         } catch (Exception e) {
             logger.error("Failed to delete image for user: {}. Error: {}",
                     principal.getName(), e.getMessage());
@@ -135,4 +188,11 @@ public class ImageController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    // Dependency unavailable or deadline exceeded; keep the status instead of a generic 500
+    private <T> ResponseEntity<T> refused(ResponseStatusException e) {
+        logger.warn("Image request refused: {}", e.getReason());
+        meterRegistry.counter("image.refused", "status", Integer.toString(e.getStatusCode().value())).increment();
+        return ResponseEntity.status(e.getStatusCode()).headers(e.getHeaders()).build();
+    }
 }
\ No newline at end of file
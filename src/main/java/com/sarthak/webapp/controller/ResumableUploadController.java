@@ -0,0 +1,111 @@
+package com.sarthak.webapp.controller;
+
+import com.sarthak.webapp.exception.UploadOffsetMismatchException;
+import com.sarthak.webapp.model.ImageResponseDTO;
+import com.sarthak.webapp.model.UploadSessionDTO;
+import com.sarthak.webapp.model.UploadSessionRequest;
+import com.sarthak.webapp.model.User;
+import com.sarthak.webapp.service.ResumableUploadService;
+import com.sarthak.webapp.service.UserService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.security.Principal;
+
+/**
+ * Resumable image uploads: create a session, PATCH chunks at the offset the
+ * server reports, then complete it. See {@link ResumableUploadService}.
+ */
+@RestController
+@RequestMapping("/v1/user/self/pic/uploads")
+public class ResumableUploadController {
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploadController.class);
+
+    static final String UPLOAD_LENGTH = "Upload-Length";
+
+    private final ResumableUploadService uploadService;
+    private final UserService userService;
+
+    public ResumableUploadController(ResumableUploadService uploadService, UserService userService) {
+        this.uploadService = uploadService;
+        this.userService = userService;
+    }
+
+    @PostMapping
+    @Timed(value = "api.upload.session.create", description = "Time taken to open a resumable upload")
+    public ResponseEntity<UploadSessionDTO> createSession(@Valid @RequestBody UploadSessionRequest request,
+                                                          Principal principal) {
+        User user = verifiedUser(principal);
+        UploadSessionDTO session = uploadService.createSession(user, request.getFileName(),
+                request.getContentType(), request.getSize());
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}").buildAndExpand(session.getId()).toUri();
+        return ResponseEntity.created(location)
+                .header(UploadOffsetMismatchException.UPLOAD_OFFSET, "0")
+                .body(session);
+    }
+
+    @PatchMapping("/{id}")
+    @Timed(value = "api.upload.session.append", description = "Time taken to receive an upload chunk")
+    public ResponseEntity<Void> appendChunk(@PathVariable String id,
+                                            @RequestHeader(UploadOffsetMismatchException.UPLOAD_OFFSET) long offset,
+                                            HttpServletRequest request,
+                                            Principal principal) throws IOException {
+        User user = verifiedUser(principal);
+        long length = request.getContentLengthLong();
+        if (length < 0) {
+            throw new ResponseStatusException(HttpStatus.LENGTH_REQUIRED, "Content-Length is required");
+        }
+        long newOffset = uploadService.appendChunk(user, id, offset, length, request.getInputStream());
+        return ResponseEntity.noContent()
+                .header(UploadOffsetMismatchException.UPLOAD_OFFSET, Long.toString(newOffset))
+                .build();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadSessionDTO> getSession(@PathVariable String id, Principal principal) {
+        User user = verifiedUser(principal);
+        UploadSessionDTO session = uploadService.getSession(user, id);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(UploadOffsetMismatchException.UPLOAD_OFFSET, Long.toString(session.getOffset()))
+                .header(UPLOAD_LENGTH, Long.toString(session.getSize()))
+                .body(session);
+    }
+
+    @PostMapping("/{id}/complete")
+    @Timed(value = "api.upload.session.complete", description = "Time taken to complete a resumable upload")
+    public ResponseEntity<ImageResponseDTO> completeSession(@PathVariable String id, Principal principal) {
+        User user = verifiedUser(principal);
+        ImageResponseDTO image = uploadService.completeSession(user, id);
+        logger.info("Completed resumable upload for user: {}. Image ID: {}", principal.getName(), image.getId());
+        return ResponseEntity.status(HttpStatus.CREATED).body(image);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> abortSession(@PathVariable String id, Principal principal) {
+        User user = verifiedUser(principal);
+        uploadService.abortSession(user, id);
+        return ResponseEntity.noContent().build();
+    }
+
+    private User verifiedUser(Principal principal) {
+        User user = userService.getUserEntityByEmail(principal.getName());
+        if (!user.isVerified()) {
+            logger.warn("Unverified user attempting a resumable upload: {}", principal.getName());
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User is not verified");
+        }
+        return user;
+    }
+}
@@ -1,5 +1,6 @@
 package com.sarthak.webapp.controller;
 
+import com.sarthak.webapp.cache.ConditionalRequests;
 import com.sarthak.webapp.model.UserDTO;
 import com.sarthak.webapp.model.UserResponseDTO;
 import com.sarthak.webapp.service.UserService;
@@ -7,12 +8,16 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.security.Principal;
+import java.time.Duration;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/v1/user")
@@ -23,6 +28,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Value("${webapp.http.cache.user-max-age:0s}")
+    private Duration userMaxAge;
+
     @PostMapping
     public ResponseEntity<UserResponseDTO> createUser(@Valid @RequestBody UserDTO userDTO) {
         logger.info("Received user creation request for email: {}", userDTO.getEmail());
@@ -40,12 +48,25 @@ public class UserController {
     }
 
     @GetMapping("/self")
-    public ResponseEntity<UserResponseDTO> getUserInfo(Principal principal) {
+    public ResponseEntity<UserResponseDTO> getUserInfo(Principal principal, WebRequest request) {
         logger.info("Retrieving user info for: {}", principal.getName());
         try {
+            // Validate If-None-Match against a version lookup before loading and serializing the user
+            Optional<String> etag = userService.getUserEtag(principal.getName());
+            if (etag.isPresent() && request.checkNotModified(etag.get())) {
+                logger.debug("User info not modified for: {}", principal.getName());
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag.get())
+                        .cacheControl(ConditionalRequests.cacheControl(userMaxAge))
+                        .build();
+            }
+
             UserResponseDTO user = userService.getUserByEmail(principal.getName());
             logger.info("Successfully retrieved user info for: {}", principal.getName());
-            return ResponseEntity.ok(user);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .cacheControl(ConditionalRequests.cacheControl(userMaxAge));
+            etag.ifPresent(response::eTag);
+            return response.body(user);
         } catch (Exception e) {
             logger.error("Failed to retrieve user info for: {}. Error: {}", principal.getName(), e.getMessage());
             throw e;
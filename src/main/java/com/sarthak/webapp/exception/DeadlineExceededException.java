@@ -0,0 +1,22 @@
+package com.sarthak.webapp.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * The request's deadline passed before {@code stage} could start, so the
+ * remaining work was abandoned.
+ */
+public class DeadlineExceededException extends ResponseStatusException {
+
+    private final String stage;
+
+    public DeadlineExceededException(String stage) {
+        super(HttpStatus.GATEWAY_TIMEOUT, "Request deadline exceeded before " + stage);
+        this.stage = stage;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+}
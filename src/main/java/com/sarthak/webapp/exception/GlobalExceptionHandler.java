@@ -27,7 +27,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<String> handleResponseStatusException(ResponseStatusException ex) {
-        return new ResponseEntity<>(ex.getReason(), ex.getStatusCode());
+        return new ResponseEntity<>(ex.getReason(), ex.getHeaders(), ex.getStatusCode());
     }
 
     @ExceptionHandler(Exception.class)
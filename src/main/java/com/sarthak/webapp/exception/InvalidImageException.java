@@ -0,0 +1,13 @@
+package com.sarthak.webapp.exception;
+
+/**
+ * Uploaded bytes are not an acceptable image: not a JPEG or PNG, malformed,
+ * or with dimensions beyond the configured limits. Handled like other
+ * invalid uploads, with 400.
+ */
+public class InvalidImageException extends IllegalArgumentException {
+
+    public InvalidImageException(String message) {
+        super(message);
+    }
+}
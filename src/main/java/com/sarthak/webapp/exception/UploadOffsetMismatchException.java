@@ -0,0 +1,34 @@
+package com.sarthak.webapp.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * A resumable upload request did not match the bytes the server holds: a
+ * chunk sent at the wrong offset, or completion before all bytes arrived.
+ * Maps to 409 with the current {@code Upload-Offset}, where the client
+ * should resume.
+ */
+public class UploadOffsetMismatchException extends ResponseStatusException {
+
+    public static final String UPLOAD_OFFSET = "Upload-Offset";
+
+    private final long offset;
+
+    public UploadOffsetMismatchException(String reason, long offset) {
+        super(HttpStatus.CONFLICT, reason);
+        this.offset = offset;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(UPLOAD_OFFSET, Long.toString(offset));
+        return headers;
+    }
+}
@@ -0,0 +1,138 @@
+package com.sarthak.webapp.filter;
+
+import com.netflix.concurrency.limits.Limiter;
+import com.netflix.concurrency.limits.limit.Gradient2Limit;
+import com.netflix.concurrency.limits.limiter.SimpleLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Caps the number of requests in flight with an adaptive limit, so that under
+ * overload excess requests are rejected immediately with 503 and
+ * {@code Retry-After} instead of queueing in Tomcat. The limit follows the
+ * gradient between the long-term and the current request latency (Netflix
+ * {@code Gradient2Limit}): it grows while latency holds and shrinks as soon as
+ * requests start to queue.
+ * <p>
+ * Image and user endpoints have separate limits, so slow S3 uploads cannot
+ * starve the user API. The filter runs before Spring Security, which keeps
+ * BCrypt off the CPU for requests that would be shed anyway. Health and
+ * actuator endpoints are never limited.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AdaptiveConcurrencyLimitFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimitFilter.class);
+
+    static final String IMAGES = "images";
+    static final String USERS = "users";
+
+    private final boolean enabled;
+    private final String retryAfterSeconds;
+    private final Map<String, SimpleLimiter<Void>> limiters = new LinkedHashMap<>();
+    private final Map<String, Counter> rejected = new LinkedHashMap<>();
+
+    public AdaptiveConcurrencyLimitFilter(MeterRegistry meterRegistry,
+                                          @Value("${webapp.concurrency.enabled:true}") boolean enabled,
+                                          @Value("${webapp.concurrency.initial-limit:20}") int initialLimit,
+                                          @Value("${webapp.concurrency.min-limit:4}") int minLimit,
+                                          @Value("${webapp.concurrency.max-limit:200}") int maxLimit,
+                                          @Value("${webapp.concurrency.retry-after:1s}") Duration retryAfter) {
+        this.enabled = enabled;
+        this.retryAfterSeconds = Long.toString(Math.max(1, retryAfter.toSeconds()));
+
+        for (String partition : new String[]{IMAGES, USERS}) {
+            SimpleLimiter<Void> limiter = SimpleLimiter.newBuilder()
+                    .named(partition)
+                    .limit(Gradient2Limit.newBuilder()
+                            .initialLimit(initialLimit)
+                            .minLimit(minLimit)
+                            .maxConcurrency(maxLimit)
+                            .build())
+                    .build();
+            limiters.put(partition, limiter);
+
+            Gauge.builder("webapp.concurrency.limit", limiter, SimpleLimiter::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("partition", partition)
+                    .register(meterRegistry);
+            Gauge.builder("webapp.concurrency.inflight", limiter, SimpleLimiter::getInflight)
+                    .description("Requests currently holding a concurrency permit")
+                    .tag("partition", partition)
+                    .register(meterRegistry);
+            rejected.put(partition, Counter.builder("webapp.concurrency.rejected")
+                    .description("Requests shed because the concurrency limit was reached")
+                    .tag("partition", partition)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || partition(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String partition = partition(request);
+        Optional<Limiter.Listener> permit = limiters.get(partition).acquire(null);
+        if (permit.isEmpty()) {
+            rejected.get(partition).increment();
+            logger.debug("Shedding {} {}: {} concurrency limit reached", request.getMethod(),
+                    request.getRequestURI(), partition);
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+
+        Limiter.Listener listener = permit.get();
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            // Failures return at arbitrary speed; keep them out of the latency samples
+            listener.onIgnore();
+            throw e;
+        }
+        int status = response.getStatus();
+        if (status == HttpStatus.SERVICE_UNAVAILABLE.value() || status == HttpStatus.GATEWAY_TIMEOUT.value()) {
+            // A dependency is struggling; back off as if the request had been dropped
+            listener.onDropped();
+        } else {
+            listener.onSuccess();
+        }
+    }
+
+    @Nullable
+    static String partition(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        if (uri.startsWith("/v1/user/self/pic")) {
+            return IMAGES;
+        }
+        if (uri.startsWith("/v1/")) {
+            return USERS;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,66 @@
+package com.sarthak.webapp.filter;
+
+import com.sarthak.webapp.logging.RequestSamplingTurboFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Puts a correlation id and the request's log sampling decision into the MDC
+ * for the duration of the request. The id is taken from {@code X-Request-Id}
+ * when the caller (or the load balancer) supplies one, and echoed back. It
+ * ends up in every log line, JFR event and trace of the request, so only ids
+ * of up to 128 letters, digits, dots, underscores and hyphens are taken;
+ * anything else gets a fresh id.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+    public static final String CORRELATION_ID_HEADER = "X-Request-Id";
+    public static final String CORRELATION_ID_MDC_KEY = "correlationId";
+
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9._-]{1,128}");
+
+    private final double sampleRate;
+
+    public CorrelationIdFilter(@Value("${webapp.logging.request-sample-rate:1.0}") double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String correlationId = request.getHeader(CORRELATION_ID_HEADER);
+        if (!isValid(correlationId)) {
+            correlationId = UUID.randomUUID().toString();
+        }
+        boolean sampled = sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+
+        MDC.put(CORRELATION_ID_MDC_KEY, correlationId);
+        MDC.put(RequestSamplingTurboFilter.SAMPLED_MDC_KEY, Boolean.toString(sampled));
+        response.setHeader(CORRELATION_ID_HEADER, correlationId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(CORRELATION_ID_MDC_KEY);
+            MDC.remove(RequestSamplingTurboFilter.SAMPLED_MDC_KEY);
+        }
+    }
+
+    static boolean isValid(String correlationId) {
+        return correlationId != null && VALID_ID.matcher(correlationId).matches();
+    }
+}
@@ -0,0 +1,481 @@
+package com.sarthak.webapp.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sarthak.webapp.resilience.RequestDeadline;
+import com.sarthak.webapp.upload.MultipartStream;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Makes retried {@code POST /v1/user} and {@code POST /v1/user/self/pic}
+ * requests that carry an {@code Idempotency-Key} header safe: the first
+ * request with a key runs, and its response is kept for
+ * {@code webapp.idempotency.ttl}. A retry with the same key gets the stored
+ * response, marked with {@code Idempotent-Replayed: true}, and the sign-up or
+ * upload is not repeated. A retry that arrives while the first request is
+ * still running waits for it, up to its own deadline, and gets 409 if it is
+ * still running after that.
+ * <p>
+ * Keys are scoped to the authenticated user, the method and the path, so one
+ * user cannot replay another's response. A key is also bound to the request's
+ * body, by a SHA-256 digest taken as the body streams through, and its media
+ * type: reusing it for a different request gets 422. Multipart boundaries are
+ * left out of the digest, since a retry usually has a new one. Sign-ups have no user to
+ * scope by, so this binding is what keeps them apart; only a client that sends
+ * the same body, password included, gets the stored response. Server errors and responses
+ * that depend on credentials or load (401, 403, 408, 429) are not stored, so a
+ * retry after them runs again. Neither is a response to a request whose body
+ * the application left more than {@code webapp.idempotency.max-unread-bytes}
+ * of unread, such as an upload rejected from its headers: the rest is not
+ * read just to digest it.
+ * <p>
+ * The store is in memory and bounded by {@code webapp.idempotency.max-stored-bytes}.
+ * Keys are only honoured on the instance that handled the first request.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+public class IdempotencyFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final String REPLAYED = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final List<String> STORED_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.LOCATION, HttpHeaders.ETAG, HttpHeaders.CACHE_CONTROL);
+
+    private final boolean enabled;
+    private final Duration maxWait;
+    private final long maxUnreadBytes;
+    private final Cache<String, Execution> executions;
+    private final MeterRegistry meterRegistry;
+
+    public IdempotencyFilter(MeterRegistry meterRegistry,
+                             @Value("${webapp.idempotency.enabled:true}") boolean enabled,
+                             @Value("${webapp.idempotency.ttl:24h}") Duration ttl,
+                             @Value("${webapp.idempotency.max-stored-bytes:16777216}") long maxStoredBytes,
+                             @Value("${webapp.idempotency.max-wait:10s}") Duration maxWait,
+                             @Value("${webapp.idempotency.max-unread-bytes:65536}") long maxUnreadBytes) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxWait = maxWait;
+        this.maxUnreadBytes = maxUnreadBytes;
+        // Running executions weigh nothing and are never evicted; stored responses weigh their body
+        this.executions = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumWeight(maxStoredBytes)
+                .weigher((String key, Execution execution) -> execution.weight())
+                .build();
+        Gauge.builder("webapp.idempotency.keys", executions, Cache::estimatedSize)
+                .description("Idempotency keys currently held, running or completed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled
+                || !"POST".equals(request.getMethod())
+                || request.getHeader(IDEMPOTENCY_KEY) == null
+                || !isCovered(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            count("invalid");
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+
+        String scopedKey = principal() + " " + request.getRequestURI() + " " + key;
+        // The size and media type are known up front; the body's digest only once it has been read
+        String fingerprint = request.getContentLengthLong() + " " + mediaType(request.getContentType());
+        while (true) {
+            Execution mine = new Execution(fingerprint);
+            Execution existing = executions.asMap().putIfAbsent(scopedKey, mine);
+            if (existing == null) {
+                execute(scopedKey, mine, request, response, filterChain);
+                return;
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                logger.debug("{} reused for a different request to {}", IDEMPOTENCY_KEY, request.getRequestURI());
+                count("mismatch");
+                response.setStatus(HttpStatus.UNPROCESSABLE_ENTITY.value());
+                return;
+            }
+            boolean running = !existing.result.isDone();
+            StoredResponse stored = await(existing);
+            if (stored == StoredResponse.TIMED_OUT) {
+                count("in_progress");
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                response.setStatus(HttpStatus.CONFLICT.value());
+                return;
+            }
+            if (stored != null) {
+                if (!Arrays.equals(stored.requestDigest, digest(request, stored.requestLength))) {
+                    logger.debug("{} reused for a different body to {}", IDEMPOTENCY_KEY, request.getRequestURI());
+                    count("mismatch");
+                    response.setStatus(HttpStatus.UNPROCESSABLE_ENTITY.value());
+                    return;
+                }
+                count(running ? "waited" : "replayed");
+                stored.writeTo(response);
+                return;
+            }
+            // The first attempt ended with a response that is not stored; run this one instead
+        }
+    }
+
+    private void execute(String scopedKey, Execution execution, HttpServletRequest request,
+                         HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        DigestingRequest digesting = new DigestingRequest(request);
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        StoredResponse stored = null;
+        try {
+            filterChain.doFilter(digesting, wrapper);
+            byte[] requestDigest = isStorable(wrapper.getStatus()) ? digesting.finish(maxUnreadBytes) : null;
+            if (requestDigest != null) {
+                stored = StoredResponse.of(requestDigest, digesting.length(), wrapper);
+            }
+        } finally {
+            execution.result.complete(stored);
+            if (stored != null) {
+                // Re-inserting re-weighs the entry now that it holds a body
+                executions.put(scopedKey, execution);
+                count("executed");
+            } else {
+                executions.asMap().remove(scopedKey, execution);
+                count("not_stored");
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    @Nullable
+    private StoredResponse await(Execution execution) {
+        RequestDeadline deadline = RequestDeadline.current();
+        long waitNanos = deadline == null
+                ? maxWait.toNanos()
+                : Math.min(maxWait.toNanos(), Math.max(0, deadline.remainingNanos()));
+        try {
+            return execution.result.get(waitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return StoredResponse.TIMED_OUT;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return StoredResponse.TIMED_OUT;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    // A retry's body is only read for this comparison, and no further than the stored request's length
+    @Nullable
+    private static byte[] digest(HttpServletRequest request, long maxLength) throws IOException {
+        BodyDigest digest = new BodyDigest(request.getContentType());
+        InputStream body = request.getInputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = body.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+            if (digest.length() > maxLength) {
+                return null;
+            }
+        }
+        return digest.finish();
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("webapp.idempotency.requests", "outcome", outcome).increment();
+    }
+
+    // Sign-ups run as the anonymous user, which every client shares
+    private static String principal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : "-";
+    }
+
+    // Without parameters: a retried multipart request usually has a new boundary
+    @Nullable
+    static String mediaType(@Nullable String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int parameters = contentType.indexOf(';');
+        return (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim().toLowerCase();
+    }
+
+    static boolean isCovered(String uri) {
+        return "/v1/user".equals(uri) || "/v1/user/self/pic".equals(uri);
+    }
+
+    static boolean isStorable(int status) {
+        return status < 500
+                && status != HttpStatus.UNAUTHORIZED.value()
+                && status != HttpStatus.FORBIDDEN.value()
+                && status != HttpStatus.REQUEST_TIMEOUT.value()
+                && status != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private static final class Execution {
+        private final String fingerprint;
+        private final CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+
+        Execution(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        int weight() {
+            StoredResponse stored = result.getNow(null);
+            return stored != null ? stored.body.length + 256 : 0;
+        }
+    }
+
+    /**
+     * Digests the request body as the application reads it.
+     */
+    private static final class DigestingRequest extends HttpServletRequestWrapper {
+        private final BodyDigest digest;
+        private ServletInputStream inputStream;
+
+        DigestingRequest(HttpServletRequest request) {
+            super(request);
+            this.digest = new BodyDigest(request.getContentType());
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new DigestingInputStream(super.getInputStream(), digest);
+            }
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        /**
+         * The digest of the whole body, reading whatever the application left
+         * unread, or null if more than {@code maxUnreadBytes} were left or the
+         * rest could not be read.
+         */
+        @Nullable
+        byte[] finish(long maxUnreadBytes) {
+            try {
+                InputStream in = getInputStream();
+                byte[] buffer = new byte[8192];
+                long remaining = maxUnreadBytes;
+                int read;
+                while ((read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining + 1))) != -1) {
+                    remaining -= read;
+                    if (remaining < 0) {
+                        logger.debug("Request body left unread past {} bytes; the response is not stored", maxUnreadBytes);
+                        return null;
+                    }
+                }
+                return digest.finish();
+            } catch (IOException e) {
+                logger.debug("Request body could not be read to the end; the response is not stored", e);
+                return null;
+            }
+        }
+
+        long length() {
+            return digest.length();
+        }
+    }
+
+    private static final class DigestingInputStream extends ServletInputStream {
+        private final ServletInputStream delegate;
+        private final BodyDigest digest;
+
+        DigestingInputStream(ServletInputStream delegate, BodyDigest digest) {
+            this.delegate = delegate;
+            this.digest = digest;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b != -1) {
+                digest.update((byte) b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = delegate.read(buffer, offset, length);
+            if (read > 0) {
+                digest.update(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener listener) {
+            delegate.setReadListener(listener);
+        }
+    }
+
+    /**
+     * SHA-256 of a body, leaving out every occurrence of its multipart boundary.
+     * Bytes that could be the start of a boundary are held back until they
+     * turn out not to be (a Knuth-Morris-Pratt match).
+     */
+    static final class BodyDigest {
+        private final MessageDigest digest;
+        private final byte[] boundary;
+        private final int[] fallback;
+        private int matched;
+        private long length;
+
+        BodyDigest(@Nullable String contentType) {
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is required of every JVM", e);
+            }
+            String value = MultipartStream.boundary(contentType);
+            this.boundary = value != null ? value.getBytes(StandardCharsets.ISO_8859_1) : new byte[0];
+            // fallback[i]: length of the longest proper prefix of boundary[0..i] that is also its suffix
+            this.fallback = new int[boundary.length];
+            for (int i = 1, k = 0; i < boundary.length; i++) {
+                while (k > 0 && boundary[i] != boundary[k]) {
+                    k = fallback[k - 1];
+                }
+                if (boundary[i] == boundary[k]) {
+                    k++;
+                }
+                fallback[i] = k;
+            }
+        }
+
+        void update(byte[] bytes, int offset, int length) {
+            this.length += length;
+            if (boundary.length == 0) {
+                digest.update(bytes, offset, length);
+                return;
+            }
+            for (int i = offset; i < offset + length; i++) {
+                match(bytes[i]);
+            }
+        }
+
+        void update(byte b) {
+            length++;
+            if (boundary.length == 0) {
+                digest.update(b);
+                return;
+            }
+            match(b);
+        }
+
+        // Bytes fed in so far, boundaries included
+        long length() {
+            return length;
+        }
+
+        private void match(byte b) {
+            while (matched > 0 && boundary[matched] != b) {
+                // The held-back bytes before the longest prefix still in play are body after all
+                int keep = fallback[matched - 1];
+                digest.update(boundary, 0, matched - keep);
+                matched = keep;
+            }
+            if (boundary[matched] == b) {
+                if (++matched == boundary.length) {
+                    matched = 0;
+                }
+            } else {
+                digest.update(b);
+            }
+        }
+
+        byte[] finish() {
+            digest.update(boundary, 0, matched);
+            return digest.digest();
+        }
+    }
+
+    private record StoredResponse(byte[] requestDigest, long requestLength, int status, Map<String, String> headers,
+                                  byte[] body) {
+
+        static final StoredResponse TIMED_OUT = new StoredResponse(new byte[0], 0, 0, Map.of(), new byte[0]);
+
+        static StoredResponse of(byte[] requestDigest, long requestLength, ContentCachingResponseWrapper response) {
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (String name : STORED_HEADERS) {
+                String value = name.equals(HttpHeaders.CONTENT_TYPE) ? response.getContentType() : response.getHeader(name);
+                if (value != null) {
+                    headers.put(name, value);
+                }
+            }
+            return new StoredResponse(requestDigest, requestLength, response.getStatus(), headers,
+                    response.getContentAsByteArray());
+        }
+
+        void writeTo(HttpServletResponse response) throws IOException {
+            response.setStatus(status);
+            headers.forEach(response::setHeader);
+            response.setHeader(REPLAYED, "true");
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.sarthak.webapp.filter;
+
+import com.sarthak.webapp.resilience.RequestDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Starts the {@link RequestDeadline} for each API request. The budget comes from
+ * the {@code X-Request-Timeout} header (milliseconds, capped at
+ * {@code webapp.deadline.max}) or else from the per-route default: clients retry
+ * user calls after about two seconds, while image uploads get longer and
+ * resumable upload chunks longest.
+ * <p>
+ * Runs ahead of the concurrency limiter and authentication, so time spent
+ * there counts against the budget. Requests whose deadline was exceeded are
+ * counted as {@code webapp.deadline.exceeded}, tagged with the stage that
+ * gave up, or {@code response} if the work finished late.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(RequestDeadlineFilter.class);
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
+    private final MeterRegistry meterRegistry;
+    private final Duration defaultBudget;
+    private final Duration imageBudget;
+    private final Duration uploadBudget;
+    private final Duration maxBudget;
+
+    public RequestDeadlineFilter(MeterRegistry meterRegistry,
+                                 @Value("${webapp.deadline.default:2s}") Duration defaultBudget,
+                                 @Value("${webapp.deadline.images:10s}") Duration imageBudget,
+                                 @Value("${webapp.deadline.uploads:30s}") Duration uploadBudget,
+                                 @Value("${webapp.deadline.max:30s}") Duration maxBudget) {
+        this.meterRegistry = meterRegistry;
+        this.defaultBudget = defaultBudget;
+        this.imageBudget = imageBudget;
+        this.uploadBudget = uploadBudget;
+        this.maxBudget = maxBudget;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/v1/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestDeadline deadline = RequestDeadline.start(budget(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestDeadline.clear();
+            String stage = deadline.exceededStage();
+            if (stage == null && deadline.remainingNanos() < 0) {
+                stage = "response";
+            }
+            if (stage != null) {
+                logger.debug("Deadline exceeded at {} for {} {}", stage, request.getMethod(), request.getRequestURI());
+                Counter.builder("webapp.deadline.exceeded")
+                        .description("Requests that ran past their deadline, by the stage that noticed")
+                        .tag("stage", stage)
+                        .register(meterRegistry)
+                        .increment();
+            }
+        }
+    }
+
+    Duration budget(HttpServletRequest request) {
+        String header = request.getHeader(TIMEOUT_HEADER);
+        if (header != null) {
+            try {
+                long millis = Long.parseLong(header.trim());
+                if (millis > 0) {
+                    Duration requested = Duration.ofMillis(millis);
+                    return requested.compareTo(maxBudget) < 0 ? requested : maxBudget;
+                }
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring malformed {} header: {}", TIMEOUT_HEADER, header);
+            }
+        }
+        String uri = request.getRequestURI();
+        if (uri.startsWith("/v1/user/self/pic/uploads")) {
+            return uploadBudget;
+        }
+        return uri.startsWith("/v1/user/self/pic") ? imageBudget : defaultBudget;
+    }
+}
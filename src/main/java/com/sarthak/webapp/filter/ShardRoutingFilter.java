@@ -0,0 +1,71 @@
+package com.sarthak.webapp.filter;
+
+import com.sarthak.webapp.exception.DependencyUnavailableException;
+import com.sarthak.webapp.security.AuthShieldFilter;
+import com.sarthak.webapp.sharding.ShardContext;
+import com.sarthak.webapp.sharding.ShardRouter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Sends a request's database work to the shard of the user named in its Basic
+ * credentials. It runs ahead of Spring Security, so looking the user up to
+ * check the password already goes to the right shard; a wrong password still
+ * fails there as it would anywhere. Requests without credentials stay on
+ * shard 0 unless the code handling them picks a shard, as sign-up does.
+ * <p>
+ * A user whose data is being moved between shards gets 503 with {@code Retry-After}.
+ * Does nothing unless sharding is enabled.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 2)
+public class ShardRoutingFilter extends OncePerRequestFilter {
+
+    private static final String BASIC_PREFIX = "Basic ";
+
+    private final ShardRouter shardRouter;
+
+    public ShardRoutingFilter(ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return !shardRouter.sharded()
+                || authorization == null
+                || !authorization.regionMatches(true, 0, BASIC_PREFIX, 0, BASIC_PREFIX.length());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String email = AuthShieldFilter.basicUsername(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (email == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        int shard;
+        try {
+            shard = shardRouter.shardFor(email);
+        } catch (DependencyUnavailableException e) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+            response.setStatus(e.getStatusCode().value());
+            return;
+        }
+
+        try (ShardContext.Scope ignored = ShardContext.enter(shard)) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
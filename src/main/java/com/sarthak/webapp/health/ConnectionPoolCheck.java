@@ -0,0 +1,66 @@
+package com.sarthak.webapp.health;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reports the Hikari pool as down while it is saturated: every connection
+ * in use and requests queueing for one. The instance then stops receiving
+ * new traffic until the pool drains.
+ */
+@Component
+public class ConnectionPoolCheck implements DependencyCheck {
+
+    private final DataSource dataSource;
+
+    public ConnectionPoolCheck(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public String name() {
+        return "connectionPool";
+    }
+
+    @Override
+    public DependencyStatus check() {
+        HikariPoolMXBean pool = pool(dataSource);
+        if (pool == null) {
+            return DependencyStatus.up(Map.of("pool", "not started"));
+        }
+        HikariDataSource hikari = hikari(dataSource);
+        int maximum = hikari != null ? hikari.getMaximumPoolSize() : pool.getTotalConnections();
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("active", pool.getActiveConnections());
+        details.put("idle", pool.getIdleConnections());
+        details.put("max", maximum);
+        details.put("waiting", pool.getThreadsAwaitingConnection());
+        if (pool.getActiveConnections() >= maximum && pool.getThreadsAwaitingConnection() > 0) {
+            return DependencyStatus.down("pool saturated", details);
+        }
+        return DependencyStatus.up(details);
+    }
+
+    @Nullable
+    static HikariPoolMXBean pool(DataSource dataSource) {
+        HikariDataSource hikari = hikari(dataSource);
+        return hikari != null ? hikari.getHikariPoolMXBean() : null;
+    }
+
+    @Nullable
+    private static HikariDataSource hikari(DataSource dataSource) {
+        try {
+            // The data source may be wrapped for JDBC observations
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
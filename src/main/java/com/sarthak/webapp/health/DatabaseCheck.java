@@ -0,0 +1,53 @@
+package com.sarthak.webapp.health;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Borrows a pooled connection and validates it. When every connection is in use
+ * the check is skipped: a busy pool is evidence the database answers, and waiting
+ * for a connection would only add to the queue ({@link ConnectionPoolCheck} reports saturation).
+ */
+@Component
+public class DatabaseCheck implements DependencyCheck {
+
+    private final DataSource dataSource;
+    private final int validationTimeoutSeconds;
+
+    public DatabaseCheck(DataSource dataSource,
+                         @Value("${webapp.health.probe-timeout:3s}") Duration probeTimeout) {
+        this.dataSource = dataSource;
+        this.validationTimeoutSeconds = (int) Math.max(1, probeTimeout.toSeconds());
+    }
+
+    @Override
+    public String name() {
+        return "database";
+    }
+
+    @Override
+    public boolean critical() {
+        return true;
+    }
+
+    @Override
+    public DependencyStatus check() throws SQLException {
+        HikariPoolMXBean pool = ConnectionPoolCheck.pool(dataSource);
+        if (pool != null && pool.getIdleConnections() == 0 && pool.getActiveConnections() > 0) {
+            return DependencyStatus.up(Map.of("validation", "skipped, pool busy"));
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            if (!connection.isValid(validationTimeoutSeconds)) {
+                return DependencyStatus.down("connection not valid", Map.of());
+            }
+        }
+        return DependencyStatus.up(Map.of());
+    }
+}
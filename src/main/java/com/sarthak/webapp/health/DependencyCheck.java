@@ -0,0 +1,22 @@
+package com.sarthak.webapp.health;
+
+/**
+ * A dependency probed in the background by {@link DependencyHealthProber}.
+ * Implementations may block; the prober runs them off the request path with a timeout.
+ */
+public interface DependencyCheck {
+
+    String name();
+
+    /**
+     * Critical dependencies also fail {@code /healthz}; the others only fail {@code /readyz}.
+     */
+    default boolean critical() {
+        return false;
+    }
+
+    /**
+     * Returns the status of the dependency; an exception counts as down.
+     */
+    DependencyStatus check() throws Exception;
+}
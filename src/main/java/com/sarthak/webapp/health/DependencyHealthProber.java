@@ -0,0 +1,199 @@
+package com.sarthak.webapp.health;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs every {@link DependencyCheck} on a fixed schedule, in parallel and with a
+ * timeout, and publishes the results as one immutable {@link HealthSnapshot}.
+ * Health endpoints only read the latest snapshot, so a probe never waits on a
+ * dependency. A snapshot older than {@code webapp.health.stale-after} counts as
+ * unhealthy, in case probing itself has stopped.
+ */
+@Component
+public class DependencyHealthProber implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(DependencyHealthProber.class);
+
+    private final List<DependencyCheck> checks;
+    private final Map<String, Boolean> critical = new LinkedHashMap<>();
+    private final Map<String, Timer> probeTimers = new LinkedHashMap<>();
+    private final Duration interval;
+    private final Duration timeout;
+    private final Duration staleAfter;
+    private final ExecutorService checkExecutor;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile HealthSnapshot snapshot = HealthSnapshot.EMPTY;
+    private volatile boolean running;
+
+    public DependencyHealthProber(List<DependencyCheck> checks,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${webapp.health.probe-interval:10s}") Duration interval,
+                                  @Value("${webapp.health.probe-timeout:3s}") Duration timeout,
+                                  @Value("${webapp.health.stale-after:30s}") Duration staleAfter) {
+        this.checks = List.copyOf(checks);
+        this.interval = interval;
+        this.timeout = timeout;
+        this.staleAfter = staleAfter;
+        this.checkExecutor = Executors.newFixedThreadPool(Math.max(1, checks.size()), daemonThreads("health-check"));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("health-prober"));
+
+        for (DependencyCheck check : this.checks) {
+            critical.put(check.name(), check.critical());
+            probeTimers.put(check.name(), Timer.builder("webapp.health.probe")
+                    .description("Time taken by background dependency checks")
+                    .tag("dependency", check.name())
+                    .register(meterRegistry));
+            Gauge.builder("webapp.health.dependency.up", this, prober -> prober.isUp(check.name()) ? 1 : 0)
+                    .description("1 if the dependency passed its last check")
+                    .tag("dependency", check.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Whether the latest results are fresh and the dependencies are up;
+     * {@code criticalOnly} ignores non-critical dependencies.
+     */
+    public boolean isHealthy(boolean criticalOnly) {
+        HealthSnapshot current = snapshot;
+        if (isStale(current)) {
+            return false;
+        }
+        return criticalOnly ? current.criticalUp() : current.allUp();
+    }
+
+    /**
+     * Per-dependency detail of the latest results, for verbose health responses.
+     */
+    public Map<String, Object> report(boolean healthy) {
+        HealthSnapshot current = snapshot;
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("status", healthy ? "UP" : "DOWN");
+        report.put("checkedAt", current.completedAt() != null ? current.completedAt().toString() : null);
+        report.put("stale", isStale(current));
+        report.put("dependencies", current.dependencies());
+        return report;
+    }
+
+    void probe() {
+        Map<String, Future<DependencyStatus>> pending = new LinkedHashMap<>();
+        for (DependencyCheck check : checks) {
+            pending.put(check.name(), checkExecutor.submit(() -> timed(check)));
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Map<String, DependencyStatus> results = new LinkedHashMap<>();
+        for (Map.Entry<String, Future<DependencyStatus>> entry : pending.entrySet()) {
+            Future<DependencyStatus> future = entry.getValue();
+            DependencyStatus status;
+            try {
+                status = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                status = DependencyStatus.down("timed out after " + timeout.toMillis() + "ms", Map.of())
+                        .withLatency(timeout.toMillis());
+            } catch (ExecutionException e) {
+                // Only the exception type is exposed; the message may name hosts or resources
+                Throwable cause = e.getCause();
+                logger.debug("Dependency check {} failed: {}", entry.getKey(), cause.getMessage());
+                status = DependencyStatus.down(cause.getClass().getSimpleName(), Map.of());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            logTransition(entry.getKey(), status);
+            results.put(entry.getKey(), status);
+        }
+        snapshot = HealthSnapshot.of(results, critical, System.nanoTime());
+    }
+
+    private DependencyStatus timed(DependencyCheck check) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return check.check().withLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } finally {
+            probeTimers.get(check.name()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void logTransition(String name, DependencyStatus status) {
+        DependencyStatus previous = snapshot.statuses().get(name);
+        if (previous == null && status.up()) {
+            return;
+        }
+        if (previous == null || previous.up() != status.up()) {
+            if (status.up()) {
+                logger.info("Dependency {} is up", name);
+            } else {
+                logger.warn("Dependency {} is down: {}", name, status.error());
+            }
+        }
+    }
+
+    private boolean isUp(String name) {
+        DependencyStatus status = snapshot.statuses().get(name);
+        return status != null && status.up();
+    }
+
+    private boolean isStale(HealthSnapshot current) {
+        return current.completedAt() == null
+                || System.nanoTime() - current.completedAtNanos() > staleAfter.toNanos();
+    }
+
+    private void probeSafely() {
+        try {
+            probe();
+        } catch (RuntimeException e) {
+            // An exception would cancel the schedule; the snapshot then goes stale instead
+            logger.error("Dependency probe failed", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::probeSafely, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdownNow();
+        checkExecutor.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package com.sarthak.webapp.health;
+
+import org.springframework.lang.Nullable;
+
+import java.util.Map;
+
+/**
+ * Result of one dependency check. {@code latencyMillis} is filled in by the prober.
+ */
+public record DependencyStatus(boolean up, @Nullable String error, Map<String, Object> details, long latencyMillis) {
+
+    public static DependencyStatus up(Map<String, Object> details) {
+        return new DependencyStatus(true, null, details, 0);
+    }
+
+    public static DependencyStatus down(String error, Map<String, Object> details) {
+        return new DependencyStatus(false, error, details, 0);
+    }
+
+    DependencyStatus withLatency(long millis) {
+        return new DependencyStatus(up, error, details, millis);
+    }
+}
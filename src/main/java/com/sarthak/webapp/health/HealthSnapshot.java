@@ -0,0 +1,50 @@
+package com.sarthak.webapp.health;
+
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable result of one probe round. Everything a health response needs is
+ * computed here, so serving it does not depend on the number of dependencies.
+ */
+record HealthSnapshot(Map<String, DependencyStatus> statuses,
+                      Map<String, Object> dependencies,
+                      boolean criticalUp,
+                      boolean allUp,
+                      @Nullable Instant completedAt,
+                      long completedAtNanos) {
+
+    static final HealthSnapshot EMPTY =
+            new HealthSnapshot(Map.of(), Map.of(), false, false, null, 0);
+
+    static HealthSnapshot of(Map<String, DependencyStatus> statuses, Map<String, Boolean> critical, long nanoTime) {
+        Map<String, Object> dependencies = new LinkedHashMap<>();
+        boolean criticalUp = true;
+        boolean allUp = true;
+        for (Map.Entry<String, DependencyStatus> entry : statuses.entrySet()) {
+            DependencyStatus status = entry.getValue();
+            boolean isCritical = critical.getOrDefault(entry.getKey(), false);
+            Map<String, Object> dependency = new LinkedHashMap<>();
+            dependency.put("status", status.up() ? "UP" : "DOWN");
+            dependency.put("critical", isCritical);
+            dependency.put("latencyMs", status.latencyMillis());
+            if (status.error() != null) {
+                dependency.put("error", status.error());
+            }
+            if (!status.details().isEmpty()) {
+                dependency.put("details", status.details());
+            }
+            dependencies.put(entry.getKey(), Collections.unmodifiableMap(dependency));
+            allUp &= status.up();
+            if (isCritical) {
+                criticalUp &= status.up();
+            }
+        }
+        return new HealthSnapshot(Map.copyOf(statuses), Collections.unmodifiableMap(dependencies),
+                criticalUp, allUp, Instant.now(), nanoTime);
+    }
+}
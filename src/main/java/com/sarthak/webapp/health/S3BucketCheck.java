@@ -0,0 +1,37 @@
+package com.sarthak.webapp.health;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.HeadBucketRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * HEAD on the image bucket: reachability plus credentials and bucket permissions.
+ * Not critical: S3 is shared by every instance, so an outage would fail
+ * {@code /healthz} everywhere at once and have the load balancer replace
+ * healthy instances; users and logins keep working without it.
+ */
+@Component
+public class S3BucketCheck implements DependencyCheck {
+
+    private final AmazonS3 amazonS3;
+    private final String bucketName;
+
+    public S3BucketCheck(AmazonS3 amazonS3, @Value("${aws.s3.bucket}") String bucketName) {
+        this.amazonS3 = amazonS3;
+        this.bucketName = bucketName;
+    }
+
+    @Override
+    public String name() {
+        return "s3";
+    }
+
+    @Override
+    public DependencyStatus check() {
+        amazonS3.headBucket(new HeadBucketRequest(bucketName));
+        return DependencyStatus.up(Map.of());
+    }
+}
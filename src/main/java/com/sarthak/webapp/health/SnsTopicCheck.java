@@ -0,0 +1,34 @@
+package com.sarthak.webapp.health;
+
+import com.amazonaws.services.sns.AmazonSNS;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Reads the verification topic's attributes. Only signup publishes to SNS,
+ * so this affects readiness but not {@code /healthz}.
+ */
+@Component
+public class SnsTopicCheck implements DependencyCheck {
+
+    private final AmazonSNS amazonSNS;
+    private final String topicArn;
+
+    public SnsTopicCheck(AmazonSNS amazonSNS, @Value("${aws.sns.topic.arn}") String topicArn) {
+        this.amazonSNS = amazonSNS;
+        this.topicArn = topicArn;
+    }
+
+    @Override
+    public String name() {
+        return "sns";
+    }
+
+    @Override
+    public DependencyStatus check() {
+        amazonSNS.getTopicAttributes(topicArn);
+        return DependencyStatus.up(Map.of());
+    }
+}
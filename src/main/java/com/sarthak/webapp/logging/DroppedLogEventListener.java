@@ -0,0 +1,26 @@
+package com.sarthak.webapp.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import net.logstash.logback.appender.listener.AppenderListener;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts events the async appender could not enqueue because its ring buffer
+ * was full. Registered from logback-spring.xml, so the count lives in a static
+ * field that {@link LoggingMetrics} exports once the application context exists.
+ */
+public class DroppedLogEventListener implements AppenderListener<ILoggingEvent> {
+
+    private static final LongAdder DROPPED_EVENTS = new LongAdder();
+
+    @Override
+    public void eventAppendFailed(Appender<ILoggingEvent> appender, ILoggingEvent event, Throwable reason) {
+        DROPPED_EVENTS.increment();
+    }
+
+    public static long droppedEvents() {
+        return DROPPED_EVENTS.sum();
+    }
+}
@@ -0,0 +1,22 @@
+package com.sarthak.webapp.logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+@Component
+public class LoggingMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("webapp.logging.events.dropped", DroppedLogEventListener.class,
+                        listener -> DroppedLogEventListener.droppedEvents())
+                .description("Log events dropped because the async appender ring buffer was full")
+                .register(registry);
+        FunctionCounter.builder("webapp.logging.events.sampled.out", RequestSamplingTurboFilter.class,
+                        filter -> RequestSamplingTurboFilter.suppressedEvents())
+                .description("Request log events suppressed by sampling")
+                .register(registry);
+    }
+}
@@ -0,0 +1,45 @@
+package com.sarthak.webapp.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drops INFO and lower events from application loggers while handling a
+ * request that {@link com.sarthak.webapp.filter.CorrelationIdFilter} did not
+ * sample. Runs before the logging event is created, so suppressed statements
+ * cost only an MDC lookup. WARN and ERROR are always logged.
+ */
+public class RequestSamplingTurboFilter extends TurboFilter {
+
+    public static final String SAMPLED_MDC_KEY = "sampled";
+
+    private static final LongAdder SUPPRESSED_EVENTS = new LongAdder();
+
+    private String loggerPrefix = "com.sarthak.webapp";
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level.isGreaterOrEqual(Level.WARN) || !logger.getName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        if ("false".equals(MDC.get(SAMPLED_MDC_KEY))) {
+            SUPPRESSED_EVENTS.increment();
+            return FilterReply.DENY;
+        }
+        return FilterReply.NEUTRAL;
+    }
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+
+    public static long suppressedEvents() {
+        return SUPPRESSED_EVENTS.sum();
+    }
+}
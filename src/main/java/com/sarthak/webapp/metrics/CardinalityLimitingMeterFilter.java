@@ -0,0 +1,120 @@
+package com.sarthak.webapp.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the number of distinct tag combinations registered under each meter
+ * name. Once a name reaches the limit, new combinations are collapsed into a
+ * single overflow meter whose tag values are {@value #OVERFLOW_TAG_VALUE}
+ * (except for preserved keys such as {@code application}), so an error storm
+ * with unbounded tag values cannot grow the registry or the export payload.
+ * Collapsed registrations are reported as {@code webapp.meters.denied}.
+ */
+@Component
+public class CardinalityLimitingMeterFilter implements MeterFilter, MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(CardinalityLimitingMeterFilter.class);
+
+    static final String OVERFLOW_TAG_VALUE = "other";
+    static final String DENIED_METER_NAME = "webapp.meters.denied";
+
+    private final int maxTagCombinations;
+    private final Set<String> preservedTagKeys;
+    private final Map<String, Set<List<Tag>>> tagCombinations = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> deniedByName = new ConcurrentHashMap<>();
+    private volatile MeterRegistry registry;
+
+    public CardinalityLimitingMeterFilter(
+            @Value("${webapp.metrics.cardinality.max-tag-combinations:100}") int maxTagCombinations,
+            @Value("${webapp.metrics.cardinality.preserved-tags:application}") Set<String> preservedTagKeys) {
+        this.maxTagCombinations = maxTagCombinations;
+        this.preservedTagKeys = Set.copyOf(preservedTagKeys);
+    }
+
+    @Override
+    public Meter.Id map(Meter.Id id) {
+        List<Tag> tags = id.getTags();
+        if (tags.isEmpty() || id.getName().equals(DENIED_METER_NAME) || isOverflow(tags)) {
+            return id;
+        }
+
+        Set<List<Tag>> known = tagCombinations.computeIfAbsent(id.getName(), name -> ConcurrentHashMap.newKeySet());
+        if (known.contains(tags)) {
+            return id;
+        }
+        synchronized (known) {
+            if (known.contains(tags) || known.size() < maxTagCombinations) {
+                known.add(tags);
+                return id;
+            }
+        }
+
+        recordDenied(id.getName());
+        return id.replaceTags(overflowTags(tags));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        deniedByName.forEach((name, count) -> registerDeniedCounter(registry, name, count));
+    }
+
+    private boolean isOverflow(List<Tag> tags) {
+        for (Tag tag : tags) {
+            if (!preservedTagKeys.contains(tag.getKey()) && !OVERFLOW_TAG_VALUE.equals(tag.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Tag> overflowTags(List<Tag> tags) {
+        List<Tag> collapsed = new ArrayList<>(tags.size());
+        for (Tag tag : tags) {
+            collapsed.add(preservedTagKeys.contains(tag.getKey())
+                    ? tag
+                    : Tag.of(tag.getKey(), OVERFLOW_TAG_VALUE));
+        }
+        return collapsed;
+    }
+
+    private void recordDenied(String name) {
+        AtomicLong count = deniedByName.get(name);
+        if (count == null) {
+            AtomicLong created = new AtomicLong();
+            count = deniedByName.putIfAbsent(name, created);
+            if (count == null) {
+                count = created;
+                logger.warn("Meter {} reached {} tag combinations; further combinations are reported as '{}'",
+                        name, maxTagCombinations, OVERFLOW_TAG_VALUE);
+                MeterRegistry current = registry;
+                if (current != null) {
+                    registerDeniedCounter(current, name, created);
+                }
+            }
+        }
+        count.incrementAndGet();
+    }
+
+    private static void registerDeniedCounter(MeterRegistry registry, String name, AtomicLong count) {
+        FunctionCounter.builder(DENIED_METER_NAME, count, AtomicLong::get)
+                .description("Meter registrations collapsed into the overflow tag combination")
+                .tag("meter", name)
+                .register(registry);
+    }
+}
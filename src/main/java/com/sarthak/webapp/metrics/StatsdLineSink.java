@@ -0,0 +1,169 @@
+package com.sarthak.webapp.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Line sink for the StatsD registry that never blocks the calling thread.
+ * Lines are offered to a bounded queue and a single daemon thread packs them
+ * into UDP datagrams for the local CloudWatch agent. When the queue is full or
+ * a datagram cannot be written, the data is dropped and counted instead.
+ */
+public class StatsdLineSink implements Consumer<String>, MeterBinder, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(StatsdLineSink.class);
+
+    private final BlockingQueue<String> queue;
+    private final InetSocketAddress address;
+    private final int maxPacketLength;
+    private final long flushIntervalNanos;
+    private final AtomicLong droppedLines = new AtomicLong();
+    private final AtomicLong droppedPackets = new AtomicLong();
+    private final AtomicLong sentPackets = new AtomicLong();
+    private final Thread sender;
+    private volatile boolean running = true;
+
+    public StatsdLineSink(String host, int port, int queueCapacity, int maxPacketLength, Duration flushInterval) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.address = new InetSocketAddress(host, port);
+        this.maxPacketLength = maxPacketLength;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.sender = new Thread(this::drain, "statsd-sender");
+        this.sender.setDaemon(true);
+        this.sender.start();
+        logger.info("StatsD line sink sending to {}:{} (queue capacity {})", host, port, queueCapacity);
+    }
+
+    @Override
+    public void accept(String line) {
+        if (!queue.offer(line)) {
+            droppedLines.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("webapp.statsd.lines.dropped", droppedLines, AtomicLong::get)
+                .description("StatsD lines dropped because the send queue was full")
+                .register(registry);
+        FunctionCounter.builder("webapp.statsd.packets.dropped", droppedPackets, AtomicLong::get)
+                .description("StatsD datagrams that could not be written to the agent")
+                .register(registry);
+        FunctionCounter.builder("webapp.statsd.packets.sent", sentPackets, AtomicLong::get)
+                .description("StatsD datagrams written to the agent")
+                .register(registry);
+        Gauge.builder("webapp.statsd.queue.size", queue, BlockingQueue::size)
+                .description("StatsD lines waiting to be sent")
+                .register(registry);
+    }
+
+    private void drain() {
+        ByteBuffer packet = ByteBuffer.allocate(maxPacketLength);
+        DatagramChannel channel = null;
+        while (running || !queue.isEmpty()) {
+            try {
+                String line = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (line == null) {
+                    continue;
+                }
+                if (channel == null || !channel.isOpen()) {
+                    channel = openChannel();
+                }
+                packet.clear();
+                append(packet, line);
+                // Pack as many queued lines as fit into a single datagram
+                String next;
+                while ((next = queue.peek()) != null
+                        && packet.position() + 1 + utf8Length(next) <= maxPacketLength) {
+                    queue.poll();
+                    if (packet.position() > 0) {
+                        packet.put((byte) '\n');
+                    }
+                    append(packet, next);
+                }
+                if (packet.position() == 0) {
+                    continue;
+                }
+                packet.flip();
+                if (channel.write(packet) > 0) {
+                    sentPackets.incrementAndGet();
+                } else {
+                    droppedPackets.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException e) {
+                // Agent not listening or socket buffer full; the datagram is lost
+                droppedPackets.incrementAndGet();
+                closeQuietly(channel);
+                channel = null;
+            }
+        }
+        closeQuietly(channel);
+    }
+
+    private DatagramChannel openChannel() throws IOException {
+        DatagramChannel channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.connect(address);
+        return channel;
+    }
+
+    private void append(ByteBuffer packet, String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > packet.remaining()) {
+            // A single line larger than the packet size cannot be delivered
+            droppedLines.incrementAndGet();
+            return;
+        }
+        packet.put(bytes);
+    }
+
+    private static int utf8Length(String line) {
+        // StatsD lines are ASCII in practice; fall back to encoding otherwise
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) > 0x7F) {
+                return line.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return line.length();
+    }
+
+    private static void closeQuietly(DatagramChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // nothing left to release
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            // Let the sender flush what is already queued
+            sender.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) * 2 + 100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sender.interrupt();
+    }
+}
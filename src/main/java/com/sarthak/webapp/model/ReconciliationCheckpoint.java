@@ -0,0 +1,33 @@
+package com.sarthak.webapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "reconciliation_checkpoints")
+@Data
+public class ReconciliationCheckpoint {
+    @Id
+    private String name;
+
+    // Every key up to and including this one has been reconciled in the current run; null between runs
+    @Column(name = "last_key", length = 1024)
+    private String lastKey;
+
+    @Column(name = "run_started_at")
+    private LocalDateTime runStartedAt;
+
+    @Column(name = "last_completed_at")
+    private LocalDateTime lastCompletedAt;
+
+    // Instance running the job, so a scaled-out group reconciles once
+    @Column(name = "lease_owner")
+    private String leaseOwner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Version
+    private Long version;
+}
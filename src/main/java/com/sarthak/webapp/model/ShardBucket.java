@@ -0,0 +1,19 @@
+package com.sarthak.webapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+@Entity
+@Table(name = "shard_buckets")
+@Data
+public class ShardBucket {
+    @Id
+    private Integer bucket;
+
+    @Column(nullable = false)
+    private int shard;
+
+    // Set while the bucket's users are copied to another shard; their requests are refused meanwhile
+    @Column(nullable = false)
+    private boolean moving;
+}
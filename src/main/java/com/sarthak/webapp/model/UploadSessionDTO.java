@@ -0,0 +1,23 @@
+package com.sarthak.webapp.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+@Data
+public class UploadSessionDTO {
+    private String id;
+
+    @JsonProperty("file_name")
+    private String fileName;
+
+    @JsonProperty("content_type")
+    private String contentType;
+
+    private Long size;
+
+    // Bytes received so far; the next chunk must start here
+    private Long offset;
+
+    @JsonProperty("expires_at")
+    private String expiresAt;
+}
@@ -0,0 +1,22 @@
+package com.sarthak.webapp.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+@Data
+public class UploadSessionRequest {
+    @NotBlank(message = "File name is required")
+    @JsonProperty("file_name")
+    private String fileName;
+
+    @NotBlank(message = "Content type is required")
+    @JsonProperty("content_type")
+    private String contentType;
+
+    @NotNull(message = "Size is required")
+    @Positive(message = "Size must be positive")
+    private Long size;
+}
@@ -1,5 +1,6 @@
 package com.sarthak.webapp.model;
 
+import com.sarthak.webapp.sharding.UserId;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
@@ -8,12 +9,12 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_account_created", columnList = "account_created"))
 @Data
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @UserId
     private Long id;
 
     private String firstName;
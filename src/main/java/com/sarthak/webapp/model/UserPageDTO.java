@@ -0,0 +1,13 @@
+package com.sarthak.webapp.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class UserPageDTO {
+    private List<UserResponseDTO> users;
+
+    // Id to pass as "after" for the next page; null on the last page
+    private Long next;
+}
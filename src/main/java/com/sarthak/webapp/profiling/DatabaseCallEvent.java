@@ -0,0 +1,44 @@
+package com.sarthak.webapp.profiling;
+
+import com.sarthak.webapp.filter.CorrelationIdFilter;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.slf4j.MDC;
+
+/**
+ * JFR event covering a repository call made by a service.
+ */
+@Name("com.sarthak.webapp.DatabaseCall")
+@Label("Database Call")
+@Category({"WebApp", "Database"})
+@Description("Repository call made while serving a request")
+@StackTrace(false)
+public class DatabaseCallEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Request Id")
+    String requestId;
+
+    public static DatabaseCallEvent begin(String operation) {
+        DatabaseCallEvent event = new DatabaseCallEvent();
+        if (event.isEnabled()) {
+            event.operation = operation;
+            event.begin();
+        }
+        return event;
+    }
+
+    public void complete() {
+        end();
+        if (shouldCommit()) {
+            this.requestId = MDC.get(CorrelationIdFilter.CORRELATION_ID_MDC_KEY);
+            commit();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.sarthak.webapp.profiling;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Actuator endpoint for on-demand Java Flight Recorder recordings.
+ * <ul>
+ *   <li>{@code POST /actuator/jfr} starts a recording ({@code duration}, {@code settings})</li>
+ *   <li>{@code GET /actuator/jfr} lists recordings</li>
+ *   <li>{@code GET /actuator/jfr/{id}} downloads the {@code .jfr} file, or a snapshot if still running</li>
+ *   <li>{@code DELETE /actuator/jfr/{id}} stops a recording before its time limit</li>
+ * </ul>
+ * Only one recording runs at a time and every recording stops by itself
+ * after at most {@code webapp.profiling.jfr.max-duration}.
+ */
+@Component
+@WebEndpoint(id = "jfr")
+public class JfrEndpoint implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(JfrEndpoint.class);
+
+    private final Duration defaultDuration;
+    private final Duration maxDuration;
+    private final DataSize maxSize;
+    private final Path directory;
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+
+    public JfrEndpoint(
+            @Value("${webapp.profiling.jfr.default-duration:60s}") Duration defaultDuration,
+            @Value("${webapp.profiling.jfr.max-duration:10m}") Duration maxDuration,
+            @Value("${webapp.profiling.jfr.max-size:100MB}") DataSize maxSize,
+            @Value("${webapp.profiling.jfr.directory:${java.io.tmpdir}}") Path directory) {
+        this.defaultDuration = defaultDuration;
+        this.maxDuration = maxDuration;
+        this.maxSize = maxSize;
+        this.directory = directory;
+    }
+
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> start(@Nullable Duration duration,
+                                                                       @Nullable String settings) {
+        Duration requested = duration != null ? duration : defaultDuration;
+        if (requested.isZero() || requested.isNegative()) {
+            return error(WebEndpointResponse.STATUS_BAD_REQUEST, "duration must be positive");
+        }
+        if (recordings.values().stream().anyMatch(r -> r.getState() == RecordingState.RUNNING)) {
+            return error(409, "A recording is already running");
+        }
+
+        String settingsName = settings != null ? settings : "profile";
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settingsName);
+        } catch (Exception e) {
+            return error(WebEndpointResponse.STATUS_BAD_REQUEST, "Unknown JFR settings: " + settingsName);
+        }
+
+        // Only the latest recording is kept around for download
+        discardFinishedRecordings();
+
+        Duration limited = requested.compareTo(maxDuration) > 0 ? maxDuration : requested;
+        Recording recording = new Recording(configuration);
+        try {
+            recording.setName("webapp-" + Instant.now().toEpochMilli());
+            recording.setDuration(limited);
+            recording.setMaxSize(maxSize.toBytes());
+            recording.setToDisk(true);
+            recording.setDestination(directory.resolve(recording.getName() + ".jfr"));
+            recording.start();
+        } catch (IOException | RuntimeException e) {
+            recording.close();
+            logger.error("Failed to start JFR recording: {}", e.getMessage());
+            return error(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR, "Failed to start recording");
+        }
+        recordings.put(recording.getId(), recording);
+        logger.info("Started JFR recording {} ({}, {})", recording.getId(), settingsName, limited);
+        return new WebEndpointResponse<>(describe(recording), WebEndpointResponse.STATUS_OK);
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> recordings() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        recordings.values().forEach(recording -> result.add(describe(recording)));
+        return result;
+    }
+
+    @ReadOperation
+    public WebEndpointResponse<Resource> download(@Selector long id) throws IOException {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        synchronized (recording) {
+            if (recording.getState() == RecordingState.RUNNING) {
+                // Snapshot of what has been recorded so far; the recording keeps going
+                Path snapshot = Files.createTempFile(directory, recording.getName() + "-snapshot-", ".jfr");
+                recording.dump(snapshot);
+                return new WebEndpointResponse<>(new TemporaryFileResource(snapshot), WebEndpointResponse.STATUS_OK);
+            }
+            // A finished recording has been written to its destination (and closed by JFR)
+            Path destination = recording.getDestination();
+            if (destination == null || !Files.exists(destination)) {
+                return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+            }
+            return new WebEndpointResponse<>(new FileSystemResource(destination), WebEndpointResponse.STATUS_OK);
+        }
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<Map<String, Object>> stop(@Selector long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        synchronized (recording) {
+            if (recording.getState() == RecordingState.RUNNING) {
+                recording.stop();
+                logger.info("Stopped JFR recording {}", id);
+            }
+        }
+        return new WebEndpointResponse<>(describe(recording), WebEndpointResponse.STATUS_OK);
+    }
+
+    @Override
+    public void destroy() {
+        recordings.values().forEach(this::discard);
+        recordings.clear();
+    }
+
+    private void discardFinishedRecordings() {
+        recordings.values().removeIf(recording -> {
+            if (recording.getState() == RecordingState.RUNNING) {
+                return false;
+            }
+            discard(recording);
+            return true;
+        });
+    }
+
+    private void discard(Recording recording) {
+        Path destination = recording.getDestination();
+        recording.close();
+        if (destination != null) {
+            try {
+                Files.deleteIfExists(destination);
+            } catch (IOException e) {
+                logger.warn("Could not delete JFR file {}: {}", destination, e.getMessage());
+            }
+        }
+    }
+
+    private static Map<String, Object> describe(Recording recording) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("id", recording.getId());
+        details.put("name", recording.getName());
+        details.put("state", recording.getState().name());
+        details.put("startTime", recording.getStartTime());
+        details.put("stopTime", recording.getStopTime());
+        details.put("duration", recording.getDuration());
+        details.put("size", recording.getSize());
+        return details;
+    }
+
+    private static WebEndpointResponse<Map<String, Object>> error(int status, String message) {
+        return new WebEndpointResponse<>(Map.of("error", message), status);
+    }
+
+    /**
+     * Snapshot file that is removed once it has been streamed to the client.
+     */
+    private static final class TemporaryFileResource extends FileSystemResource {
+
+        private TemporaryFileResource(Path path) {
+            super(path);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Files.deleteIfExists(getFile().toPath());
+                    }
+                }
+            };
+        }
+    }
+}
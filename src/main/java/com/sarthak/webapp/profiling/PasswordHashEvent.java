@@ -0,0 +1,44 @@
+package com.sarthak.webapp.profiling;
+
+import com.sarthak.webapp.filter.CorrelationIdFilter;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.slf4j.MDC;
+
+/**
+ * JFR event covering a password hash computed by {@code UserService}.
+ */
+@Name("com.sarthak.webapp.PasswordHash")
+@Label("Password Hash")
+@Category({"WebApp", "Security"})
+@Description("Time spent hashing a password before it is stored")
+@StackTrace(false)
+public class PasswordHashEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Request Id")
+    String requestId;
+
+    public static PasswordHashEvent begin(String operation) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        if (event.isEnabled()) {
+            event.operation = operation;
+            event.begin();
+        }
+        return event;
+    }
+
+    public void complete() {
+        end();
+        if (shouldCommit()) {
+            this.requestId = MDC.get(CorrelationIdFilter.CORRELATION_ID_MDC_KEY);
+            commit();
+        }
+    }
+}
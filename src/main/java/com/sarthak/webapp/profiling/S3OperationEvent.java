@@ -0,0 +1,54 @@
+package com.sarthak.webapp.profiling;
+
+import com.sarthak.webapp.filter.CorrelationIdFilter;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.slf4j.MDC;
+
+/**
+ * JFR event covering a blocking S3 call made on a request thread.
+ */
+@Name("com.sarthak.webapp.S3Operation")
+@Label("S3 Operation")
+@Category({"WebApp", "AWS"})
+@Description("Blocking S3 call with the number of bytes transferred")
+@StackTrace(false)
+public class S3OperationEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Key")
+    String key;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Request Id")
+    String requestId;
+
+    public static S3OperationEvent begin(String operation, String key) {
+        S3OperationEvent event = new S3OperationEvent();
+        if (event.isEnabled()) {
+            event.operation = operation;
+            event.key = key;
+            event.begin();
+        }
+        return event;
+    }
+
+    public void complete(long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.bytes = bytes;
+            this.requestId = MDC.get(CorrelationIdFilter.CORRELATION_ID_MDC_KEY);
+            commit();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.sarthak.webapp.profiling;
+
+import com.sarthak.webapp.filter.CorrelationIdFilter;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.slf4j.MDC;
+
+/**
+ * JFR event covering an SNS publish made by {@code UserVerificationService}.
+ */
+@Name("com.sarthak.webapp.SnsPublish")
+@Label("SNS Publish")
+@Category({"WebApp", "AWS"})
+@Description("Blocking SNS publish with the message size")
+@StackTrace(false)
+public class SnsPublishEvent extends Event {
+
+    @Label("Topic")
+    String topic;
+
+    @Label("Message Size")
+    @DataAmount
+    long messageBytes;
+
+    @Label("Request Id")
+    String requestId;
+
+    public static SnsPublishEvent begin(String topic) {
+        SnsPublishEvent event = new SnsPublishEvent();
+        if (event.isEnabled()) {
+            event.topic = topic;
+            event.begin();
+        }
+        return event;
+    }
+
+    public void complete(long messageBytes) {
+        end();
+        if (shouldCommit()) {
+            this.messageBytes = messageBytes;
+            this.requestId = MDC.get(CorrelationIdFilter.CORRELATION_ID_MDC_KEY);
+            commit();
+        }
+    }
+}
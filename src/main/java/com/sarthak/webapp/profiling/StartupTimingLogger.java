@@ -0,0 +1,121 @@
+package com.sarthak.webapp.profiling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline.TimelineEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Logs where startup time went once the application is ready: JVM start to
+ * ready, whether the AOT-processed context and the CDS archive were used, the
+ * top-level startup phases, the phases of context refresh and the beans with
+ * the highest instantiation self time (excluding their dependencies).
+ * <p>
+ * Needs the {@link BufferingApplicationStartup} installed in {@code Webapp.main};
+ * the buffered steps are drained afterwards so they are not kept for the life
+ * of the process.
+ */
+@Component
+public class StartupTimingLogger implements ApplicationListener<ApplicationReadyEvent> {
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimingLogger.class);
+
+    private static final String REFRESH_STEP = "spring.context.refresh";
+    private static final String BEAN_STEP = "spring.beans.instantiate";
+
+    private final int slowestBeans;
+
+    public StartupTimingLogger(@Value("${webapp.startup.slowest-beans:10}") int slowestBeans) {
+        this.slowestBeans = slowestBeans;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        long jvmStartToReady = ManagementFactory.getRuntimeMXBean().getUptime();
+        Duration timeTaken = event.getTimeTaken();
+        // HotSpot reports "sharing" in java.vm.info when classes are mapped from a CDS archive
+        boolean cds = System.getProperty("java.vm.info", "").contains("sharing");
+        logger.info("Ready in {} ms, {} ms since JVM start (aot={}, cds={})",
+                timeTaken != null ? timeTaken.toMillis() : -1, jvmStartToReady,
+                AotDetector.useGeneratedArtifacts(), cds);
+
+        ApplicationStartup startup = event.getSpringApplication().getApplicationStartup();
+        if (!(startup instanceof BufferingApplicationStartup buffering)) {
+            return;
+        }
+        StartupTimeline timeline = buffering.drainBufferedTimeline();
+        List<TimelineEvent> events = timeline.getEvents();
+
+        Map<Long, Long> childNanos = new HashMap<>();
+        Long refreshId = null;
+        for (TimelineEvent timelineEvent : events) {
+            StartupStep step = timelineEvent.getStartupStep();
+            if (step.getParentId() != null) {
+                childNanos.merge(step.getParentId(), timelineEvent.getDuration().toNanos(), Long::sum);
+            }
+            if (REFRESH_STEP.equals(step.getName())) {
+                refreshId = step.getId();
+            }
+        }
+
+        Map<String, Long> phases = new LinkedHashMap<>();
+        Map<String, Long> refreshPhases = new LinkedHashMap<>();
+        for (TimelineEvent timelineEvent : events) {
+            StartupStep step = timelineEvent.getStartupStep();
+            long millis = timelineEvent.getDuration().toMillis();
+            if (step.getParentId() == null) {
+                phases.merge(shortName(step.getName()), millis, Long::sum);
+            } else if (step.getParentId().equals(refreshId)) {
+                refreshPhases.merge(shortName(step.getName()), millis, Long::sum);
+            }
+        }
+
+        String beans = events.stream()
+                .filter(e -> BEAN_STEP.equals(e.getStartupStep().getName()))
+                .map(e -> Map.entry(beanName(e.getStartupStep()),
+                        e.getDuration().toNanos() - childNanos.getOrDefault(e.getStartupStep().getId(), 0L)))
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(slowestBeans)
+                .map(e -> e.getKey() + "=" + Duration.ofNanos(e.getValue()).toMillis() + "ms")
+                .collect(Collectors.joining(", "));
+
+        logger.info("Startup phases: {}", format(phases));
+        logger.info("Context refresh phases: {}", format(refreshPhases));
+        logger.info("Slowest beans (self time): {}", beans);
+    }
+
+    private static String shortName(String stepName) {
+        return stepName.substring(stepName.lastIndexOf('.') + 1);
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+
+    private static String format(Map<String, Long> millis) {
+        return millis.entrySet().stream()
+                .map(e -> e.getKey() + "=" + e.getValue() + "ms")
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,7 @@
+package com.sarthak.webapp.repository;
+
+import com.sarthak.webapp.model.ReconciliationCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ReconciliationCheckpointRepository extends JpaRepository<ReconciliationCheckpoint, String> {
+}
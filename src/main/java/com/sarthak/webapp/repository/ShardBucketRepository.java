@@ -0,0 +1,18 @@
+package com.sarthak.webapp.repository;
+
+import com.sarthak.webapp.model.ShardBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+public interface ShardBucketRepository extends JpaRepository<ShardBucket, Integer> {
+
+    @Transactional
+    @Modifying
+    @Query("update ShardBucket b set b.shard = :shard, b.moving = :moving where b.bucket in :buckets")
+    int assign(@Param("buckets") Collection<Integer> buckets, @Param("shard") int shard, @Param("moving") boolean moving);
+}
@@ -0,0 +1,16 @@
+package com.sarthak.webapp.repository;
+
+import com.sarthak.webapp.model.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+    Optional<UploadSession> findByIdAndUserId(String id, Long userId);
+
+    List<UploadSession> findByExpiresAtBefore(LocalDateTime time);
+
+    long countByUserIdAndExpiresAtAfter(Long userId, LocalDateTime time);
+}
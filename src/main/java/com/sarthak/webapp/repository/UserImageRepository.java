@@ -1,9 +1,43 @@
 package com.sarthak.webapp.repository;
 
 import com.sarthak.webapp.model.UserImage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserImageRepository extends JpaRepository<UserImage, String> {
     Optional<UserImage> findByUserId(Long userId);
-}
\ No newline at end of file
+
+    // Just the fields an ETag is derived from, without loading the image or its user
+    @Query("select i.id as id, i.uploadDate as uploadDate from UserImage i where i.user.id = :userId")
+    Optional<ImageVersion> findVersionByUserId(@Param("userId") Long userId);
+
+    // Keyset page in byte order, which is how S3 lists keys, whatever the database collation
+    @Query("select i.id as id, i.url as url, i.uploadDate as uploadDate from UserImage i"
+            + " where i.url is not null and cast(i.url as binary) > cast(:after as binary)"
+            + " order by cast(i.url as binary)")
+    List<ImageKey> findKeysAfter(@Param("after") String after, Pageable page);
+
+    @Query("select i.url from UserImage i where i.url in :urls")
+    List<String> findUrlsIn(@Param("urls") Collection<String> urls);
+
+    interface ImageVersion {
+        String getId();
+
+        LocalDateTime getUploadDate();
+    }
+
+    interface ImageKey {
+        String getId();
+
+        String getUrl();
+
+        LocalDateTime getUploadDate();
+    }
+}
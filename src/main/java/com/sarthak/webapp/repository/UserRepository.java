@@ -1,12 +1,112 @@
 package com.sarthak.webapp.repository;
 
 import com.sarthak.webapp.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
-}
\ No newline at end of file
+
+    // Just the fields an ETag is derived from, without loading the entity
+    @Query("select u.id as id, u.accountCreated as accountCreated, u.accountUpdated as accountUpdated"
+            + " from User u where u.email = :email")
+    Optional<UserVersion> findVersionByEmail(@Param("email") String email);
+
+    // Read in fetch-size batches rather than materialised; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u.id as id, u.email as email from User u where u.id > :afterId order by u.id")
+    Stream<UserEmail> streamEmailsAfter(@Param("afterId") long afterId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u.id as id, u.email as email from User u where u.accountCreated >= :since")
+    Stream<UserEmail> streamEmailsCreatedSince(@Param("since") LocalDateTime since);
+
+    @Query("select coalesce(max(u.id), 0) from User u")
+    long findMaxId();
+
+    // Keyset page: the users after the cursor, found through the primary key however deep the page
+    List<User> findByIdGreaterThanOrderByIdAsc(long afterId, Pageable page);
+
+    // Export rows, read through a server-side cursor; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u.id as id, u.firstName as firstName, u.lastName as lastName, u.email as email,"
+            + " u.verified as verified, u.accountCreated as accountCreated, u.accountUpdated as accountUpdated"
+            + " from User u order by u.id")
+    Stream<UserExport> streamForExport();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u.id as id, u.firstName as firstName, u.lastName as lastName, u.email as email,"
+            + " u.verified as verified, u.accountCreated as accountCreated, u.accountUpdated as accountUpdated,"
+            + " i.id as imageId, i.fileName as imageFileName, i.url as imageUrl, i.uploadDate as imageUploadDate,"
+            + " i.contentType as imageContentType, i.size as imageSize"
+            + " from User u left join UserImage i on i.user = u order by u.id")
+    Stream<UserImageExport> streamWithImagesForExport();
+
+    interface UserVersion {
+        Long getId();
+
+        LocalDateTime getAccountCreated();
+
+        LocalDateTime getAccountUpdated();
+    }
+
+    interface UserEmail {
+        Long getId();
+
+        String getEmail();
+    }
+
+    interface UserExport {
+        Long getId();
+
+        String getFirstName();
+
+        String getLastName();
+
+        String getEmail();
+
+        boolean isVerified();
+
+        LocalDateTime getAccountCreated();
+
+        LocalDateTime getAccountUpdated();
+    }
+
+    interface UserImageExport extends UserExport {
+        String getImageId();
+
+        String getImageFileName();
+
+        String getImageUrl();
+
+        LocalDateTime getImageUploadDate();
+
+        String getImageContentType();
+
+        Long getImageSize();
+    }
+}
@@ -0,0 +1,46 @@
+package com.sarthak.webapp.resilience;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Sets each JDBC statement's query timeout from the request deadline, and
+ * refuses statements once it has passed. This covers SQL that runs outside a
+ * repository call as well, such as flushes at transaction commit. Registered
+ * on the proxied data source by datasource-micrometer.
+ */
+@Component
+public class DeadlineQueryListener implements QueryExecutionListener {
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineQueryListener.class);
+
+    private final DependencyGuards guards;
+
+    public DeadlineQueryListener(DependencyGuards guards) {
+        this.guards = guards;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (RequestDeadline.current() == null) {
+            return;
+        }
+        // JDBC timeouts are whole seconds; round up so a short budget is not zero (no timeout)
+        int seconds = (int) Math.max(1, (guards.database().timeoutMillis() + 999) / 1000);
+        try {
+            execInfo.getStatement().setQueryTimeout(seconds);
+        } catch (SQLException e) {
+            logger.debug("Could not set query timeout: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+}
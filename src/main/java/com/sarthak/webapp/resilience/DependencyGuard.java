@@ -0,0 +1,92 @@
+package com.sarthak.webapp.resilience;
+
+import com.sarthak.webapp.exception.DependencyUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.core.functions.CheckedSupplier;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead and circuit breaker for one dependency. Calls are refused with
+ * {@link DependencyUnavailableException} when the dependency already has its
+ * full share of concurrent calls, or when recent calls have mostly failed, and
+ * with {@link com.sarthak.webapp.exception.DeadlineExceededException} once the
+ * request's {@link RequestDeadline} has passed. Timeouts are enforced by the
+ * clients themselves (see {@link DependencyGuards}); {@link #timeoutMillis()}
+ * gives the per-call value for clients that accept one.
+ */
+public class DependencyGuard {
+
+    private static final Duration BULKHEAD_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final String name;
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration openDuration;
+    private final Duration timeout;
+
+    DependencyGuard(String name, Bulkhead bulkhead, CircuitBreaker circuitBreaker, Duration openDuration,
+                    Duration timeout) {
+        this.name = name;
+        this.bulkhead = bulkhead;
+        this.circuitBreaker = circuitBreaker;
+        this.openDuration = openDuration;
+        this.timeout = timeout;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * The configured timeout, or less if the current request's deadline is closer.
+     */
+    public int timeoutMillis() {
+        return (int) Math.max(1, RequestDeadline.timeout(name, timeout).toMillis());
+    }
+
+    public Duration timeout() {
+        return timeout;
+    }
+
+    public <T> T call(Supplier<T> call) {
+        RequestDeadline.check(name);
+        try {
+            return CircuitBreaker.decorateSupplier(circuitBreaker, Bulkhead.decorateSupplier(bulkhead, call)).get();
+        } catch (CallNotPermittedException e) {
+            throw new DependencyUnavailableException(name, "circuit open", openDuration, e);
+        } catch (BulkheadFullException e) {
+            throw new DependencyUnavailableException(name, "too many concurrent calls", BULKHEAD_RETRY_AFTER, e);
+        }
+    }
+
+    public void run(Runnable call) {
+        call(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * For callers that cannot narrow their exceptions, such as around advice.
+     */
+    public <T> T callChecked(CheckedSupplier<T> call) throws Throwable {
+        RequestDeadline.check(name);
+        try {
+            return CircuitBreaker.decorateCheckedSupplier(circuitBreaker,
+                    Bulkhead.decorateCheckedSupplier(bulkhead, call)).get();
+        } catch (CallNotPermittedException e) {
+            throw new DependencyUnavailableException(name, "circuit open", openDuration, e);
+        } catch (BulkheadFullException e) {
+            throw new DependencyUnavailableException(name, "too many concurrent calls", BULKHEAD_RETRY_AFTER, e);
+        }
+    }
+
+    CircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+}
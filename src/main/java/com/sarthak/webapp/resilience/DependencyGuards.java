@@ -0,0 +1,135 @@
+package com.sarthak.webapp.resilience;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.function.Predicate;
+
+/**
+ * One {@link DependencyGuard} each for Postgres, S3 and SNS, so that a slow
+ * dependency can only tie up its own share of request threads. Each call
+ * waits at most {@code max-wait} for a free slot. The clients enforce
+ * {@code webapp.resilience.<dependency>.timeout} themselves: the JPA query
+ * timeout for the database, and the client execution timeout for S3 and SNS.
+ * A call that takes longer than that counts as slow for the circuit breaker.
+ * <p>
+ * Only infrastructure failures trip a breaker: connection and timeout errors,
+ * and 5xx or throttling responses from AWS. Application errors (a missing
+ * row, a 404 from S3) do not count.
+ */
+@Component
+public class DependencyGuards {
+    private static final Logger logger = LoggerFactory.getLogger(DependencyGuards.class);
+
+    private final DependencyGuard database;
+    private final DependencyGuard s3;
+    private final DependencyGuard sns;
+
+    public DependencyGuards(MeterRegistry meterRegistry,
+                            @Value("${webapp.resilience.database.max-concurrent-calls:20}") int databaseConcurrency,
+                            @Value("${webapp.resilience.database.max-wait:200ms}") Duration databaseMaxWait,
+                            @Value("${webapp.resilience.database.timeout:5s}") Duration databaseTimeout,
+                            @Value("${webapp.resilience.s3.max-concurrent-calls:10}") int s3Concurrency,
+                            @Value("${webapp.resilience.s3.max-wait:100ms}") Duration s3MaxWait,
+                            @Value("${webapp.resilience.s3.timeout:10s}") Duration s3Timeout,
+                            @Value("${webapp.resilience.sns.max-concurrent-calls:10}") int snsConcurrency,
+                            @Value("${webapp.resilience.sns.max-wait:100ms}") Duration snsMaxWait,
+                            @Value("${webapp.resilience.sns.timeout:3s}") Duration snsTimeout,
+                            @Value("${webapp.resilience.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+                            @Value("${webapp.resilience.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+                            @Value("${webapp.resilience.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                            @Value("${webapp.resilience.circuit-breaker.open-duration:10s}") Duration openDuration) {
+        BulkheadRegistry bulkheads = BulkheadRegistry.ofDefaults();
+        CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+        CircuitBreakerConfig.Builder breakerDefaults = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(failureRateThreshold)
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .waitDurationInOpenState(openDuration)
+                .permittedNumberOfCallsInHalfOpenState(3)
+                .ignoreExceptions(BulkheadFullException.class);
+
+        this.database = guard("database", bulkheads, circuitBreakers, breakerDefaults, openDuration,
+                databaseConcurrency, databaseMaxWait, databaseTimeout, DependencyGuards::isDatabaseFailure);
+        this.s3 = guard("s3", bulkheads, circuitBreakers, breakerDefaults, openDuration,
+                s3Concurrency, s3MaxWait, s3Timeout, DependencyGuards::isAwsFailure);
+        this.sns = guard("sns", bulkheads, circuitBreakers, breakerDefaults, openDuration,
+                snsConcurrency, snsMaxWait, snsTimeout, DependencyGuards::isAwsFailure);
+
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+    }
+
+    public DependencyGuard database() {
+        return database;
+    }
+
+    public DependencyGuard s3() {
+        return s3;
+    }
+
+    public DependencyGuard sns() {
+        return sns;
+    }
+
+    private static DependencyGuard guard(String name, BulkheadRegistry bulkheads, CircuitBreakerRegistry circuitBreakers,
+                                         CircuitBreakerConfig.Builder breakerDefaults, Duration openDuration,
+                                         int maxConcurrentCalls, Duration maxWait, Duration timeout,
+                                         Predicate<Throwable> isFailure) {
+        Bulkhead bulkhead = bulkheads.bulkhead(name, BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(maxWait)
+                .build());
+        CircuitBreaker circuitBreaker = circuitBreakers.circuitBreaker(name, breakerDefaults
+                .slowCallDurationThreshold(timeout)
+                .recordException(isFailure)
+                .build());
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                logger.warn("Circuit breaker {}: {}", name, event.getStateTransition()));
+        return new DependencyGuard(name, bulkhead, circuitBreaker, openDuration, timeout);
+    }
+
+    static boolean isDatabaseFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException
+                    || cause instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isAwsFailure(Throwable e) {
+        if (e instanceof AmazonServiceException serviceException) {
+            return serviceException.getStatusCode() >= 500 || serviceException.getStatusCode() == 429;
+        }
+        return e instanceof SdkClientException;
+    }
+}
@@ -0,0 +1,80 @@
+package com.sarthak.webapp.resilience;
+
+import com.sarthak.webapp.exception.DeadlineExceededException;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+
+/**
+ * Time budget of the request being handled on the current thread, set by
+ * {@link com.sarthak.webapp.filter.RequestDeadlineFilter}. Dependency calls
+ * check it before starting and size their timeouts from what is left, so work
+ * stops once the client has given up. Without a deadline (startup, scheduled
+ * jobs) every check passes and timeouts keep their configured values.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+    @Nullable
+    private volatile String exceededStage;
+
+    private RequestDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static RequestDeadline start(Duration budget) {
+        RequestDeadline deadline = new RequestDeadline(System.nanoTime() + budget.toNanos());
+        CURRENT.set(deadline);
+        return deadline;
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    @Nullable
+    public static RequestDeadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Throws {@link DeadlineExceededException} if the current request's deadline has passed.
+     */
+    public static void check(String stage) {
+        RequestDeadline deadline = CURRENT.get();
+        if (deadline != null && deadline.remainingNanos() <= 0) {
+            if (deadline.exceededStage == null) {
+                deadline.exceededStage = stage;
+            }
+            throw new DeadlineExceededException(stage);
+        }
+    }
+
+    /**
+     * The timeout for a call made at {@code stage}: the remaining budget, at most
+     * {@code limit}. Throws if nothing is left.
+     */
+    public static Duration timeout(String stage, Duration limit) {
+        check(stage);
+        RequestDeadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return limit;
+        }
+        Duration remaining = Duration.ofNanos(deadline.remainingNanos());
+        return remaining.compareTo(limit) < 0 ? remaining : limit;
+    }
+
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    /**
+     * The first stage that found the deadline passed, if any.
+     */
+    @Nullable
+    public String exceededStage() {
+        return exceededStage;
+    }
+}
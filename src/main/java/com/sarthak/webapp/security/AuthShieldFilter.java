@@ -0,0 +1,91 @@
+package com.sarthak.webapp.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Runs just ahead of Spring Security and consults {@link CredentialStuffingShield}
+ * for requests carrying Basic credentials. Locked emails and client IPs get 429,
+ * and emails known not to exist get 401. Neither case reaches
+ * {@code CustomUserDetailsService} or a BCrypt comparison. The outcome of every
+ * other Basic-auth request is reported back to the shield: a 401 counts as a
+ * failure, anything else as a success.
+ * <p>
+ * The client IP is the request's remote address. Behind the load balancer this
+ * relies on {@code server.forward-headers-strategy} resolving
+ * {@code X-Forwarded-For}.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class AuthShieldFilter extends OncePerRequestFilter {
+
+    private static final String BASIC_PREFIX = "Basic ";
+
+    private final CredentialStuffingShield shield;
+
+    public AuthShieldFilter(CredentialStuffingShield shield) {
+        this.shield = shield;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return authorization == null || !authorization.regionMatches(true, 0, BASIC_PREFIX, 0, BASIC_PREFIX.length());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String email = basicUsername(request.getHeader(HttpHeaders.AUTHORIZATION));
+        String clientIp = request.getRemoteAddr();
+
+        switch (shield.check(email, clientIp)) {
+            case LOCKED_EMAIL, LOCKED_IP -> {
+                response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, shield.retryAfter().toSeconds())));
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                return;
+            }
+            case UNKNOWN_EMAIL -> {
+                shield.recordFailure(email, clientIp);
+                response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Basic realm=\"Realm\"");
+                response.setStatus(HttpStatus.UNAUTHORIZED.value());
+                return;
+            }
+            default -> {
+            }
+        }
+
+        filterChain.doFilter(request, response);
+
+        if (response.getStatus() == HttpStatus.UNAUTHORIZED.value()) {
+            shield.recordFailure(email, clientIp);
+        } else if (email != null) {
+            shield.recordSuccess(email);
+        }
+    }
+
+    @Nullable
+    public static String basicUsername(String authorization) {
+        try {
+            String decoded = new String(Base64.getDecoder().decode(authorization.substring(BASIC_PREFIX.length()).trim()),
+                    StandardCharsets.UTF_8);
+            int colon = decoded.indexOf(':');
+            return colon > 0 ? decoded.substring(0, colon) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.sarthak.webapp.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Tracks failed Basic-auth attempts per email and per client IP, and remembers
+ * emails that do not belong to any user, so that {@link AuthShieldFilter} can
+ * turn such requests away before they reach the database or BCrypt.
+ * <p>
+ * An email or IP is locked once its failures within {@code webapp.auth.window}
+ * reach the configured maximum. A lock lifts as the window slides past the
+ * failures. A successful login sets the email's failures aside: from then on
+ * only later ones count. Only emails that had failures keep such an entry,
+ * for one window, and other emails' counts are untouched. The unknown-email
+ * cache entries expire after {@code webapp.auth.unknown-email-ttl}, and an email is
+ * dropped from the cache as soon as a user registers with it here. The TTL is
+ * short because registrations on other instances are not seen.
+ */
+@Component
+public class CredentialStuffingShield {
+    private static final Logger logger = LoggerFactory.getLogger(CredentialStuffingShield.class);
+
+    public enum Verdict { ALLOW, LOCKED_EMAIL, LOCKED_IP, UNKNOWN_EMAIL }
+
+    private final SlidingWindowCounter emailFailures;
+    private final SlidingWindowCounter ipFailures;
+    private final Cache<String, SlidingWindowCounter.Mark> emailSuccessMarks;
+    private final Cache<String, Boolean> unknownEmails;
+    private final int maxEmailFailures;
+    private final int maxIpFailures;
+    private final Duration retryAfter;
+    private final MeterRegistry meterRegistry;
+    private final Counter failures;
+    private final Counter emailLockouts;
+    private final Counter ipLockouts;
+
+    public CredentialStuffingShield(MeterRegistry meterRegistry,
+                                    @Value("${webapp.auth.window:5m}") Duration window,
+                                    @Value("${webapp.auth.max-failures-per-email:10}") int maxEmailFailures,
+                                    @Value("${webapp.auth.max-failures-per-ip:50}") int maxIpFailures,
+                                    @Value("${webapp.auth.tracker-slots:16384}") int trackerSlots,
+                                    @Value("${webapp.auth.unknown-email-ttl:2m}") Duration unknownEmailTtl,
+                                    @Value("${webapp.auth.unknown-email-max:100000}") long unknownEmailMax) {
+        this.meterRegistry = meterRegistry;
+        this.maxEmailFailures = maxEmailFailures;
+        this.maxIpFailures = maxIpFailures;
+        this.emailFailures = new SlidingWindowCounter(trackerSlots, window, 5);
+        this.ipFailures = new SlidingWindowCounter(trackerSlots, window, 5);
+        this.emailSuccessMarks = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(trackerSlots)
+                .build();
+        this.retryAfter = window.dividedBy(5);
+        this.unknownEmails = Caffeine.newBuilder()
+                .expireAfterWrite(unknownEmailTtl)
+                .maximumSize(unknownEmailMax)
+                .build();
+
+        this.failures = Counter.builder("webapp.auth.failures")
+                .description("Failed Basic authentication attempts")
+                .register(meterRegistry);
+        this.emailLockouts = Counter.builder("webapp.auth.lockouts")
+                .description("Emails or client IPs that reached the failure limit")
+                .tag("key", "email")
+                .register(meterRegistry);
+        this.ipLockouts = Counter.builder("webapp.auth.lockouts")
+                .description("Emails or client IPs that reached the failure limit")
+                .tag("key", "ip")
+                .register(meterRegistry);
+        Gauge.builder("webapp.auth.unknown.emails", unknownEmails, Cache::estimatedSize)
+                .description("Emails cached as not belonging to any user")
+                .register(meterRegistry);
+    }
+
+    public Verdict check(@Nullable String email, String clientIp) {
+        Verdict verdict = Verdict.ALLOW;
+        if (ipFailures.count(clientIp) >= maxIpFailures) {
+            verdict = Verdict.LOCKED_IP;
+        } else if (email != null) {
+            String key = normalize(email);
+            if (emailFailures.count(key, successMark(key)) >= maxEmailFailures) {
+                verdict = Verdict.LOCKED_EMAIL;
+            } else if (unknownEmails.getIfPresent(email) != null) {
+                verdict = Verdict.UNKNOWN_EMAIL;
+            }
+        }
+        if (verdict != Verdict.ALLOW) {
+            meterRegistry.counter("webapp.auth.rejected", "reason", verdict.name().toLowerCase(Locale.ROOT))
+                    .increment();
+        }
+        return verdict;
+    }
+
+    public void recordFailure(@Nullable String email, String clientIp) {
+        failures.increment();
+        if (ipFailures.increment(clientIp) == maxIpFailures) {
+            ipLockouts.increment();
+            logger.warn("Client {} locked out after {} failed logins", clientIp, maxIpFailures);
+        }
+        if (email != null) {
+            String key = normalize(email);
+            if (emailFailures.increment(key, successMark(key)) == maxEmailFailures) {
+                emailLockouts.increment();
+                logger.warn("Email {} locked out after {} failed logins", email, maxEmailFailures);
+            }
+        }
+    }
+
+    public void recordSuccess(String email) {
+        String key = normalize(email);
+        // Most logins follow no failures and need no entry
+        if (emailFailures.count(key, successMark(key)) > 0) {
+            emailSuccessMarks.put(key, emailFailures.mark(key));
+        }
+    }
+
+    // Exact match, like the findByEmail lookup whose miss is being cached
+    public void rememberUnknownEmail(String email) {
+        unknownEmails.put(email, Boolean.TRUE);
+    }
+
+    public void forgetUnknownEmail(String email) {
+        unknownEmails.invalidate(email);
+    }
+
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+
+    @Nullable
+    private SlidingWindowCounter.Mark successMark(String key) {
+        return emailSuccessMarks.getIfPresent(key);
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
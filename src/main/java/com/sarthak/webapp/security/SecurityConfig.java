@@ -1,6 +1,9 @@
 package com.sarthak.webapp.config;
 
 import com.sarthak.webapp.service.CustomUserDetailsService;
+import com.sarthak.webapp.tracing.ObservedPasswordEncoder;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -25,7 +28,11 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.POST, "/v1/user").permitAll()
-                        .requestMatchers("/healthz").permitAll()
+                        .requestMatchers("/healthz", "/readyz").permitAll()
+                        .requestMatchers("/v1/admin/**").hasRole("ADMIN")
+                        // Metrics, recordings and shard moves expose internals (recordings include the environment)
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .httpBasic(httpBasic -> {})
@@ -36,7 +43,8 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(ObjectProvider<ObservationRegistry> observationRegistry) {
+        return new ObservedPasswordEncoder(new BCryptPasswordEncoder(),
+                observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
     }
 }
\ No newline at end of file
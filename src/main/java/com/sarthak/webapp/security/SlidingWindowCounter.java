@@ -0,0 +1,174 @@
+package com.sarthak.webapp.security;
+
+import org.springframework.lang.Nullable;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Approximate per-key event counts over a sliding time window, in fixed memory
+ * regardless of how many distinct keys are seen.
+ * <p>
+ * Keys are hashed into {@value #HASHES} rows of {@code slots} cells (a count-min
+ * sketch), and each cell keeps one count per time bucket. A bucket cell packs
+ * its epoch into the high 32 bits and its count into the low 32, so rolling a
+ * bucket over and counting in it is one CAS, and no locks are taken. The
+ * window advances in steps of {@code window / buckets}.
+ * <p>
+ * Colliding keys can only inflate a count, never hide events. Taking the
+ * minimum over the rows keeps the overcount small while occupancy is well
+ * below {@code slots}. Each row hashes the key with its own SipHash key, drawn
+ * at random per counter, so clients cannot choose keys that collide with
+ * someone else's in every row. Cells are never cleared on a key's behalf,
+ * since that would clear the keys sharing them; counts can instead start
+ * from a {@link #mark(String) mark}.
+ */
+class SlidingWindowCounter {
+
+    private static final int HASHES = 2;
+
+    private final AtomicLongArray cells;
+    private final SipHash[] rowHashes;
+    private final int slots;
+    private final int buckets;
+    private final long bucketNanos;
+    private final LongSupplier nanoClock;
+    private final long origin;
+
+    SlidingWindowCounter(int slots, Duration window, int buckets) {
+        this(slots, window, buckets, System::nanoTime);
+    }
+
+    SlidingWindowCounter(int slots, Duration window, int buckets, LongSupplier nanoClock) {
+        if (Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException("slots must be a power of two: " + slots);
+        }
+        this.slots = slots;
+        this.buckets = buckets;
+        this.bucketNanos = Math.max(1, window.toNanos() / buckets);
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+        this.cells = new AtomicLongArray(HASHES * slots * buckets);
+        SecureRandom random = new SecureRandom();
+        this.rowHashes = new SipHash[HASHES];
+        for (int row = 0; row < HASHES; row++) {
+            rowHashes[row] = new SipHash(random.nextLong(), random.nextLong());
+        }
+    }
+
+    /**
+     * Where a key's count stood at some moment: the step it was taken in and
+     * the key's cell in that step, per row.
+     */
+    static final class Mark {
+        private final int epoch;
+        private final int[] counts;
+
+        private Mark(int epoch, int[] counts) {
+            this.epoch = epoch;
+            this.counts = counts;
+        }
+    }
+
+    /**
+     * Records one event for {@code key} and returns the key's count in the window, including it.
+     */
+    int increment(String key) {
+        return increment(key, null);
+    }
+
+    /**
+     * Like {@link #increment(String)}, counting only events after {@code mark} if there is one.
+     */
+    int increment(String key, @Nullable Mark mark) {
+        int epoch = epoch();
+        int bucket = Math.floorMod(epoch, buckets);
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < HASHES; row++) {
+            int base = cellBase(row, key);
+            int index = base + bucket;
+            long current;
+            long next;
+            do {
+                current = cells.get(index);
+                int count = epochOf(current) == epoch ? countOf(current) : 0;
+                next = pack(epoch, count == Integer.MAX_VALUE ? count : count + 1);
+            } while (!cells.compareAndSet(index, current, next));
+            min = Math.min(min, sum(row, base, epoch, mark));
+        }
+        return min;
+    }
+
+    int count(String key) {
+        return count(key, null);
+    }
+
+    /**
+     * The key's count in the window, leaving out events up to {@code mark} if there is one.
+     */
+    int count(String key, @Nullable Mark mark) {
+        int epoch = epoch();
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < HASHES; row++) {
+            min = Math.min(min, sum(row, cellBase(row, key), epoch, mark));
+        }
+        return min;
+    }
+
+    /**
+     * Marks where the key's count stands now, for counts that leave out
+     * everything recorded so far. Nothing is written to the cells.
+     */
+    Mark mark(String key) {
+        int epoch = epoch();
+        int bucket = Math.floorMod(epoch, buckets);
+        int[] counts = new int[HASHES];
+        for (int row = 0; row < HASHES; row++) {
+            long cell = cells.get(cellBase(row, key) + bucket);
+            counts[row] = epochOf(cell) == epoch ? countOf(cell) : 0;
+        }
+        return new Mark(epoch, counts);
+    }
+
+    private int sum(int row, int base, int epoch, @Nullable Mark mark) {
+        long total = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            long cell = cells.get(base + bucket);
+            int cellEpoch = epochOf(cell);
+            if (epoch - cellEpoch >= buckets) {
+                continue;
+            }
+            if (mark == null || cellEpoch > mark.epoch) {
+                total += countOf(cell);
+            } else if (cellEpoch == mark.epoch) {
+                // Only what was added to the marked step since the mark
+                total += Math.max(0, countOf(cell) - mark.counts[row]);
+            }
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    private int cellBase(int row, String key) {
+        int slot = (int) rowHashes[row].hash(key) & (slots - 1);
+        return (row * slots + slot) * buckets;
+    }
+
+    private int epoch() {
+        // Starts at 1 so that empty cells (epoch 0) never count as current
+        return (int) ((nanoClock.getAsLong() - origin) / bucketNanos) + 1;
+    }
+
+    private static long pack(int epoch, int count) {
+        return ((long) epoch << 32) | (count & 0xFFFFFFFFL);
+    }
+
+    private static int epochOf(long cell) {
+        return (int) (cell >>> 32);
+    }
+
+    private static int countOf(long cell) {
+        return (int) cell;
+    }
+}
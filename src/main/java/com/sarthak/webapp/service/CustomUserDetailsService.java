@@ -1,28 +1,67 @@
 package com.sarthak.webapp.service;
 
+import com.sarthak.webapp.cache.EmailExistenceFilter;
 import com.sarthak.webapp.model.User;
 import com.sarthak.webapp.repository.UserRepository;
+import com.sarthak.webapp.security.CredentialStuffingShield;
+import com.sarthak.webapp.sharding.ShardKeys;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+import java.util.Set;
+
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CredentialStuffingShield credentialStuffingShield;
+
+    @Autowired
+    private EmailExistenceFilter emailExistenceFilter;
+
+    @Value("${webapp.admin.emails:}")
+    private Set<String> adminEmails;
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+        User user = findByEmail(email)
+                .orElseThrow(() -> {
+                    credentialStuffingShield.rememberUnknownEmail(email);
+                    return new UsernameNotFoundException("User not found with email: " + email);
+                });
 
         return org.springframework.security.core.userdetails.User
                 .withUsername(user.getEmail())
                 .password(user.getPassword())
-                .roles("USER")
+                .roles(isAdmin(user) ? new String[]{"USER", "ADMIN"} : new String[]{"USER"})
                 .build();
     }
+
+    // Stored normalized; exactly as typed first, for the rare older account whose normalized form
+    // another account already had (see ShardSchema), so neither is reached through the other's spelling
+    private Optional<User> findByEmail(String email) {
+        String normalized = ShardKeys.normalize(email);
+        if (!emailExistenceFilter.mightExist(normalized)) {
+            return Optional.empty();
+        }
+        Optional<User> user = userRepository.findByEmail(email)
+                .or(() -> normalized.equals(email) ? Optional.empty() : userRepository.findByEmail(normalized));
+        if (user.isEmpty()) {
+            emailExistenceFilter.recordFalsePositive();
+        }
+        return user;
+    }
+
+    // Exactly as listed, and only once the address has been proven by verification
+    private boolean isAdmin(User user) {
+        return user.isVerified() && adminEmails.stream().anyMatch(admin -> admin.trim().equals(user.getEmail()));
+    }
 }
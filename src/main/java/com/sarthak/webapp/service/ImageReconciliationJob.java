@@ -0,0 +1,538 @@
+package com.sarthak.webapp.service;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.sarthak.webapp.model.ReconciliationCheckpoint;
+import com.sarthak.webapp.repository.ReconciliationCheckpointRepository;
+import com.sarthak.webapp.repository.UserImageRepository;
+import com.sarthak.webapp.resilience.DependencyGuard;
+import com.sarthak.webapp.resilience.DependencyGuards;
+import com.sarthak.webapp.sharding.ShardRouter;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Finds, and optionally deletes, images that exist on only one side: objects
+ * under {@code users/} with no {@code user_images} row (an upload that failed
+ * after its PutObject, or a delete that failed after removing the row) and
+ * rows whose object is gone.
+ * <p>
+ * The bucket listing and a keyset scan of {@code user_images} are both read a
+ * page at a time in key byte order and merged like two sorted files, so memory
+ * stays at a page per side however large the bucket grows. With sharding, the
+ * rows of all shards are merged into one order first. Objects and rows
+ * younger than {@code webapp.reconciliation.grace-period} are left alone, since
+ * an upload in progress has its object before its row.
+ * <p>
+ * Orphans are always counted and logged; they are deleted, in batches, only
+ * with {@code webapp.reconciliation.delete=true}. Every S3 and database call
+ * draws from a shared rate limit so a run does not compete with user traffic.
+ * <p>
+ * Progress is kept in {@code reconciliation_checkpoints}: the last key handled
+ * and a lease naming the instance running the job. A run that stops part way,
+ * on shutdown or a crash, is resumed from its last key by whichever instance
+ * takes the lease next.
+ */
+@Component
+public class ImageReconciliationJob implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(ImageReconciliationJob.class);
+
+    static final String NAME = "user-images";
+    private static final String PREFIX = "users/";
+    private static final int LOGGED_SAMPLES = 10;
+
+    private final UserImageRepository imageRepository;
+    private final ReconciliationCheckpointRepository checkpointRepository;
+    private final ShardRouter shardRouter;
+    private final AmazonS3 amazonS3;
+    private final DependencyGuard s3Guard;
+    private final MeterRegistry meterRegistry;
+    private final String bucketName;
+    private final boolean enabled;
+    private final boolean delete;
+    private final Duration interval;
+    private final Duration gracePeriod;
+    private final Duration lease;
+    private final int pageSize;
+    private final int deleteBatchSize;
+    private final RateLimiter rateLimiter;
+    private final String owner;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean running;
+
+    public ImageReconciliationJob(UserImageRepository imageRepository,
+                                  ReconciliationCheckpointRepository checkpointRepository,
+                                  ShardRouter shardRouter,
+                                  AmazonS3 amazonS3,
+                                  DependencyGuards dependencyGuards,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${aws.s3.bucket}") String bucketName,
+                                  @Value("${webapp.reconciliation.enabled:true}") boolean enabled,
+                                  @Value("${webapp.reconciliation.delete:false}") boolean delete,
+                                  @Value("${webapp.reconciliation.interval:24h}") Duration interval,
+                                  @Value("${webapp.reconciliation.grace-period:1h}") Duration gracePeriod,
+                                  @Value("${webapp.reconciliation.lease:10m}") Duration lease,
+                                  @Value("${webapp.reconciliation.page-size:1000}") int pageSize,
+                                  @Value("${webapp.reconciliation.delete-batch-size:100}") int deleteBatchSize,
+                                  @Value("${webapp.reconciliation.max-calls-per-second:5}") int maxCallsPerSecond) {
+        this.imageRepository = imageRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.shardRouter = shardRouter;
+        this.amazonS3 = amazonS3;
+        this.s3Guard = dependencyGuards.s3();
+        this.meterRegistry = meterRegistry;
+        this.bucketName = bucketName;
+        this.enabled = enabled;
+        this.delete = delete;
+        this.interval = interval;
+        this.gracePeriod = gracePeriod;
+        this.lease = lease;
+        // ListObjectsV2 returns at most 1000 keys; DeleteObjects takes at most 1000
+        this.pageSize = Math.min(1000, Math.max(1, pageSize));
+        this.deleteBatchSize = Math.min(1000, Math.max(1, deleteBatchSize));
+        this.rateLimiter = RateLimiter.of("reconciliation", RateLimiterConfig.custom()
+                .limitForPeriod(Math.max(1, maxCallsPerSecond))
+                .limitRefreshPeriod(Duration.ofSeconds(1))
+                .timeoutDuration(Duration.ofMinutes(1))
+                .build());
+        this.owner = hostName() + "/" + UUID.randomUUID();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "image-reconciliation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs or resumes a reconciliation if one is due and no other instance holds
+     * the lease. Returns the run's counts, or null if nothing ran.
+     */
+    Result runIfDue() {
+        ReconciliationCheckpoint checkpoint = claim();
+        if (checkpoint == null) {
+            return null;
+        }
+        if (checkpoint.getLastKey() == null) {
+            checkpoint.setRunStartedAt(LocalDateTime.now());
+            logger.info("Starting image reconciliation of s3://{}/{} (delete={})", bucketName, PREFIX, delete);
+        } else {
+            logger.info("Resuming image reconciliation after {}", checkpoint.getLastKey());
+        }
+
+        Result result = new Result();
+        try {
+            boolean finished = reconcile(checkpoint, result);
+            if (finished) {
+                checkpoint.setLastKey(null);
+                checkpoint.setLastCompletedAt(LocalDateTime.now());
+                count("webapp.reconciliation.runs", "outcome", "completed");
+                logger.info("Image reconciliation finished: {}", result);
+            } else {
+                count("webapp.reconciliation.runs", "outcome", "interrupted");
+                logger.info("Image reconciliation paused at {}: {}", checkpoint.getLastKey(), result);
+            }
+        } catch (RuntimeException e) {
+            count("webapp.reconciliation.runs", "outcome", "failed");
+            logger.warn("Image reconciliation failed at {}, will resume from there: {}",
+                    checkpoint.getLastKey(), e.getMessage());
+        } finally {
+            checkpoint.setLeaseUntil(LocalDateTime.now());
+            save(checkpoint);
+        }
+        return result;
+    }
+
+    private boolean reconcile(ReconciliationCheckpoint checkpoint, Result result) {
+        String after = checkpoint.getLastKey();
+        ObjectKeys objects = new ObjectKeys(after);
+        Rows rows = new Rows(after);
+        Batch orphanObjects = new Batch(this::deleteObjects);
+        List<Batch> orphanRows = new ArrayList<>();
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            int onShard = shard;
+            orphanRows.add(new Batch(ids -> deleteRows(onShard, ids)));
+        }
+        List<Batch> pending = new ArrayList<>(orphanRows);
+        pending.add(0, orphanObjects);
+        LocalDateTime cutoff = LocalDateTime.now().minus(gracePeriod);
+        String handled = after;
+        int sinceCheckpoint = 0;
+
+        try {
+            while (objects.peek() != null || rows.lowest() != null) {
+                if (!running) {
+                    checkpoint(checkpoint, handled, pending);
+                    return false;
+                }
+                S3ObjectSummary object = objects.peek();
+                RowKeys rowShard = rows.lowest();
+                UserImageRepository.ImageKey row = rowShard != null ? rowShard.peek() : null;
+                int order = object == null ? 1 : row == null ? -1 : object.getKey().compareTo(row.getUrl());
+                if (order == 0) {
+                    result.matched++;
+                    handled = objects.next().getKey();
+                    rows.skip(handled);
+                } else if (order < 0) {
+                    object = objects.next();
+                    handled = object.getKey();
+                    if (modified(object).isBefore(cutoff)) {
+                        result.orphanObjects++;
+                        sample("Object has no image row", handled, result.orphanObjects);
+                        orphanObjects.add(handled);
+                    }
+                } else {
+                    row = rowShard.next();
+                    handled = row.getUrl();
+                    // Rows outside the listed prefix cannot be judged from this listing
+                    if (handled.startsWith(PREFIX)
+                            && (row.getUploadDate() == null || row.getUploadDate().isBefore(cutoff))) {
+                        result.orphanRows++;
+                        sample("Image row has no object", handled, result.orphanRows);
+                        orphanRows.get(rowShard.shard).add(row.getId());
+                    }
+                }
+                if (++sinceCheckpoint >= pageSize) {
+                    checkpoint(checkpoint, handled, pending);
+                    sinceCheckpoint = 0;
+                }
+            }
+            pending.forEach(Batch::flush);
+            return true;
+        } finally {
+            result.deletedObjects = orphanObjects.deleted;
+            result.deletedRows = orphanRows.stream().mapToLong(batch -> batch.deleted).sum();
+        }
+    }
+
+    // Pending deletes go first, so a resumed run never skips past an orphan it found
+    private void checkpoint(ReconciliationCheckpoint checkpoint, String handled, List<Batch> pending) {
+        for (Batch batch : pending) {
+            batch.flush();
+        }
+        checkpoint.setLastKey(handled);
+        save(checkpoint);
+    }
+
+    private int deleteObjects(List<String> keys) {
+        // Skip keys whose row appeared since they were listed
+        Set<String> claimed = new HashSet<>();
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            acquire();
+            claimed.addAll(shardRouter.call(shard, () -> imageRepository.findUrlsIn(keys)));
+        }
+        List<DeleteObjectsRequest.KeyVersion> orphans = new ArrayList<>();
+        for (String key : keys) {
+            if (!claimed.contains(key)) {
+                orphans.add(new DeleteObjectsRequest.KeyVersion(key));
+            }
+        }
+        if (orphans.isEmpty()) {
+            return 0;
+        }
+        DeleteObjectsRequest request = new DeleteObjectsRequest(bucketName).withKeys(orphans).withQuiet(true);
+        request.setSdkClientExecutionTimeout(s3Guard.timeoutMillis());
+        acquire();
+        int deleted = orphans.size();
+        try {
+            s3Guard.call(() -> amazonS3.deleteObjects(request));
+        } catch (MultiObjectDeleteException e) {
+            // Left for the next run to find again
+            logger.warn("Could not delete {} orphaned objects, first: {}", e.getErrors().size(),
+                    e.getErrors().get(0).getMessage());
+            deleted -= e.getErrors().size();
+        }
+        count("webapp.reconciliation.deleted", "kind", "object", deleted);
+        return deleted;
+    }
+
+    private int deleteRows(int shard, List<String> ids) {
+        acquire();
+        shardRouter.call(shard, () -> {
+            imageRepository.deleteAllByIdInBatch(ids);
+            return null;
+        });
+        count("webapp.reconciliation.deleted", "kind", "row", ids.size());
+        return ids.size();
+    }
+
+    private ReconciliationCheckpoint claim() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            ReconciliationCheckpoint checkpoint = checkpointRepository.findById(NAME).orElseGet(() -> {
+                ReconciliationCheckpoint created = new ReconciliationCheckpoint();
+                created.setName(NAME);
+                return created;
+            });
+            boolean leasedElsewhere = checkpoint.getLeaseOwner() != null
+                    && !owner.equals(checkpoint.getLeaseOwner())
+                    && checkpoint.getLeaseUntil() != null
+                    && checkpoint.getLeaseUntil().isAfter(now);
+            boolean due = checkpoint.getLastKey() != null
+                    || checkpoint.getLastCompletedAt() == null
+                    || checkpoint.getLastCompletedAt().plus(interval).isBefore(now);
+            if (leasedElsewhere || !due) {
+                return null;
+            }
+            checkpoint.setLeaseOwner(owner);
+            checkpoint.setLeaseUntil(now.plus(lease));
+            return checkpointRepository.save(checkpoint);
+        } catch (DataAccessException e) {
+            // Another instance claimed it first, or the database is unavailable; try again next time
+            logger.debug("Could not claim the image reconciliation lease: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void save(ReconciliationCheckpoint checkpoint) {
+        if (checkpoint.getLeaseUntil().isAfter(LocalDateTime.now())) {
+            checkpoint.setLeaseUntil(LocalDateTime.now().plus(lease));
+        }
+        ReconciliationCheckpoint saved = checkpointRepository.save(checkpoint);
+        checkpoint.setVersion(saved.getVersion());
+    }
+
+    private void acquire() {
+        if (!rateLimiter.acquirePermission()) {
+            throw new IllegalStateException("Timed out waiting for the reconciliation rate limit");
+        }
+    }
+
+    private void sample(String message, String key, long seen) {
+        if (seen <= LOGGED_SAMPLES) {
+            logger.warn("{}: {}", message, key);
+        }
+    }
+
+    private void count(String name, String tag, String value) {
+        count(name, tag, value, 1);
+    }
+
+    private void count(String name, String tag, String value, long amount) {
+        meterRegistry.counter(name, tag, value).increment(amount);
+    }
+
+    private static LocalDateTime modified(S3ObjectSummary object) {
+        return LocalDateTime.ofInstant(object.getLastModified().toInstant(), ZoneId.systemDefault());
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+
+    private void runSafely() {
+        try {
+            runIfDue();
+        } catch (RuntimeException e) {
+            logger.warn("Image reconciliation could not run: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (enabled) {
+            long tick = Math.min(interval.toMillis(), lease.toMillis());
+            scheduler.scheduleWithFixedDelay(this::runSafely, tick, tick, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    static final class Result {
+        long matched;
+        long orphanObjects;
+        long orphanRows;
+        long deletedObjects;
+        long deletedRows;
+
+        @Override
+        public String toString() {
+            return matched + " matched, " + orphanObjects + " objects without a row ("
+                    + deletedObjects + " deleted), " + orphanRows + " rows without an object ("
+                    + deletedRows + " deleted)";
+        }
+    }
+
+    // Orphans waiting to be deleted together
+    private final class Batch {
+        private final ToIntFunction<List<String>> deleter;
+        private final List<String> pending = new ArrayList<>();
+        private long deleted;
+
+        Batch(ToIntFunction<List<String>> deleter) {
+            this.deleter = deleter;
+        }
+
+        void add(String value) {
+            if (!delete) {
+                return;
+            }
+            pending.add(value);
+            if (pending.size() >= deleteBatchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!pending.isEmpty()) {
+                deleted += deleter.applyAsInt(List.copyOf(pending));
+                pending.clear();
+            }
+        }
+    }
+
+    // The bucket listing under PREFIX, a page at a time
+    private final class ObjectKeys {
+        private final Deque<S3ObjectSummary> page = new ArrayDeque<>();
+        private String startAfter;
+        private String continuationToken;
+        private boolean exhausted;
+
+        ObjectKeys(String after) {
+            this.startAfter = after;
+        }
+
+        S3ObjectSummary peek() {
+            if (page.isEmpty() && !exhausted) {
+                ListObjectsV2Request request = new ListObjectsV2Request()
+                        .withBucketName(bucketName)
+                        .withPrefix(PREFIX)
+                        .withMaxKeys(pageSize);
+                if (continuationToken != null) {
+                    request.setContinuationToken(continuationToken);
+                } else if (startAfter != null) {
+                    request.setStartAfter(startAfter);
+                }
+                request.setSdkClientExecutionTimeout(s3Guard.timeoutMillis());
+                acquire();
+                ListObjectsV2Result listing = s3Guard.call(() -> amazonS3.listObjectsV2(request));
+                page.addAll(listing.getObjectSummaries());
+                meterRegistry.counter("webapp.reconciliation.scanned", "side", "s3")
+                        .increment(listing.getObjectSummaries().size());
+                continuationToken = listing.getNextContinuationToken();
+                exhausted = !listing.isTruncated();
+            }
+            return page.peekFirst();
+        }
+
+        S3ObjectSummary next() {
+            S3ObjectSummary object = peek();
+            page.removeFirst();
+            return object;
+        }
+    }
+
+    // Rows of every shard in one key order
+    private final class Rows {
+        private final List<RowKeys> shards = new ArrayList<>();
+
+        Rows(String after) {
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                shards.add(new RowKeys(shard, after));
+            }
+        }
+
+        // The shard whose next row comes first, or null when all are exhausted
+        RowKeys lowest() {
+            RowKeys lowest = null;
+            for (RowKeys shard : shards) {
+                UserImageRepository.ImageKey row = shard.peek();
+                if (row != null && (lowest == null || row.getUrl().compareTo(lowest.peek().getUrl()) < 0)) {
+                    lowest = shard;
+                }
+            }
+            return lowest;
+        }
+
+        // Copies left on a shard by an interrupted move share the url; one object matches them all
+        void skip(String url) {
+            for (RowKeys shard : shards) {
+                while (shard.peek() != null && shard.peek().getUrl().equals(url)) {
+                    shard.next();
+                }
+            }
+        }
+    }
+
+    // One shard's user_images rows in key order, a page at a time
+    private final class RowKeys {
+        private final int shard;
+        private final Deque<UserImageRepository.ImageKey> page = new ArrayDeque<>();
+        private String after;
+        private boolean exhausted;
+
+        RowKeys(int shard, String after) {
+            this.shard = shard;
+            this.after = after == null ? "" : after;
+        }
+
+        UserImageRepository.ImageKey peek() {
+            if (page.isEmpty() && !exhausted) {
+                acquire();
+                String from = after;
+                List<UserImageRepository.ImageKey> keys = shardRouter.call(shard,
+                        () -> imageRepository.findKeysAfter(from, PageRequest.of(0, pageSize)));
+                page.addAll(keys);
+                meterRegistry.counter("webapp.reconciliation.scanned", "side", "database").increment(keys.size());
+                exhausted = keys.size() < pageSize;
+                if (!keys.isEmpty()) {
+                    after = keys.get(keys.size() - 1).getUrl();
+                }
+            }
+            return page.peekFirst();
+        }
+
+        UserImageRepository.ImageKey next() {
+            UserImageRepository.ImageKey row = peek();
+            page.removeFirst();
+            return row;
+        }
+    }
+}
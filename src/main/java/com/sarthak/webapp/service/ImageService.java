@@ -1,23 +1,40 @@
 package com.sarthak.webapp.service;
 
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.sarthak.webapp.cache.ConditionalRequests;
+import com.sarthak.webapp.cache.SingleFlight;
+import com.sarthak.webapp.exception.InvalidImageException;
 import com.sarthak.webapp.model.ImageResponseDTO;
 import com.sarthak.webapp.model.User;
 import com.sarthak.webapp.model.UserImage;
+import com.sarthak.webapp.profiling.S3OperationEvent;
 import com.sarthak.webapp.repository.UserImageRepository;
+import com.sarthak.webapp.resilience.DependencyGuard;
+import com.sarthak.webapp.resilience.DependencyGuards;
+import com.sarthak.webapp.upload.ImageHeader;
 import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.annotation.Observed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
 import java.time.format.DateTimeFormatter;
 import java.util.Optional;
 import java.util.UUID;
 import java.time.LocalDateTime;
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 //@Service
 //public class ImageService {
@@ -128,20 +145,42 @@ import java.io.IOException;
 //    }
 //}
 @Service
+@Observed(name = "service.call")
 public class ImageService {
     private static final Logger logger = LoggerFactory.getLogger(ImageService.class);
 
     private final UserImageRepository imageRepository;
     private final AmazonS3 amazonS3;
+    private final MetricsService metricsService;
+    private final DependencyGuard s3Guard;
+    private final SingleFlight<Long, Optional<UserImage>> imageLookups;
     private final String bucketName;
+    private final long maxSize;
+    private final int maxHeaderBytes;
+    private final int maxDimension;
+    private final long maxPixels;
 
     public ImageService(
             UserImageRepository imageRepository,
             AmazonS3 amazonS3,
-            @Value("${aws.s3.bucket}") String bucketName) {
+            MetricsService metricsService,
+            DependencyGuards dependencyGuards,
+            MeterRegistry meterRegistry,
+            @Value("${aws.s3.bucket}") String bucketName,
+            @Value("${webapp.images.max-size:${spring.servlet.multipart.max-file-size:10MB}}") DataSize maxSize,
+            @Value("${webapp.images.max-header-bytes:64KB}") DataSize maxHeaderBytes,
+            @Value("${webapp.images.max-dimension:10000}") int maxDimension,
+            @Value("${webapp.images.max-pixels:40000000}") long maxPixels) {
         this.imageRepository = imageRepository;
         this.amazonS3 = amazonS3;
+        this.metricsService = metricsService;
+        this.s3Guard = dependencyGuards.s3();
+        this.imageLookups = new SingleFlight<>("image.by.user", meterRegistry);
         this.bucketName = bucketName;
+        this.maxSize = maxSize.toBytes();
+        this.maxHeaderBytes = Math.toIntExact(maxHeaderBytes.toBytes());
+        this.maxDimension = maxDimension;
+        this.maxPixels = maxPixels;
         logger.info("ImageService initialized with bucket: {}", bucketName);
     }
 
@@ -149,7 +188,8 @@ public class ImageService {
     public ImageResponseDTO getImage(Long userId) {
         logger.info("Fetching image for user ID: {}", userId);
         try {
-            UserImage image = imageRepository.findByUserId(userId)
+            // Concurrent reads for the same user share one query; the entity is only mapped, never modified
+            UserImage image = imageLookups.execute(userId, () -> imageRepository.findByUserId(userId))
                     .orElseThrow(() -> new IllegalArgumentException("Image not found"));
             logger.info("Successfully retrieved image for user ID: {}", userId);
             return mapToResponseDto(image);
@@ -159,53 +199,79 @@ public class ImageService {
         }
     }
 
+    /**
+     * ETag of the user's image metadata, read without loading the image. Empty if there is no image.
+     */
+    public Optional<String> getImageEtag(Long userId) {
+        return imageRepository.findVersionByUserId(userId)
+                .map(version -> ConditionalRequests.etag(version.getId(), version.getUploadDate()));
+    }
+
+    /**
+     * Uploads the image read from {@code content} as the user's image. The first
+     * bytes are inspected before anything else is read: content that is not a
+     * JPEG or PNG, does not match {@code contentType}, or whose dimensions exceed
+     * the limits is rejected with the rest of the stream left unread. Accepted
+     * content is spooled to a temporary file, up to {@code webapp.images.max-size},
+     * and sent to S3 from there.
+     */
     @Timed(value = "s3.upload.time")
-    public ImageResponseDTO uploadImage(MultipartFile file, User user) throws IOException {
+    public ImageResponseDTO uploadImage(String originalFileName, String contentType, InputStream content, User user)
+            throws IOException {
         logger.info("Starting image upload for user ID: {}", user.getId());
 
-        // Validate file is not empty
-        if (file.isEmpty()) {
-            logger.error("Empty file received from user ID: {}", user.getId());
-            throw new IllegalArgumentException("File cannot be empty");
-        }
-
         // Validate content type
-        String contentType = file.getContentType();
         logger.debug("Received file with content type: {}", contentType);
-        if (contentType == null || !(contentType.equals("image/jpeg") ||
-                contentType.equals("image/jpg") ||
-                contentType.equals("image/png"))) {
+        if (!isSupportedContentType(contentType)) {
             logger.error("Invalid file type received from user ID: {}: {}", user.getId(), contentType);
             throw new IllegalArgumentException("Invalid file type. Only JPEG, JPG, and PNG are allowed");
         }
 
-        // Check for existing image
-        Optional<UserImage> existingImage = imageRepository.findByUserId(user.getId());
-        if (existingImage.isPresent()) {
-            // Compare file content/size to check if it's the same image
-            UserImage currentImage = existingImage.get();
-            if (currentImage.getSize() == file.getSize() &&
-                    currentImage.getContentType().equals(contentType)) {
-                logger.warn("User ID: {} attempting to upload potentially duplicate image", user.getId());
-                throw new IllegalArgumentException("This image appears to be already uploaded");
-            }
-
-            logger.info("Deleting existing image for user ID: {}", user.getId());
-            deleteImageFromS3AndDB(currentImage);
-        }
+        // Validate the content from its header before reading the rest
+        BufferedInputStream in = new BufferedInputStream(content);
+        in.mark(maxHeaderBytes);
+        ImageHeader header = ImageHeader.read(in, maxHeaderBytes);
+        in.reset();
+        checkImageHeader(header, contentType, user);
+        contentType = header.contentType();
 
+        Path spool = Files.createTempFile("image-upload-", ".part");
         try {
+            long size = spool(in, spool);
+
+            // Check for existing image
+            Optional<UserImage> existingImage = imageRepository.findByUserId(user.getId());
+            if (existingImage.isPresent()) {
+                // Compare file content/size to check if it's the same image
+                UserImage currentImage = existingImage.get();
+                if (currentImage.getSize() == size &&
+                        currentImage.getContentType().equals(contentType)) {
+                    logger.warn("User ID: {} attempting to upload potentially duplicate image", user.getId());
+                    throw new IllegalArgumentException("This image appears to be already uploaded");
+                }
+
+                logger.info("Deleting existing image for user ID: {}", user.getId());
+                deleteImageFromS3AndDB(currentImage);
+            }
+
             // Generate unique filename
-            String fileName = UUID.randomUUID().toString() + getFileExtension(file.getOriginalFilename());
-            String s3Key = String.format("users/%d/%s", user.getId(), fileName);
+            String fileName = UUID.randomUUID().toString() + fileExtension(contentType);
+            String s3Key = buildS3Key(user.getId(), fileName);
             logger.info("Generated S3 key for user ID: {}: {}", user.getId(), s3Key);
 
             // Upload to S3
             ObjectMetadata metadata = new ObjectMetadata();
             metadata.setContentType(contentType);
-            metadata.setContentLength(file.getSize());
+            metadata.setContentLength(size);
 
-            amazonS3.putObject(new PutObjectRequest(bucketName, s3Key, file.getInputStream(), metadata));
+            S3OperationEvent s3Event = S3OperationEvent.begin("PutObject", s3Key);
+            long s3StartTime = System.nanoTime();
+            PutObjectRequest putRequest = new PutObjectRequest(bucketName, s3Key, spool.toFile())
+                    .withMetadata(metadata)
+                    .withSdkClientExecutionTimeout(s3Guard.timeoutMillis());
+            s3Guard.call(() -> amazonS3.putObject(putRequest));
+            metricsService.recordS3OperationTime(System.nanoTime() - s3StartTime);
+            s3Event.complete(size);
             logger.info("Successfully uploaded file to S3 for user ID: {}", user.getId());
 
             // Save to database
@@ -216,18 +282,47 @@ public class ImageService {
             image.setUploadDate(LocalDateTime.now());
             image.setUser(user);
             image.setContentType(contentType);
-            image.setSize(file.getSize());
+            image.setSize(size);
 
             UserImage savedImage = imageRepository.save(image);
-            logger.info("Successfully saved image metadata to database for user ID: {}", user.getId());
+            logger.info("Successfully saved image metadata to database for user ID: {} ({})",
+                    user.getId(), originalFileName);
 
             return mapToResponseDto(savedImage);
+        } catch (ResponseStatusException | IllegalArgumentException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to upload image for user ID: {}. Error: {}", user.getId(), e.getMessage());
             throw new RuntimeException("Failed to upload image: " + e.getMessage());
+        } finally {
+            Files.deleteIfExists(spool);
         }
     }
 
+    /**
+     * Records an image already stored in S3 under {@code s3Key}, such as a completed
+     * resumable upload, as the user's image, replacing any previous one.
+     */
+    public ImageResponseDTO attachUploadedImage(User user, String s3Key, String originalFileName, String contentType, long size) {
+        imageRepository.findByUserId(user.getId()).ifPresent(existing -> {
+            logger.info("Deleting existing image for user ID: {}", user.getId());
+            deleteImageFromS3AndDB(existing);
+        });
+
+        UserImage image = new UserImage();
+        image.setId(UUID.randomUUID().toString());
+        image.setFileName(s3Key.substring(s3Key.lastIndexOf('/') + 1));
+        image.setUrl(s3Key);
+        image.setUploadDate(LocalDateTime.now());
+        image.setUser(user);
+        image.setContentType(contentType);
+        image.setSize(size);
+
+        UserImage savedImage = imageRepository.save(image);
+        logger.info("Saved image metadata for user ID: {} from upload of {}", user.getId(), originalFileName);
+        return mapToResponseDto(savedImage);
+    }
+
     @Timed(value = "s3.delete.time")
     public void deleteImage(Long userId) {
         logger.info("Attempting to delete image for user ID: {}", userId);
@@ -240,13 +335,25 @@ public class ImageService {
         } catch (IllegalArgumentException e) {
             logger.warn("No image found to delete for user ID: {}", userId);
             throw e;
+        } catch (ResponseStatusException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to delete image for user ID: {}. Error: {}", userId, e.getMessage());
             throw new RuntimeException("Failed to delete image: " + e.getMessage());
         }
     }
 
-    private ImageResponseDTO mapToResponseDto(UserImage image) {
+    static boolean isSupportedContentType(String contentType) {
+        return contentType != null && (contentType.equals("image/jpeg") ||
+                contentType.equals("image/jpg") ||
+                contentType.equals("image/png"));
+    }
+
+    String buildS3Key(Long userId, String fileName) {
+        return String.format("users/%d/%s", userId, fileName);
+    }
+
+    ImageResponseDTO mapToResponseDto(UserImage image) {
         ImageResponseDTO dto = new ImageResponseDTO();
         dto.setFileName(image.getFileName());
         dto.setId(image.getId());
@@ -256,19 +363,73 @@ public class ImageService {
         return dto;
     }
 
-    private String getFileExtension(String fileName) {
-        return fileName.substring(fileName.lastIndexOf("."));
+    /**
+     * Reads the header at the start of an image whose bytes arrive separately
+     * from the declared type, such as a resumable upload, and applies the same
+     * checks as {@link #uploadImage}. Returns the header so the caller can keep
+     * the detected content type.
+     *
+     * @throws InvalidImageException if the header is missing or fails the checks
+     */
+    ImageHeader checkUploadHeader(InputStream in, String declaredContentType, User user) throws IOException {
+        ImageHeader header = ImageHeader.read(in, maxHeaderBytes);
+        checkImageHeader(header, declaredContentType, user);
+        return header;
+    }
+
+    private void checkImageHeader(ImageHeader header, String declaredContentType, User user) {
+        String declared = declaredContentType.equals("image/jpg") ? ImageHeader.JPEG : declaredContentType;
+        if (!header.contentType().equals(declared)) {
+            logger.error("Upload from user ID: {} declared {} but contains {}",
+                    user.getId(), declaredContentType, header.contentType());
+            throw new InvalidImageException("File content does not match its content type");
+        }
+        if (header.width() > maxDimension || header.height() > maxDimension || header.pixels() > maxPixels) {
+            logger.error("Image from user ID: {} is {}x{}, over the limits", user.getId(), header.width(), header.height());
+            throw new InvalidImageException("Image dimensions " + header.width() + "x" + header.height()
+                    + " exceed the limit");
+        }
+    }
+
+    // Copies the content to the spool file, giving up as soon as it passes the size limit
+    private long spool(InputStream in, Path spool) throws IOException {
+        long size = 0;
+        try (OutputStream out = Files.newOutputStream(spool)) {
+            byte[] chunk = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                size += read;
+                if (size > maxSize) {
+                    throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                            "Image exceeds the limit of " + maxSize + " bytes");
+                }
+                out.write(chunk, 0, read);
+            }
+        }
+        return size;
+    }
+
+    static String fileExtension(String contentType) {
+        return contentType.equals(ImageHeader.PNG) ? ".png" : ".jpg";
     }
 
     private void deleteImageFromS3AndDB(UserImage image) {
         try {
             logger.debug("Deleting image from S3: {}", image.getUrl());
-            amazonS3.deleteObject(bucketName, image.getUrl());
+            S3OperationEvent s3Event = S3OperationEvent.begin("DeleteObject", image.getUrl());
+            long s3StartTime = System.nanoTime();
+            DeleteObjectRequest deleteRequest = new DeleteObjectRequest(bucketName, image.getUrl())
+                    .withSdkClientExecutionTimeout(s3Guard.timeoutMillis());
+            s3Guard.run(() -> amazonS3.deleteObject(deleteRequest));
+            metricsService.recordS3OperationTime(System.nanoTime() - s3StartTime);
+            s3Event.complete(image.getSize() != null ? image.getSize() : 0L);
 
             logger.debug("Deleting image from database: {}", image.getId());
             imageRepository.delete(image);
 
             logger.info("Successfully deleted image: {}", image.getId());
+        } catch (ResponseStatusException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to delete image: {}. Error: {}", image.getId(), e.getMessage());
             throw new RuntimeException("Failed to delete existing image: " + e.getMessage());
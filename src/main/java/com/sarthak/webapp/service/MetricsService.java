@@ -43,12 +43,12 @@ public class MetricsService {
         imageUploadCounter.increment();
     }
 
-    // Methods to record operation times
-    public void recordDbOperationTime(long timeInMs) {
-        dbOperationTimer.record(timeInMs, TimeUnit.MILLISECONDS);
+    // Methods to record operation times, measured with System.nanoTime()
+    public void recordDbOperationTime(long timeInNanos) {
+        dbOperationTimer.record(timeInNanos, TimeUnit.NANOSECONDS);
     }
 
-    public void recordS3OperationTime(long timeInMs) {
-        s3OperationTimer.record(timeInMs, TimeUnit.MILLISECONDS);
+    public void recordS3OperationTime(long timeInNanos) {
+        s3OperationTimer.record(timeInNanos, TimeUnit.NANOSECONDS);
     }
 }
\ No newline at end of file
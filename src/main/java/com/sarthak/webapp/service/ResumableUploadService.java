@@ -0,0 +1,448 @@
+package com.sarthak.webapp.service;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.sarthak.webapp.exception.InvalidImageException;
+import com.sarthak.webapp.exception.UploadOffsetMismatchException;
+import com.sarthak.webapp.model.ImageResponseDTO;
+import com.sarthak.webapp.model.UploadSession;
+import com.sarthak.webapp.model.UploadSessionDTO;
+import com.sarthak.webapp.model.User;
+import com.sarthak.webapp.profiling.S3OperationEvent;
+import com.sarthak.webapp.repository.UploadSessionRepository;
+import com.sarthak.webapp.resilience.DependencyGuard;
+import com.sarthak.webapp.resilience.DependencyGuards;
+import com.sarthak.webapp.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Image uploads that survive dropped connections. A client opens a session
+ * with the final size, sends the bytes in chunks at increasing offsets,
+ * resumes from the offset reported by the server after a failure, and then
+ * completes the session, which makes the upload the user's image.
+ * <p>
+ * Each session is an S3 multipart upload. Chunks are appended to a buffer file
+ * on local disk, and every time the buffer reaches {@code webapp.uploads.part-size}
+ * (at least 5 MB, the S3 minimum) it is sent to S3 as the next part, so most
+ * of the object is already in S3 when the last chunk arrives. Progress is
+ * kept in {@code upload_sessions}; the buffer file is named after the
+ * committed offset it extends, so a buffer that no longer matches (another
+ * instance committed a part in the meantime) is ignored and the client is
+ * told to resume from the committed offset.
+ * <p>
+ * The first chunk must hold the image header (the first
+ * {@code webapp.images.max-header-bytes} of the file). It is checked like a
+ * direct upload before anything is buffered, and the detected content type
+ * replaces the declared one on the session.
+ * <p>
+ * A user can hold at most {@code webapp.uploads.max-open-sessions} unexpired
+ * sessions; opening another gets 429 until one is completed, aborted or
+ * expires. The count is read before the new session is saved, so concurrent
+ * requests can overshoot it by as many as race.
+ * <p>
+ * Sessions expire {@code webapp.uploads.session-ttl} after their last chunk. A
+ * background sweep aborts the multipart uploads of expired sessions, so S3
+ * does not keep their parts, and deletes stale buffer files.
+ */
+@Service
+public class ResumableUploadService implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploadService.class);
+
+    private static final long MIN_PART_SIZE = DataSize.ofMegabytes(5).toBytes();
+
+    private final UploadSessionRepository sessionRepository;
+    private final ShardRouter shardRouter;
+    private final ImageService imageService;
+    private final AmazonS3 amazonS3;
+    private final DependencyGuard s3Guard;
+    private final String bucketName;
+    private final long maxSize;
+    private final int maxHeaderBytes;
+    private final long partSize;
+    private final Duration sessionTtl;
+    private final int maxOpenSessions;
+    private final Duration cleanupInterval;
+    private final Path bufferDir;
+    private final ScheduledExecutorService cleaner;
+    private final ConcurrentHashMap<String, Object> sessionLocks = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Counter receivedBytes;
+
+    private volatile boolean running;
+
+    public ResumableUploadService(UploadSessionRepository sessionRepository,
+                                  ShardRouter shardRouter,
+                                  ImageService imageService,
+                                  AmazonS3 amazonS3,
+                                  DependencyGuards dependencyGuards,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${aws.s3.bucket}") String bucketName,
+                                  @Value("${webapp.uploads.max-size:${spring.servlet.multipart.max-file-size:10MB}}") DataSize maxSize,
+                                  @Value("${webapp.images.max-header-bytes:64KB}") DataSize maxHeaderBytes,
+                                  @Value("${webapp.uploads.part-size:5MB}") DataSize partSize,
+                                  @Value("${webapp.uploads.session-ttl:24h}") Duration sessionTtl,
+                                  @Value("${webapp.uploads.max-open-sessions:5}") int maxOpenSessions,
+                                  @Value("${webapp.uploads.cleanup-interval:10m}") Duration cleanupInterval,
+                                  @Value("${webapp.uploads.buffer-dir:${java.io.tmpdir}/webapp-uploads}") Path bufferDir) {
+        this.sessionRepository = sessionRepository;
+        this.shardRouter = shardRouter;
+        this.imageService = imageService;
+        this.amazonS3 = amazonS3;
+        this.s3Guard = dependencyGuards.s3();
+        this.meterRegistry = meterRegistry;
+        this.bucketName = bucketName;
+        this.maxSize = maxSize.toBytes();
+        this.maxHeaderBytes = Math.toIntExact(maxHeaderBytes.toBytes());
+        this.partSize = Math.max(MIN_PART_SIZE, partSize.toBytes());
+        this.sessionTtl = sessionTtl;
+        this.maxOpenSessions = maxOpenSessions;
+        this.cleanupInterval = cleanupInterval;
+        this.bufferDir = bufferDir;
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "upload-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.receivedBytes = Counter.builder("webapp.uploads.received")
+                .description("Bytes received in resumable upload chunks")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public UploadSessionDTO createSession(User user, String fileName, String contentType, long size) {
+        if (!ImageService.isSupportedContentType(contentType)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Invalid file type. Only JPEG, JPG, and PNG are allowed");
+        }
+        if (size > maxSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Upload size exceeds the limit of " + maxSize + " bytes");
+        }
+        if (sessionRepository.countByUserIdAndExpiresAtAfter(user.getId(), LocalDateTime.now()) >= maxOpenSessions) {
+            count("refused");
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many open upload sessions; complete or abort one first");
+        }
+
+        String objectName = UUID.randomUUID() + ImageService.fileExtension(contentType);
+        String s3Key = imageService.buildS3Key(user.getId(), objectName);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(contentType);
+        InitiateMultipartUploadRequest initiate = new InitiateMultipartUploadRequest(bucketName, s3Key, metadata);
+        initiate.setSdkClientExecutionTimeout(s3Guard.timeoutMillis());
+        String uploadId = s3Call("InitiateMultipartUpload", s3Key, 0,
+                () -> amazonS3.initiateMultipartUpload(initiate).getUploadId());
+
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setUserId(user.getId());
+        session.setFileName(fileName);
+        session.setContentType(contentType);
+        session.setSize(size);
+        session.setS3Key(s3Key);
+        session.setS3UploadId(uploadId);
+        session.setCommittedBytes(0);
+        session.setCreatedAt(LocalDateTime.now());
+        session.setExpiresAt(LocalDateTime.now().plus(sessionTtl));
+        session = sessionRepository.save(session);
+        count("created");
+        logger.info("Created upload session {} for user ID: {} ({} bytes)", session.getId(), user.getId(), size);
+        return toDto(session, 0);
+    }
+
+    public UploadSessionDTO getSession(User user, String sessionId) {
+        UploadSession session = findSession(user, sessionId);
+        return toDto(session, session.getCommittedBytes() + bufferedBytes(session));
+    }
+
+    /**
+     * Appends {@code length} bytes read from {@code body} at {@code offset}. If the
+     * connection drops part way, the bytes that arrived are kept and the client
+     * resumes after them. Returns the new offset.
+     */
+    public long appendChunk(User user, String sessionId, long offset, long length, InputStream body) throws IOException {
+        synchronized (lockFor(sessionId)) {
+            UploadSession session = findSession(user, sessionId);
+            Path buffer = bufferFile(session);
+            long current = session.getCommittedBytes() + bufferedBytes(session);
+            if (offset != current) {
+                count("offset_mismatch");
+                throw new UploadOffsetMismatchException("Chunk starts at " + offset + ", expected " + current, current);
+            }
+            if (length > session.getSize() - current) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Chunk of " + length + " bytes exceeds the declared upload size");
+            }
+            byte[] head = new byte[0];
+            if (current == 0) {
+                head = body.readNBytes((int) Math.min(length, maxHeaderBytes));
+                session.setContentType(detectContentType(user, session, head));
+            }
+
+            Files.createDirectories(bufferDir);
+            long written = 0;
+            IOException interrupted = null;
+            try (OutputStream out = Files.newOutputStream(buffer, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                out.write(head);
+                written = head.length;
+                byte[] chunk = new byte[64 * 1024];
+                int read;
+                while (written < length
+                        && (read = body.read(chunk, 0, (int) Math.min(chunk.length, length - written))) != -1) {
+                    out.write(chunk, 0, read);
+                    written += read;
+                }
+            } catch (IOException e) {
+                // The client went away mid-chunk; what reached the buffer still counts
+                interrupted = e;
+            }
+            receivedBytes.increment(written);
+
+            if (Files.size(buffer) >= partSize) {
+                commitPart(session, buffer);
+            }
+            session.setExpiresAt(LocalDateTime.now().plus(sessionTtl));
+            sessionRepository.save(session);
+            if (interrupted != null) {
+                throw interrupted;
+            }
+            return current + written;
+        }
+    }
+
+    public ImageResponseDTO completeSession(User user, String sessionId) {
+        synchronized (lockFor(sessionId)) {
+            UploadSession session = findSession(user, sessionId);
+            Path buffer = bufferFile(session);
+            long received = session.getCommittedBytes() + bufferedBytes(session);
+            if (received != session.getSize()) {
+                throw new UploadOffsetMismatchException(
+                        "Received " + received + " of " + session.getSize() + " bytes", received);
+            }
+            if (Files.exists(buffer)) {
+                commitPart(session, buffer);
+            }
+
+            List<PartETag> parts = new ArrayList<>();
+            String[] etags = session.getPartEtags().split(",");
+            for (int i = 0; i < etags.length; i++) {
+                parts.add(new PartETag(i + 1, etags[i]));
+            }
+            CompleteMultipartUploadRequest complete = new CompleteMultipartUploadRequest(
+                    bucketName, session.getS3Key(), session.getS3UploadId(), parts);
+            complete.setSdkClientExecutionTimeout(s3Guard.timeoutMillis());
+            s3Call("CompleteMultipartUpload", session.getS3Key(), session.getSize(),
+                    () -> amazonS3.completeMultipartUpload(complete));
+
+            sessionRepository.delete(session);
+            sessionLocks.remove(sessionId);
+            count("completed");
+            logger.info("Completed upload session {} for user ID: {}", sessionId, user.getId());
+            return imageService.attachUploadedImage(user, session.getS3Key(), session.getFileName(),
+                    session.getContentType(), session.getSize());
+        }
+    }
+
+    public void abortSession(User user, String sessionId) {
+        synchronized (lockFor(sessionId)) {
+            UploadSession session = findSession(user, sessionId);
+            discard(session);
+            count("aborted");
+        }
+    }
+
+    private void commitPart(UploadSession session, Path buffer) {
+        long partBytes;
+        try {
+            partBytes = Files.size(buffer);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read upload buffer " + buffer, e);
+        }
+        String etags = session.getPartEtags();
+        int partNumber = etags == null || etags.isEmpty() ? 1 : etags.split(",").length + 1;
+        UploadPartRequest part = new UploadPartRequest()
+                .withBucketName(bucketName)
+                .withKey(session.getS3Key())
+                .withUploadId(session.getS3UploadId())
+                .withPartNumber(partNumber)
+                .withFile(buffer.toFile())
+                .withPartSize(partBytes);
+        part.setSdkClientExecutionTimeout(s3Guard.timeoutMillis());
+        String etag = s3Call("UploadPart", session.getS3Key(), partBytes,
+                () -> amazonS3.uploadPart(part).getETag());
+
+        session.setPartEtags(etags == null || etags.isEmpty() ? etag : etags + "," + etag);
+        session.setCommittedBytes(session.getCommittedBytes() + partBytes);
+        deleteQuietly(buffer);
+        logger.debug("Upload session {} committed part {} ({} bytes)", session.getId(), partNumber, partBytes);
+    }
+
+    private String detectContentType(User user, UploadSession session, byte[] head) throws IOException {
+        try {
+            return imageService.checkUploadHeader(new ByteArrayInputStream(head), session.getContentType(), user)
+                    .contentType();
+        } catch (InvalidImageException e) {
+            count("rejected");
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private UploadSession findSession(User user, String sessionId) {
+        return sessionRepository.findByIdAndUserId(sessionId, user.getId())
+                .filter(session -> session.getExpiresAt().isAfter(LocalDateTime.now()))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload session not found"));
+    }
+
+    // Keyed by the committed offset, so a buffer left behind from before a part
+    // was committed elsewhere is never mistaken for the current one
+    private Path bufferFile(UploadSession session) {
+        return bufferDir.resolve(session.getId() + "-" + session.getCommittedBytes() + ".part");
+    }
+
+    private long bufferedBytes(UploadSession session) {
+        try {
+            Path buffer = bufferFile(session);
+            return Files.exists(buffer) ? Files.size(buffer) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void discard(UploadSession session) {
+        AbortMultipartUploadRequest abort = new AbortMultipartUploadRequest(
+                bucketName, session.getS3Key(), session.getS3UploadId());
+        abort.setSdkClientExecutionTimeout(s3Guard.timeoutMillis());
+        s3Guard.run(() -> amazonS3.abortMultipartUpload(abort));
+        deleteQuietly(bufferFile(session));
+        sessionRepository.delete(session);
+        sessionLocks.remove(session.getId());
+    }
+
+    private <T> T s3Call(String operation, String key, long bytes, Supplier<T> call) {
+        S3OperationEvent event = S3OperationEvent.begin(operation, key);
+        T result = s3Guard.call(call);
+        event.complete(bytes);
+        return result;
+    }
+
+    private Object lockFor(String sessionId) {
+        return sessionLocks.computeIfAbsent(sessionId, id -> new Object());
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("webapp.uploads.sessions", "outcome", outcome).increment();
+    }
+
+    private UploadSessionDTO toDto(UploadSession session, long offset) {
+        UploadSessionDTO dto = new UploadSessionDTO();
+        dto.setId(session.getId());
+        dto.setFileName(session.getFileName());
+        dto.setContentType(session.getContentType());
+        dto.setSize(session.getSize());
+        dto.setOffset(offset);
+        dto.setExpiresAt(session.getExpiresAt().toString());
+        return dto;
+    }
+
+    void cleanUp() {
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            shardRouter.call(shard, () -> {
+                expireSessions();
+                return null;
+            });
+        }
+        // Buffers superseded by a part committed on another instance, or left by a crash
+        if (Files.isDirectory(bufferDir)) {
+            Instant cutoff = Instant.now().minus(sessionTtl);
+            try (DirectoryStream<Path> buffers = Files.newDirectoryStream(bufferDir, "*.part")) {
+                for (Path buffer : buffers) {
+                    if (Files.getLastModifiedTime(buffer).toInstant().isBefore(cutoff)) {
+                        deleteQuietly(buffer);
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Could not sweep upload buffers in {}: {}", bufferDir, e.getMessage());
+            }
+        }
+    }
+
+    private void expireSessions() {
+        for (UploadSession session : sessionRepository.findByExpiresAtBefore(LocalDateTime.now())) {
+            try {
+                discard(session);
+                count("expired");
+                logger.info("Expired upload session {} for user ID: {}", session.getId(), session.getUserId());
+            } catch (RuntimeException e) {
+                logger.warn("Could not expire upload session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void cleanUpSafely() {
+        try {
+            cleanUp();
+        } catch (RuntimeException e) {
+            logger.warn("Upload session cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        cleaner.scheduleWithFixedDelay(this::cleanUpSafely, cleanupInterval.toMillis(),
+                cleanupInterval.toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        cleaner.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
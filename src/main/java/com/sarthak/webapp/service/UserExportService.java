@@ -0,0 +1,302 @@
+package com.sarthak.webapp.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sarthak.webapp.model.User;
+import com.sarthak.webapp.model.UserPageDTO;
+import com.sarthak.webapp.repository.UserRepository;
+import com.sarthak.webapp.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Admin listing and export of users, across every shard.
+ * <p>
+ * The listing is keyset-paginated on the user id: each page is the
+ * {@code limit} lowest ids above the cursor, so deep pages cost the same as
+ * the first. Ids are unique across shards, so a page is the lowest ids among
+ * every shard's own page.
+ * <p>
+ * The export streams every user, optionally with their image metadata, as
+ * NDJSON or CSV. Rows are read through a server-side cursor in fetch-size
+ * batches as projections, which the persistence context does not keep, and
+ * written as they arrive, so memory stays flat however many users there are.
+ * Users come out in id order within each shard, one shard after another.
+ * Passwords are never exported.
+ */
+@Service
+public class UserExportService {
+    private static final Logger logger = LoggerFactory.getLogger(UserExportService.class);
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    private static final List<String> USER_COLUMNS = List.of(
+            "id", "firstName", "lastName", "email", "verified", "accountCreated", "accountUpdated");
+    private static final List<String> IMAGE_COLUMNS = List.of(
+            "imageId", "imageFileName", "imageUrl", "imageUploadDate", "imageContentType", "imageSize");
+
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final int maxPageSize;
+
+    public UserExportService(UserRepository userRepository,
+                             UserService userService,
+                             ShardRouter shardRouter,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${webapp.admin.max-page-size:1000}") int maxPageSize) {
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.shardRouter = shardRouter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Up to {@code limit} users with ids above {@code afterId}, lowest first.
+     */
+    public UserPageDTO listUsers(long afterId, int limit) {
+        int size = Math.max(1, Math.min(limit, maxPageSize));
+        List<User> users = new ArrayList<>();
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            users.addAll(shardRouter.call(shard,
+                    () -> userRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, size))));
+        }
+        users.sort(Comparator.comparing(User::getId));
+        List<User> page = users.subList(0, Math.min(size, users.size()));
+
+        UserPageDTO dto = new UserPageDTO();
+        dto.setUsers(page.stream().map(userService::mapToResponseDTO).toList());
+        // A full page may have more after it; the client stops at the first page without a cursor
+        dto.setNext(page.size() == size ? page.get(page.size() - 1).getId() : null);
+        return dto;
+    }
+
+    /**
+     * Writes every user to {@code out}. The stream is flushed but not closed.
+     */
+    public void export(OutputStream out, Format format, boolean images) throws IOException {
+        RowWriter writer = format == Format.CSV ? new CsvWriter(out, images) : new NdjsonWriter(out, images);
+        Counter exported = meterRegistry.counter("webapp.admin.exported", "format", format.extension());
+        long rows = 0;
+        long startTime = System.nanoTime();
+        try {
+            writer.start();
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                rows += shardRouter.call(shard, () -> readOnlyTransaction.execute(status -> {
+                    long written = 0;
+                    try (Stream<? extends UserRepository.UserExport> users = images
+                            ? userRepository.streamWithImagesForExport()
+                            : userRepository.streamForExport()) {
+                        Iterator<? extends UserRepository.UserExport> iterator = users.iterator();
+                        while (iterator.hasNext()) {
+                            writer.write(iterator.next());
+                            exported.increment();
+                            written++;
+                        }
+                    }
+                    return written;
+                }));
+            }
+            writer.finish();
+        } catch (UncheckedIOException e) {
+            // Usually the client going away; the response is already committed, so all that is left is to stop
+            logger.warn("User export stopped after {} rows: {}", rows, e.getCause().getMessage());
+            throw e.getCause();
+        }
+        logger.info("Exported {} users as {} in {} ms", rows, format.extension(),
+                (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    private abstract static class RowWriter {
+        final boolean images;
+
+        RowWriter(boolean images) {
+            this.images = images;
+        }
+
+        abstract void start() throws IOException;
+
+        // Called inside the stream's lambda, where checked exceptions cannot escape
+        final void write(UserRepository.UserExport user) {
+            try {
+                writeRow(user);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        abstract void writeRow(UserRepository.UserExport user) throws IOException;
+
+        abstract void finish() throws IOException;
+    }
+
+    private final class NdjsonWriter extends RowWriter {
+        private final JsonGenerator generator;
+
+        NdjsonWriter(OutputStream out, boolean images) throws IOException {
+            super(images);
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        void start() {
+        }
+
+        @Override
+        void writeRow(UserRepository.UserExport user) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", user.getId());
+            generator.writeStringField("firstName", user.getFirstName());
+            generator.writeStringField("lastName", user.getLastName());
+            generator.writeStringField("email", user.getEmail());
+            generator.writeBooleanField("verified", user.isVerified());
+            generator.writeStringField("accountCreated", text(user.getAccountCreated()));
+            generator.writeStringField("accountUpdated", text(user.getAccountUpdated()));
+            if (images) {
+                UserRepository.UserImageExport image = (UserRepository.UserImageExport) user;
+                generator.writeFieldName("image");
+                if (image.getImageId() == null) {
+                    generator.writeNull();
+                } else {
+                    generator.writeStartObject();
+                    generator.writeStringField("id", image.getImageId());
+                    generator.writeStringField("file_name", image.getImageFileName());
+                    generator.writeStringField("url", image.getImageUrl());
+                    generator.writeStringField("upload_date", text(image.getImageUploadDate()));
+                    generator.writeStringField("content_type", image.getImageContentType());
+                    if (image.getImageSize() != null) {
+                        generator.writeNumberField("size", image.getImageSize());
+                    } else {
+                        generator.writeNullField("size");
+                    }
+                    generator.writeEndObject();
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class CsvWriter extends RowWriter {
+        private final Writer writer;
+
+        CsvWriter(OutputStream out, boolean images) {
+            super(images);
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        void start() throws IOException {
+            List<String> header = new ArrayList<>(USER_COLUMNS);
+            if (images) {
+                header.addAll(IMAGE_COLUMNS);
+            }
+            writer.write(String.join(",", header));
+            writer.write("\r\n");
+        }
+
+        @Override
+        void writeRow(UserRepository.UserExport user) throws IOException {
+            List<String> fields = new ArrayList<>(USER_COLUMNS.size() + IMAGE_COLUMNS.size());
+            fields.add(String.valueOf(user.getId()));
+            fields.add(user.getFirstName());
+            fields.add(user.getLastName());
+            fields.add(user.getEmail());
+            fields.add(String.valueOf(user.isVerified()));
+            fields.add(text(user.getAccountCreated()));
+            fields.add(text(user.getAccountUpdated()));
+            if (images) {
+                UserRepository.UserImageExport image = (UserRepository.UserImageExport) user;
+                fields.add(image.getImageId());
+                fields.add(image.getImageFileName());
+                fields.add(image.getImageUrl());
+                fields.add(text(image.getImageUploadDate()));
+                fields.add(image.getImageContentType());
+                fields.add(image.getImageSize() != null ? String.valueOf(image.getImageSize()) : null);
+            }
+            for (int i = 0; i < fields.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(escape(fields.get(i)));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        void finish() throws IOException {
+            writer.flush();
+        }
+
+        // RFC 4180 quoting; values a spreadsheet would run as a formula are prefixed with a quote
+        static String escape(String value) {
+            if (value == null || value.isEmpty()) {
+                return "";
+            }
+            String safe = "=+-@".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+            if (safe.indexOf(',') < 0 && safe.indexOf('"') < 0 && safe.indexOf('\n') < 0 && safe.indexOf('\r') < 0) {
+                return safe;
+            }
+            return '"' + safe.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private static String text(LocalDateTime time) {
+        return time != null ? time.toString() : null;
+    }
+}
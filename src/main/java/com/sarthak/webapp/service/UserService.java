@@ -1,22 +1,39 @@
 package com.sarthak.webapp.service;
 
+import com.sarthak.webapp.cache.ConditionalRequests;
+import com.sarthak.webapp.cache.EmailExistenceFilter;
+import com.sarthak.webapp.cache.SingleFlight;
 import com.sarthak.webapp.model.User;
 import com.sarthak.webapp.model.UserDTO;
 import com.sarthak.webapp.model.UserResponseDTO;
+import com.sarthak.webapp.profiling.DatabaseCallEvent;
+import com.sarthak.webapp.profiling.PasswordHashEvent;
 import com.sarthak.webapp.repository.UserRepository;
+import com.sarthak.webapp.security.CredentialStuffingShield;
+import com.sarthak.webapp.sharding.ShardContext;
+import com.sarthak.webapp.sharding.ShardKeys;
+import com.sarthak.webapp.sharding.ShardRouter;
 import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.annotation.Observed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 @Service
+@Observed(name = "service.call")
 public class UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
@@ -24,29 +41,56 @@ public class UserService {
     private final PasswordEncoder passwordEncoder;
     private final UserVerificationService verificationService;
     private final MetricsService metricsService;
+    private final CredentialStuffingShield credentialStuffingShield;
+    private final EmailExistenceFilter emailExistenceFilter;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transaction;
+    private final SingleFlight<String, Optional<User>> userLookups;
 
     @Autowired
     public UserService(UserRepository userRepository,
                        PasswordEncoder passwordEncoder,
                        UserVerificationService verificationService,
-                       MetricsService metricsService) {
+                       MetricsService metricsService,
+                       CredentialStuffingShield credentialStuffingShield,
+                       EmailExistenceFilter emailExistenceFilter,
+                       ShardRouter shardRouter,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.verificationService = verificationService;
         this.metricsService = metricsService;
+        this.credentialStuffingShield = credentialStuffingShield;
+        this.emailExistenceFilter = emailExistenceFilter;
+        this.shardRouter = shardRouter;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.userLookups = new SingleFlight<>("user.by.email", meterRegistry);
     }
 
-    @Transactional
     @Timed(value = "user.creation.time", description = "Time taken to create new user")
     public UserResponseDTO createUser(UserDTO userDTO) {
+        // One account per address however it is typed; stored emails are all normalized (see ShardSchema),
+        // so the duplicate check and the unique constraint also rule out case variants of existing ones
+        userDTO.setEmail(ShardKeys.normalize(userDTO.getEmail()));
+        // Sign-up has no credentials to route by; the shard must be chosen before the transaction begins
+        try (ShardContext.Scope ignored = ShardContext.enter(shardRouter.shardFor(userDTO.getEmail()))) {
+            return transaction.execute(status -> createUserOnShard(userDTO));
+        }
+    }
+
+    private UserResponseDTO createUserOnShard(UserDTO userDTO) {
         logger.info("Attempting to create new user with email: {}", userDTO.getEmail());
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
 
         try {
-            // Check if user already exists
-            if (userRepository.findByEmail(userDTO.getEmail()).isPresent()) {
-                logger.warn("User creation failed: Email already exists: {}", userDTO.getEmail());
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User with this email already exists");
+            // Check if user already exists; the filter rules out most new emails without a query
+            if (emailExistenceFilter.mightExist(userDTO.getEmail())) {
+                if (findUserByEmail(userDTO.getEmail()).isPresent()) {
+                    logger.warn("User creation failed: Email already exists: {}", userDTO.getEmail());
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User with this email already exists");
+                }
+                emailExistenceFilter.recordFalsePositive();
             }
 
             // Validate password requirements
@@ -57,12 +101,14 @@ public class UserService {
             user.setFirstName(userDTO.getFirstName());
             user.setLastName(userDTO.getLastName());
             user.setEmail(userDTO.getEmail());
-            user.setPassword(passwordEncoder.encode(userDTO.getPassword()));
+            user.setPassword(hashPassword(userDTO.getPassword()));
             user.setVerified(false);
             user.setAccountCreated(LocalDateTime.now());
 
             // Save user
-            User savedUser = userRepository.save(user);
+            User savedUser = saveUser(user);
+            emailExistenceFilter.add(savedUser.getEmail());
+            credentialStuffingShield.forgetUnknownEmail(savedUser.getEmail());
             logger.info("User created successfully: {}", savedUser.getEmail());
 
             // Send verification email
@@ -71,11 +117,15 @@ public class UserService {
 
             // Record metrics
             metricsService.incrementUserCreations();
-            metricsService.recordDbOperationTime(System.currentTimeMillis() - startTime);
+            metricsService.recordDbOperationTime(System.nanoTime() - startTime);
 
             return mapToResponseDTO(savedUser);
         } catch (ResponseStatusException e) {
             throw e;
+        } catch (DataIntegrityViolationException e) {
+            // The unique constraint catches sign-ups that raced past the existence check
+            logger.warn("User creation failed: Email already exists: {}", userDTO.getEmail());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User with this email already exists");
         } catch (Exception e) {
             logger.error("Unexpected error while creating user: {}", userDTO.getEmail(), e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error creating user: " + e.getMessage());
@@ -88,23 +138,37 @@ public class UserService {
         try {
             User user = getUserEntityByEmail(email);
             return mapToResponseDTO(user);
+        } catch (ResponseStatusException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error retrieving user with email: {}", email, e);
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
         }
     }
 
+    /**
+     * ETag of the user's {@code /v1/user/self} representation, read without loading the user.
+     * A user who was never updated is versioned by their creation time. Empty if the user
+     * does not exist or has neither timestamp.
+     */
+    public Optional<String> getUserEtag(String email) {
+        return userRepository.findVersionByEmail(email)
+                .filter(version -> version.getAccountUpdated() != null || version.getAccountCreated() != null)
+                .map(version -> ConditionalRequests.etag(version.getId(),
+                        version.getAccountUpdated() != null ? version.getAccountUpdated() : version.getAccountCreated()));
+    }
+
     @Timed(value = "user.update.time", description = "Time taken to update user")
     @Transactional
     public UserResponseDTO updateUser(UserDTO userDTO, String currentUserEmail) {
         logger.info("Attempting to update user: {}", currentUserEmail);
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
 
         try {
             User user = getUserEntityByEmail(currentUserEmail);
 
             // Validate update request
-            if (!currentUserEmail.equals(userDTO.getEmail())) {
+            if (!ShardKeys.normalize(currentUserEmail).equals(ShardKeys.normalize(userDTO.getEmail()))) {
                 logger.warn("Update attempt failed: Email cannot be changed for user: {}", currentUserEmail);
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Email cannot be changed");
             }
@@ -118,14 +182,14 @@ public class UserService {
             }
             if (userDTO.getPassword() != null) {
                 validatePassword(userDTO.getPassword());
-                user.setPassword(passwordEncoder.encode(userDTO.getPassword()));
+                user.setPassword(hashPassword(userDTO.getPassword()));
             }
 
             user.setAccountUpdated(LocalDateTime.now());
-            User updatedUser = userRepository.save(user);
+            User updatedUser = saveUser(user);
 
             // Record metrics
-            metricsService.recordDbOperationTime(System.currentTimeMillis() - startTime);
+            metricsService.recordDbOperationTime(System.nanoTime() - startTime);
 
             logger.info("User updated successfully: {}", updatedUser.getEmail());
             return mapToResponseDTO(updatedUser);
@@ -139,7 +203,7 @@ public class UserService {
 
     @Timed(value = "db.query.getUserEntity", description = "Time taken to fetch user entity")
     public User getUserEntityByEmail(String email) {
-        return userRepository.findByEmail(email)
+        return findUserByEmail(email)
                 .orElseThrow(() -> {
                     logger.warn("User not found with email: {}", email);
                     return new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
@@ -148,11 +212,58 @@ public class UserService {
 
     public boolean isUserVerified(String email) {
         logger.debug("Checking verification status for user: {}", email);
-        return userRepository.findByEmail(email)
+        return findUserByEmail(email)
                 .map(User::isVerified)
                 .orElse(false);
     }
 
+    // Concurrent reads of the same email share one query. Inside a transaction the caller
+    // needs an entity from its own persistence context, possibly to modify it, so it loads alone.
+    // Outside one, the entity loaded belongs to the first caller's session; what is shared is a
+    // detached copy that nobody receives, and every caller gets a copy of its own.
+    private Optional<User> findUserByEmail(String email) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loadUserByEmail(email);
+        }
+        return userLookups.execute(email, () -> loadUserByEmail(email).map(UserService::detachedCopy))
+                .map(UserService::detachedCopy);
+    }
+
+    private static User detachedCopy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setFirstName(user.getFirstName());
+        copy.setLastName(user.getLastName());
+        copy.setEmail(user.getEmail());
+        copy.setPassword(user.getPassword());
+        copy.setVerified(user.isVerified());
+        copy.setAccountCreated(user.getAccountCreated());
+        copy.setAccountUpdated(user.getAccountUpdated());
+        return copy;
+    }
+
+    private Optional<User> loadUserByEmail(String email) {
+        DatabaseCallEvent event = DatabaseCallEvent.begin("UserRepository.findByEmail");
+        Optional<User> user = userRepository.findByEmail(email);
+        event.complete();
+        return user;
+    }
+
+    // Flushed so a duplicate email fails here, before the verification email goes out, not at commit
+    private User saveUser(User user) {
+        DatabaseCallEvent event = DatabaseCallEvent.begin("UserRepository.saveAndFlush");
+        User saved = userRepository.saveAndFlush(user);
+        event.complete();
+        return saved;
+    }
+
+    private String hashPassword(String rawPassword) {
+        PasswordHashEvent event = PasswordHashEvent.begin("encode");
+        String hash = passwordEncoder.encode(rawPassword);
+        event.complete();
+        return hash;
+    }
+
     private void validatePassword(String password) {
         if (password == null || password.length() < 8) {
             logger.warn("Password validation failed: Password must be at least 8 characters long");
@@ -161,7 +272,7 @@ public class UserService {
         // Add more password validation rules if needed
     }
 
-    private UserResponseDTO mapToResponseDTO(User user) {
+    UserResponseDTO mapToResponseDTO(User user) {
         UserResponseDTO responseDTO = new UserResponseDTO();
         responseDTO.setId(user.getId());
         responseDTO.setFirstName(user.getFirstName());
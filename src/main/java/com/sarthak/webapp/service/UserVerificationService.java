@@ -5,9 +5,15 @@ import com.amazonaws.services.sns.model.PublishRequest;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sarthak.webapp.model.User;
 import com.sarthak.webapp.model.UserVerification;
+import com.sarthak.webapp.profiling.SnsPublishEvent;
 import com.sarthak.webapp.repository.UserVerificationRepository;
+import com.sarthak.webapp.resilience.DependencyGuard;
+import com.sarthak.webapp.resilience.DependencyGuards;
+import io.micrometer.observation.annotation.Observed;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.UUID;
 import org.slf4j.Logger;
@@ -16,10 +22,12 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Service
+@Observed(name = "service.call")
 public class UserVerificationService {
     private static final Logger logger = LoggerFactory.getLogger(UserVerificationService.class);
 
     private final AmazonSNS amazonSNS;
+    private final DependencyGuard snsGuard;
     private final UserVerificationRepository verificationRepository;
     private final ObjectMapper objectMapper;
     private final String snsTopicArn;
@@ -27,11 +35,13 @@ public class UserVerificationService {
 
     public UserVerificationService(
             AmazonSNS amazonSNS,
+            DependencyGuards dependencyGuards,
             UserVerificationRepository verificationRepository,
             ObjectMapper objectMapper,
             @Value("${aws.sns.topic.arn}") String snsTopicArn,
             @Value("${user.verification.expiry.minutes}") int verificationExpiryMinutes) {
         this.amazonSNS = amazonSNS;
+        this.snsGuard = dependencyGuards.sns();
         this.verificationRepository = verificationRepository;
         this.objectMapper = objectMapper;
         this.snsTopicArn = snsTopicArn;
@@ -60,12 +70,18 @@ public class UserVerificationService {
             message.put("verificationToken", token);
 
             // Publish to SNS
+            String body = objectMapper.writeValueAsString(message);
             PublishRequest publishRequest = new PublishRequest()
                     .withTopicArn(snsTopicArn)
-                    .withMessage(objectMapper.writeValueAsString(message));
-            amazonSNS.publish(publishRequest);
+                    .withMessage(body)
+                    .withSdkClientExecutionTimeout(snsGuard.timeoutMillis());
+            SnsPublishEvent snsEvent = SnsPublishEvent.begin(snsTopicArn);
+            snsGuard.call(() -> amazonSNS.publish(publishRequest));
+            snsEvent.complete(body.getBytes(StandardCharsets.UTF_8).length);
 
             logger.info("Verification email request sent for user: {}", user.getEmail());
+        } catch (ResponseStatusException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to send verification email for user: {}", user.getEmail(), e);
             throw new RuntimeException("Failed to send verification email", e);
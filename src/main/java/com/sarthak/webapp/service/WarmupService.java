@@ -0,0 +1,170 @@
+package com.sarthak.webapp.service;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.HeadBucketRequest;
+import com.amazonaws.services.sns.AmazonSNS;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sarthak.webapp.model.User;
+import com.sarthak.webapp.model.UserImage;
+import com.sarthak.webapp.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Runs synthetic calls through the main request paths before the instance
+ * reports ready, so the first real requests do not pay for cold JIT code,
+ * empty Hibernate and Jackson caches, an unused connection pool or AWS
+ * clients that have never opened a connection.
+ * <p>
+ * Spring Boot only moves readiness to {@code ACCEPTING_TRAFFIC} after all
+ * application runners have returned, and {@code /healthz} reports that state.
+ * A failing step is logged and skipped; warm-up never prevents startup.
+ */
+@Service
+public class WarmupService implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(WarmupService.class);
+
+    private static final String WARMUP_EMAIL = "warmup@warmup.invalid";
+    private static final String WARMUP_PASSWORD = "warmup-password";
+
+    private final PasswordEncoder passwordEncoder;
+    private final UserService userService;
+    private final ImageService imageService;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final AmazonS3 amazonS3;
+    private final AmazonSNS amazonSNS;
+    private final String bucketName;
+    private final String snsTopicArn;
+    private final boolean enabled;
+    private final int iterations;
+    private final int passwordHashes;
+    private final Duration timeout;
+
+    private final AtomicLong durationMillis = new AtomicLong();
+    private final AtomicInteger failedSteps = new AtomicInteger();
+
+    public WarmupService(PasswordEncoder passwordEncoder,
+                         UserService userService,
+                         ImageService imageService,
+                         UserRepository userRepository,
+                         ObjectMapper objectMapper,
+                         AmazonS3 amazonS3,
+                         AmazonSNS amazonSNS,
+                         MeterRegistry meterRegistry,
+                         @Value("${aws.s3.bucket}") String bucketName,
+                         @Value("${aws.sns.topic.arn}") String snsTopicArn,
+                         @Value("${webapp.warmup.enabled:true}") boolean enabled,
+                         @Value("${webapp.warmup.iterations:100}") int iterations,
+                         @Value("${webapp.warmup.password-hashes:5}") int passwordHashes,
+                         @Value("${webapp.warmup.timeout:60s}") Duration timeout) {
+        this.passwordEncoder = passwordEncoder;
+        this.userService = userService;
+        this.imageService = imageService;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.amazonS3 = amazonS3;
+        this.amazonSNS = amazonSNS;
+        this.bucketName = bucketName;
+        this.snsTopicArn = snsTopicArn;
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.passwordHashes = passwordHashes;
+        this.timeout = timeout;
+
+        TimeGauge.builder("webapp.warmup.duration", durationMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Time spent warming up before reporting ready")
+                .register(meterRegistry);
+        Gauge.builder("webapp.warmup.failed.steps", failedSteps, AtomicInteger::get)
+                .description("Warm-up steps that failed and were skipped")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            logger.info("Warm-up disabled");
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        Map<String, Long> steps = new LinkedHashMap<>();
+
+        User user = sampleUser();
+        UserImage image = sampleImage(user);
+        step(steps, "password-encoder", passwordHashes, deadline,
+                () -> passwordEncoder.matches(WARMUP_PASSWORD, passwordEncoder.encode(WARMUP_PASSWORD)));
+        step(steps, "dto-mapping", iterations, deadline, () -> {
+            objectMapper.writeValueAsString(userService.mapToResponseDTO(user));
+            objectMapper.writeValueAsString(imageService.mapToResponseDto(image));
+        });
+        step(steps, "repository-read", iterations, deadline, () -> userRepository.findByEmail(WARMUP_EMAIL));
+        step(steps, "s3-head-bucket", 1, deadline, () -> amazonS3.headBucket(new HeadBucketRequest(bucketName)));
+        step(steps, "sns-client", 1, deadline, () -> amazonSNS.getTopicAttributes(snsTopicArn));
+
+        durationMillis.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        logger.info("Warm-up finished in {} ms ({} failed): {}", durationMillis.get(), failedSteps.get(),
+                steps.entrySet().stream()
+                        .map(e -> e.getKey() + "=" + e.getValue() + "ms")
+                        .collect(Collectors.joining(", ")));
+    }
+
+    private void step(Map<String, Long> steps, String name, int times, long deadline, WarmupCall call) {
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < times && System.nanoTime() - deadline < 0; i++) {
+                call.run();
+            }
+        } catch (Exception e) {
+            failedSteps.incrementAndGet();
+            logger.warn("Warm-up step {} failed: {}", name, e.getMessage());
+        }
+        steps.put(name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static User sampleUser() {
+        User user = new User();
+        user.setId(0L);
+        user.setFirstName("Warm");
+        user.setLastName("Up");
+        user.setEmail(WARMUP_EMAIL);
+        user.setAccountCreated(LocalDateTime.now());
+        user.setAccountUpdated(LocalDateTime.now());
+        return user;
+    }
+
+    private static UserImage sampleImage(User user) {
+        UserImage image = new UserImage();
+        image.setId("warmup");
+        image.setFileName("warmup.png");
+        image.setUrl("users/0/warmup.png");
+        image.setUploadDate(LocalDateTime.now());
+        image.setContentType("image/png");
+        image.setSize(0L);
+        image.setUser(user);
+        return image;
+    }
+
+    @FunctionalInterface
+    private interface WarmupCall {
+        void run() throws JsonProcessingException;
+    }
+}
@@ -0,0 +1,57 @@
+package com.sarthak.webapp.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread's database work goes to. Read by
+ * {@link ShardRoutingDataSource} when a transaction first needs a connection,
+ * so the shard must be chosen before that, and it cannot change for the rest
+ * of the transaction. Threads that never choose one use shard 0.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard != null ? shard : 0;
+    }
+
+    /**
+     * Runs {@code action} with {@code shard} as the current shard, restoring the previous one afterwards.
+     */
+    public static <T> T call(int shard, Supplier<T> action) {
+        try (Scope ignored = enter(shard)) {
+            return action.get();
+        }
+    }
+
+    /**
+     * Makes {@code shard} the current shard until the returned scope is closed.
+     */
+    public static Scope enter(int shard) {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(shard);
+        return scope;
+    }
+
+    public static final class Scope implements AutoCloseable {
+        private final Integer previous;
+
+        private Scope(Integer previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
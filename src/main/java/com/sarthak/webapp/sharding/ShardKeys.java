@@ -0,0 +1,42 @@
+package com.sarthak.webapp.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Maps an email to one of {@link #BUCKETS} fixed buckets. Buckets, not
+ * emails, are assigned to shards, so resharding moves whole buckets and never
+ * rehashes a user. The hash is computed over the trimmed, lower-cased email and
+ * must never change: every stored layout depends on it.
+ */
+public final class ShardKeys {
+
+    public static final int BUCKETS = 1024;
+
+    /**
+     * Upper bound on the number of shards; user ids reserve room for it (see {@link UserIdGenerator}).
+     */
+    public static final int MAX_SHARDS = 64;
+
+    private ShardKeys() {
+    }
+
+    public static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public static int bucket(String email) {
+        // FNV-1a, then a murmur3 finalizer so nearby emails spread over all buckets
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : normalize(email).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return (int) Math.floorMod(hash, (long) BUCKETS);
+    }
+}
@@ -0,0 +1,306 @@
+package com.sarthak.webapp.sharding;
+
+import com.sarthak.webapp.repository.ShardBucketRepository;
+import com.sarthak.webapp.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSetMetaData;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Online resharding: moves buckets of users to the shard {@code bucket % shards}
+ * while every other user keeps being served. After adding a shard to the
+ * configuration of every instance, a rebalance spreads the buckets over it.
+ * <p>
+ * Buckets move {@code webapp.sharding.move-batch-size} at a time:
+ * <ol>
+ *   <li>the batch is marked as moving, and its users get 503 from then on;</li>
+ *   <li>after {@code webapp.sharding.move-drain}, when every instance has seen
+ *       the mark and requests already past it have finished, the users' rows in
+ *       {@code users}, {@code user_verifications}, {@code user_images} and
+ *       {@code upload_sessions} are copied to the new shard as they are, ids
+ *       included;</li>
+ *   <li>the batch is assigned to the new shard in one update, which also lifts the mark;</li>
+ *   <li>the rows are deleted from the old shard.</li>
+ * </ol>
+ * A batch that fails before it is reassigned stays on its old shard and
+ * reopens; rows already copied are replaced when it is moved again. The drain
+ * must exceed {@link ShardRouter#MAX_AGE_REFRESHES} layout refreshes plus the
+ * longest request deadline. Run one rebalance at a time, from one instance.
+ */
+@Component
+public class ShardMover implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(ShardMover.class);
+
+    private static final int COPY_CHUNK = 500;
+    // In foreign key order: copied front to back, deleted back to front
+    private static final List<Table> TABLES = List.of(
+            new Table("users", "id"),
+            new Table("user_verifications", "user_id"),
+            new Table("user_images", "user_id"),
+            new Table("upload_sessions", "user_id"));
+
+    private final ShardRouter shardRouter;
+    private final ShardBucketRepository bucketRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final Duration drain;
+    private final ExecutorService executor;
+
+    private volatile Map<String, Object> status = Map.of("state", "idle");
+    private volatile boolean running;
+
+    public ShardMover(ShardRouter shardRouter,
+                      ShardBucketRepository bucketRepository,
+                      UserRepository userRepository,
+                      JdbcTemplate jdbcTemplate,
+                      PlatformTransactionManager transactionManager,
+                      MeterRegistry meterRegistry,
+                      @Value("${webapp.sharding.move-batch-size:32}") int batchSize,
+                      @Value("${webapp.sharding.move-drain:60s}") Duration drain) {
+        this.shardRouter = shardRouter;
+        this.bucketRepository = bucketRepository;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.batchSize = Math.max(1, batchSize);
+        this.drain = drain;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-mover");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts moving every bucket that is not on its target shard, in the
+     * background. False if a rebalance is already running on this instance.
+     */
+    public synchronized boolean startRebalance() {
+        if (running) {
+            return false;
+        }
+        Map<List<Integer>, List<Integer>> moves = plan(shardRouter.currentLayout());
+        int buckets = moves.values().stream().mapToInt(List::size).sum();
+        running = true;
+        status = progress("running", 0, buckets, 0, null);
+        logger.info("Rebalancing {} buckets across {} shards", buckets, shardRouter.shardCount());
+        executor.execute(() -> rebalance(moves, buckets));
+        return true;
+    }
+
+    public Map<String, Object> status() {
+        return status;
+    }
+
+    // Buckets to move, grouped by [from, to]
+    private Map<List<Integer>, List<Integer>> plan(ShardRouter.Layout layout) {
+        Map<List<Integer>, List<Integer>> moves = new LinkedHashMap<>();
+        List<Integer> stuck = new ArrayList<>();
+        for (int bucket = 0; bucket < ShardKeys.BUCKETS; bucket++) {
+            int from = layout.shardOf(bucket);
+            int to = bucket % shardRouter.shardCount();
+            if (from != to) {
+                moves.computeIfAbsent(List.of(from, to), key -> new ArrayList<>()).add(bucket);
+            } else if (layout.isMoving(bucket)) {
+                stuck.add(bucket);
+            }
+        }
+        // Marked by a rebalance that stopped part way, and already where they belong
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            int onShard = shard;
+            List<Integer> reopened = stuck.stream().filter(bucket -> layout.shardOf(bucket) == onShard).toList();
+            if (!reopened.isEmpty()) {
+                assign(reopened, shard, false);
+            }
+        }
+        return moves;
+    }
+
+    private void rebalance(Map<List<Integer>, List<Integer>> moves, int total) {
+        int bucketsMoved = 0;
+        long usersMoved = 0;
+        try {
+            for (Map.Entry<List<Integer>, List<Integer>> move : moves.entrySet()) {
+                int from = move.getKey().get(0);
+                int to = move.getKey().get(1);
+                List<Integer> buckets = move.getValue();
+                for (int start = 0; start < buckets.size(); start += batchSize) {
+                    List<Integer> batch = buckets.subList(start, Math.min(buckets.size(), start + batchSize));
+                    usersMoved += moveBatch(from, to, batch);
+                    bucketsMoved += batch.size();
+                    status = progress("running", bucketsMoved, total, usersMoved, null);
+                }
+            }
+            status = progress("completed", bucketsMoved, total, usersMoved, null);
+            logger.info("Rebalance completed: {} buckets, {} users moved", bucketsMoved, usersMoved);
+        } catch (RuntimeException e) {
+            status = progress("failed", bucketsMoved, total, usersMoved, e.getMessage());
+            logger.error("Rebalance failed after {} of {} buckets: {}", bucketsMoved, total, e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = progress("interrupted", bucketsMoved, total, usersMoved, null);
+        } finally {
+            running = false;
+        }
+    }
+
+    private int moveBatch(int from, int to, List<Integer> buckets) throws InterruptedException {
+        assign(buckets, from, true);
+        shardRouter.refresh();
+        Thread.sleep(drain.toMillis());
+
+        List<Long> ids;
+        try {
+            ids = usersIn(from, Set.copyOf(buckets));
+            for (int start = 0; start < ids.size(); start += COPY_CHUNK) {
+                copy(ids.subList(start, Math.min(ids.size(), start + COPY_CHUNK)), from, to);
+            }
+        } catch (RuntimeException e) {
+            assign(buckets, from, false);
+            shardRouter.refresh();
+            throw e;
+        }
+        assign(buckets, to, false);
+        shardRouter.refresh();
+
+        for (int start = 0; start < ids.size(); start += COPY_CHUNK) {
+            List<Long> chunk = ids.subList(start, Math.min(ids.size(), start + COPY_CHUNK));
+            // Unreachable once the buckets are reassigned, so a failure here only leaves garbage behind
+            try {
+                shardRouter.call(from, () -> transaction.execute(status -> delete(chunk)));
+            } catch (RuntimeException e) {
+                logger.warn("Could not delete {} moved users from shard {}: {}", chunk.size(), from, e.getMessage());
+            }
+        }
+        meterRegistry.counter("webapp.sharding.moved", "kind", "bucket").increment(buckets.size());
+        meterRegistry.counter("webapp.sharding.moved", "kind", "user").increment(ids.size());
+        logger.info("Moved buckets {}..{} ({} users) from shard {} to shard {}",
+                buckets.get(0), buckets.get(buckets.size() - 1), ids.size(), from, to);
+        return ids.size();
+    }
+
+    // The layout lives on shard 0, whatever shard the caller's request is on
+    private void assign(List<Integer> buckets, int shard, boolean moving) {
+        ShardContext.call(0, () -> bucketRepository.assign(buckets, shard, moving));
+    }
+
+    private List<Long> usersIn(int shard, Set<Integer> buckets) {
+        return shardRouter.call(shard, () -> readOnlyTransaction.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            try (Stream<UserRepository.UserEmail> rows = userRepository.streamEmailsAfter(0)) {
+                Iterator<UserRepository.UserEmail> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    UserRepository.UserEmail row = iterator.next();
+                    if (row.getEmail() != null && buckets.contains(ShardKeys.bucket(row.getEmail()))) {
+                        ids.add(row.getId());
+                    }
+                }
+            }
+            return ids;
+        }));
+    }
+
+    private void copy(List<Long> ids, int from, int to) {
+        List<Rows> rows = shardRouter.call(from, () -> TABLES.stream().map(table -> read(table, ids)).toList());
+        shardRouter.call(to, () -> transaction.execute(status -> {
+            // Left by an earlier attempt that failed part way
+            delete(ids);
+            rows.forEach(this::insert);
+            return null;
+        }));
+    }
+
+    private Rows read(Table table, List<Long> ids) {
+        String sql = "select * from " + table.name() + " where " + table.key() + " in (" + placeholders(ids.size()) + ")";
+        return jdbcTemplate.query(sql, resultSet -> {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            List<String> columns = new ArrayList<>();
+            for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                columns.add(metaData.getColumnName(column));
+            }
+            List<Object[]> values = new ArrayList<>();
+            while (resultSet.next()) {
+                Object[] row = new Object[columns.size()];
+                for (int column = 0; column < row.length; column++) {
+                    row[column] = resultSet.getObject(column + 1);
+                }
+                values.add(row);
+            }
+            return new Rows(table, columns, values);
+        }, ids.toArray());
+    }
+
+    private void insert(Rows rows) {
+        if (rows.values().isEmpty()) {
+            return;
+        }
+        String sql = "insert into " + rows.table().name() + " (" + String.join(", ", rows.columns())
+                + ") values (" + placeholders(rows.columns().size()) + ")";
+        jdbcTemplate.batchUpdate(sql, rows.values());
+    }
+
+    private Void delete(List<Long> ids) {
+        List<Table> reversed = new ArrayList<>(TABLES);
+        Collections.reverse(reversed);
+        for (Table table : reversed) {
+            jdbcTemplate.update("delete from " + table.name() + " where " + table.key()
+                    + " in (" + placeholders(ids.size()) + ")", ids.toArray());
+        }
+        return null;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static Map<String, Object> progress(String state, int moved, int total, long users, String error) {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("state", state);
+        progress.put("bucketsMoved", moved);
+        progress.put("bucketsToMove", total);
+        progress.put("usersMoved", users);
+        progress.put("updatedAt", Instant.now().toString());
+        if (error != null) {
+            progress.put("error", error);
+        }
+        return progress;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private record Table(String name, String key) {
+    }
+
+    private record Rows(Table table, List<String> columns, List<Object[]> values) {
+    }
+}
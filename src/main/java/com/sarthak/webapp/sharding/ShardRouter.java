@@ -0,0 +1,211 @@
+package com.sarthak.webapp.sharding;
+
+import com.sarthak.webapp.exception.DependencyUnavailableException;
+import com.sarthak.webapp.model.ShardBucket;
+import com.sarthak.webapp.repository.ShardBucketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Decides which shard holds a user: the email's {@link ShardKeys#bucket bucket}
+ * looked up in the layout kept in {@code shard_buckets} on shard 0.
+ * <p>
+ * Every instance reloads the layout every {@code webapp.sharding.refresh-interval}.
+ * A layout that could not be reloaded for {@link #MAX_AGE_REFRESHES} intervals is
+ * no longer trusted and lookups fail with 503 until a reload succeeds, so
+ * {@link ShardMover} can rely on every instance having seen a change within a
+ * bounded time. Users in a bucket that is being moved are refused with 503 for
+ * the duration of the move.
+ * <p>
+ * With a single shard (sharding disabled) every user is on shard 0 and nothing is loaded.
+ */
+public class ShardRouter implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(ShardRouter.class);
+
+    static final int MAX_AGE_REFRESHES = 6;
+
+    private final ShardBucketRepository bucketRepository;
+    private final int shardCount;
+    private final Duration refreshInterval;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Layout layout;
+    private volatile boolean running;
+
+    public ShardRouter(ShardBucketRepository bucketRepository, int shardCount, Duration refreshInterval) {
+        if (shardCount < 1 || shardCount > ShardKeys.MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + ShardKeys.MAX_SHARDS);
+        }
+        this.bucketRepository = bucketRepository;
+        this.shardCount = shardCount;
+        this.refreshInterval = refreshInterval;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-layout");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public boolean sharded() {
+        return shardCount > 1;
+    }
+
+    /**
+     * The shard holding the user with this email.
+     *
+     * @throws DependencyUnavailableException if the layout is not loaded or the user's bucket is being moved
+     */
+    public int shardFor(String email) {
+        if (!sharded()) {
+            return 0;
+        }
+        Layout current = currentLayout();
+        int bucket = ShardKeys.bucket(email);
+        if (current.moving[bucket]) {
+            throw new DependencyUnavailableException("database", "user data is being moved between shards",
+                    refreshInterval, null);
+        }
+        return current.shards[bucket];
+    }
+
+    public <T> T call(int shard, Supplier<T> action) {
+        return ShardContext.call(shard, action);
+    }
+
+    /**
+     * Runs {@code action} on the shard holding the user with this email.
+     */
+    public <T> T callForEmail(String email, Supplier<T> action) {
+        return ShardContext.call(shardFor(email), action);
+    }
+
+    /**
+     * The layout as last loaded.
+     *
+     * @throws DependencyUnavailableException if it has not been loaded recently
+     */
+    public Layout currentLayout() {
+        Layout current = layout;
+        if (current == null || current.loadedAt + MAX_AGE_REFRESHES * refreshInterval.toNanos() < System.nanoTime()) {
+            throw new DependencyUnavailableException("database", "shard layout not loaded", refreshInterval, null);
+        }
+        return current;
+    }
+
+    /**
+     * Reloads the layout from shard 0, writing the initial one (every bucket on
+     * shard 0, where the data was before sharding) if there is none yet.
+     */
+    public void refresh() {
+        if (!sharded()) {
+            return;
+        }
+        List<ShardBucket> rows = ShardContext.call(0, bucketRepository::findAll);
+        if (rows.isEmpty()) {
+            rows = ShardContext.call(0, this::writeInitialLayout);
+        }
+        int[] shards = new int[ShardKeys.BUCKETS];
+        boolean[] moving = new boolean[ShardKeys.BUCKETS];
+        for (ShardBucket row : rows) {
+            if (row.getShard() >= shardCount) {
+                // Data is on a shard this instance has no connection to; refuse rather than guess
+                logger.error("Bucket {} is on shard {}, but only {} shards are configured",
+                        row.getBucket(), row.getShard(), shardCount);
+                moving[row.getBucket()] = true;
+                continue;
+            }
+            shards[row.getBucket()] = row.getShard();
+            moving[row.getBucket()] = row.isMoving();
+        }
+        layout = new Layout(shards, moving, System.nanoTime());
+    }
+
+    private List<ShardBucket> writeInitialLayout() {
+        List<ShardBucket> rows = new ArrayList<>(ShardKeys.BUCKETS);
+        for (int bucket = 0; bucket < ShardKeys.BUCKETS; bucket++) {
+            ShardBucket row = new ShardBucket();
+            row.setBucket(bucket);
+            row.setShard(0);
+            rows.add(row);
+        }
+        try {
+            return bucketRepository.saveAll(rows);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance wrote it first
+            return bucketRepository.findAll();
+        }
+    }
+
+    private void refreshSafely() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.warn("Could not reload the shard layout: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        if (sharded()) {
+            refreshSafely();
+            scheduler.scheduleWithFixedDelay(this::refreshSafely, refreshInterval.toMillis(),
+                    refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+            logger.info("Routing users across {} shards", shardCount);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Loaded before the web server starts taking requests
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    /**
+     * Shard and moving flag of every bucket.
+     */
+    public static final class Layout {
+        private final int[] shards;
+        private final boolean[] moving;
+        private final long loadedAt;
+
+        Layout(int[] shards, boolean[] moving, long loadedAt) {
+            this.shards = shards;
+            this.moving = moving;
+            this.loadedAt = loadedAt;
+        }
+
+        public int shardOf(int bucket) {
+            return shards[bucket];
+        }
+
+        public boolean isMoving(int bucket) {
+            return moving[bucket];
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.sarthak.webapp.sharding;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.TargetType;
+import org.hibernate.tool.schema.internal.ExceptionHandlerLoggedImpl;
+import org.hibernate.tool.schema.spi.ContributableMatcher;
+import org.hibernate.tool.schema.spi.SchemaManagementTool;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.hibernate.tool.schema.spi.ScriptTargetOutput;
+import org.hibernate.tool.schema.spi.TargetDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prepares every shard before the application takes traffic. Hibernate only
+ * creates or updates the schema of shard 0, through the routing data source's
+ * default; the other shards get the same {@code ddl-auto} update here. Then the
+ * {@code user_ids} sequence of each shard is moved past the ids already in its
+ * {@code users} table, which matters once: for rows created when ids came from
+ * an identity column.
+ * <p>
+ * Emails stored before sign-up trimmed and lower-cased them are normalized the
+ * same way, so the unique constraint on {@code email} covers every case variant
+ * of an address. An email whose normalized form another account already has
+ * is left as it is and logged; those accounts have to be merged by hand.
+ */
+@Component
+public class ShardSchema implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(ShardSchema.class);
+
+    private static final Set<String> UPDATING_MODES = Set.of("update", "create", "create-drop", "create-only");
+
+    private final ShardRouter shardRouter;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectProvider<MetadataCapture> metadata;
+
+    public ShardSchema(ShardRouter shardRouter,
+                       JdbcTemplate jdbcTemplate,
+                       EntityManagerFactory entityManagerFactory,
+                       ObjectProvider<MetadataCapture> metadata) {
+        this.shardRouter = shardRouter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.metadata = metadata;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            int current = shard;
+            shardRouter.call(shard, () -> {
+                if (current > 0) {
+                    updateSchema(sessionFactory, current);
+                }
+                alignUserIds(sessionFactory, current);
+                normalizeStoredEmails(current);
+                return null;
+            });
+        }
+    }
+
+    private void updateSchema(SessionFactoryImplementor sessionFactory, int shard) {
+        MetadataCapture capture = metadata.getIfAvailable();
+        Object mode = sessionFactory.getProperties().get(AvailableSettings.HBM2DDL_AUTO);
+        if (capture == null || capture.metadata == null || mode == null || !UPDATING_MODES.contains(mode.toString())) {
+            return;
+        }
+        // Never create-drop here: a shard's data outlives any one instance
+        Map<String, Object> settings = sessionFactory.getServiceRegistry()
+                .requireService(ConfigurationService.class).getSettings();
+        sessionFactory.getServiceRegistry().requireService(SchemaManagementTool.class)
+                .getSchemaMigrator(settings)
+                .doMigration(capture.metadata,
+                        SchemaManagementToolCoordinator.buildExecutionOptions(settings, ExceptionHandlerLoggedImpl.INSTANCE),
+                        ContributableMatcher.ALL,
+                        new DatabaseTarget());
+        logger.info("Schema of shard {} updated", shard);
+    }
+
+    private void alignUserIds(SessionFactoryImplementor sessionFactory, int shard) {
+        try {
+            Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from users", Long.class);
+            long floor = (maxId != null ? maxId : 0) / ShardKeys.MAX_SHARDS + 1;
+            String nextValue = sessionFactory.getJdbcServices().getDialect().getSequenceSupport()
+                    .getSequenceNextValString(UserIdGenerator.SEQUENCE);
+            Long next = jdbcTemplate.queryForObject(nextValue, Long.class);
+            if (next != null && next < floor) {
+                // Only ever true before the first user is created with the sequence
+                jdbcTemplate.execute("alter sequence " + UserIdGenerator.SEQUENCE + " restart with " + floor);
+                logger.info("User id sequence of shard {} moved to {} past existing ids", shard, floor);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Could not check the user id sequence of shard {}: {}", shard, e.getMessage());
+        }
+    }
+
+    void normalizeStoredEmails(int shard) {
+        try {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "select id, email from users where email <> lower(trim(email))");
+            int normalized = 0;
+            for (Map<String, Object> row : rows) {
+                String email = (String) row.get("email");
+                String key = ShardKeys.normalize(email);
+                if (key.equals(email)) {
+                    continue;
+                }
+                try {
+                    jdbcTemplate.update("update users set email = ? where id = ?", key, row.get("id"));
+                    normalized++;
+                } catch (DataIntegrityViolationException e) {
+                    logger.warn("User {} on shard {} keeps email {}: another account has {}",
+                            row.get("id"), shard, email, key);
+                }
+            }
+            if (normalized > 0) {
+                logger.info("Normalized the email of {} users on shard {}", normalized, shard);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Could not normalize stored emails on shard {}: {}", shard, e.getMessage());
+        }
+    }
+
+    /**
+     * Keeps the mapping Hibernate was bootstrapped with, so the other shards'
+     * schema can be updated from it. Registered as an integrator when sharding is enabled.
+     */
+    public static class MetadataCapture implements Integrator {
+        private volatile Metadata metadata;
+
+        @Override
+        public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                              SessionFactoryImplementor sessionFactory) {
+            this.metadata = metadata;
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        }
+    }
+
+    private static final class DatabaseTarget implements TargetDescriptor {
+        @Override
+        public EnumSet<TargetType> getTargetTypes() {
+            return EnumSet.of(TargetType.DATABASE);
+        }
+
+        @Override
+        public ScriptTargetOutput getScriptTargetOutput() {
+            return null;
+        }
+    }
+}
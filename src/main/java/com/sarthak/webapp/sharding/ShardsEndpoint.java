@@ -0,0 +1,70 @@
+package com.sarthak.webapp.sharding;
+
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for resharding. Not exposed by default.
+ * <ul>
+ *   <li>{@code GET /actuator/shards} shows how many buckets each shard holds,
+ *       which are being moved, and the progress of the last rebalance</li>
+ *   <li>{@code POST /actuator/shards} starts a rebalance with {@link ShardMover}</li>
+ * </ul>
+ */
+@Component
+@WebEndpoint(id = "shards")
+public class ShardsEndpoint {
+
+    private final ShardRouter shardRouter;
+    private final ShardMover shardMover;
+
+    public ShardsEndpoint(ShardRouter shardRouter, ShardMover shardMover) {
+        this.shardRouter = shardRouter;
+        this.shardMover = shardMover;
+    }
+
+    @ReadOperation
+    public Map<String, Object> layout() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("shards", shardRouter.shardCount());
+        if (!shardRouter.sharded()) {
+            return details;
+        }
+        ShardRouter.Layout layout = shardRouter.currentLayout();
+        int[] buckets = new int[shardRouter.shardCount()];
+        List<Integer> moving = new ArrayList<>();
+        for (int bucket = 0; bucket < ShardKeys.BUCKETS; bucket++) {
+            buckets[layout.shardOf(bucket)]++;
+            if (layout.isMoving(bucket)) {
+                moving.add(bucket);
+            }
+        }
+        details.put("buckets", buckets);
+        details.put("moving", moving);
+        details.put("rebalance", shardMover.status());
+        return details;
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> rebalance() {
+        if (!shardRouter.sharded()) {
+            return error(WebEndpointResponse.STATUS_BAD_REQUEST, "Sharding is not enabled");
+        }
+        if (!shardMover.startRebalance()) {
+            return error(409, "A rebalance is already running");
+        }
+        return new WebEndpointResponse<>(shardMover.status(), WebEndpointResponse.STATUS_OK);
+    }
+
+    private static WebEndpointResponse<Map<String, Object>> error(int status, String message) {
+        return new WebEndpointResponse<>(Map.of("error", message), status);
+    }
+}
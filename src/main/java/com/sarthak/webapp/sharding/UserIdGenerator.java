@@ -0,0 +1,67 @@
+package com.sarthak.webapp.sharding;
+
+import org.hibernate.boot.model.naming.Identifier;
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.boot.model.relational.Namespace;
+import org.hibernate.boot.model.relational.Sequence;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * User ids that are unique across shards without a shared counter: the next
+ * value of the {@code user_ids} sequence on the shard the user is created on,
+ * times {@link ShardKeys#MAX_SHARDS}, plus that shard's number. Two shards
+ * never hand out the same id, and an id stays valid when its user is moved to
+ * another shard.
+ * <p>
+ * Ids of users created before sharding came from an identity column;
+ * {@link ShardSchema} starts every shard's sequence above them.
+ */
+public class UserIdGenerator implements IdentifierGenerator {
+
+    public static final String SEQUENCE = "user_ids";
+
+    private volatile String nextValueSql;
+
+    @Override
+    public void registerExportables(Database database) {
+        // Created with the schema, on every shard
+        Namespace namespace = database.getDefaultNamespace();
+        Identifier name = Identifier.toIdentifier(SEQUENCE);
+        if (namespace.locateSequence(name) == null) {
+            namespace.createSequence(name, physicalName -> new Sequence(null,
+                    namespace.getPhysicalName().getCatalog(), namespace.getPhysicalName().getSchema(),
+                    physicalName, 1, 1));
+        }
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return nextValue(session) * ShardKeys.MAX_SHARDS + ShardContext.current();
+    }
+
+    private long nextValue(SharedSessionContractImplementor session) {
+        String sql = nextValueSql;
+        if (sql == null) {
+            sql = session.getJdbcServices().getDialect().getSequenceSupport().getSequenceNextValString(SEQUENCE);
+            nextValueSql = sql;
+        }
+        JdbcCoordinator jdbc = session.getJdbcCoordinator();
+        PreparedStatement statement = jdbc.getStatementPreparer().prepareStatement(sql);
+        try {
+            ResultSet resultSet = jdbc.getResultSetReturn().extract(statement, sql);
+            resultSet.next();
+            return resultSet.getLong(1);
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "Could not read the next user id", sql);
+        } finally {
+            jdbc.getLogicalConnection().getResourceRegistry().release(statement);
+            jdbc.afterStatementExecution();
+        }
+    }
+}
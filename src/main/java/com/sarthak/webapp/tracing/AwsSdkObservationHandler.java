@@ -0,0 +1,86 @@
+package com.sarthak.webapp.tracing;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.handlers.RequestHandler2;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps every AWS SDK v1 call (S3, SNS) in an {@code aws.sdk.request}
+ * observation, so the call shows up as a child span of the current request
+ * and as a timer tagged with the service and operation.
+ */
+@Component
+public class AwsSdkObservationHandler extends RequestHandler2 {
+
+    public static final String OBSERVATION_NAME = "aws.sdk.request";
+
+    private static final HandlerContextKey<Observation.Scope> SCOPE =
+            new HandlerContextKey<>(AwsSdkObservationHandler.class.getName());
+
+    private final ObservationRegistry observationRegistry;
+
+    public AwsSdkObservationHandler(ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    public void beforeRequest(Request<?> request) {
+        String service = valueOrUnknown(request.getHandlerContext(HandlerContextKey.SERVICE_ID));
+        String operation = operationName(request);
+        Observation observation = Observation.createNotStarted(OBSERVATION_NAME, observationRegistry)
+                .contextualName(service + "." + operation)
+                .lowCardinalityKeyValue("aws.service", service)
+                .lowCardinalityKeyValue("aws.operation", operation)
+                .start();
+        request.addHandlerContext(SCOPE, observation.openScope());
+    }
+
+    @Override
+    public void afterResponse(Request<?> request, Response<?> response) {
+        Observation.Scope scope = request.getHandlerContext(SCOPE);
+        if (scope == null) {
+            return;
+        }
+        Observation observation = scope.getCurrentObservation();
+        scope.close();
+        observation.lowCardinalityKeyValue("outcome", "SUCCESS")
+                .lowCardinalityKeyValue("status", String.valueOf(response.getHttpResponse().getStatusCode()))
+                .stop();
+    }
+
+    @Override
+    public void afterError(Request<?> request, Response<?> response, Exception e) {
+        Observation.Scope scope = request.getHandlerContext(SCOPE);
+        if (scope == null) {
+            return;
+        }
+        Observation observation = scope.getCurrentObservation();
+        scope.close();
+        observation.lowCardinalityKeyValue("outcome", "ERROR")
+                .lowCardinalityKeyValue("status", response != null
+                        ? String.valueOf(response.getHttpResponse().getStatusCode())
+                        : "IO_ERROR")
+                .error(e)
+                .stop();
+    }
+
+    private static String operationName(Request<?> request) {
+        String operation = request.getHandlerContext(HandlerContextKey.OPERATION_NAME);
+        if (operation != null) {
+            return operation;
+        }
+        // Older S3 paths do not set the operation name; derive it from the request type
+        AmazonWebServiceRequest original = request.getOriginalRequest();
+        String type = original != null ? original.getClass().getSimpleName() : "";
+        return type.endsWith("Request") ? type.substring(0, type.length() - "Request".length()) : valueOrUnknown(null);
+    }
+
+    private static String valueOrUnknown(String value) {
+        return value != null && !value.isEmpty() ? value : "unknown";
+    }
+}
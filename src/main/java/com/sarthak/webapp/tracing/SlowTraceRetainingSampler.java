@@ -0,0 +1,45 @@
+package com.sarthak.webapp.tracing;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+import java.util.List;
+
+/**
+ * Head sampler that keeps a fixed fraction of traces (decided on the trace id
+ * at the root) and records, but does not sample, everything else. Unsampled
+ * spans are still built so that {@link SlowTraceSpanProcessor} can export the
+ * whole trace after the fact when the request turns out to be slow.
+ */
+public class SlowTraceRetainingSampler implements Sampler {
+
+    private final Sampler headSampler;
+
+    public SlowTraceRetainingSampler(double probability) {
+        this.headSampler = Sampler.traceIdRatioBased(probability);
+    }
+
+    @Override
+    public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+                                       Attributes attributes, List<LinkData> parentLinks) {
+        SpanContext parent = Span.fromContext(parentContext).getSpanContext();
+        if (parent.isValid()) {
+            // Children follow the decision made for the trace
+            return parent.isSampled() ? SamplingResult.recordAndSample() : SamplingResult.recordOnly();
+        }
+        SamplingResult head = headSampler.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+        return head.getDecision() == SamplingDecision.RECORD_AND_SAMPLE ? head : SamplingResult.recordOnly();
+    }
+
+    @Override
+    public String getDescription() {
+        return "SlowTraceRetainingSampler{" + headSampler.getDescription() + "}";
+    }
+}
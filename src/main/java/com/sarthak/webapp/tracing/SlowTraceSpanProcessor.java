@@ -0,0 +1,183 @@
+package com.sarthak.webapp.tracing;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.DelegatingSpanData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tail retention for traces that lost the head sampling decision. Finished
+ * spans of unsampled traces are buffered per trace id until the local root
+ * span ends; if the root took longer than the slow threshold or ended in
+ * error, the buffered spans and the root are exported, otherwise they are
+ * discarded. Sampled traces are left to the regular batch processor.
+ */
+public class SlowTraceSpanProcessor implements SpanProcessor, MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(SlowTraceSpanProcessor.class);
+
+    private final SpanExporter exporter;
+    private final long slowThresholdNanos;
+    private final int maxPendingTraces;
+    private final int maxSpansPerTrace;
+    private final long maxTraceAgeNanos;
+    private final Map<String, PendingTrace> pending = new ConcurrentHashMap<>();
+    private final AtomicLong retainedTraces = new AtomicLong();
+    private final AtomicLong droppedSpans = new AtomicLong();
+
+    public SlowTraceSpanProcessor(SpanExporter exporter, Duration slowThreshold,
+                                  int maxPendingTraces, int maxSpansPerTrace, Duration maxTraceAge) {
+        this.exporter = exporter;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.maxPendingTraces = maxPendingTraces;
+        this.maxSpansPerTrace = maxSpansPerTrace;
+        this.maxTraceAgeNanos = maxTraceAge.toNanos();
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        SpanContext spanContext = span.getSpanContext();
+        if (spanContext.isSampled()) {
+            return;
+        }
+        String traceId = spanContext.getTraceId();
+        SpanContext parent = span.getParentSpanContext();
+        boolean localRoot = !parent.isValid() || parent.isRemote();
+
+        if (!localRoot) {
+            buffer(traceId, span);
+            return;
+        }
+
+        PendingTrace trace = pending.remove(traceId);
+        SpanData root = span.toSpanData();
+        if (span.getLatencyNanos() < slowThresholdNanos && root.getStatus().getStatusCode() != StatusCode.ERROR) {
+            return;
+        }
+
+        List<SpanData> spans = new ArrayList<>();
+        if (trace != null) {
+            synchronized (trace) {
+                trace.spans.forEach(data -> spans.add(new RetainedSpanData(data)));
+            }
+        }
+        spans.add(new RetainedSpanData(root));
+        retainedTraces.incrementAndGet();
+        logger.debug("Retaining unsampled trace {} ({} spans, {} ms)", traceId, spans.size(),
+                Duration.ofNanos(span.getLatencyNanos()).toMillis());
+        exporter.export(spans);
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("webapp.tracing.traces.retained", retainedTraces, AtomicLong::get)
+                .description("Unsampled traces exported because the request was slow or failed")
+                .register(registry);
+        FunctionCounter.builder("webapp.tracing.spans.dropped", droppedSpans, AtomicLong::get)
+                .description("Unsampled spans discarded because the retention buffer was full")
+                .register(registry);
+        Gauge.builder("webapp.tracing.traces.pending", pending, Map::size)
+                .description("Unsampled traces buffered until their root span ends")
+                .register(registry);
+    }
+
+    private void buffer(String traceId, ReadableSpan span) {
+        PendingTrace trace = pending.get(traceId);
+        if (trace == null) {
+            if (pending.size() >= maxPendingTraces) {
+                evictStale();
+                if (pending.size() >= maxPendingTraces) {
+                    droppedSpans.incrementAndGet();
+                    return;
+                }
+            }
+            trace = pending.computeIfAbsent(traceId, id -> new PendingTrace(System.nanoTime()));
+        }
+        synchronized (trace) {
+            if (trace.spans.size() >= maxSpansPerTrace) {
+                droppedSpans.incrementAndGet();
+                return;
+            }
+            trace.spans.add(span.toSpanData());
+        }
+    }
+
+    private void evictStale() {
+        // Roots that never end locally (e.g. abandoned async work) would otherwise pin their spans
+        long cutoff = System.nanoTime() - maxTraceAgeNanos;
+        pending.entrySet().removeIf(entry -> {
+            if (entry.getValue().createdNanos - cutoff < 0) {
+                droppedSpans.addAndGet(entry.getValue().spans.size());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        pending.clear();
+        return CompletableResultCode.ofSuccess();
+    }
+
+    private static final class PendingTrace {
+        private final long createdNanos;
+        private final List<SpanData> spans = new ArrayList<>();
+
+        private PendingTrace(long createdNanos) {
+            this.createdNanos = createdNanos;
+        }
+    }
+
+    /**
+     * Marks a retained span as sampled so that backends honouring the flag keep it.
+     */
+    private static final class RetainedSpanData extends DelegatingSpanData {
+        private final SpanContext spanContext;
+
+        private RetainedSpanData(SpanData delegate) {
+            super(delegate);
+            SpanContext original = delegate.getSpanContext();
+            this.spanContext = SpanContext.create(original.getTraceId(), original.getSpanId(),
+                    TraceFlags.getSampled(), original.getTraceState());
+        }
+
+        @Override
+        public SpanContext getSpanContext() {
+            return spanContext;
+        }
+    }
+}
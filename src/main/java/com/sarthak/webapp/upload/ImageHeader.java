@@ -0,0 +1,152 @@
+package com.sarthak.webapp.upload;
+
+import com.sarthak.webapp.exception.InvalidImageException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Format and dimensions of an image, read from the first bytes of its content
+ * rather than taken from the client's {@code Content-Type}.
+ * <p>
+ * PNG dimensions come from the {@code IHDR} chunk, which must follow the
+ * signature. JPEG dimensions come from the first start-of-frame segment;
+ * the segments before it (EXIF, ICC profiles, thumbnails) are skipped using
+ * their lengths, up to {@code maxHeaderBytes} in total. Anything else is
+ * rejected as not an image.
+ */
+public record ImageHeader(String contentType, int width, int height) {
+
+    public static final String JPEG = "image/jpeg";
+    public static final String PNG = "image/png";
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    public long pixels() {
+        return (long) width * height;
+    }
+
+    /**
+     * Reads the header from {@code in}, consuming at most {@code maxHeaderBytes}.
+     * The stream is left positioned after the header, so callers that keep the
+     * content should read it through a stream that records what was consumed.
+     *
+     * @throws InvalidImageException if the bytes are not a JPEG or PNG, are
+     *         truncated, or the dimensions are not within the first {@code maxHeaderBytes}
+     */
+    public static ImageHeader read(InputStream in, int maxHeaderBytes) throws IOException {
+        Reader reader = new Reader(in, maxHeaderBytes);
+        int first = reader.in.read();
+        if (first == -1) {
+            throw new InvalidImageException("File cannot be empty");
+        }
+        reader.consumed++;
+        if (first == 0xFF) {
+            return readJpeg(reader);
+        }
+        if (first == (PNG_SIGNATURE[0] & 0xFF)) {
+            return readPng(reader);
+        }
+        throw new InvalidImageException("File is not a JPEG or PNG image");
+    }
+
+    private static ImageHeader readPng(Reader reader) throws IOException {
+        for (int i = 1; i < PNG_SIGNATURE.length; i++) {
+            if (reader.u8() != (PNG_SIGNATURE[i] & 0xFF)) {
+                throw new InvalidImageException("File is not a JPEG or PNG image");
+            }
+        }
+        long length = reader.u32();
+        long type = reader.u32();
+        if (length != 13 || type != 0x49484452L) { // "IHDR"
+            throw new InvalidImageException("PNG image does not start with an IHDR chunk");
+        }
+        return dimensions(PNG, reader.u32(), reader.u32());
+    }
+
+    private static ImageHeader readJpeg(Reader reader) throws IOException {
+        if (reader.u8() != 0xD8) {
+            throw new InvalidImageException("File is not a JPEG or PNG image");
+        }
+        while (true) {
+            if (reader.u8() != 0xFF) {
+                throw new InvalidImageException("Malformed JPEG: expected a segment marker");
+            }
+            int marker = reader.u8();
+            while (marker == 0xFF) { // fill bytes
+                marker = reader.u8();
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                continue; // standalone markers carry no length
+            }
+            if (marker == 0xD9 || marker == 0xDA) {
+                throw new InvalidImageException("Malformed JPEG: no frame header before the image data");
+            }
+            int length = reader.u16();
+            if (length < 2) {
+                throw new InvalidImageException("Malformed JPEG: invalid segment length");
+            }
+            if (isStartOfFrame(marker)) {
+                reader.u8(); // sample precision
+                int height = reader.u16();
+                int width = reader.u16();
+                return dimensions(JPEG, width, height);
+            }
+            reader.skip(length - 2);
+        }
+    }
+
+    // SOF0-SOF15, except DHT (C4), JPG (C8) and DAC (CC) which share the range
+    private static boolean isStartOfFrame(int marker) {
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    private static ImageHeader dimensions(String contentType, long width, long height) {
+        if (width <= 0 || height <= 0 || width > Integer.MAX_VALUE || height > Integer.MAX_VALUE) {
+            throw new InvalidImageException("Image has invalid dimensions " + width + "x" + height);
+        }
+        return new ImageHeader(contentType, (int) width, (int) height);
+    }
+
+    private static final class Reader {
+        private final InputStream in;
+        private final int maxBytes;
+        private int consumed;
+
+        Reader(InputStream in, int maxBytes) {
+            this.in = in;
+            this.maxBytes = maxBytes;
+        }
+
+        int u8() throws IOException {
+            if (consumed >= maxBytes) {
+                throw new InvalidImageException("Image dimensions not found in the first " + maxBytes + " bytes");
+            }
+            int b = in.read();
+            if (b == -1) {
+                throw new InvalidImageException("Image is truncated");
+            }
+            consumed++;
+            return b;
+        }
+
+        int u16() throws IOException {
+            return (u8() << 8) | u8();
+        }
+
+        long u32() throws IOException {
+            return ((long) u16() << 16) | u16();
+        }
+
+        void skip(int bytes) throws IOException {
+            if (consumed + (long) bytes > maxBytes) {
+                throw new InvalidImageException("Image dimensions not found in the first " + maxBytes + " bytes");
+            }
+            long skipped = in.readNBytes(bytes).length;
+            if (skipped < bytes) {
+                throw new InvalidImageException("Image is truncated");
+            }
+            consumed += bytes;
+        }
+    }
+}
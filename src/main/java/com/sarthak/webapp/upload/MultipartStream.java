@@ -0,0 +1,230 @@
+package com.sarthak.webapp.upload;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads a {@code multipart/form-data} body one part at a time, straight from
+ * the request stream. Unlike the servlet container's multipart support,
+ * nothing is buffered ahead: a part's content is only read as the caller
+ * reads it, so a caller that rejects a part after its first bytes leaves the
+ * rest of the body unread.
+ * <p>
+ * Moving to the next part discards whatever the caller left of the current one.
+ */
+public class MultipartStream {
+
+    private static final Pattern BOUNDARY = Pattern.compile(
+            "(?i);\\s*boundary\\s*=\\s*(?:\"([^\"]+)\"|([^;\\s]+))");
+    private static final Pattern NAME = parameterPattern("name");
+    private static final Pattern FILENAME = parameterPattern("filename");
+    private static final int MAX_HEADER_BYTES = 8 * 1024;
+    private static final int MAX_PARTS = 32;
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buffer;
+    private int head;
+    private int tail;
+    private PartInputStream current;
+    private int parts;
+    private boolean finished;
+
+    public MultipartStream(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buffer = new byte[Math.max(16 * 1024, delimiter.length * 4)];
+        // The first boundary has no preceding line break; supply one so every delimiter looks alike
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        this.tail = 2;
+    }
+
+    /**
+     * The boundary of a {@code multipart/form-data} content type, or null if the
+     * content type is something else.
+     */
+    public static String boundary(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/form-data")) {
+            return null;
+        }
+        Matcher matcher = BOUNDARY.matcher(contentType);
+        if (!matcher.find()) {
+            return null;
+        }
+        return matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+    }
+
+    /**
+     * Advances to the next part, or returns null after the last one.
+     *
+     * @throws MalformedMultipartException if the body is truncated or not valid multipart
+     */
+    public Part nextPart() throws IOException {
+        if (finished) {
+            return null;
+        }
+        // Skip the preamble on the first call, or what the caller left of the previous part
+        PartInputStream skipped = current != null ? current : new PartInputStream();
+        skipped.transferTo(OutputStream.nullOutputStream());
+
+        int first = readByte();
+        int second = readByte();
+        if (first == '-' && second == '-') {
+            finished = true;
+            return null;
+        }
+        if (first != '\r' || second != '\n') {
+            throw new MalformedMultipartException("Malformed multipart body: invalid boundary line");
+        }
+        if (++parts > MAX_PARTS) {
+            throw new MalformedMultipartException("Too many parts in multipart body");
+        }
+
+        String name = null;
+        String fileName = null;
+        String contentType = null;
+        int headerBytes = 0;
+        for (String line = readLine(); !line.isEmpty(); line = readLine()) {
+            headerBytes += line.length() + 2;
+            if (headerBytes > MAX_HEADER_BYTES) {
+                throw new MalformedMultipartException("Multipart part headers are too large");
+            }
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String header = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            if (header.equals("content-disposition")) {
+                name = parameter(value, NAME);
+                fileName = parameter(value, FILENAME);
+            } else if (header.equals("content-type")) {
+                contentType = value;
+            }
+        }
+        current = new PartInputStream();
+        return new Part(name, fileName, contentType, current);
+    }
+
+    private static Pattern parameterPattern(String name) {
+        return Pattern.compile("(?i);\\s*" + name + "\\s*=\\s*(?:\"((?:[^\"\\\\]|\\\\.)*)\"|([^;\\s]*))");
+    }
+
+    private static String parameter(String header, Pattern pattern) {
+        Matcher matcher = pattern.matcher(header);
+        if (!matcher.find()) {
+            return null;
+        }
+        return matcher.group(1) != null ? matcher.group(1).replaceAll("\\\\(.)", "$1") : matcher.group(2);
+    }
+
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (true) {
+            int b = readByte();
+            if (b == '\r') {
+                if (readByte() != '\n') {
+                    throw new MalformedMultipartException("Malformed multipart body: bare CR in part headers");
+                }
+                return line.toString(StandardCharsets.UTF_8);
+            }
+            line.write(b);
+            if (line.size() > MAX_HEADER_BYTES) {
+                throw new MalformedMultipartException("Multipart part headers are too large");
+            }
+        }
+    }
+
+    private int readByte() throws IOException {
+        if (head == tail) {
+            fill();
+        }
+        return buffer[head++] & 0xFF;
+    }
+
+    // Moves unread bytes to the front and reads more; a body must end with the closing delimiter
+    private void fill() throws IOException {
+        if (head > 0) {
+            System.arraycopy(buffer, head, buffer, 0, tail - head);
+            tail -= head;
+            head = 0;
+        }
+        int read = in.read(buffer, tail, buffer.length - tail);
+        if (read == -1) {
+            throw new MalformedMultipartException("Multipart body ended before its closing boundary");
+        }
+        tail += read;
+    }
+
+    private int indexOfDelimiter() {
+        int last = tail - delimiter.length;
+        outer:
+        for (int i = head; i <= last; i++) {
+            for (int j = 0; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    public record Part(String name, String fileName, String contentType, InputStream body) {
+    }
+
+    /**
+     * The body is not valid multipart. An {@link IllegalArgumentException}, so
+     * callers report it like other invalid input.
+     */
+    public static class MalformedMultipartException extends IllegalArgumentException {
+        public MalformedMultipartException(String message) {
+            super(message);
+        }
+    }
+
+    // Content of one part: ends, without consuming further, where the next delimiter begins
+    private final class PartInputStream extends InputStream {
+        private boolean done;
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (done) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            while (true) {
+                int delimiterAt = indexOfDelimiter();
+                if (delimiterAt == head) {
+                    head += delimiter.length;
+                    done = true;
+                    return -1;
+                }
+                // Bytes that cannot be the start of a delimiter are safe to hand out
+                int available = delimiterAt >= 0 ? delimiterAt - head : tail - head - (delimiter.length - 1);
+                if (available > 0) {
+                    int count = Math.min(len, available);
+                    System.arraycopy(buffer, head, b, off, count);
+                    head += count;
+                    return count;
+                }
+                fill();
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.sarthak.webapp.cache;
+
+import com.sarthak.webapp.repository.UserRepository;
+import com.sarthak.webapp.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class EmailExistenceFilterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path snapshotDir;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        when(userRepository.streamEmailsAfter(0))
+                .thenAnswer(invocation -> Stream.of(row(64, "alice@example.com"), row(128, "bob@example.com")));
+        when(userRepository.streamEmailsCreatedSince(any())).thenAnswer(invocation -> Stream.empty());
+        when(userRepository.findMaxId()).thenReturn(128L);
+    }
+
+    @Test
+    void maintain_NoSnapshot_BuildsFromTable() {
+        // Arrange
+        EmailExistenceFilter filter = newFilter();
+
+        // Act
+        filter.maintain();
+
+        // Assert
+        assertTrue(filter.mightExist("alice@example.com"));
+        assertTrue(filter.mightExist("bob@example.com"));
+        assertFalse(filter.mightExist("carol@example.com"));
+    }
+
+    @Test
+    void maintain_RowCommittedAfterHigherIds_PickedUpByOverlap() {
+        // Arrange
+        EmailExistenceFilter filter = newFilter();
+        LocalDateTime beforeBuild = LocalDateTime.now();
+        filter.maintain();
+        // Took its id before bob's but committed after the build scanned past it
+        when(userRepository.streamEmailsCreatedSince(any()))
+                .thenAnswer(invocation -> Stream.of(row(0, "late@example.com")));
+
+        // Act
+        filter.maintain();
+
+        // Assert
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(userRepository).streamEmailsCreatedSince(since.capture());
+        assertFalse(since.getValue().isAfter(beforeBuild.minusMinutes(4)));
+        assertTrue(filter.mightExist("late@example.com"));
+        verify(userRepository, times(1)).streamEmailsAfter(0);
+    }
+
+    @Test
+    void maintain_ValidSnapshot_LoadsWithoutFullScan() {
+        // Arrange
+        EmailExistenceFilter first = newFilter();
+        first.maintain();
+        first.saveSnapshot();
+        EmailExistenceFilter restarted = newFilter();
+
+        // Act
+        restarted.maintain();
+
+        // Assert
+        assertTrue(restarted.mightExist("alice@example.com"));
+        assertFalse(restarted.mightExist("carol@example.com"));
+        verify(userRepository, times(1)).streamEmailsAfter(0);
+        verify(userRepository).streamEmailsCreatedSince(any());
+    }
+
+    @Test
+    void maintain_CorruptSnapshot_Rebuilds() throws Exception {
+        // Arrange
+        EmailExistenceFilter first = newFilter();
+        first.maintain();
+        first.saveSnapshot();
+        Path snapshot = snapshotDir.resolve("filter.bin");
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(snapshot, bytes);
+        EmailExistenceFilter restarted = newFilter();
+
+        // Act
+        restarted.maintain();
+
+        // Assert
+        assertTrue(restarted.mightExist("alice@example.com"));
+        verify(userRepository, times(2)).streamEmailsAfter(0);
+    }
+
+    @Test
+    void maintain_SnapshotAheadOfDatabase_Rebuilds() {
+        // Arrange
+        EmailExistenceFilter first = newFilter();
+        first.maintain();
+        first.saveSnapshot();
+        when(userRepository.findMaxId()).thenReturn(64L);
+        when(userRepository.streamEmailsAfter(0)).thenAnswer(invocation -> Stream.of(row(64, "alice@example.com")));
+        EmailExistenceFilter restarted = newFilter();
+
+        // Act
+        restarted.maintain();
+
+        // Assert
+        assertTrue(restarted.mightExist("alice@example.com"));
+        assertFalse(restarted.mightExist("bob@example.com"));
+        verify(userRepository, times(2)).streamEmailsAfter(0);
+    }
+
+    @Test
+    void maintain_FalsePositiveRateDrifted_Rebuilds() {
+        // Arrange
+        EmailExistenceFilter filter = newFilter();
+        filter.maintain();
+        for (int i = 0; i < 1000; i++) {
+            filter.recordFalsePositive();
+        }
+
+        // Act
+        filter.maintain();
+
+        // Assert
+        verify(userRepository, times(2)).streamEmailsAfter(0);
+        verify(userRepository, never()).streamEmailsCreatedSince(any());
+        assertEquals(2, meterRegistry.get("webapp.email.filter.rebuilds").counter().count());
+        assertTrue(filter.mightExist("bob@example.com"));
+    }
+
+    private EmailExistenceFilter newFilter() {
+        return new EmailExistenceFilter(userRepository, new ShardRouter(null, 1, Duration.ofSeconds(5)),
+                transactionManager, meterRegistry, true, 1000, 0.01, 2.0, 4,
+                snapshotDir.resolve("filter.bin"), Duration.ofSeconds(5), Duration.ofMinutes(5), Duration.ofMinutes(5));
+    }
+
+    private static UserRepository.UserEmail row(long id, String email) {
+        return new UserRepository.UserEmail() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getEmail() {
+                return email;
+            }
+        };
+    }
+}
@@ -0,0 +1,61 @@
+package com.sarthak.webapp.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScalableBloomFilterTest {
+
+    @Test
+    void growsWithoutLosingMembersOrExceedingTargetFpp() {
+        // Arrange
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            filter.add("user" + i + "@example.com");
+        }
+
+        // Assert
+        assertTrue(filter.stageCount() > 1);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("user" + i + "@example.com"));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("other" + i + "@example.com")) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 200, "false positives: " + falsePositives);
+        assertTrue(filter.expectedFpp() < 0.01);
+    }
+
+    @Test
+    void snapshotRoundTrips() throws IOException {
+        // Arrange
+        ScalableBloomFilter filter = new ScalableBloomFilter(10, 0.01);
+        for (int i = 0; i < 50; i++) {
+            filter.add("user" + i + "@example.com");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        filter.writeTo(new DataOutputStream(bytes));
+
+        // Act
+        ScalableBloomFilter copy = ScalableBloomFilter.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        // Assert
+        assertEquals(filter.stageCount(), copy.stageCount());
+        assertEquals(filter.approximateCount(), copy.approximateCount());
+        for (int i = 0; i < 50; i++) {
+            assertTrue(copy.mightContain("user" + i + "@example.com"));
+        }
+    }
+}
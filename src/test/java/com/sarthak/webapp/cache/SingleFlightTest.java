@@ -0,0 +1,92 @@
+package com.sarthak.webapp.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>("test", meterRegistry);
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<String>> results = new ArrayList<>();
+
+        // Act
+        try {
+            results.add(executor.submit(() -> singleFlight.execute("a@example.com", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "user";
+            })));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("a@example.com", () -> {
+                    loads.incrementAndGet();
+                    return "other";
+                })));
+            }
+            while (meterRegistry.get("webapp.singleflight.calls").tag("result", "shared").counter().count() < 3) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            // Assert
+            for (Future<String> result : results) {
+                assertEquals("user", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0.75, meterRegistry.get("webapp.singleflight.coalescing.ratio").gauge().value());
+    }
+
+    @Test
+    void completedLoadsAreNotCached() {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        singleFlight.execute("a@example.com", () -> "v" + loads.incrementAndGet());
+        String second = singleFlight.execute("a@example.com", () -> "v" + loads.incrementAndGet());
+
+        // Assert
+        assertEquals("v2", second);
+        assertEquals(0, meterRegistry.get("webapp.singleflight.inflight").gauge().value());
+    }
+
+    @Test
+    void failuresPropagateWithoutPoisoningTheKey() {
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("a@example.com", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals("ok", singleFlight.execute("a@example.com", () -> "ok"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.sarthak.webapp.config;
+
+import com.sarthak.webapp.sharding.ShardSchema;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class ShardingConfigTest {
+
+    private final ShardingConfig config = new ShardingConfig();
+    private final MockEnvironment environment = new MockEnvironment()
+            .withProperty("webapp.sharding.shards.1.url", "jdbc:h2:mem:shard1");
+
+    @SuppressWarnings("unchecked")
+    private final ObjectProvider<MeterRegistry> meterRegistry = mock(ObjectProvider.class);
+
+    @Test
+    void disabled_UsesAPlainPoolAndLeavesHibernateAlone() {
+        // Act
+        DataSource dataSource = config.dataSource(properties(), environment, meterRegistry, false);
+        Map<String, Object> hibernate = new HashMap<>();
+        config.shardMetadataCustomizer(new ShardSchema.MetadataCapture(), false).customize(hibernate);
+
+        // Assert
+        assertInstanceOf(HikariDataSource.class, dataSource);
+        assertTrue(hibernate.isEmpty());
+    }
+
+    @Test
+    void enabled_RoutesAndReleasesConnectionsAfterEachTransaction() {
+        // Act
+        DataSource dataSource = config.dataSource(properties(), environment, meterRegistry, true);
+        Map<String, Object> hibernate = new HashMap<>();
+        config.shardMetadataCustomizer(new ShardSchema.MetadataCapture(), true).customize(hibernate);
+
+        // Assert
+        assertInstanceOf(LazyConnectionDataSourceProxy.class, dataSource);
+        assertTrue(hibernate.containsKey("hibernate.integrator_provider"));
+        assertTrue(hibernate.containsKey(AvailableSettings.CONNECTION_HANDLING));
+    }
+
+    private static DataSourceProperties properties() {
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl("jdbc:h2:mem:shard0");
+        return properties;
+    }
+}
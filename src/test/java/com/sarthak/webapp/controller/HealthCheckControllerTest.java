@@ -0,0 +1,83 @@
+package com.sarthak.webapp.controller;
+
+import com.sarthak.webapp.health.DependencyHealthProber;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class HealthCheckControllerTest {
+
+    @Mock
+    private ApplicationAvailability availability;
+
+    @Mock
+    private DependencyHealthProber prober;
+
+    private HealthCheckController controller;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(availability.getReadinessState()).thenReturn(ReadinessState.ACCEPTING_TRAFFIC);
+        when(prober.isHealthy(anyBoolean())).thenReturn(true);
+        when(prober.report(true)).thenReturn(Map.of("dependencies", Map.of("database", Map.of("up", true))));
+        controller = new HealthCheckController(availability, prober);
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void verbose_Anonymous_GetsStatusOnly() {
+        // Act
+        ResponseEntity<Map<String, Object>> response = controller.healthCheck(true);
+
+        // Assert
+        assertEquals(200, response.getStatusCode().value());
+        assertNull(response.getBody());
+        verify(prober, never()).report(anyBoolean());
+    }
+
+    @Test
+    void verbose_NonAdminUser_GetsStatusOnly() {
+        // Arrange
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("user@example.com", null, "ROLE_USER"));
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = controller.readinessCheck(true);
+
+        // Assert
+        assertEquals(200, response.getStatusCode().value());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void verbose_Admin_GetsDependencyReport() {
+        // Arrange
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("admin@example.com", null, "ROLE_USER", "ROLE_ADMIN"));
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = controller.healthCheck(true);
+
+        // Assert
+        assertEquals(200, response.getStatusCode().value());
+        assertNotNull(response.getBody());
+        assertTrue(response.getBody().containsKey("dependencies"));
+    }
+}
@@ -0,0 +1,148 @@
+package com.sarthak.webapp.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sarthak.webapp.load.FakeAwsServices;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@code POST /v1/user/self/pic} through the real servlet container, which is
+ * where the multipart body is either left for the controller to stream or
+ * consumed before it; a parser test on its own cannot tell.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ImageUploadIntegrationTest {
+
+    private static final String PASSWORD = "upload-test-password";
+
+    private static final FakeAwsServices aws;
+
+    static {
+        try {
+            aws = new FakeAwsServices();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Picked up by the SDK's default credential chain; the stand-ins do not check signatures
+        System.setProperty("aws.accessKeyId", "upload-test");
+        System.setProperty("aws.secretKey", "upload-test");
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("aws.region", () -> "us-east-1");
+        registry.add("aws.s3.endpoint", aws::s3Endpoint);
+        registry.add("aws.s3.bucket", () -> "upload-test-bucket");
+        registry.add("aws.sns.endpoint", aws::snsEndpoint);
+        registry.add("aws.sns.topic.arn", () -> "arn:aws:sns:us-east-1:000000000000:upload-test");
+        registry.add("user.verification.expiry.minutes", () -> "60");
+        registry.add("webapp.metrics.export", () -> "none");
+    }
+
+    @AfterAll
+    static void stopFakeAws() {
+        aws.close();
+    }
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    void uploadImage_StreamsMultipartBodyToS3() throws Exception {
+        // Arrange
+        String authorization = verifiedUser();
+
+        // Act
+        HttpResponse<String> uploaded = send(upload(authorization, "image/png", png()));
+
+        // Assert
+        assertEquals(201, uploaded.statusCode(), uploaded::body);
+        assertTrue(uploaded.body().contains("\"url\""));
+        assertEquals(200, send(HttpRequest.newBuilder(uri("/v1/user/self/pic"))
+                .header("Authorization", authorization).GET().build()).statusCode());
+    }
+
+    @Test
+    void uploadImage_RejectsFileThatIsNotAnImage() throws Exception {
+        // Arrange
+        String authorization = verifiedUser();
+
+        // Act
+        HttpResponse<String> uploaded = send(upload(authorization, "image/png",
+                "not an image at all".getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertEquals(400, uploaded.statusCode());
+    }
+
+    private String verifiedUser() throws Exception {
+        String email = "upload-" + UUID.randomUUID() + "@example.com";
+        String json = new ObjectMapper().writeValueAsString(Map.of(
+                "firstName", "Upload", "lastName", "Test", "email", email, "password", PASSWORD));
+        HttpResponse<String> created = send(HttpRequest.newBuilder(uri("/v1/user"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build());
+        assertEquals(201, created.statusCode(), created::body);
+
+        String authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((email + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+        HttpResponse<String> verified = send(HttpRequest.newBuilder(
+                        uri("/v1/verifyEmail?token=" + aws.verificationToken(email)))
+                .header("Authorization", authorization).GET().build());
+        assertEquals(200, verified.statusCode(), verified::body);
+        return authorization;
+    }
+
+    private HttpRequest upload(String authorization, String contentType, byte[] file) {
+        String boundary = "upload-" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"avatar.png\"\r\n"
+                + "Content-Type: " + contentType + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(file);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return HttpRequest.newBuilder(uri("/v1/user/self/pic"))
+                .header("Authorization", authorization)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + port + path);
+    }
+
+    private static byte[] png() throws IOException {
+        BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
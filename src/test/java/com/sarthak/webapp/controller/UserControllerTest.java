@@ -75,27 +75,36 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sarthak.webapp.config.SecurityConfig;
 import com.sarthak.webapp.model.UserDTO;
 import com.sarthak.webapp.model.UserResponseDTO;
+import com.sarthak.webapp.security.CredentialStuffingShield;
 import com.sarthak.webapp.service.CustomUserDetailsService;
 import com.sarthak.webapp.service.UserService;
+import com.sarthak.webapp.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.Optional;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(UserController.class)
-@Import({SecurityConfig.class})
+@Import({SecurityConfig.class, SimpleMeterRegistry.class, CredentialStuffingShield.class})
 class UserControllerTest {
 
     @Autowired
@@ -110,6 +119,9 @@ class UserControllerTest {
     @MockBean
     private PasswordEncoder passwordEncoder;
 
+    @MockBean
+    private ShardRouter shardRouter;
+
     private ObjectMapper objectMapper = new ObjectMapper();
 
     @Test
@@ -146,6 +158,21 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.accountUpdated").exists());
     }
 
+    @Test
+    @WithMockUser(username = "john@example.com")
+    void getUserInfo_MatchingEtag_NotModified() throws Exception {
+        when(userService.isUserVerified("john@example.com")).thenReturn(true);
+        when(userService.getUserEtag("john@example.com")).thenReturn(Optional.of("\"abc\""));
+
+        mockMvc.perform(get("/v1/user/self").header(HttpHeaders.IF_NONE_MATCH, "\"abc\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"abc\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andExpect(content().string(""));
+
+        verify(userService, never()).getUserByEmail(any());
+    }
+
     @Test
     void createUser_InvalidData() throws Exception {
         // Arrange
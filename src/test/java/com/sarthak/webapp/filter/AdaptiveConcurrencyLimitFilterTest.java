@@ -0,0 +1,66 @@
+package com.sarthak.webapp.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AdaptiveConcurrencyLimitFilter filter =
+            new AdaptiveConcurrencyLimitFilter(registry, true, 1, 1, 1, Duration.ofSeconds(2));
+
+    @Test
+    void requestOverLimit_IsShedWithRetryAfter() throws Exception {
+        // Arrange
+        AtomicReference<MockHttpServletResponse> nested = new AtomicReference<>();
+        FilterChain holdsPermit = (request, response) -> {
+            MockHttpServletResponse second = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/v1/user/self"), second, (req, res) -> fail("not shed"));
+            nested.set(second);
+        };
+
+        // Act
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/v1/user/self"), first, holdsPermit);
+
+        // Assert
+        assertEquals(200, first.getStatus());
+        assertEquals(503, nested.get().getStatus());
+        assertEquals("2", nested.get().getHeader("Retry-After"));
+        assertEquals(1.0, registry.get("webapp.concurrency.rejected").tag("partition", "users").counter().count());
+        assertEquals(0.0, registry.get("webapp.concurrency.inflight").tag("partition", "users").gauge().value());
+    }
+
+    @Test
+    void imageAndUserEndpoints_HaveSeparateLimits() throws Exception {
+        // Arrange
+        AtomicReference<MockHttpServletResponse> nested = new AtomicReference<>();
+        FilterChain holdsPermit = (request, response) -> {
+            MockHttpServletResponse image = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/v1/user/self/pic"), image, (req, res) -> { });
+            nested.set(image);
+        };
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/v1/user/self"), new MockHttpServletResponse(), holdsPermit);
+
+        // Assert
+        assertEquals(200, nested.get().getStatus());
+        assertEquals(0.0, registry.get("webapp.concurrency.rejected").tag("partition", "images").counter().count());
+    }
+
+    @Test
+    void healthEndpoint_IsNeverLimited() {
+        // Act & Assert
+        assertNull(AdaptiveConcurrencyLimitFilter.partition(new MockHttpServletRequest("GET", "/healthz")));
+        assertNull(AdaptiveConcurrencyLimitFilter.partition(new MockHttpServletRequest("GET", "/actuator/prometheus")));
+    }
+}
@@ -0,0 +1,62 @@
+package com.sarthak.webapp.filter;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CorrelationIdFilterTest {
+
+    private final CorrelationIdFilter filter = new CorrelationIdFilter(1.0);
+
+    @Test
+    void wellFormedId_IsLoggedAndEchoed() throws Exception {
+        // Arrange
+        AtomicReference<String> logged = new AtomicReference<>();
+
+        // Act
+        MockHttpServletResponse response = filter("1-67891233.abcdef_012-x", logged);
+
+        // Assert
+        assertEquals("1-67891233.abcdef_012-x", logged.get());
+        assertEquals("1-67891233.abcdef_012-x", response.getHeader(CorrelationIdFilter.CORRELATION_ID_HEADER));
+    }
+
+    @Test
+    void idThatCouldForgeLogLines_IsReplaced() throws Exception {
+        // Arrange
+        AtomicReference<String> logged = new AtomicReference<>();
+
+        // Act
+        MockHttpServletResponse response = filter("abc\n2026-01-01 INFO forged line", logged);
+
+        // Assert
+        assertNotEquals("abc\n2026-01-01 INFO forged line", logged.get());
+        assertTrue(CorrelationIdFilter.isValid(logged.get()));
+        assertEquals(logged.get(), response.getHeader(CorrelationIdFilter.CORRELATION_ID_HEADER));
+    }
+
+    @Test
+    void isValid_AcceptsOnlyShortIdsOfSafeCharacters() {
+        // Act & Assert
+        assertTrue(CorrelationIdFilter.isValid("f47ac10b-58cc-4372-a567-0e02b2c3d479"));
+        assertFalse(CorrelationIdFilter.isValid(null));
+        assertFalse(CorrelationIdFilter.isValid(""));
+        assertFalse(CorrelationIdFilter.isValid("a b"));
+        assertFalse(CorrelationIdFilter.isValid("id\u001b[31m"));
+        assertFalse(CorrelationIdFilter.isValid("x".repeat(129)));
+    }
+
+    private MockHttpServletResponse filter(String id, AtomicReference<String> logged) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/user/self");
+        request.addHeader(CorrelationIdFilter.CORRELATION_ID_HEADER, id);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response,
+                (req, res) -> logged.set(MDC.get(CorrelationIdFilter.CORRELATION_ID_MDC_KEY)));
+        return response;
+    }
+}
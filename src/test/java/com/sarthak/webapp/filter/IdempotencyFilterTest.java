@@ -0,0 +1,174 @@
+package com.sarthak.webapp.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotencyFilterTest {
+
+    private final IdempotencyFilter filter = new IdempotencyFilter(
+            new SimpleMeterRegistry(), true, Duration.ofMinutes(1), 1 << 20, Duration.ofSeconds(1), 1024);
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void retryWithSameKey_ReplaysStoredResponse() throws Exception {
+        // Arrange
+        FilterChain createsUser = respondingWith(201);
+
+        // Act
+        MockHttpServletResponse first = post("key-1", createsUser);
+        MockHttpServletResponse retry = post("key-1", createsUser);
+
+        // Assert
+        assertEquals(1, executions.get());
+        assertEquals(201, retry.getStatus());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals("application/json", retry.getContentType());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED));
+    }
+
+    @Test
+    void serverErrors_AreNotStored() throws Exception {
+        // Act
+        post("key-2", respondingWith(503));
+        MockHttpServletResponse retry = post("key-2", respondingWith(201));
+
+        // Assert
+        assertEquals(2, executions.get());
+        assertEquals(201, retry.getStatus());
+        assertNull(retry.getHeader(IdempotencyFilter.REPLAYED));
+    }
+
+    @Test
+    void keyReusedForDifferentRequest_IsRejected() throws Exception {
+        // Arrange
+        post("key-3", respondingWith(201));
+        MockHttpServletRequest different = request("key-3");
+        different.setContent("{\"email\":\"someone-else@example.com\"}".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(different, response, respondingWith(201));
+
+        // Assert
+        assertEquals(422, response.getStatus());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void keyReusedForSameSizedDifferentBody_IsRejected() throws Exception {
+        // Arrange: another client signing up with a guessed key and a body of the same length
+        post("key-4", respondingWith(201));
+        MockHttpServletRequest different = request("key-4");
+        different.setContent("{\"email\":\"jack@example.com\"}".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(different, response, respondingWith(201));
+
+        // Assert
+        assertEquals(422, response.getStatus());
+        assertEquals("", response.getContentAsString());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void bodyLeftUnreadByTheApplication_IsStillDigested() throws Exception {
+        // Arrange: the first attempt reads one byte of the body; the retry differs only after it
+        FilterChain readsOneByte = (request, response) -> {
+            request.getInputStream().read();
+            respondingWith(400).doFilter(request, response);
+        };
+        post("key-5", readsOneByte);
+        MockHttpServletRequest different = request("key-5");
+        different.setContent("{\"email\":\"jack@example.com\"}".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(different, response, readsOneByte);
+        MockHttpServletResponse same = post("key-5", readsOneByte);
+
+        // Assert
+        assertEquals(422, response.getStatus());
+        assertEquals(400, same.getStatus());
+        assertEquals("true", same.getHeader(IdempotencyFilter.REPLAYED));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void bodyLeftLargelyUnread_IsNotReadAndResponseNotStored() throws Exception {
+        // Arrange: an upload rejected from its headers, without reading the body
+        FilterChain rejectsUnread = respondingWith(413);
+        MockHttpServletRequest large = request("key-6");
+        large.setContent(new byte[1 << 20]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(large, response, rejectsUnread);
+        MockHttpServletResponse retry = post("key-6", respondingWith(201));
+
+        // Assert
+        assertEquals(413, response.getStatus());
+        assertTrue(large.getInputStream().available() >= (1 << 20) - 1025);
+        assertEquals(201, retry.getStatus());
+        assertNull(retry.getHeader(IdempotencyFilter.REPLAYED));
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void bodyDigest_IgnoresTheMultipartBoundaryOnly() {
+        // Arrange
+        String part = "Content-Disposition: form-data; name=\"file\"\r\n\r\n--aab-aaab-";
+
+        // Act
+        byte[] first = digest("multipart/form-data; boundary=aab", "--aab\r\n" + part + "\r\n--aab--");
+        byte[] retry = digest("multipart/form-data; boundary=\"xyz\"", "--xyz\r\n" + part.replace("aab", "xyz") + "\r\n--xyz--");
+        byte[] changed = digest("multipart/form-data; boundary=xyz", "--xyz\r\n" + part.replace("aab", "xyz") + "!\r\n--xyz--");
+
+        // Assert
+        assertArrayEquals(first, retry);
+        assertFalse(Arrays.equals(first, changed));
+    }
+
+    private FilterChain respondingWith(int status) {
+        return (request, response) -> {
+            int n = executions.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(status);
+            response.setContentType("application/json");
+            response.getWriter().write("{\"id\":" + n + "}");
+        };
+    }
+
+    private MockHttpServletResponse post(String key, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(key), response, chain);
+        return response;
+    }
+
+    private static byte[] digest(String contentType, String body) {
+        IdempotencyFilter.BodyDigest digest = new IdempotencyFilter.BodyDigest(contentType);
+        byte[] bytes = body.getBytes(StandardCharsets.ISO_8859_1);
+        // Split so that held-back bytes cross calls
+        digest.update(bytes, 0, 7);
+        digest.update(bytes, 7, bytes.length - 7);
+        return digest.finish();
+    }
+
+    private static MockHttpServletRequest request(String key) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/v1/user");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY, key);
+        request.setContentType("application/json");
+        request.setContent("{\"email\":\"john@example.com\"}".getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
@@ -0,0 +1,90 @@
+package com.sarthak.webapp.filter;
+
+import com.sarthak.webapp.exception.DeadlineExceededException;
+import com.sarthak.webapp.resilience.RequestDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestDeadlineFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestDeadlineFilter filter = new RequestDeadlineFilter(meterRegistry,
+            Duration.ofSeconds(2), Duration.ofSeconds(10), Duration.ofSeconds(30), Duration.ofSeconds(20));
+
+    @Test
+    void budget_ComesFromTheHeaderCappedAtTheMaximum() {
+        // Act & Assert
+        assertEquals(Duration.ofMillis(500), filter.budget(request("/v1/user/self", " 500 ")));
+        assertEquals(Duration.ofSeconds(20), filter.budget(request("/v1/user/self", "60000")));
+    }
+
+    @Test
+    void budget_FallsBackToTheRouteDefaultForMissingOrUnusableHeaders() {
+        // Act & Assert
+        assertEquals(Duration.ofSeconds(2), filter.budget(request("/v1/user/self", null)));
+        assertEquals(Duration.ofSeconds(2), filter.budget(request("/v1/user/self", "soon")));
+        assertEquals(Duration.ofSeconds(2), filter.budget(request("/v1/user/self", "0")));
+        assertEquals(Duration.ofSeconds(10), filter.budget(request("/v1/user/self/pic", "-5")));
+        assertEquals(Duration.ofSeconds(30), filter.budget(request("/v1/user/self/pic/uploads/abc", null)));
+    }
+
+    @Test
+    void exceededDeadline_IsCountedByTheStageThatGaveUp() throws Exception {
+        // Act
+        filter.doFilter(request("/v1/user/self", "1"), new MockHttpServletResponse(), (request, response) -> {
+            sleep();
+            assertThrows(DeadlineExceededException.class, () -> RequestDeadline.check("database"));
+        });
+
+        // Assert
+        assertEquals(1, exceeded("database"));
+        assertNull(RequestDeadline.current());
+    }
+
+    @Test
+    void workFinishingLate_IsCountedAsResponse() throws Exception {
+        // Act
+        filter.doFilter(request("/v1/user/self", "1"), new MockHttpServletResponse(), (request, response) -> sleep());
+
+        // Assert
+        assertEquals(1, exceeded("response"));
+    }
+
+    @Test
+    void requestsOutsideTheApi_GetNoDeadline() throws Exception {
+        // Act
+        filter.doFilter(request("/healthz", "1"), new MockHttpServletResponse(),
+                (request, response) -> assertNull(RequestDeadline.current()));
+
+        // Assert
+        assertNull(meterRegistry.find("webapp.deadline.exceeded").counter());
+    }
+
+    private double exceeded(String stage) {
+        Counter counter = meterRegistry.find("webapp.deadline.exceeded").tag("stage", stage).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private static MockHttpServletRequest request(String uri, String timeout) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (timeout != null) {
+            request.addHeader(RequestDeadlineFilter.TIMEOUT_HEADER, timeout);
+        }
+        return request;
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
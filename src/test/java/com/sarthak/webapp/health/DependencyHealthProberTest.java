@@ -0,0 +1,126 @@
+package com.sarthak.webapp.health;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DependencyHealthProberTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private DependencyHealthProber prober;
+
+    @AfterEach
+    void tearDown() {
+        prober.stop();
+    }
+
+    @Test
+    void beforeFirstProbe_IsUnhealthy() {
+        // Arrange
+        prober = prober(check("database", true, () -> DependencyStatus.up(Map.of())));
+
+        // Act & Assert
+        assertFalse(prober.isHealthy(true));
+        assertFalse(prober.isHealthy(false));
+    }
+
+    @Test
+    void healthReads_UseCachedResultWithoutRunningChecks() {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        prober = prober(check("database", true, () -> {
+            calls.incrementAndGet();
+            return DependencyStatus.up(Map.of());
+        }));
+
+        // Act
+        prober.probe();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(prober.isHealthy(true));
+        }
+
+        // Assert
+        assertEquals(1, calls.get());
+        assertEquals(1.0, registry.get("webapp.health.dependency.up").tag("dependency", "database").gauge().value());
+    }
+
+    @Test
+    void nonCriticalFailure_FailsReadinessOnly() {
+        // Arrange
+        prober = prober(
+                check("database", true, () -> DependencyStatus.up(Map.of())),
+                check("sns", false, () -> {
+                    throw new IllegalStateException("unreachable");
+                }));
+
+        // Act
+        prober.probe();
+
+        // Assert
+        assertTrue(prober.isHealthy(true));
+        assertFalse(prober.isHealthy(false));
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> dependencies =
+                (Map<String, Map<String, Object>>) prober.report(false).get("dependencies");
+        assertEquals("DOWN", dependencies.get("sns").get("status"));
+        assertEquals("IllegalStateException", dependencies.get("sns").get("error"));
+    }
+
+    @Test
+    void slowCheck_IsCancelledAndReportedDown() {
+        // Arrange
+        prober = prober(check("s3", true, () -> {
+            Thread.sleep(5_000);
+            return DependencyStatus.up(Map.of());
+        }));
+
+        // Act
+        long start = System.nanoTime();
+        prober.probe();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Assert
+        assertTrue(elapsedMillis < 2_000, "probe took " + elapsedMillis + "ms");
+        assertFalse(prober.isHealthy(true));
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> dependencies =
+                (Map<String, Map<String, Object>>) prober.report(false).get("dependencies");
+        assertTrue(((String) dependencies.get("s3").get("error")).startsWith("timed out"));
+    }
+
+    private DependencyHealthProber prober(DependencyCheck... checks) {
+        return new DependencyHealthProber(List.of(checks), registry,
+                Duration.ofSeconds(10), Duration.ofMillis(200), Duration.ofSeconds(30));
+    }
+
+    private static DependencyCheck check(String name, boolean critical, CheckBody body) {
+        return new DependencyCheck() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public boolean critical() {
+                return critical;
+            }
+
+            @Override
+            public DependencyStatus check() throws Exception {
+                return body.run();
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface CheckBody {
+        DependencyStatus run() throws Exception;
+    }
+}
@@ -0,0 +1,240 @@
+package com.sarthak.webapp.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-ins for the S3 and SNS APIs used by the application, so
+ * the full stack can be driven without AWS. S3 keeps objects in memory
+ * (path-style PUT, GET, HEAD, DELETE, plus ListObjectsV2 and DeleteObjects);
+ * SNS accepts {@code Publish} and keeps
+ * the verification token of the last message per email.
+ */
+public class FakeAwsServices implements AutoCloseable {
+
+    private static final String SNS_NAMESPACE = "http://sns.amazonaws.com/doc/2010-03-31/";
+    private static final String S3_NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+    private static final Pattern DELETE_KEY = Pattern.compile("<Key>([^<]*)</Key>");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConcurrentSkipListMap<String, byte[]> objects = new ConcurrentSkipListMap<>();
+    private final Map<String, Instant> modified = new ConcurrentHashMap<>();
+    private final Map<String, String> verificationTokens = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(16);
+    private final HttpServer s3;
+    private final HttpServer sns;
+
+    public FakeAwsServices() throws IOException {
+        InetSocketAddress loopback = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        s3 = HttpServer.create(loopback, 0);
+        s3.createContext("/", this::handleS3);
+        s3.setExecutor(executor);
+        sns = HttpServer.create(loopback, 0);
+        sns.createContext("/", this::handleSns);
+        sns.setExecutor(executor);
+        s3.start();
+        sns.start();
+    }
+
+    public String s3Endpoint() {
+        return "http://127.0.0.1:" + s3.getAddress().getPort();
+    }
+
+    public String snsEndpoint() {
+        return "http://127.0.0.1:" + sns.getAddress().getPort();
+    }
+
+    public String verificationToken(String email) {
+        return verificationTokens.get(email);
+    }
+
+    public int objectCount() {
+        return objects.size();
+    }
+
+    private void handleS3(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String key = exchange.getRequestURI().getPath();
+            String query = exchange.getRequestURI().getRawQuery();
+            byte[] body = readBody(exchange);
+            if (query != null && query.contains("list-type=2")) {
+                list(exchange, key, parseForm(query));
+                return;
+            }
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> {
+                    objects.put(key, body);
+                    modified.put(key, Instant.now());
+                    // The SDK checks the ETag against the MD5 of what it sent
+                    exchange.getResponseHeaders().add("ETag", "\"" + md5Hex(body) + "\"");
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "GET" -> {
+                    byte[] object = objects.get(key);
+                    if (object == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                        return;
+                    }
+                    exchange.sendResponseHeaders(200, object.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(object);
+                    }
+                }
+                case "HEAD" -> exchange.sendResponseHeaders(200, -1);
+                case "DELETE" -> {
+                    objects.remove(key);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                case "POST" -> {
+                    if (query == null || !query.startsWith("delete")) {
+                        exchange.sendResponseHeaders(405, -1);
+                        return;
+                    }
+                    String bucket = key.endsWith("/") ? key : key + "/";
+                    Matcher keys = DELETE_KEY.matcher(new String(body, StandardCharsets.UTF_8));
+                    while (keys.find()) {
+                        objects.remove(bucket + keys.group(1));
+                    }
+                    sendXml(exchange, "<DeleteResult xmlns=\"" + S3_NAMESPACE + "\"/>");
+                }
+                default -> exchange.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+
+    // One page of keys after start-after or the continuation token, which is just the last key returned
+    private void list(HttpExchange exchange, String bucketPath, Map<String, String> params) throws IOException {
+        String bucket = bucketPath.endsWith("/") ? bucketPath : bucketPath + "/";
+        String prefix = params.getOrDefault("prefix", "");
+        String after = params.getOrDefault("continuation-token", params.get("start-after"));
+        int maxKeys = Integer.parseInt(params.getOrDefault("max-keys", "1000"));
+        StringBuilder contents = new StringBuilder();
+        String last = null;
+        int count = 0;
+        boolean truncated = false;
+        for (Map.Entry<String, byte[]> entry : objects.tailMap(bucket + (after == null ? prefix : after), after == null).entrySet()) {
+            String name = entry.getKey().substring(bucket.length());
+            if (!entry.getKey().startsWith(bucket) || !name.startsWith(prefix)) {
+                break;
+            }
+            if (count == maxKeys) {
+                truncated = true;
+                break;
+            }
+            contents.append("<Contents><Key>").append(name).append("</Key><LastModified>")
+                    .append(modified.getOrDefault(entry.getKey(), Instant.EPOCH)).append("</LastModified><ETag>\"")
+                    .append(md5Hex(entry.getValue())).append("\"</ETag><Size>").append(entry.getValue().length)
+                    .append("</Size><StorageClass>STANDARD</StorageClass></Contents>");
+            last = name;
+            count++;
+        }
+        sendXml(exchange, "<ListBucketResult xmlns=\"" + S3_NAMESPACE + "\"><Name>" + bucket.substring(1, bucket.length() - 1)
+                + "</Name><Prefix>" + prefix + "</Prefix><KeyCount>" + count + "</KeyCount><MaxKeys>" + maxKeys
+                + "</MaxKeys><IsTruncated>" + truncated + "</IsTruncated>"
+                + (truncated ? "<NextContinuationToken>" + last + "</NextContinuationToken>" : "")
+                + contents + "</ListBucketResult>");
+    }
+
+    private static void sendXml(HttpExchange exchange, String xml) throws IOException {
+        byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void handleSns(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Map<String, String> form = parseForm(new String(readBody(exchange), StandardCharsets.UTF_8));
+            String action = form.getOrDefault("Action", "");
+            String requestId = UUID.randomUUID().toString();
+            String response;
+            if ("Publish".equals(action)) {
+                recordVerification(form.get("Message"));
+                response = "<PublishResponse xmlns=\"" + SNS_NAMESPACE + "\">"
+                        + "<PublishResult><MessageId>" + UUID.randomUUID() + "</MessageId></PublishResult>"
+                        + "<ResponseMetadata><RequestId>" + requestId + "</RequestId></ResponseMetadata>"
+                        + "</PublishResponse>";
+            } else {
+                // Enough for read-only calls such as GetTopicAttributes
+                response = "<" + action + "Response xmlns=\"" + SNS_NAMESPACE + "\">"
+                        + "<" + action + "Result/>"
+                        + "<ResponseMetadata><RequestId>" + requestId + "</RequestId></ResponseMetadata>"
+                        + "</" + action + "Response>";
+            }
+            byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/xml");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private void recordVerification(String message) throws IOException {
+        if (message == null) {
+            return;
+        }
+        JsonNode json = objectMapper.readTree(message);
+        if (json.hasNonNull("email") && json.hasNonNull("verificationToken")) {
+            verificationTokens.put(json.get("email").asText(), json.get("verificationToken").asText());
+        }
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static Map<String, String> parseForm(String body) {
+        Map<String, String> form = new HashMap<>();
+        for (String pair : body.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                form.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return form;
+    }
+
+    private static String md5Hex(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        s3.stop(0);
+        sns.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,113 @@
+package com.sarthak.webapp.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sarthak.webapp.load.OpenModelLoadGenerator.EndpointResult;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes per-endpoint latency summaries and HdrHistogram percentile
+ * distributions, and compares p99 against a stored baseline.
+ */
+public class LatencyReport {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final Map<String, EndpointResult> results;
+    private final double ratePerSecond;
+
+    public LatencyReport(Map<String, EndpointResult> results, double ratePerSecond) {
+        this.results = results;
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    public ObjectNode summary() {
+        ObjectNode summary = objectMapper.createObjectNode();
+        summary.put("rate", ratePerSecond);
+        ObjectNode endpoints = summary.putObject("endpoints");
+        results.forEach((name, result) -> {
+            Histogram histogram = result.histogram();
+            ObjectNode endpoint = endpoints.putObject(name);
+            endpoint.put("requests", result.requests());
+            endpoint.put("unexpected", result.unexpected());
+            endpoint.put("throughput", round(result.throughput()));
+            endpoint.put("p50Ms", millis(histogram.getValueAtPercentile(50)));
+            endpoint.put("p90Ms", millis(histogram.getValueAtPercentile(90)));
+            endpoint.put("p99Ms", millis(histogram.getValueAtPercentile(99)));
+            endpoint.put("p999Ms", millis(histogram.getValueAtPercentile(99.9)));
+            endpoint.put("maxMs", millis(histogram.getMaxValue()));
+        });
+        return summary;
+    }
+
+    public void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        objectMapper.writeValue(directory.resolve("summary.json").toFile(), summary());
+        for (Map.Entry<String, EndpointResult> entry : results.entrySet()) {
+            String fileName = entry.getKey().replaceAll("[^A-Za-z0-9]+", "_") + ".hgrm";
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(fileName)))) {
+                entry.getValue().histogram().outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+        }
+    }
+
+    public void writeBaseline(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        objectMapper.writeValue(file.toFile(), summary());
+    }
+
+    /**
+     * Endpoints whose p99 exceeds the baseline by more than {@code tolerance}
+     * (relative) plus {@code slackMs} (absolute, to absorb noise on fast endpoints).
+     * Endpoints with fewer than {@code minSamples} requests are skipped, their
+     * p99 is just the slowest request.
+     */
+    public List<String> p99Regressions(JsonNode baseline, double tolerance, double slackMs, long minSamples) {
+        List<String> regressions = new ArrayList<>();
+        JsonNode baselineEndpoints = baseline.path("endpoints");
+        results.forEach((name, result) -> {
+            JsonNode expected = baselineEndpoints.path(name).path("p99Ms");
+            if (expected.isMissingNode() || result.requests() < minSamples) {
+                return;
+            }
+            double limit = expected.asDouble() * (1 + tolerance) + slackMs;
+            double actual = millis(result.histogram().getValueAtPercentile(99));
+            if (actual > limit) {
+                regressions.add(String.format("%s p99 %.1f ms > limit %.1f ms (baseline %.1f ms)",
+                        name, actual, limit, expected.asDouble()));
+            }
+        });
+        return regressions;
+    }
+
+    public List<String> errorRateViolations(double maxErrorRate) {
+        List<String> violations = new ArrayList<>();
+        results.forEach((name, result) -> {
+            double errorRate = result.unexpected() / (double) result.requests();
+            if (errorRate > maxErrorRate) {
+                violations.add(String.format("%s unexpected responses %d of %d", name,
+                        result.unexpected(), result.requests()));
+            }
+        });
+        return violations;
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / NANOS_PER_MILLI);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
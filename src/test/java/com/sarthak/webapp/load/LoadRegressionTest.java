@@ -0,0 +1,343 @@
+package com.sarthak.webapp.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sarthak.webapp.load.OpenModelLoadGenerator.EndpointResult;
+import com.sarthak.webapp.load.OpenModelLoadGenerator.Operation;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Full-stack latency regression run: boots the application on H2 (or the
+ * database given with {@code -Dspring.datasource.url=...}) against in-process
+ * S3 and SNS stand-ins, drives a fixed-rate request mix and compares each
+ * endpoint's p99 with {@code load/latency-baseline.json}.
+ * <p>
+ * Run with {@code mvn test -Pload-test}. Tunables (system properties):
+ * {@code load.rate}, {@code load.warmup}, {@code load.duration}, {@code load.users},
+ * {@code load.p99.tolerance}, {@code load.p99.slack-ms}, {@code load.min-samples},
+ * {@code load.max-error-rate};
+ * {@code -Dload.update-baseline=true} rewrites the baseline from this run.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class LoadRegressionTest {
+
+    private static final String BASELINE_RESOURCE = "/load/latency-baseline.json";
+    private static final Path BASELINE_SOURCE = Path.of("src/test/resources/load/latency-baseline.json");
+    private static final Path RESULTS_DIRECTORY = Path.of("target/load-results");
+    private static final String PASSWORD = "load-test-password";
+    private static final int PICTURE_VARIANTS = 6;
+
+    private static final FakeAwsServices aws;
+
+    static {
+        try {
+            aws = new FakeAwsServices();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Picked up by the SDK's default credential chain; the stand-ins do not check signatures
+        System.setProperty("aws.accessKeyId", "load-test");
+        System.setProperty("aws.secretKey", "load-test");
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("aws.region", () -> "us-east-1");
+        registry.add("aws.s3.endpoint", aws::s3Endpoint);
+        registry.add("aws.s3.bucket", () -> "load-test-bucket");
+        registry.add("aws.sns.endpoint", aws::snsEndpoint);
+        registry.add("aws.sns.topic.arn", () -> "arn:aws:sns:us-east-1:000000000000:load-test");
+        registry.add("user.verification.expiry.minutes", () -> "60");
+        registry.add("webapp.metrics.export", () -> "none");
+        // Synchronous console logging in tests would otherwise dominate the measurements
+        registry.add("logging.level.com.sarthak.webapp", () -> "WARN");
+    }
+
+    @AfterAll
+    static void stopFakeAws() {
+        aws.close();
+    }
+
+    @LocalServerPort
+    private int port;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Queue<VirtualUser> idleUsers = new ConcurrentLinkedQueue<>();
+    private final List<VirtualUser> verifiedUsers = new java.util.concurrent.CopyOnWriteArrayList<>();
+    private final Queue<String> pendingVerifications = new ConcurrentLinkedQueue<>();
+    private final List<byte[]> pictures = new ArrayList<>();
+
+    @Test
+    void requestMixStaysWithinLatencyBaseline() throws Exception {
+        double rate = Double.parseDouble(System.getProperty("load.rate", "5"));
+        Duration warmup = Duration.parse("PT" + System.getProperty("load.warmup", "20s"));
+        Duration duration = Duration.parse("PT" + System.getProperty("load.duration", "60s"));
+        int userCount = Integer.getInteger("load.users", 40);
+        double tolerance = Double.parseDouble(System.getProperty("load.p99.tolerance", "0.5"));
+        double slackMs = Double.parseDouble(System.getProperty("load.p99.slack-ms", "25"));
+        double maxErrorRate = Double.parseDouble(System.getProperty("load.max-error-rate", "0.01"));
+        long minSamples = Long.getLong("load.min-samples", 50);
+
+        // Arrange
+        for (int i = 0; i < PICTURE_VARIANTS; i++) {
+            pictures.add(png(64 + i * 16));
+        }
+        seedVerifiedUsers(userCount);
+
+        // Act
+        OpenModelLoadGenerator generator = new OpenModelLoadGenerator(1_000);
+        Map<String, EndpointResult> results = generator.run(rate, warmup, duration, this::nextOperation);
+        LatencyReport report = new LatencyReport(results, rate);
+        report.write(RESULTS_DIRECTORY);
+        System.out.println(report.summary().toPrettyString());
+
+        if (Boolean.getBoolean("load.update-baseline")) {
+            report.writeBaseline(BASELINE_SOURCE);
+            return;
+        }
+
+        // Assert
+        assertTrue(report.errorRateViolations(maxErrorRate).isEmpty(),
+                () -> "Unexpected responses: " + report.errorRateViolations(maxErrorRate));
+        JsonNode baseline = readBaseline();
+        List<String> regressions = report.p99Regressions(baseline, tolerance, slackMs, minSamples);
+        assertTrue(regressions.isEmpty(), () -> "p99 regressions: " + regressions);
+    }
+
+    private Operation nextOperation() {
+        int roll = ThreadLocalRandom.current().nextInt(100);
+        if (roll < 10) {
+            return signup();
+        }
+        if (roll < 20) {
+            String email = pendingVerifications.poll();
+            return email != null ? verify(email) : getSelf(randomUser());
+        }
+        if (roll < 55) {
+            return getSelf(randomUser());
+        }
+        if (roll < 70) {
+            return putSelf(randomUser());
+        }
+        // Picture operations take a user exclusively so the user's picture state stays consistent
+        VirtualUser user = idleUsers.poll();
+        return user != null ? pictureOperation(user) : getSelf(randomUser());
+    }
+
+    private Operation signup() {
+        String email = "load-" + UUID.randomUUID() + "@example.com";
+        return new Operation("POST /v1/user", post("/v1/user", userJson(email), null),
+                status -> status == 201,
+                response -> {
+                    if (response != null && response.statusCode() == 201) {
+                        pendingVerifications.add(email);
+                    }
+                });
+    }
+
+    private Operation verify(String email) {
+        String token = aws.verificationToken(email);
+        VirtualUser user = new VirtualUser(email);
+        // The verification link sits behind Basic auth like every other non-signup route
+        return new Operation("GET /v1/verifyEmail", get("/v1/verifyEmail?token=" + token, user),
+                status -> status == 200,
+                response -> {
+                    if (response != null && response.statusCode() == 200) {
+                        verifiedUsers.add(user);
+                        idleUsers.add(user);
+                    }
+                });
+    }
+
+    private Operation getSelf(VirtualUser user) {
+        return new Operation("GET /v1/user/self", get("/v1/user/self", user), status -> status == 200);
+    }
+
+    private Operation putSelf(VirtualUser user) {
+        HttpRequest request = HttpRequest.newBuilder(uri("/v1/user/self"))
+                .header("Authorization", user.authorization)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(userJson(user.email)))
+                .build();
+        return new Operation("PUT /v1/user/self", request, status -> status == 204);
+    }
+
+    private Operation pictureOperation(VirtualUser user) {
+        int roll = ThreadLocalRandom.current().nextInt(100);
+        if (user.picture < 0) {
+            return roll < 70 ? uploadPicture(user) : getPicture(user);
+        }
+        if (roll < 50) {
+            return getPicture(user);
+        }
+        return roll < 75 ? deletePicture(user) : uploadPicture(user);
+    }
+
+    private Operation uploadPicture(VirtualUser user) {
+        // A different variant than the current one; identical size and type are rejected as duplicates
+        int variant = (user.picture + 1 + ThreadLocalRandom.current().nextInt(PICTURE_VARIANTS - 1)) % PICTURE_VARIANTS;
+        String boundary = "load-" + UUID.randomUUID();
+        HttpRequest request = HttpRequest.newBuilder(uri("/v1/user/self/pic"))
+                .header("Authorization", user.authorization)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(multipart(boundary, pictures.get(variant))))
+                .build();
+        return new Operation("POST /v1/user/self/pic", request, status -> status == 201,
+                response -> {
+                    if (response != null && response.statusCode() == 201) {
+                        user.picture = variant;
+                    }
+                    idleUsers.add(user);
+                });
+    }
+
+    private Operation getPicture(VirtualUser user) {
+        boolean hasPicture = user.picture >= 0;
+        return new Operation("GET /v1/user/self/pic", get("/v1/user/self/pic", user),
+                status -> status == (hasPicture ? 200 : 404),
+                response -> idleUsers.add(user));
+    }
+
+    private Operation deletePicture(VirtualUser user) {
+        HttpRequest request = HttpRequest.newBuilder(uri("/v1/user/self/pic"))
+                .header("Authorization", user.authorization)
+                .DELETE()
+                .build();
+        return new Operation("DELETE /v1/user/self/pic", request, status -> status == 204,
+                response -> {
+                    if (response != null && response.statusCode() == 204) {
+                        user.picture = -1;
+                    }
+                    idleUsers.add(user);
+                });
+    }
+
+    private void seedVerifiedUsers(int count) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        for (int i = 0; i < count; i++) {
+            String email = "seed-" + i + "-" + UUID.randomUUID() + "@example.com";
+            HttpResponse<String> created = client.send(post("/v1/user", userJson(email), null),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(201, created.statusCode(), created::body);
+            VirtualUser user = new VirtualUser(email);
+            HttpResponse<String> verified = client.send(get("/v1/verifyEmail?token=" + aws.verificationToken(email), user),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, verified.statusCode(), verified::body);
+            verifiedUsers.add(user);
+            idleUsers.add(user);
+        }
+    }
+
+    private VirtualUser randomUser() {
+        return verifiedUsers.get(ThreadLocalRandom.current().nextInt(verifiedUsers.size()));
+    }
+
+    private HttpRequest get(String path, VirtualUser user) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path)).GET();
+        if (user != null) {
+            builder.header("Authorization", user.authorization);
+        }
+        return builder.build();
+    }
+
+    private HttpRequest post(String path, String json, VirtualUser user) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (user != null) {
+            builder.header("Authorization", user.authorization);
+        }
+        return builder.build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + port + path);
+    }
+
+    private String userJson(String email) {
+        try {
+            return objectMapper.writeValueAsString(Map.of(
+                    "firstName", "Load",
+                    "lastName", "Test",
+                    "email", email,
+                    "password", PASSWORD));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonNode readBaseline() throws IOException {
+        try (InputStream in = LoadRegressionTest.class.getResourceAsStream(BASELINE_RESOURCE)) {
+            assertNotNull(in, "Missing " + BASELINE_RESOURCE + "; run once with -Dload.update-baseline=true");
+            return objectMapper.readTree(in);
+        }
+    }
+
+    private static byte[] multipart(String boundary, byte[] picture) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        String header = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"avatar.png\"\r\n"
+                + "Content-Type: image/png\r\n\r\n";
+        body.writeBytes(header.getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(picture);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return body.toByteArray();
+    }
+
+    private static byte[] png(int size) throws IOException {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static final class VirtualUser {
+        private final String email;
+        private final String authorization;
+        // Index of the uploaded picture variant, -1 when the user has none
+        private volatile int picture = -1;
+
+        private VirtualUser(String email) {
+            this.email = email;
+            this.authorization = "Basic " + Base64.getEncoder()
+                    .encodeToString((email + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
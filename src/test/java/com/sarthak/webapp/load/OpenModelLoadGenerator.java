@@ -0,0 +1,135 @@
+package com.sarthak.webapp.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Open-model load generator: requests are issued on a fixed schedule whether
+ * or not earlier ones have completed, and latency is measured from the
+ * scheduled start time. A slow server therefore shows up as queueing in the
+ * percentiles instead of silently lowering the offered rate (coordinated
+ * omission).
+ */
+public class OpenModelLoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final HttpClient client;
+    private final int maxInFlight;
+    private final Map<String, EndpointRecorder> endpoints = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public OpenModelLoadGenerator(int maxInFlight) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * One request of the mix. {@code onResponse} runs on completion, with
+     * {@code null} if the request failed, so scenarios can track state such
+     * as pending verifications.
+     */
+    public record Operation(String endpoint, HttpRequest request, IntPredicate expectedStatus,
+                            Consumer<HttpResponse<String>> onResponse) {
+
+        public Operation(String endpoint, HttpRequest request, IntPredicate expectedStatus) {
+            this(endpoint, request, expectedStatus, response -> {
+            });
+        }
+    }
+
+    public record EndpointResult(Histogram histogram, long requests, long unexpected, double throughput) {
+    }
+
+    public Map<String, EndpointResult> run(double ratePerSecond, Duration warmup, Duration duration,
+                                           Supplier<Operation> mix) throws InterruptedException {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long warmupNanos = warmup.toNanos();
+        long start = System.nanoTime();
+        long end = start + warmupNanos + duration.toNanos();
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended - end >= 0) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = mix.get();
+            boolean measured = intended - start >= warmupNanos;
+            EndpointRecorder recorder = endpoints.computeIfAbsent(operation.endpoint(), name -> new EndpointRecorder());
+
+            if (inFlight.get() >= maxInFlight) {
+                // The server has fallen this far behind; count the request as failed rather than queueing it
+                if (measured) {
+                    recorder.unexpected.increment();
+                    recorder.requests.increment();
+                }
+                operation.onResponse().accept(null);
+                continue;
+            }
+            inFlight.incrementAndGet();
+            client.sendAsync(operation.request(), HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, error) -> {
+                        try {
+                            long latency = System.nanoTime() - intended;
+                            if (measured) {
+                                recorder.latency.recordValue(Math.min(latency, HIGHEST_TRACKABLE_NANOS));
+                                recorder.requests.increment();
+                                if (error != null || !operation.expectedStatus().test(response.statusCode())) {
+                                    recorder.unexpected.increment();
+                                }
+                            }
+                            operation.onResponse().accept(response);
+                        } finally {
+                            inFlight.decrementAndGet();
+                        }
+                    });
+        }
+
+        awaitInFlight(Duration.ofSeconds(30));
+        double measuredSeconds = duration.toNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+        Map<String, EndpointResult> results = new TreeMap<>();
+        endpoints.forEach((name, recorder) -> {
+            long requests = recorder.requests.sum();
+            if (requests > 0) {
+                results.put(name, new EndpointResult(recorder.latency.getIntervalHistogram(), requests,
+                        recorder.unexpected.sum(), requests / measuredSeconds));
+            }
+        });
+        return results;
+    }
+
+    private void awaitInFlight(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() - deadline < 0) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static final class EndpointRecorder {
+        private final Recorder latency = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder unexpected = new LongAdder();
+    }
+}
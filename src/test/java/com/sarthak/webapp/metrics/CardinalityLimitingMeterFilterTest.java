@@ -0,0 +1,70 @@
+package com.sarthak.webapp.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CardinalityLimitingMeterFilterTest {
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        CardinalityLimitingMeterFilter filter = new CardinalityLimitingMeterFilter(3, Set.of("application"));
+        registry.config().commonTags("application", "webapp").meterFilter(filter);
+        filter.bindTo(registry);
+    }
+
+    @Test
+    void combinationsWithinLimit_AreRegisteredAsIs() {
+        // Act
+        registry.counter("http.errors", "error", "A").increment();
+        registry.counter("http.errors", "error", "B").increment();
+        registry.counter("http.errors", "error", "C").increment();
+
+        // Assert
+        assertEquals(3, registry.find("http.errors").counters().size());
+        assertNull(registry.find(CardinalityLimitingMeterFilter.DENIED_METER_NAME).functionCounter());
+    }
+
+    @Test
+    void combinationsOverLimit_CollapseIntoOverflowMeter() {
+        // Act
+        for (int i = 0; i < 10; i++) {
+            registry.counter("http.errors", "error", "Error" + i).increment();
+        }
+
+        // Assert
+        assertEquals(4, registry.find("http.errors").counters().size());
+        assertEquals(7.0, registry.get("http.errors")
+                .tag("error", CardinalityLimitingMeterFilter.OVERFLOW_TAG_VALUE)
+                .tag("application", "webapp")
+                .counter().count());
+
+        FunctionCounter denied = registry.get(CardinalityLimitingMeterFilter.DENIED_METER_NAME)
+                .tag("meter", "http.errors")
+                .functionCounter();
+        assertEquals(7.0, denied.count());
+    }
+
+    @Test
+    void limitIsTrackedPerMeterName() {
+        // Act
+        for (int i = 0; i < 3; i++) {
+            registry.counter("image.get.error", "error", "Error" + i).increment();
+            registry.counter("image.upload.error", "error", "Error" + i).increment();
+        }
+
+        // Assert
+        assertEquals(3, registry.find("image.get.error").counters().size());
+        assertEquals(3, registry.find("image.upload.error").counters().size());
+        assertNull(registry.find("image.get.error")
+                .tag("error", CardinalityLimitingMeterFilter.OVERFLOW_TAG_VALUE).counter());
+    }
+}
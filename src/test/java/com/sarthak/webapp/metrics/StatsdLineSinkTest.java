@@ -0,0 +1,91 @@
+package com.sarthak.webapp.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatsdLineSinkTest {
+
+    private DatagramChannel agent;
+    private int port;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        agent = DatagramChannel.open();
+        agent.bind(new InetSocketAddress("127.0.0.1", 0));
+        agent.configureBlocking(false);
+        port = ((InetSocketAddress) agent.getLocalAddress()).getPort();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        agent.close();
+    }
+
+    @Test
+    void accept_DeliversLinesToTheAgent() throws Exception {
+        // Arrange
+        List<String> lines = List.of("requests:1|c", "latency:12|ms", "queue:3|g");
+
+        // Act
+        try (StatsdLineSink sink = new StatsdLineSink("127.0.0.1", port, 100, 1432, Duration.ofMillis(50))) {
+            lines.forEach(sink::accept);
+
+            // Assert
+            assertEquals(lines, receive(lines.size(), Duration.ofSeconds(5)));
+        }
+    }
+
+    @Test
+    void accept_FullQueue_DropsAndCountsInsteadOfBlocking() throws Exception {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        int offered = 100_000;
+
+        try (StatsdLineSink sink = new StatsdLineSink("127.0.0.1", port, 1, 1432, Duration.ofMillis(50))) {
+            sink.bindTo(registry);
+
+            // Act: far faster than one sender thread can write datagrams
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                for (int i = 0; i < offered; i++) {
+                    sink.accept("requests:" + i + "|c");
+                }
+            });
+
+            // Assert
+            double dropped = registry.get("webapp.statsd.lines.dropped").functionCounter().count();
+            assertTrue(dropped > 0, "no lines dropped");
+            assertTrue(dropped < offered, "every line dropped");
+        }
+    }
+
+    // Lines from the datagrams the agent receives, until count lines or the timeout
+    private List<String> receive(int count, Duration timeout) throws Exception {
+        List<String> received = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(2048);
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (received.size() < count && System.nanoTime() < deadline) {
+            buffer.clear();
+            if (agent.receive(buffer) == null) {
+                Thread.sleep(10);
+                continue;
+            }
+            buffer.flip();
+            received.addAll(Arrays.asList(StandardCharsets.UTF_8.decode(buffer).toString().split("\n")));
+        }
+        return received;
+    }
+}
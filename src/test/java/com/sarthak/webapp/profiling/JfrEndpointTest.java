@@ -0,0 +1,119 @@
+package com.sarthak.webapp.profiling;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JfrEndpointTest {
+
+    @TempDir
+    Path directory;
+
+    private JfrEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        endpoint = new JfrEndpoint(Duration.ofSeconds(30), Duration.ofMinutes(1), DataSize.ofMegabytes(10), directory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        endpoint.destroy();
+    }
+
+    @Test
+    void start_CapsDurationAtMaximum() {
+        // Act
+        WebEndpointResponse<Map<String, Object>> response = endpoint.start(Duration.ofHours(1), "default");
+
+        // Assert
+        assertEquals(WebEndpointResponse.STATUS_OK, response.getStatus());
+        assertEquals("RUNNING", response.getBody().get("state"));
+        assertEquals(Duration.ofMinutes(1), response.getBody().get("duration"));
+    }
+
+    @Test
+    void start_WhileRecording_ReturnsConflict() {
+        // Arrange
+        endpoint.start(null, "default");
+
+        // Act
+        WebEndpointResponse<Map<String, Object>> response = endpoint.start(null, "default");
+
+        // Assert
+        assertEquals(409, response.getStatus());
+        assertEquals(1, endpoint.recordings().size());
+    }
+
+    @Test
+    void start_UnknownSettings_ReturnsBadRequest() {
+        // Act
+        WebEndpointResponse<Map<String, Object>> response = endpoint.start(null, "does-not-exist");
+
+        // Assert
+        assertEquals(WebEndpointResponse.STATUS_BAD_REQUEST, response.getStatus());
+        assertTrue(endpoint.recordings().isEmpty());
+    }
+
+    @Test
+    void stopAndDownload_ReturnsRecordingWithDomainEvents() throws Exception {
+        // Arrange
+        long id = (Long) endpoint.start(null, "default").getBody().get("id");
+        PasswordHashEvent event = PasswordHashEvent.begin("encode");
+        event.complete();
+
+        // Act
+        endpoint.stop(id);
+        WebEndpointResponse<Resource> response = endpoint.download(id);
+
+        // Assert
+        assertEquals(WebEndpointResponse.STATUS_OK, response.getStatus());
+        Path copy = directory.resolve("downloaded.jfr");
+        try (InputStream in = response.getBody().getInputStream()) {
+            Files.copy(in, copy);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(copy);
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("com.sarthak.webapp.PasswordHash")));
+    }
+
+    @Test
+    void downloadWhileRunning_StreamsSnapshotAndRemovesIt() throws Exception {
+        // Arrange
+        long id = (Long) endpoint.start(null, "default").getBody().get("id");
+
+        // Act
+        WebEndpointResponse<Resource> response = endpoint.download(id);
+        Path snapshot = response.getBody().getFile().toPath();
+        try (InputStream in = response.getBody().getInputStream()) {
+            assertTrue(in.readAllBytes().length > 0);
+        }
+
+        // Assert
+        assertFalse(Files.exists(snapshot));
+        assertEquals("RUNNING", endpoint.recordings().get(0).get("state"));
+    }
+
+    @Test
+    void download_UnknownRecording_ReturnsNotFound() throws Exception {
+        // Act
+        WebEndpointResponse<Resource> response = endpoint.download(-1);
+
+        // Assert
+        assertEquals(WebEndpointResponse.STATUS_NOT_FOUND, response.getStatus());
+    }
+}
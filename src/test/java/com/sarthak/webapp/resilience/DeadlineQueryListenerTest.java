@@ -0,0 +1,75 @@
+package com.sarthak.webapp.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class DeadlineQueryListenerTest {
+
+    @Mock
+    private Statement statement;
+
+    private final ExecutionInfo execInfo = new ExecutionInfo();
+    private DeadlineQueryListener listener;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        execInfo.setStatement(statement);
+        Duration wait = Duration.ofMillis(200);
+        // Database timeout 2.5s
+        DependencyGuards guards = new DependencyGuards(new SimpleMeterRegistry(),
+                20, wait, Duration.ofMillis(2500), 10, wait, Duration.ofSeconds(10), 10, wait, Duration.ofSeconds(3),
+                50f, 20, 10, Duration.ofSeconds(10));
+        listener = new DeadlineQueryListener(guards);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void withoutDeadline_LeavesTheStatementAlone() throws Exception {
+        // Act
+        listener.beforeQuery(execInfo, List.of());
+
+        // Assert
+        verify(statement, never()).setQueryTimeout(anyInt());
+    }
+
+    @Test
+    void timeoutRoundsUpToWholeSeconds() throws Exception {
+        // Arrange: plenty of budget, so the 2.5s database timeout applies
+        RequestDeadline.start(Duration.ofSeconds(30));
+
+        // Act
+        listener.beforeQuery(execInfo, List.of());
+
+        // Assert
+        verify(statement).setQueryTimeout(3);
+    }
+
+    @Test
+    void shortBudget_StillSetsOneSecondRatherThanNone() throws Exception {
+        // Arrange
+        RequestDeadline.start(Duration.ofMillis(200));
+
+        // Act
+        listener.beforeQuery(execInfo, List.of());
+
+        // Assert
+        verify(statement).setQueryTimeout(1);
+    }
+}
@@ -0,0 +1,112 @@
+package com.sarthak.webapp.resilience;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import com.sarthak.webapp.exception.DeadlineExceededException;
+import com.sarthak.webapp.exception.DependencyUnavailableException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DependencyGuardsTest {
+
+    // One concurrent call each, no waiting, and a breaker that opens after two failed calls out of two
+    private final DependencyGuards guards = new DependencyGuards(new SimpleMeterRegistry(),
+            1, Duration.ZERO, Duration.ofSeconds(5), 1, Duration.ZERO, Duration.ofSeconds(10),
+            1, Duration.ZERO, Duration.ofSeconds(3), 50f, 2, 2, Duration.ofSeconds(30));
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void isDatabaseFailure_LooksThroughCausesForConnectionAndTransientErrors() {
+        // Act & Assert
+        assertTrue(DependencyGuards.isDatabaseFailure(new QueryTimeoutException("slow")));
+        assertTrue(DependencyGuards.isDatabaseFailure(new CannotCreateTransactionException("no connection")));
+        assertTrue(DependencyGuards.isDatabaseFailure(
+                new IllegalStateException(new SQLTransientConnectionException("pool exhausted"))));
+        assertFalse(DependencyGuards.isDatabaseFailure(new DataIntegrityViolationException("duplicate email")));
+        assertFalse(DependencyGuards.isDatabaseFailure(new IllegalArgumentException("bad input")));
+    }
+
+    @Test
+    void isAwsFailure_CountsServerErrorsThrottlingAndClientSideErrors() {
+        // Act & Assert
+        assertTrue(DependencyGuards.isAwsFailure(serviceException(503)));
+        assertTrue(DependencyGuards.isAwsFailure(serviceException(429)));
+        assertTrue(DependencyGuards.isAwsFailure(new SdkClientException("connect timed out")));
+        assertFalse(DependencyGuards.isAwsFailure(serviceException(404)));
+        assertFalse(DependencyGuards.isAwsFailure(new IllegalArgumentException("bad key")));
+    }
+
+    @Test
+    void fullBulkhead_IsRefusedAsUnavailable() {
+        // Act: the inner call finds the only permit taken by the outer one
+        DependencyUnavailableException exception = assertThrows(DependencyUnavailableException.class,
+                () -> guards.s3().call(() -> guards.s3().call(() -> "never")));
+
+        // Assert
+        assertEquals("s3", exception.getDependency());
+        assertEquals(503, exception.getStatusCode().value());
+        assertEquals("1", exception.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void failuresOpenTheBreaker_AndOpenBreakerIsRefusedAsUnavailable() {
+        // Arrange
+        for (int i = 0; i < 2; i++) {
+            assertThrows(SdkClientException.class, () -> guards.sns().run(() -> {
+                throw new SdkClientException("connection refused");
+            }));
+        }
+
+        // Act
+        DependencyUnavailableException exception = assertThrows(DependencyUnavailableException.class,
+                () -> guards.sns().call(() -> "never"));
+
+        // Assert
+        assertEquals(CircuitBreaker.State.OPEN, guards.sns().circuitBreaker().getState());
+        assertEquals("30", exception.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void callerErrors_DoNotOpenTheBreaker() {
+        // Arrange
+        for (int i = 0; i < 2; i++) {
+            assertThrows(DataIntegrityViolationException.class, () -> guards.database().run(() -> {
+                throw new DataIntegrityViolationException("duplicate email");
+            }));
+        }
+
+        // Act & Assert
+        assertEquals(CircuitBreaker.State.CLOSED, guards.database().circuitBreaker().getState());
+        assertEquals("ok", guards.database().call(() -> "ok"));
+    }
+
+    @Test
+    void passedDeadline_RefusesTheCallBeforeItStarts() {
+        // Arrange
+        RequestDeadline.start(Duration.ZERO);
+
+        // Act & Assert
+        assertThrows(DeadlineExceededException.class, () -> guards.database().call(() -> fail("called")));
+    }
+
+    private static AmazonServiceException serviceException(int status) {
+        AmazonServiceException exception = new AmazonServiceException("status " + status);
+        exception.setStatusCode(status);
+        return exception;
+    }
+}
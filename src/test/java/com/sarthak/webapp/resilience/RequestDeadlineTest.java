@@ -0,0 +1,52 @@
+package com.sarthak.webapp.resilience;
+
+import com.sarthak.webapp.exception.DeadlineExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestDeadlineTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void withoutDeadline_ChecksPassAndTimeoutsKeepTheirLimit() {
+        // Act & Assert
+        assertDoesNotThrow(() -> RequestDeadline.check("database"));
+        assertEquals(Duration.ofSeconds(5), RequestDeadline.timeout("database", Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void timeout_IsClampedToWhatIsLeft() {
+        // Arrange
+        RequestDeadline.start(Duration.ofSeconds(2));
+
+        // Act
+        Duration shorterLimit = RequestDeadline.timeout("s3", Duration.ofMillis(500));
+        Duration longerLimit = RequestDeadline.timeout("s3", Duration.ofSeconds(10));
+
+        // Assert
+        assertEquals(Duration.ofMillis(500), shorterLimit);
+        assertTrue(longerLimit.compareTo(Duration.ofSeconds(2)) <= 0);
+        assertTrue(longerLimit.compareTo(Duration.ofSeconds(1)) > 0);
+    }
+
+    @Test
+    void passedDeadline_ThrowsAndRemembersTheFirstStage() {
+        // Arrange
+        RequestDeadline deadline = RequestDeadline.start(Duration.ZERO);
+
+        // Act & Assert
+        DeadlineExceededException exception =
+                assertThrows(DeadlineExceededException.class, () -> RequestDeadline.timeout("sns", Duration.ofSeconds(3)));
+        assertThrows(DeadlineExceededException.class, () -> RequestDeadline.check("database"));
+        assertEquals("sns", exception.getStage());
+        assertEquals("sns", deadline.exceededStage());
+    }
+}
@@ -0,0 +1,49 @@
+package com.sarthak.webapp.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CredentialStuffingShieldTest {
+
+    // One slot per row, so every email shares every cell with every other
+    private final CredentialStuffingShield shield = new CredentialStuffingShield(new SimpleMeterRegistry(),
+            Duration.ofMinutes(5), 3, 1000, 1, Duration.ofMinutes(2), 100);
+
+    @Test
+    void lockedEmailStaysLockedWhenACollidingEmailLogsIn() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            shield.recordFailure("victim@example.com", "10.0.0.1");
+        }
+
+        // Act
+        shield.recordSuccess("attacker@example.com");
+
+        // Assert
+        assertEquals(CredentialStuffingShield.Verdict.LOCKED_EMAIL, shield.check("victim@example.com", "10.0.0.2"));
+        assertEquals(CredentialStuffingShield.Verdict.ALLOW, shield.check("attacker@example.com", "10.0.0.2"));
+    }
+
+    @Test
+    void successSetsOnlyEarlierFailuresAside() {
+        // Arrange
+        for (int i = 0; i < 2; i++) {
+            shield.recordFailure("Jane@Example.com", "10.0.0.1");
+        }
+
+        // Act
+        shield.recordSuccess("jane@example.com");
+        shield.recordFailure("jane@example.com", "10.0.0.1");
+        CredentialStuffingShield.Verdict afterOne = shield.check("jane@example.com", "10.0.0.1");
+        shield.recordFailure("jane@example.com", "10.0.0.1");
+        shield.recordFailure("jane@example.com", "10.0.0.1");
+
+        // Assert
+        assertEquals(CredentialStuffingShield.Verdict.ALLOW, afterOne);
+        assertEquals(CredentialStuffingShield.Verdict.LOCKED_EMAIL, shield.check("jane@example.com", "10.0.0.1"));
+    }
+}
@@ -0,0 +1,35 @@
+package com.sarthak.webapp.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SipHashTest {
+
+    // Key 00 01 .. 0f from the reference implementation's test vectors
+    private final SipHash sipHash = new SipHash(0x0706050403020100L, 0x0f0e0d0c0b0a0908L);
+
+    @Test
+    void matchesReferenceVectors() {
+        // Assert: messages 00, 00 01, ... of the given lengths
+        assertEquals(0x726fdb47dd0e0e31L, sipHash.hash(message(0)));
+        assertEquals(0x74f839c593dc67fdL, sipHash.hash(message(1)));
+        assertEquals(0x93f5f5799a932462L, sipHash.hash(message(8)));
+        assertEquals(0xa129ca6149be45e5L, sipHash.hash(message(15)));
+        assertEquals(0x958a324ceb064572L, sipHash.hash(message(63)));
+    }
+
+    @Test
+    void dependsOnTheKey() {
+        // Act & Assert
+        assertNotEquals(sipHash.hash("a@example.com"), new SipHash(1, 2).hash("a@example.com"));
+    }
+
+    private static byte[] message(int length) {
+        byte[] message = new byte[length];
+        for (int i = 0; i < length; i++) {
+            message[i] = (byte) i;
+        }
+        return message;
+    }
+}
@@ -0,0 +1,63 @@
+package com.sarthak.webapp.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlidingWindowCounterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SlidingWindowCounter counter =
+            new SlidingWindowCounter(1024, Duration.ofMinutes(5), 5, clock::get);
+
+    @Test
+    void countsPerKey() {
+        // Act
+        for (int i = 0; i < 3; i++) {
+            counter.increment("a@example.com");
+        }
+        int b = counter.increment("b@example.com");
+
+        // Assert
+        assertEquals(3, counter.count("a@example.com"));
+        assertEquals(1, b);
+        assertEquals(0, counter.count("c@example.com"));
+    }
+
+    @Test
+    void eventsExpireAsWindowSlides() {
+        // Arrange
+        counter.increment("a@example.com");
+        clock.addAndGet(Duration.ofMinutes(3).toNanos());
+        counter.increment("a@example.com");
+
+        // Act & Assert
+        assertEquals(2, counter.count("a@example.com"));
+        clock.addAndGet(Duration.ofMinutes(3).toNanos());
+        assertEquals(1, counter.count("a@example.com"));
+        clock.addAndGet(Duration.ofMinutes(3).toNanos());
+        assertEquals(0, counter.count("a@example.com"));
+    }
+
+    @Test
+    void mark_LeavesOutEarlierEventsForThatCallerOnly() {
+        // Arrange
+        counter.increment("a@example.com");
+        counter.increment("a@example.com");
+
+        // Act
+        SlidingWindowCounter.Mark mark = counter.mark("a@example.com");
+        int sameStep = counter.increment("a@example.com", mark);
+        clock.addAndGet(Duration.ofMinutes(1).toNanos());
+        int nextStep = counter.increment("a@example.com", mark);
+
+        // Assert
+        assertEquals(1, sameStep);
+        assertEquals(2, nextStep);
+        assertEquals(2, counter.count("a@example.com", mark));
+        assertEquals(4, counter.count("a@example.com"));
+    }
+}
@@ -0,0 +1,109 @@
+package com.sarthak.webapp.service;
+
+import com.sarthak.webapp.cache.EmailExistenceFilter;
+import com.sarthak.webapp.model.User;
+import com.sarthak.webapp.repository.UserRepository;
+import com.sarthak.webapp.security.CredentialStuffingShield;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class CustomUserDetailsServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CredentialStuffingShield credentialStuffingShield;
+
+    @Mock
+    private EmailExistenceFilter emailExistenceFilter;
+
+    @InjectMocks
+    private CustomUserDetailsService userDetailsService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(emailExistenceFilter.mightExist(anyString())).thenReturn(true);
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
+        ReflectionTestUtils.setField(userDetailsService, "adminEmails", Set.of("admin@corp.com", " ops@corp.com"));
+    }
+
+    @Test
+    void verifiedListedUserIsAdmin() {
+        // Arrange
+        stored("admin@corp.com", true);
+
+        // Act
+        UserDetails details = userDetailsService.loadUserByUsername("Admin@Corp.com");
+
+        // Assert
+        assertEquals("admin@corp.com", details.getUsername());
+        assertTrue(roles(details).contains("ROLE_ADMIN"));
+    }
+
+    @Test
+    void unverifiedListedUserIsNotAdmin() {
+        // Arrange
+        stored("ops@corp.com", false);
+
+        // Act
+        UserDetails details = userDetailsService.loadUserByUsername("ops@corp.com");
+
+        // Assert
+        assertEquals(Set.of("ROLE_USER"), roles(details));
+    }
+
+    @Test
+    void caseVariantOfListedEmailIsNotAdmin() {
+        // Arrange: an account from before sign-up normalized emails
+        stored("ADMIN@corp.com", true);
+
+        // Act
+        UserDetails details = userDetailsService.loadUserByUsername("ADMIN@corp.com");
+
+        // Assert
+        assertEquals("ADMIN@corp.com", details.getUsername());
+        assertEquals(Set.of("ROLE_USER"), roles(details));
+    }
+
+    @Test
+    void olderAccountWithCaseVariantEmail_IsReachedOnlyAsTyped() {
+        // Arrange: left unnormalized because the newer account already had the lower-cased form
+        stored("Alice@X.com", true);
+        stored("alice@x.com", true);
+
+        // Act
+        UserDetails older = userDetailsService.loadUserByUsername("Alice@X.com");
+        UserDetails newer = userDetailsService.loadUserByUsername("ALICE@x.com");
+
+        // Assert
+        assertEquals("Alice@X.com", older.getUsername());
+        assertEquals("alice@x.com", newer.getUsername());
+    }
+
+    private void stored(String email, boolean verified) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("hash");
+        user.setVerified(verified);
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+    }
+
+    private static Set<String> roles(UserDetails details) {
+        return details.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(java.util.stream.Collectors.toSet());
+    }
+}
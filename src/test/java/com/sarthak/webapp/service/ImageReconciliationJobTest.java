@@ -0,0 +1,128 @@
+package com.sarthak.webapp.service;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.sarthak.webapp.model.ReconciliationCheckpoint;
+import com.sarthak.webapp.repository.ReconciliationCheckpointRepository;
+import com.sarthak.webapp.repository.UserImageRepository;
+import com.sarthak.webapp.resilience.DependencyGuard;
+import com.sarthak.webapp.resilience.DependencyGuards;
+import com.sarthak.webapp.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ImageReconciliationJobTest {
+
+    @Mock
+    private UserImageRepository imageRepository;
+
+    @Mock
+    private ReconciliationCheckpointRepository checkpointRepository;
+
+    @Mock
+    private AmazonS3 amazonS3;
+
+    @Mock
+    private DependencyGuards dependencyGuards;
+
+    @Mock
+    private DependencyGuard s3Guard;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(dependencyGuards.s3()).thenReturn(s3Guard);
+        when(s3Guard.call(any())).thenAnswer(invocation -> ((Supplier<Object>) invocation.getArgument(0)).get());
+        when(checkpointRepository.findById(ImageReconciliationJob.NAME)).thenReturn(Optional.empty());
+        when(checkpointRepository.save(any(ReconciliationCheckpoint.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void runIfDue_MergesListingWithRows_DeletesOrphansOnBothSides() {
+        // Arrange
+        ListObjectsV2Result listing = new ListObjectsV2Result();
+        listing.getObjectSummaries().addAll(List.of(
+                object("users/1/a.png"), object("users/10/orphan.png"), object("users/2/b.png")));
+        when(amazonS3.listObjectsV2(any(ListObjectsV2Request.class))).thenReturn(listing);
+        List<UserImageRepository.ImageKey> rows = List.of(
+                row("1", "users/1/a.png"), row("2", "users/2/b.png"), row("3", "users/3/gone.png"));
+        when(imageRepository.findKeysAfter(eq(""), any(Pageable.class))).thenReturn(rows);
+        ImageReconciliationJob job = job(true);
+
+        // Act
+        ImageReconciliationJob.Result result = job.runIfDue();
+
+        // Assert
+        assertEquals(2, result.matched);
+        assertEquals(1, result.orphanObjects);
+        assertEquals(1, result.orphanRows);
+        ArgumentCaptor<DeleteObjectsRequest> deleted = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(amazonS3).deleteObjects(deleted.capture());
+        assertEquals("users/10/orphan.png", deleted.getValue().getKeys().get(0).getKey());
+        verify(imageRepository).deleteAllByIdInBatch(List.of("3"));
+    }
+
+    @Test
+    void runIfDue_ReportOnly_DeletesNothing() {
+        // Arrange
+        ListObjectsV2Result listing = new ListObjectsV2Result();
+        listing.getObjectSummaries().add(object("users/1/orphan.png"));
+        when(amazonS3.listObjectsV2(any(ListObjectsV2Request.class))).thenReturn(listing);
+        when(imageRepository.findKeysAfter(eq(""), any(Pageable.class))).thenReturn(List.of());
+        ImageReconciliationJob job = job(false);
+
+        // Act
+        ImageReconciliationJob.Result result = job.runIfDue();
+
+        // Assert
+        assertEquals(1, result.orphanObjects);
+        verify(amazonS3, never()).deleteObjects(any());
+        verify(imageRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    private ImageReconciliationJob job(boolean delete) {
+        ImageReconciliationJob job = new ImageReconciliationJob(imageRepository, checkpointRepository,
+                new ShardRouter(null, 1, Duration.ofSeconds(5)), amazonS3,
+                dependencyGuards, new SimpleMeterRegistry(), "bucket", false, delete, Duration.ofHours(24),
+                Duration.ofHours(1), Duration.ofMinutes(10), 1000, 100, 1000);
+        job.start();
+        return job;
+    }
+
+    private static S3ObjectSummary object(String key) {
+        S3ObjectSummary summary = new S3ObjectSummary();
+        summary.setKey(key);
+        summary.setLastModified(Date.from(LocalDateTime.now().minusDays(1)
+                .atZone(ZoneId.systemDefault()).toInstant()));
+        return summary;
+    }
+
+    private static UserImageRepository.ImageKey row(String id, String url) {
+        UserImageRepository.ImageKey key = mock(UserImageRepository.ImageKey.class);
+        when(key.getId()).thenReturn(id);
+        when(key.getUrl()).thenReturn(url);
+        when(key.getUploadDate()).thenReturn(LocalDateTime.now().minusDays(1));
+        return key;
+    }
+}
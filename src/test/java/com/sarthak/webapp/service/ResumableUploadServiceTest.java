@@ -0,0 +1,172 @@
+package com.sarthak.webapp.service;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.sarthak.webapp.exception.InvalidImageException;
+import com.sarthak.webapp.exception.UploadOffsetMismatchException;
+import com.sarthak.webapp.model.UploadSession;
+import com.sarthak.webapp.model.User;
+import com.sarthak.webapp.repository.UploadSessionRepository;
+import com.sarthak.webapp.resilience.DependencyGuard;
+import com.sarthak.webapp.resilience.DependencyGuards;
+import com.sarthak.webapp.sharding.ShardRouter;
+import com.sarthak.webapp.upload.ImageHeader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ResumableUploadServiceTest {
+
+    @Mock
+    private UploadSessionRepository sessionRepository;
+
+    @Mock
+    private ImageService imageService;
+
+    @Mock
+    private AmazonS3 amazonS3;
+
+    @Mock
+    private DependencyGuards dependencyGuards;
+
+    @Mock
+    private DependencyGuard s3Guard;
+
+    @TempDir
+    Path bufferDir;
+
+    private ResumableUploadService uploadService;
+    private User user;
+    private UploadSession session;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(dependencyGuards.s3()).thenReturn(s3Guard);
+        when(s3Guard.call(any())).thenAnswer(invocation -> ((Supplier<Object>) invocation.getArgument(0)).get());
+        uploadService = new ResumableUploadService(sessionRepository, new ShardRouter(null, 1, Duration.ofSeconds(5)),
+                imageService, amazonS3, dependencyGuards,
+                new SimpleMeterRegistry(), "bucket", DataSize.ofMegabytes(10), DataSize.ofKilobytes(64), DataSize.ofMegabytes(5),
+                Duration.ofHours(24), 2, Duration.ofMinutes(10), bufferDir);
+
+        user = new User();
+        user.setId(1L);
+        session = new UploadSession();
+        session.setId("session-1");
+        session.setUserId(1L);
+        session.setFileName("photo.png");
+        session.setContentType("image/png");
+        session.setSize(6L);
+        session.setS3Key("users/1/object.png");
+        session.setS3UploadId("upload-1");
+        session.setExpiresAt(LocalDateTime.now().plusHours(1));
+        when(sessionRepository.findByIdAndUserId("session-1", 1L)).thenReturn(Optional.of(session));
+        when(imageService.checkUploadHeader(any(), any(), eq(user))).thenReturn(new ImageHeader(ImageHeader.PNG, 1, 1));
+    }
+
+    @Test
+    void createSession_UserAtOpenSessionCap_Refused() {
+        // Arrange
+        when(sessionRepository.countByUserIdAndExpiresAtAfter(eq(1L), any())).thenReturn(2L);
+
+        // Act
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () ->
+                uploadService.createSession(user, "photo.png", "image/png", 6L));
+
+        // Assert
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatusCode());
+        verify(amazonS3, never()).initiateMultipartUpload(any());
+        verify(sessionRepository, never()).save(any());
+    }
+
+    @Test
+    void appendChunk_FirstChunkNotAValidImage_RejectedBeforeBuffering() throws Exception {
+        // Arrange
+        when(imageService.checkUploadHeader(any(), eq("image/png"), eq(user)))
+                .thenThrow(new InvalidImageException("File is not a JPEG or PNG image"));
+
+        // Act
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () ->
+                uploadService.appendChunk(user, "session-1", 0, 3, new ByteArrayInputStream(new byte[]{1, 2, 3})));
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        assertEquals(0, uploadService.getSession(user, "session-1").getOffset());
+        verify(sessionRepository, never()).save(any());
+    }
+
+    @Test
+    void appendChunk_FirstChunk_KeepsDetectedContentType() throws Exception {
+        // Arrange
+        session.setContentType("image/jpg");
+        when(imageService.checkUploadHeader(any(), eq("image/jpg"), eq(user)))
+                .thenReturn(new ImageHeader(ImageHeader.JPEG, 1, 1));
+
+        // Act
+        uploadService.appendChunk(user, "session-1", 0, 3, new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        uploadService.appendChunk(user, "session-1", 3, 3, new ByteArrayInputStream(new byte[]{4, 5, 6}));
+
+        // Assert
+        assertEquals(ImageHeader.JPEG, session.getContentType());
+        assertEquals(6, uploadService.getSession(user, "session-1").getOffset());
+        verify(imageService, times(1)).checkUploadHeader(any(), any(), any());
+    }
+
+    @Test
+    void appendChunk_WrongOffset_ReportsBufferedOffset() throws Exception {
+        // Arrange
+        uploadService.appendChunk(user, "session-1", 0, 3, new ByteArrayInputStream(new byte[]{1, 2, 3}));
+
+        // Act
+        UploadOffsetMismatchException e = assertThrows(UploadOffsetMismatchException.class, () ->
+                uploadService.appendChunk(user, "session-1", 0, 3, new ByteArrayInputStream(new byte[]{1, 2, 3})));
+
+        // Assert
+        assertEquals(3, e.getOffset());
+        assertEquals("3", e.getHeaders().getFirst(UploadOffsetMismatchException.UPLOAD_OFFSET));
+        assertEquals(3, uploadService.getSession(user, "session-1").getOffset());
+        verify(amazonS3, never()).uploadPart(any());
+    }
+
+    @Test
+    void completeSession_AllBytesReceived_UploadsTailAndAttachesImage() throws Exception {
+        // Arrange
+        UploadPartResult part = new UploadPartResult();
+        part.setETag("etag-1");
+        when(amazonS3.uploadPart(any(UploadPartRequest.class))).thenReturn(part);
+        uploadService.appendChunk(user, "session-1", 0, 6, new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6}));
+
+        // Act
+        uploadService.completeSession(user, "session-1");
+
+        // Assert
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(amazonS3).completeMultipartUpload(complete.capture());
+        assertEquals(1, complete.getValue().getPartETags().size());
+        assertEquals("etag-1", complete.getValue().getPartETags().get(0).getETag());
+        verify(sessionRepository).delete(session);
+        verify(imageService).attachUploadedImage(user, "users/1/object.png", "photo.png", "image/png", 6L);
+    }
+}
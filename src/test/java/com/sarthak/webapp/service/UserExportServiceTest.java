@@ -0,0 +1,123 @@
+package com.sarthak.webapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sarthak.webapp.model.User;
+import com.sarthak.webapp.model.UserPageDTO;
+import com.sarthak.webapp.model.UserResponseDTO;
+import com.sarthak.webapp.repository.UserRepository;
+import com.sarthak.webapp.sharding.ShardContext;
+import com.sarthak.webapp.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class UserExportServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserService userService;
+
+    private UserExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(userService.mapToResponseDTO(any(User.class))).thenAnswer(invocation -> {
+            UserResponseDTO dto = new UserResponseDTO();
+            dto.setId(((User) invocation.getArgument(0)).getId());
+            return dto;
+        });
+        exportService = new UserExportService(
+                userRepository,
+                userService,
+                new ShardRouter(null, 2, Duration.ofSeconds(5)),
+                mock(PlatformTransactionManager.class),
+                new ObjectMapper(),
+                new SimpleMeterRegistry(),
+                1000
+        );
+    }
+
+    @Test
+    void listUsers_MergesShardPagesByIdAndReturnsCursor() {
+        // Arrange: shard 0 holds ids 64 and 192, shard 1 holds 129 and 257
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class))).thenAnswer(invocation ->
+                ShardContext.current() == 0 ? List.of(user(64L), user(192L)) : List.of(user(129L), user(257L)));
+
+        // Act
+        UserPageDTO page = exportService.listUsers(0, 3);
+
+        // Assert
+        assertEquals(List.of(64L, 129L, 192L), page.getUsers().stream().map(UserResponseDTO::getId).toList());
+        assertEquals(192L, page.getNext());
+    }
+
+    @Test
+    void listUsers_LastPageHasNoCursor() {
+        // Arrange
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+                .thenAnswer(invocation -> ShardContext.current() == 0 ? List.of(user(64L)) : List.of());
+
+        // Act
+        UserPageDTO page = exportService.listUsers(0, 3);
+
+        // Assert
+        assertEquals(1, page.getUsers().size());
+        assertNull(page.getNext());
+    }
+
+    @Test
+    void export_WritesCsvFromEveryShardWithQuoting() throws Exception {
+        // Arrange
+        UserRepository.UserExport first = export(64L, "Doe, Jane", "=cmd()");
+        UserRepository.UserExport second = export(129L, "John", "Doe");
+        when(userRepository.streamForExport()).thenAnswer(invocation ->
+                ShardContext.current() == 0 ? Stream.of(first) : Stream.of(second));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        exportService.export(out, UserExportService.Format.CSV, false);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(3, lines.length);
+        assertEquals("id,firstName,lastName,email,verified,accountCreated,accountUpdated", lines[0]);
+        assertTrue(lines[1].startsWith("64,\"Doe, Jane\",'=cmd(),"));
+        assertTrue(lines[2].startsWith("129,John,Doe,"));
+        verify(userRepository, never()).streamWithImagesForExport();
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private static UserRepository.UserExport export(long id, String firstName, String lastName) {
+        UserRepository.UserExport user = mock(UserRepository.UserExport.class);
+        when(user.getId()).thenReturn(id);
+        when(user.getFirstName()).thenReturn(firstName);
+        when(user.getLastName()).thenReturn(lastName);
+        when(user.getEmail()).thenReturn(id + "@example.com");
+        when(user.getAccountCreated()).thenReturn(LocalDateTime.of(2024, 1, 1, 0, 0));
+        return user;
+    }
+}
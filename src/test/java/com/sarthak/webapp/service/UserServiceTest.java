@@ -1,15 +1,24 @@
 package com.sarthak.webapp.service;
 
+import com.sarthak.webapp.cache.EmailExistenceFilter;
 import com.sarthak.webapp.model.User;
 import com.sarthak.webapp.model.UserDTO;
 import com.sarthak.webapp.repository.UserRepository;
+import com.sarthak.webapp.security.CredentialStuffingShield;
+import com.sarthak.webapp.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,6 +39,12 @@ public class UserServiceTest {
     @Mock
     private MetricsService metricsService;
 
+    @Mock
+    private CredentialStuffingShield credentialStuffingShield;
+
+    @Mock
+    private EmailExistenceFilter emailExistenceFilter;
+
     private UserService userService;
 
     @BeforeEach
@@ -39,8 +54,14 @@ public class UserServiceTest {
                 userRepository,
                 passwordEncoder,
                 verificationService,
-                metricsService
+                metricsService,
+                credentialStuffingShield,
+                emailExistenceFilter,
+                new ShardRouter(null, 1, Duration.ofSeconds(5)),
+                mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry()
         );
+        when(emailExistenceFilter.mightExist(anyString())).thenReturn(true);
     }
 
     @Test
@@ -54,7 +75,7 @@ public class UserServiceTest {
 
         when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
         when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
             User user = invocation.getArgument(0);
             user.setId(1L);
             return user;
@@ -69,7 +90,7 @@ public class UserServiceTest {
         assertEquals("test@example.com", result.getEmail());
         assertEquals("Test", result.getFirstName());
         assertEquals("User", result.getLastName());
-        verify(userRepository).save(any(User.class));
+        verify(userRepository).saveAndFlush(any(User.class));
         verify(verificationService).sendVerificationEmail(any(User.class));
         verify(metricsService).incrementUserCreations();
     }
@@ -86,10 +107,89 @@ public class UserServiceTest {
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, () -> userService.createUser(userDTO));
-        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).saveAndFlush(any(User.class));
         verify(verificationService, never()).sendVerificationEmail(any(User.class));
     }
 
+    @Test
+    void createUser_RacingDuplicate_FailsBeforeVerificationEmail() {
+        // Arrange
+        UserDTO userDTO = new UserDTO();
+        userDTO.setEmail("racing@example.com");
+        userDTO.setPassword("password123");
+
+        when(userRepository.findByEmail("racing@example.com")).thenReturn(Optional.empty());
+        when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        when(userRepository.saveAndFlush(any(User.class)))
+                .thenThrow(new DataIntegrityViolationException("Unique index or primary key violation"));
+
+        // Act
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> userService.createUser(userDTO));
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        assertEquals("User with this email already exists", e.getReason());
+        verify(verificationService, never()).sendVerificationEmail(any(User.class));
+    }
+
+    @Test
+    void getUserEtag_NeverUpdatedUser_VersionedByCreationTime() {
+        // Arrange
+        LocalDateTime created = LocalDateTime.of(2024, 1, 1, 12, 0);
+        when(userRepository.findVersionByEmail("new@example.com")).thenReturn(Optional.of(version(7L, created, null)));
+        when(userRepository.findVersionByEmail("updated@example.com"))
+                .thenReturn(Optional.of(version(7L, created, created.plusMinutes(5))));
+
+        // Act
+        Optional<String> neverUpdated = userService.getUserEtag("new@example.com");
+        Optional<String> updated = userService.getUserEtag("updated@example.com");
+
+        // Assert
+        assertTrue(neverUpdated.isPresent());
+        assertTrue(updated.isPresent());
+        assertNotEquals(neverUpdated.get(), updated.get());
+    }
+
+    @Test
+    void createUser_CaseVariantOfExistingEmail_ThrowsException() {
+        // Arrange
+        UserDTO userDTO = new UserDTO();
+        userDTO.setEmail(" Existing@Example.COM ");
+        userDTO.setPassword("password123");
+
+        when(userRepository.findByEmail("existing@example.com"))
+                .thenReturn(Optional.of(new User()));
+
+        // Act & Assert
+        assertThrows(ResponseStatusException.class, () -> userService.createUser(userDTO));
+        verify(userRepository, never()).saveAndFlush(any(User.class));
+    }
+
+    @Test
+    void createUser_DefiniteMissInFilter_SkipsLookup() {
+        // Arrange
+        UserDTO userDTO = new UserDTO();
+        userDTO.setFirstName("John");
+        userDTO.setLastName("Doe");
+        userDTO.setEmail("new@example.com");
+        userDTO.setPassword("password123");
+
+        User savedUser = new User();
+        savedUser.setId(1L);
+        savedUser.setEmail("new@example.com");
+
+        when(emailExistenceFilter.mightExist("new@example.com")).thenReturn(false);
+        when(passwordEncoder.encode(anyString())).thenReturn("hashedPassword");
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(savedUser);
+
+        // Act
+        userService.createUser(userDTO);
+
+        // Assert
+        verify(userRepository, never()).findByEmail(anyString());
+        verify(emailExistenceFilter).add("new@example.com");
+    }
+
     @Test
     void createUser_InvalidPassword_ThrowsException() {
         // Arrange
@@ -101,7 +201,7 @@ public class UserServiceTest {
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, () -> userService.createUser(userDTO));
-        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).saveAndFlush(any(User.class));
         verify(verificationService, never()).sendVerificationEmail(any(User.class));
     }
 
@@ -127,6 +227,25 @@ public class UserServiceTest {
         assertEquals("User", result.getLastName());
     }
 
+    @Test
+    void getUserEntityByEmail_GivesEachCallerItsOwnCopy() {
+        // Arrange
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("test@example.com");
+        user.setVerified(true);
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+
+        // Act
+        User first = userService.getUserEntityByEmail("test@example.com");
+        User second = userService.getUserEntityByEmail("test@example.com");
+
+        // Assert
+        assertEquals(user, first);
+        assertNotSame(user, first);
+        assertNotSame(first, second);
+    }
+
     @Test
     void getUserByEmail_NotFound_ThrowsException() {
         // Arrange
@@ -155,7 +274,7 @@ public class UserServiceTest {
 
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(existingUser));
         when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         var result = userService.updateUser(updateDTO, email);
@@ -164,7 +283,7 @@ public class UserServiceTest {
         assertNotNull(result);
         assertEquals("UpdatedFirst", result.getFirstName());
         assertEquals("UpdatedLast", result.getLastName());
-        verify(userRepository).save(any(User.class));
+        verify(userRepository).saveAndFlush(any(User.class));
     }
 
     @Test
@@ -181,7 +300,7 @@ public class UserServiceTest {
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, () -> userService.updateUser(updateDTO, currentEmail));
-        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).saveAndFlush(any(User.class));
     }
 
     @Test
@@ -213,4 +332,23 @@ public class UserServiceTest {
         // Assert
         assertFalse(result);
     }
-}
\ No newline at end of file
+
+    private static UserRepository.UserVersion version(Long id, LocalDateTime created, LocalDateTime updated) {
+        return new UserRepository.UserVersion() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getAccountCreated() {
+                return created;
+            }
+
+            @Override
+            public LocalDateTime getAccountUpdated() {
+                return updated;
+            }
+        };
+    }
+}
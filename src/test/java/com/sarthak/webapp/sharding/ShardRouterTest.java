@@ -0,0 +1,106 @@
+package com.sarthak.webapp.sharding;
+
+import com.sarthak.webapp.exception.DependencyUnavailableException;
+import com.sarthak.webapp.model.ShardBucket;
+import com.sarthak.webapp.repository.ShardBucketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ShardRouterTest {
+
+    @Mock
+    private ShardBucketRepository bucketRepository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void bucketIgnoresCaseAndSurroundingSpaces() {
+        int bucket = ShardKeys.bucket("Jane.Doe@Example.com");
+
+        assertEquals(bucket, ShardKeys.bucket("  jane.doe@example.com "));
+        assertTrue(bucket >= 0 && bucket < ShardKeys.BUCKETS);
+    }
+
+    @Test
+    void singleShardRoutesEveryoneToShardZeroWithoutLoading() {
+        // Arrange
+        ShardRouter router = new ShardRouter(bucketRepository, 1, Duration.ofSeconds(5));
+
+        // Act
+        router.refresh();
+
+        // Assert
+        assertEquals(0, router.shardFor("jane.doe@example.com"));
+        verifyNoInteractions(bucketRepository);
+    }
+
+    @Test
+    void routesByLayoutAndRefusesBucketsBeingMoved() {
+        // Arrange
+        int bucket = ShardKeys.bucket("jane.doe@example.com");
+        List<ShardBucket> rows = layout(bucket, 1, false);
+        when(bucketRepository.findAll()).thenReturn(rows);
+        ShardRouter router = new ShardRouter(bucketRepository, 2, Duration.ofSeconds(5));
+
+        // Act
+        router.refresh();
+
+        // Assert
+        assertEquals(1, router.shardFor("Jane.Doe@example.com"));
+
+        // Arrange
+        when(bucketRepository.findAll()).thenReturn(layout(bucket, 1, true));
+
+        // Act
+        router.refresh();
+
+        // Assert
+        assertThrows(DependencyUnavailableException.class, () -> router.shardFor("jane.doe@example.com"));
+    }
+
+    @Test
+    void writesInitialLayoutOnShardZero() {
+        // Arrange
+        when(bucketRepository.findAll()).thenReturn(List.of());
+        when(bucketRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        ShardRouter router = new ShardRouter(bucketRepository, 2, Duration.ofSeconds(5));
+
+        // Act
+        router.refresh();
+
+        // Assert
+        assertEquals(0, router.shardFor("jane.doe@example.com"));
+        verify(bucketRepository).saveAll(argThat(saved -> ((List<?>) saved).size() == ShardKeys.BUCKETS));
+    }
+
+    @Test
+    void refusesLookupsBeforeTheLayoutIsLoaded() {
+        ShardRouter router = new ShardRouter(bucketRepository, 2, Duration.ofSeconds(5));
+
+        assertThrows(DependencyUnavailableException.class, () -> router.shardFor("jane.doe@example.com"));
+    }
+
+    private static List<ShardBucket> layout(int bucket, int shard, boolean moving) {
+        List<ShardBucket> rows = new ArrayList<>();
+        for (int b = 0; b < ShardKeys.BUCKETS; b++) {
+            ShardBucket row = new ShardBucket();
+            row.setBucket(b);
+            row.setShard(b == bucket ? shard : 0);
+            row.setMoving(b == bucket && moving);
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,53 @@
+package com.sarthak.webapp.sharding;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardSchemaTest {
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+            new DriverManagerDataSource("jdbc:h2:mem:shard-schema-test;DB_CLOSE_DELAY=-1", "sa", ""));
+    private final ShardSchema shardSchema = new ShardSchema(
+            new ShardRouter(null, 1, Duration.ofSeconds(5)), jdbcTemplate, null, null);
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("drop table if exists users");
+        jdbcTemplate.execute("create table users (id bigint primary key, email varchar(255) unique)");
+    }
+
+    @Test
+    void normalizeStoredEmails_LowerCasesOlderAccounts() {
+        // Arrange
+        jdbcTemplate.update("insert into users values (1, 'Alice@Example.com'), (2, ' bob@example.com'), (3, 'carol@example.com')");
+
+        // Act
+        shardSchema.normalizeStoredEmails(0);
+
+        // Assert
+        assertEquals(List.of("alice@example.com", "bob@example.com", "carol@example.com"), emails());
+    }
+
+    @Test
+    void normalizeStoredEmails_KeepsEmailWhoseNormalFormIsTaken() {
+        // Arrange: two accounts for one address, created before sign-up normalized emails
+        jdbcTemplate.update("insert into users values (1, 'Dave@Example.com'), (2, 'dave@example.com'), (3, 'ERIN@example.com')");
+
+        // Act
+        shardSchema.normalizeStoredEmails(0);
+
+        // Assert
+        assertEquals(List.of("Dave@Example.com", "dave@example.com", "erin@example.com"), emails());
+    }
+
+    private List<String> emails() {
+        return jdbcTemplate.queryForList("select email from users order by id", String.class);
+    }
+}
@@ -0,0 +1,237 @@
+package com.sarthak.webapp.sharding;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sarthak.webapp.load.FakeAwsServices;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sign-up, login and a rebalance across two H2 shards, through the real
+ * routing data source, schema preparation and id generator. The rebalance
+ * runs first, while every bucket is still on shard 0.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "webapp.sharding.enabled=true",
+        "spring.datasource.url=" + ShardingIntegrationTest.SHARD_0,
+        "webapp.sharding.shards.1.url=" + ShardingIntegrationTest.SHARD_1,
+        "webapp.sharding.shards.1.username=sa",
+        "webapp.sharding.shards.1.password=",
+        "webapp.sharding.move-batch-size=1024",
+        "webapp.sharding.move-drain=0s",
+        "webapp.email-filter.enabled=false"
+})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ShardingIntegrationTest {
+
+    static final String SHARD_0 = "jdbc:h2:mem:sharding-test-0;DB_CLOSE_DELAY=-1";
+    static final String SHARD_1 = "jdbc:h2:mem:sharding-test-1;DB_CLOSE_DELAY=-1";
+    private static final String PASSWORD = "sharding-test-password";
+
+    private static final FakeAwsServices aws;
+
+    static {
+        try {
+            aws = new FakeAwsServices();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Picked up by the SDK's default credential chain; the stand-ins do not check signatures
+        System.setProperty("aws.accessKeyId", "sharding-test");
+        System.setProperty("aws.secretKey", "sharding-test");
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("aws.region", () -> "us-east-1");
+        registry.add("aws.s3.endpoint", aws::s3Endpoint);
+        registry.add("aws.s3.bucket", () -> "sharding-test-bucket");
+        registry.add("aws.sns.endpoint", aws::snsEndpoint);
+        registry.add("aws.sns.topic.arn", () -> "arn:aws:sns:us-east-1:000000000000:sharding-test");
+        registry.add("user.verification.expiry.minutes", () -> "60");
+        registry.add("webapp.metrics.export", () -> "none");
+    }
+
+    @AfterAll
+    static void stopFakeAws() {
+        aws.close();
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ShardMover shardMover;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final JdbcTemplate shard0 = new JdbcTemplate(new DriverManagerDataSource(SHARD_0, "sa", ""));
+    private final JdbcTemplate shard1 = new JdbcTemplate(new DriverManagerDataSource(SHARD_1, "sa", ""));
+
+    @Test
+    @Order(1)
+    void rebalance_MovesUsersWithTheirRowsAndKeepsThemServed() throws Exception {
+        // Arrange: every bucket starts on shard 0; odd buckets belong on shard 1
+        String staying = emailInBucketOnShard(0);
+        String moving = emailInBucketOnShard(1);
+        String stayingAuth = verifiedUser(staying);
+        String movingAuth = verifiedUser(moving);
+        HttpResponse<String> uploaded = send(upload(movingAuth, png()));
+        assertEquals(201, uploaded.statusCode(), uploaded::body);
+        long movingId = idOf(shard0, moving);
+        assertEquals(0, movingId % ShardKeys.MAX_SHARDS);
+        assertEquals(1, count(shard0, "user_verifications", movingId));
+        assertEquals(1, count(shard0, "user_images", movingId));
+
+        // Act
+        assertTrue(shardMover.startRebalance());
+        awaitRebalance();
+
+        // Assert: the moved user's rows are on shard 1 only, ids unchanged
+        assertEquals(movingId, idOf(shard1, moving));
+        assertEquals(1, count(shard1, "user_verifications", movingId));
+        assertEquals(1, count(shard1, "user_images", movingId));
+        assertEquals(0, count(shard0, "users", movingId));
+        assertEquals(0, count(shard0, "user_images", movingId));
+        assertEquals(List.of(), shard1.queryForList("select id from users where email = ?", Long.class, staying));
+
+        // Both users still log in, each from their own shard
+        assertEquals(200, send(get("/v1/user/self", stayingAuth)).statusCode());
+        assertEquals(200, send(get("/v1/user/self", movingAuth)).statusCode());
+        assertEquals(200, send(get("/v1/user/self/pic", movingAuth)).statusCode());
+    }
+
+    @Test
+    @Order(2)
+    void signUp_RoutesByEmailAndKeepsIdsUniqueAcrossShards() throws Exception {
+        // Arrange: odd buckets on shard 1, whether or not the rebalance above ran
+        assertTrue(shardMover.startRebalance());
+        awaitRebalance();
+        List<String> emails = new ArrayList<>();
+        for (int shard : new int[]{0, 1, 0, 1}) {
+            emails.add(emailInBucketOnShard(shard));
+        }
+
+        // Act
+        List<String> authorizations = new ArrayList<>();
+        for (String email : emails) {
+            authorizations.add(verifiedUser(email));
+        }
+
+        // Assert
+        for (int i = 0; i < emails.size(); i++) {
+            JdbcTemplate home = i % 2 == 0 ? shard0 : shard1;
+            JdbcTemplate other = i % 2 == 0 ? shard1 : shard0;
+            assertEquals(i % 2, idOf(home, emails.get(i)) % ShardKeys.MAX_SHARDS);
+            assertEquals(List.of(), other.queryForList("select id from users where email = ?", Long.class, emails.get(i)));
+            assertEquals(200, send(get("/v1/user/self", authorizations.get(i))).statusCode());
+        }
+        List<Long> ids = new ArrayList<>(shard0.queryForList("select id from users", Long.class));
+        ids.addAll(shard1.queryForList("select id from users", Long.class));
+        assertEquals(ids.size(), new HashSet<>(ids).size());
+    }
+
+    private void awaitRebalance() throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while ("running".equals(shardMover.status().get("state")) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals("completed", shardMover.status().get("state"), shardMover.status()::toString);
+    }
+
+    private static String emailInBucketOnShard(int shard) {
+        while (true) {
+            String email = "shard-" + UUID.randomUUID() + "@example.com";
+            if (ShardKeys.bucket(email) % 2 == shard) {
+                return email;
+            }
+        }
+    }
+
+    private static long idOf(JdbcTemplate shard, String email) {
+        return shard.queryForObject("select id from users where email = ?", Long.class, email);
+    }
+
+    private static int count(JdbcTemplate shard, String table, long userId) {
+        String key = table.equals("users") ? "id" : "user_id";
+        return shard.queryForObject("select count(*) from " + table + " where " + key + " = ?", Integer.class, userId);
+    }
+
+    private String verifiedUser(String email) throws Exception {
+        String json = new ObjectMapper().writeValueAsString(Map.of(
+                "firstName", "Shard", "lastName", "Test", "email", email, "password", PASSWORD));
+        HttpResponse<String> created = send(HttpRequest.newBuilder(uri("/v1/user"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build());
+        assertEquals(201, created.statusCode(), created::body);
+
+        String authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((email + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+        HttpResponse<String> verified = send(get("/v1/verifyEmail?token=" + aws.verificationToken(email), authorization));
+        assertEquals(200, verified.statusCode(), verified::body);
+        return authorization;
+    }
+
+    private HttpRequest get(String path, String authorization) {
+        return HttpRequest.newBuilder(uri(path)).header("Authorization", authorization).GET().build();
+    }
+
+    private HttpRequest upload(String authorization, byte[] file) {
+        String boundary = "shard-" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"avatar.png\"\r\n"
+                + "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(file);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return HttpRequest.newBuilder(uri("/v1/user/self/pic"))
+                .header("Authorization", authorization)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + port + path);
+    }
+
+    private static byte[] png() throws IOException {
+        BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,113 @@
+package com.sarthak.webapp.smoke;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The webapp running as a separate OS process (native executable or {@code java -jar}),
+ * started on a free port. Startup time is measured until {@code /healthz} first answers
+ * 200; memory is read from {@code /proc/<pid>/status}.
+ */
+public class ApplicationProcess implements AutoCloseable {
+
+    private final String name;
+    private final Process process;
+    private final int port;
+    private final Duration startupTime;
+
+    private ApplicationProcess(String name, Process process, int port, Duration startupTime) {
+        this.name = name;
+        this.process = process;
+        this.port = port;
+        this.startupTime = startupTime;
+    }
+
+    public static ApplicationProcess start(String name, List<String> command, List<String> arguments,
+                                           Map<String, String> environment, Path logFile,
+                                           Duration timeout) throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> fullCommand = new ArrayList<>(command);
+        fullCommand.addAll(arguments);
+        fullCommand.add("--server.port=" + port);
+
+        Files.createDirectories(logFile.getParent());
+        ProcessBuilder builder = new ProcessBuilder(fullCommand)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile());
+        builder.environment().putAll(environment);
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/healthz"))
+                .timeout(Duration.ofSeconds(1))
+                .build();
+        long start = System.nanoTime();
+        Process process = builder.start();
+        long deadline = start + timeout.toNanos();
+        while (System.nanoTime() - deadline < 0) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " exited with " + process.exitValue() + ", see " + logFile);
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return new ApplicationProcess(name, process, port, Duration.ofNanos(System.nanoTime() - start));
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(10);
+        }
+        process.destroyForcibly();
+        throw new IllegalStateException(name + " was not healthy within " + timeout + ", see " + logFile);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + port + path);
+    }
+
+    public Duration startupTime() {
+        return startupTime;
+    }
+
+    /**
+     * Resident set size in MiB; {@code peak} reads the high-water mark instead.
+     */
+    public double rssMb(boolean peak) throws IOException {
+        String field = peak ? "VmHWM:" : "VmRSS:";
+        for (String line : Files.readAllLines(Path.of("/proc", Long.toString(process.pid()), "status"))) {
+            if (line.startsWith(field)) {
+                long kb = Long.parseLong(line.substring(field.length()).replace("kB", "").trim());
+                return Math.round(kb / 1024.0 * 10) / 10.0;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(15, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
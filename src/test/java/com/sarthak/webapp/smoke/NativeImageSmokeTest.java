@@ -0,0 +1,281 @@
+package com.sarthak.webapp.smoke;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sarthak.webapp.load.FakeAwsServices;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the native executable against H2 and in-process S3/SNS stand-ins, drives
+ * the main user and picture flows, then compares startup time, memory and
+ * steady-state throughput with the JVM build when its jar is present.
+ * <p>
+ * Build with {@code mvn -Pnative,native-smoke package -DskipTests}, run with
+ * {@code mvn test -Pnative-smoke}. System properties: {@code native.binary},
+ * {@code native.jvm-jar}, {@code native.smoke.warmup}, {@code native.smoke.duration},
+ * {@code native.smoke.concurrency}. The report is written to {@code target/native-smoke}.
+ */
+@Tag("native-smoke")
+public class NativeImageSmokeTest {
+
+    private static final Path OUTPUT_DIRECTORY = Path.of("target/native-smoke");
+    private static final String PASSWORD = "smoke-test-password";
+
+    private static FakeAwsServices aws;
+    private static Path loggingConfig;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @BeforeAll
+    static void startFakeAws() throws IOException {
+        aws = new FakeAwsServices();
+        Files.createDirectories(OUTPUT_DIRECTORY);
+        // Console-only logging; the packaged configuration writes to /var/log/webapp
+        loggingConfig = OUTPUT_DIRECTORY.resolve("logback-smoke.xml");
+        Files.writeString(loggingConfig, """
+                <configuration>
+                    <appender name="CONSOLE" class="ch.qos.logback.core.ConsoleAppender">
+                        <encoder><pattern>%d{HH:mm:ss.SSS} %-5level %logger{36} - %msg%n</pattern></encoder>
+                    </appender>
+                    <root level="INFO"><appender-ref ref="CONSOLE"/></root>
+                </configuration>
+                """);
+    }
+
+    @AfterAll
+    static void stopFakeAws() {
+        aws.close();
+    }
+
+    @Test
+    void nativeExecutableServesMainFlowsAndIsComparedWithJvm() throws Exception {
+        Path binary = Path.of(System.getProperty("native.binary", "target/demo"));
+        Path jar = Path.of(System.getProperty("native.jvm-jar", "target/demo-0.0.1-SNAPSHOT.jar"));
+        assertTrue(Files.isExecutable(binary),
+                binary + " not found; build it with mvn -Pnative,native-smoke package -DskipTests");
+
+        // Arrange
+        Map<String, List<String>> builds = new LinkedHashMap<>();
+        builds.put("native", List.of(binary.toAbsolutePath().toString()));
+        if (Files.isRegularFile(jar)) {
+            String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+            builds.put("jvm", List.of(java, "-jar", jar.toAbsolutePath().toString()));
+        }
+
+        // Act
+        ObjectNode report = objectMapper.createObjectNode();
+        for (Map.Entry<String, List<String>> build : builds.entrySet()) {
+            try (ApplicationProcess app = ApplicationProcess.start(build.getKey(), build.getValue(), arguments(),
+                    Map.of("AWS_ACCESS_KEY_ID", "smoke", "AWS_SECRET_ACCESS_KEY", "smoke"),
+                    OUTPUT_DIRECTORY.resolve(build.getKey() + ".log"), Duration.ofMinutes(2))) {
+                ObjectNode result = report.putObject(build.getKey());
+                result.put("startupMs", app.startupTime().toMillis());
+                result.put("rssAfterStartupMb", app.rssMb(false));
+
+                // Assert
+                String email = runMainFlows(app);
+                result.put("throughputRps", measureThroughput(app, email));
+                result.put("rssAfterLoadMb", app.rssMb(false));
+                result.put("peakRssMb", app.rssMb(true));
+            }
+        }
+        objectMapper.writeValue(OUTPUT_DIRECTORY.resolve("report.json").toFile(), report);
+        Files.writeString(OUTPUT_DIRECTORY.resolve("report.md"), markdown(report));
+        System.out.println(markdown(report));
+    }
+
+    /**
+     * Signup, verification, profile read and update, picture upload, download and delete.
+     * Returns the email of the verified user.
+     */
+    private String runMainFlows(ApplicationProcess app) throws IOException, InterruptedException {
+        String email = "smoke-" + UUID.randomUUID() + "@example.com";
+        String authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((email + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+
+        HttpResponse<String> created = send(HttpRequest.newBuilder(app.uri("/v1/user"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(userJson(email, "Smoke"))));
+        assertEquals(201, created.statusCode(), () -> app.name() + " signup: " + created.body());
+        JsonNode user = objectMapper.readTree(created.body());
+        assertEquals(email, user.get("email").asText());
+        assertFalse(user.has("password"), "password must not be serialized");
+
+        String token = aws.verificationToken(email);
+        assertNotNull(token, app.name() + " did not publish a verification message");
+        HttpResponse<String> verified = send(HttpRequest.newBuilder(app.uri("/v1/verifyEmail?token=" + token))
+                .header("Authorization", authorization).GET());
+        assertEquals(200, verified.statusCode(), () -> app.name() + " verify: " + verified.body());
+
+        HttpResponse<String> updated = send(HttpRequest.newBuilder(app.uri("/v1/user/self"))
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(userJson(email, "Updated"))));
+        assertEquals(204, updated.statusCode(), () -> app.name() + " update: " + updated.body());
+
+        HttpResponse<String> self = send(HttpRequest.newBuilder(app.uri("/v1/user/self"))
+                .header("Authorization", authorization).GET());
+        assertEquals(200, self.statusCode(), () -> app.name() + " get self: " + self.body());
+        assertEquals("Updated", objectMapper.readTree(self.body()).get("firstName").asText());
+
+        String boundary = "smoke-" + UUID.randomUUID();
+        HttpResponse<String> uploaded = send(HttpRequest.newBuilder(app.uri("/v1/user/self/pic"))
+                .header("Authorization", authorization)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(multipart(boundary, png()))));
+        assertEquals(201, uploaded.statusCode(), () -> app.name() + " upload: " + uploaded.body());
+        assertEquals(1, aws.objectCount());
+
+        HttpResponse<String> picture = send(HttpRequest.newBuilder(app.uri("/v1/user/self/pic"))
+                .header("Authorization", authorization).GET());
+        assertEquals(200, picture.statusCode(), () -> app.name() + " get picture: " + picture.body());
+        assertTrue(objectMapper.readTree(picture.body()).has("file_name"));
+
+        HttpResponse<String> deleted = send(HttpRequest.newBuilder(app.uri("/v1/user/self/pic"))
+                .header("Authorization", authorization).DELETE());
+        assertEquals(204, deleted.statusCode(), () -> app.name() + " delete picture: " + deleted.body());
+        assertEquals(0, aws.objectCount());
+        return email;
+    }
+
+    /**
+     * Closed-loop authenticated profile reads; requests per second after warm-up.
+     */
+    private double measureThroughput(ApplicationProcess app, String email) throws InterruptedException {
+        Duration warmup = Duration.parse("PT" + System.getProperty("native.smoke.warmup", "10s"));
+        Duration duration = Duration.parse("PT" + System.getProperty("native.smoke.duration", "20s"));
+        int concurrency = Integer.getInteger("native.smoke.concurrency", 4);
+        HttpRequest request = HttpRequest.newBuilder(app.uri("/v1/user/self"))
+                .header("Authorization", "Basic " + Base64.getEncoder()
+                        .encodeToString((email + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8)))
+                .GET()
+                .build();
+
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder completed = new LongAdder();
+        LongAdder failed = new LongAdder();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                while (running.get()) {
+                    try {
+                        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (measuring.get()) {
+                            (status == 200 ? completed : failed).increment();
+                        }
+                    } catch (IOException e) {
+                        failed.increment();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+        }
+        Thread.sleep(warmup.toMillis());
+        measuring.set(true);
+        Thread.sleep(duration.toMillis());
+        measuring.set(false);
+        running.set(false);
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+
+        assertEquals(0, failed.sum(), app.name() + " failed requests under load");
+        return Math.round(completed.sum() / (duration.toMillis() / 1000.0) * 10) / 10.0;
+    }
+
+    private List<String> arguments() {
+        List<String> arguments = new ArrayList<>();
+        arguments.add("--logging.config=file:" + loggingConfig.toAbsolutePath());
+        arguments.add("--spring.datasource.url=jdbc:h2:mem:smoke;DB_CLOSE_DELAY=-1");
+        arguments.add("--spring.datasource.driver-class-name=org.h2.Driver");
+        arguments.add("--spring.datasource.username=sa");
+        arguments.add("--spring.datasource.password=");
+        arguments.add("--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+        arguments.add("--aws.region=us-east-1");
+        arguments.add("--aws.s3.endpoint=" + aws.s3Endpoint());
+        arguments.add("--aws.s3.bucket=smoke-bucket");
+        arguments.add("--aws.sns.endpoint=" + aws.snsEndpoint());
+        arguments.add("--aws.sns.topic.arn=arn:aws:sns:us-east-1:000000000000:smoke");
+        arguments.add("--user.verification.expiry.minutes=60");
+        arguments.add("--webapp.metrics.export=statsd");
+        return arguments;
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String userJson(String email, String firstName) throws IOException {
+        return objectMapper.writeValueAsString(Map.of(
+                "firstName", firstName,
+                "lastName", "Test",
+                "email", email,
+                "password", PASSWORD));
+    }
+
+    private static String markdown(JsonNode report) {
+        StringBuilder table = new StringBuilder("| build | startup (ms) | RSS after startup (MiB) | throughput (req/s) "
+                + "| RSS after load (MiB) | peak RSS (MiB) |\n|---|---|---|---|---|---|\n");
+        report.fields().forEachRemaining(build -> {
+            JsonNode result = build.getValue();
+            table.append("| ").append(build.getKey())
+                    .append(" | ").append(result.get("startupMs").asLong())
+                    .append(" | ").append(result.get("rssAfterStartupMb").asDouble())
+                    .append(" | ").append(result.get("throughputRps").asDouble())
+                    .append(" | ").append(result.get("rssAfterLoadMb").asDouble())
+                    .append(" | ").append(result.get("peakRssMb").asDouble())
+                    .append(" |\n");
+        });
+        return table.toString();
+    }
+
+    private static byte[] multipart(String boundary, byte[] picture) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"avatar.png\"\r\n"
+                + "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(picture);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return body.toByteArray();
+    }
+
+    private static byte[] png() throws IOException {
+        BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,71 @@
+package com.sarthak.webapp.upload;
+
+import com.sarthak.webapp.exception.InvalidImageException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImageHeaderTest {
+
+    @Test
+    void read_Png_ParsesIhdrDimensions() throws Exception {
+        // Arrange
+        byte[] png = {
+                (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n',
+                0, 0, 0, 13, 'I', 'H', 'D', 'R',
+                0, 0, 0x02, (byte) 0x80, // width 640
+                0, 0, 0x01, (byte) 0xE0, // height 480
+                8, 6, 0, 0, 0};
+
+        // Act
+        ImageHeader header = ImageHeader.read(new ByteArrayInputStream(png), 1024);
+
+        // Assert
+        assertEquals(new ImageHeader(ImageHeader.PNG, 640, 480), header);
+    }
+
+    @Test
+    void read_JpegWithExif_SkipsToFrameHeader() throws Exception {
+        // Arrange
+        byte[] jpeg = {
+                (byte) 0xFF, (byte) 0xD8,
+                (byte) 0xFF, (byte) 0xE1, 0, 6, 'E', 'x', 'i', 'f', // APP1, skipped by length
+                (byte) 0xFF, (byte) 0xC2, 0, 11, 8, 0x04, 0x38, 0x07, (byte) 0x80, 3}; // progressive 1920x1080
+
+        // Act
+        ImageHeader header = ImageHeader.read(new ByteArrayInputStream(jpeg), 1024);
+
+        // Assert
+        assertEquals(new ImageHeader(ImageHeader.JPEG, 1920, 1080), header);
+    }
+
+    @Test
+    void read_NotAnImage_RejectedWithoutReadingFurther() {
+        // Arrange
+        CountingStream in = new CountingStream("GIF89a and a lot more".getBytes(StandardCharsets.US_ASCII));
+
+        // Act
+        assertThrows(InvalidImageException.class, () -> ImageHeader.read(in, 1024));
+
+        // Assert
+        assertEquals(1, in.consumed);
+    }
+
+    private static final class CountingStream extends InputStream {
+        private final byte[] bytes;
+        private int consumed;
+
+        CountingStream(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            return consumed < bytes.length ? bytes[consumed++] & 0xFF : -1;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.sarthak.webapp.upload;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MultipartStreamTest {
+
+    @Test
+    void nextPart_FilePart_StreamsContentBetweenBoundaries() throws Exception {
+        // Arrange
+        String body = "preamble\r\n--xyz\r\n"
+                + "Content-Disposition: form-data; name=\"note\"\r\n\r\nhello\r\n--xyz\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"a.png\"\r\n"
+                + "Content-Type: image/png\r\n\r\n"
+                + "line one\r\n--xy not a boundary\r\n--xyz--\r\n";
+        MultipartStream multipart = new MultipartStream(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                MultipartStream.boundary("multipart/form-data; boundary=xyz"));
+
+        // Act
+        MultipartStream.Part note = multipart.nextPart();
+        MultipartStream.Part file = multipart.nextPart();
+        String content = new String(file.body().readAllBytes(), StandardCharsets.UTF_8);
+
+        // Assert
+        assertEquals("note", note.name());
+        assertEquals("file", file.name());
+        assertEquals("a.png", file.fileName());
+        assertEquals("image/png", file.contentType());
+        assertEquals("line one\r\n--xy not a boundary", content);
+        assertNull(multipart.nextPart());
+    }
+
+    @Test
+    void nextPart_TruncatedBody_Rejected() throws Exception {
+        // Arrange
+        String body = "--xyz\r\nContent-Disposition: form-data; name=\"file\"\r\n\r\npartial";
+        MultipartStream multipart = new MultipartStream(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), "xyz");
+        MultipartStream.Part file = multipart.nextPart();
+
+        // Act & Assert
+        assertThrows(MultipartStream.MalformedMultipartException.class, () -> file.body().readAllBytes());
+    }
+}